@@ -1,5 +1,6 @@
 package org.lsmr.selfcheckout;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -10,7 +11,10 @@ import org.lsmr.selfcheckout.devices.SimulationException;
  * barcodes are a sequence of digits, so that is what is modelled here.
  */
 public class Barcode {
+	private static final Interner<Barcode> POOL = new Interner<Barcode>(4096);
+
 	private Numeral[] digits;
+	private int hash;
 
 	/**
 	 * Constructs a barcode from an array of numerals.
@@ -26,6 +30,16 @@ public class Barcode {
 	 *             If the code's length is &lt;1 or &gt;48.
 	 */
 	public Barcode(Numeral[] code) {
+		this(code, false);
+	}
+
+	// Takes ownership of the digits if they are already validated, or else checks and copies them
+	private Barcode(Numeral[] code, boolean validated) {
+		if(validated) {
+			digits = code;
+			return;
+		}
+
 		if(code == null)
 			throw new SimulationException(new NullPointerException("code is null"));
 
@@ -47,6 +61,307 @@ public class Barcode {
 		}
 	}
 
+	/**
+	 * Parses a barcode from a string of digits. No storage is allocated other
+	 * than the barcode itself.
+	 * 
+	 * @param text
+	 *            The digits.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If text is null, contains a character that is not a digit, or
+	 *             has &lt;1 or &gt;48 characters.
+	 */
+	public static Barcode parse(CharSequence text) {
+		if(text == null)
+			throw new SimulationException(new NullPointerException("text is null"));
+
+		return parse(text, 0, text.length());
+	}
+
+	/**
+	 * Parses a barcode from a range of a string of digits.
+	 * 
+	 * @param text
+	 *            The text holding the digits.
+	 * @param start
+	 *            The index of the first digit.
+	 * @param end
+	 *            The index after the last digit.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If text is null, the range is outside the text, or the range
+	 *             contains a character that is not a digit or has &lt;1 or
+	 *             &gt;48 characters.
+	 */
+	public static Barcode parse(CharSequence text, int start, int end) {
+		if(text == null)
+			throw new SimulationException(new NullPointerException("text is null"));
+
+		checkRange(start, end, text.length());
+		Numeral[] digits = allocate(end - start);
+
+		for(int i = 0; i < digits.length; i++)
+			digits[i] = numeral(text.charAt(start + i), start + i);
+
+		return new Barcode(digits, true);
+	}
+
+	/**
+	 * Parses a barcode from a range of ASCII digits, such as a line of a scanner
+	 * or an import file.
+	 * 
+	 * @param ascii
+	 *            The bytes holding the digits.
+	 * @param offset
+	 *            The index of the first digit.
+	 * @param length
+	 *            The count of digits.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If ascii is null, the range is outside the array, or the range
+	 *             contains a byte that is not a digit or has &lt;1 or &gt;48
+	 *             bytes.
+	 */
+	public static Barcode parse(byte[] ascii, int offset, int length) {
+		if(ascii == null)
+			throw new SimulationException(new NullPointerException("ascii is null"));
+
+		checkRange(offset, offset + length, ascii.length);
+		Numeral[] digits = allocate(length);
+
+		for(int i = 0; i < length; i++)
+			digits[i] = numeral((char)ascii[offset + i], offset + i);
+
+		return new Barcode(digits, true);
+	}
+
+	/**
+	 * Parses a barcode from a range of ASCII digits in a buffer. The position
+	 * and limit of the buffer are not changed.
+	 * 
+	 * @param ascii
+	 *            The buffer holding the digits.
+	 * @param offset
+	 *            The absolute index of the first digit.
+	 * @param length
+	 *            The count of digits.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If ascii is null, the range is outside the buffer's limit, or
+	 *             the range contains a byte that is not a digit or has &lt;1 or
+	 *             &gt;48 bytes.
+	 */
+	public static Barcode parse(ByteBuffer ascii, int offset, int length) {
+		if(ascii == null)
+			throw new SimulationException(new NullPointerException("ascii is null"));
+
+		checkRange(offset, offset + length, ascii.limit());
+		Numeral[] digits = allocate(length);
+
+		for(int i = 0; i < length; i++)
+			digits[i] = numeral((char)ascii.get(offset + i), offset + i);
+
+		return new Barcode(digits, true);
+	}
+
+	/**
+	 * Parses a GTIN (UPC-A, EAN-8, EAN-13 or GTIN-14) from a string of digits,
+	 * rejecting it if its check digit is wrong.
+	 * 
+	 * @param text
+	 *            The digits.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If the text cannot be parsed, is not 8, 12, 13 or 14 digits
+	 *             long, or has the wrong check digit.
+	 */
+	public static Barcode parseGTIN(CharSequence text) {
+		return requireGTIN(parse(text));
+	}
+
+	/**
+	 * Parses a GTIN (UPC-A, EAN-8, EAN-13 or GTIN-14) from a range of a string of
+	 * digits, rejecting it if its check digit is wrong.
+	 * 
+	 * @param text
+	 *            The text holding the digits.
+	 * @param start
+	 *            The index of the first digit.
+	 * @param end
+	 *            The index after the last digit.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If the range cannot be parsed, is not 8, 12, 13 or 14 digits
+	 *             long, or has the wrong check digit.
+	 */
+	public static Barcode parseGTIN(CharSequence text, int start, int end) {
+		return requireGTIN(parse(text, start, end));
+	}
+
+	/**
+	 * Parses a GTIN (UPC-A, EAN-8, EAN-13 or GTIN-14) from a range of ASCII
+	 * digits, rejecting it if its check digit is wrong.
+	 * 
+	 * @param ascii
+	 *            The bytes holding the digits.
+	 * @param offset
+	 *            The index of the first digit.
+	 * @param length
+	 *            The count of digits.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If the range cannot be parsed, is not 8, 12, 13 or 14 digits
+	 *             long, or has the wrong check digit.
+	 */
+	public static Barcode parseGTIN(byte[] ascii, int offset, int length) {
+		return requireGTIN(parse(ascii, offset, length));
+	}
+
+	/**
+	 * Parses a GTIN (UPC-A, EAN-8, EAN-13 or GTIN-14) from a range of ASCII
+	 * digits in a buffer, rejecting it if its check digit is wrong.
+	 * 
+	 * @param ascii
+	 *            The buffer holding the digits.
+	 * @param offset
+	 *            The absolute index of the first digit.
+	 * @param length
+	 *            The count of digits.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If the range cannot be parsed, is not 8, 12, 13 or 14 digits
+	 *             long, or has the wrong check digit.
+	 */
+	public static Barcode parseGTIN(ByteBuffer ascii, int offset, int length) {
+		return requireGTIN(parse(ascii, offset, length));
+	}
+
+	/**
+	 * Gets the pooled barcode with the indicated digits, parsing a new one only
+	 * if it is not pooled. A barcode that is scanned over and over is therefore
+	 * built once.
+	 * 
+	 * @param text
+	 *            The digits.
+	 * @return The canonical barcode.
+	 * @throws SimulationException
+	 *             If text cannot be parsed.
+	 */
+	public static Barcode valueOf(CharSequence text) {
+		if(text == null)
+			throw new SimulationException(new NullPointerException("text is null"));
+
+		// Same as Arrays.hashCode over the numerals, computed without building them
+		int h = 1;
+		int length = text.length();
+
+		for(int i = 0; i < length; i++)
+			h = 31 * h + numeral(text.charAt(i), i).hashCode();
+
+		Barcode pooled = POOL.candidate(h);
+
+		if(pooled != null && pooled.matches(text))
+			return pooled;
+
+		return POOL.intern(parse(text));
+	}
+
+	/**
+	 * Gets the canonical instance of this barcode from a bounded pool shared by
+	 * the whole station. Pooled barcodes compare equal by reference, which makes
+	 * equality checks on the scan path cheap.
+	 * 
+	 * @return The canonical barcode, which may be this one.
+	 */
+	public Barcode intern() {
+		return POOL.intern(this);
+	}
+
+	private boolean matches(CharSequence text) {
+		if(text.length() != digits.length)
+			return false;
+
+		for(int i = 0; i < digits.length; i++)
+			if(text.charAt(i) - '0' != digits[i].getValue())
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Determines whether a code of the indicated length would be a GTIN: 8
+	 * digits (EAN-8), 12 (UPC-A), 13 (EAN-13) or 14 (GTIN-14).
+	 * 
+	 * @param digitCount
+	 *            The count of digits.
+	 * @return true if codes of this length carry a GTIN check digit.
+	 */
+	public static boolean isGTINLength(int digitCount) {
+		return digitCount == 8 || digitCount == 12 || digitCount == 13 || digitCount == 14;
+	}
+
+	/**
+	 * Determines whether this barcode is a GTIN whose last digit is the correct
+	 * check digit for the others. Barcodes of other lengths have no check digit
+	 * and are never valid GTINs.
+	 * 
+	 * @return true if this is a GTIN with a correct check digit.
+	 */
+	public boolean hasValidCheckDigit() {
+		if(!isGTINLength(digits.length))
+			return false;
+
+		// Weights alternate 3, 1, ... leftwards from the digit before the check digit
+		int sum = 0;
+		int weight = 3;
+
+		for(int i = digits.length - 2; i >= 0; i--) {
+			sum += weight * digits[i].getValue();
+			weight = 4 - weight;
+		}
+
+		return (10 - sum % 10) % 10 == digits[digits.length - 1].getValue();
+	}
+
+	private static Barcode requireGTIN(Barcode barcode) {
+		if(!isGTINLength(barcode.digits.length))
+			throw new SimulationException(new IllegalArgumentException(
+				"A GTIN must have 8, 12, 13 or 14 digits, not " + barcode.digits.length + "."));
+
+		if(!barcode.hasValidCheckDigit())
+			throw new SimulationException(
+				new IllegalArgumentException("The check digit of " + barcode + " is wrong."));
+
+		return barcode;
+	}
+
+	private static void checkRange(int start, int end, int length) {
+		if(start < 0 || end > length || start > end)
+			throw new SimulationException(new IndexOutOfBoundsException(
+				"The range " + start + " to " + end + " is outside 0 to " + length + "."));
+	}
+
+	private static Numeral[] allocate(int digitCount) {
+		if(digitCount < 1)
+			throw new SimulationException(
+				new IllegalArgumentException("A barcode cannot contain less than one digit."));
+
+		if(digitCount > 48)
+			throw new SimulationException(
+				new IllegalArgumentException("A barcode cannot contain more than forty-eight digits."));
+
+		return new Numeral[digitCount];
+	}
+
+	private static Numeral numeral(char c, int index) {
+		if(c < '0' || c > '9')
+			throw new SimulationException(
+				new IllegalDigitException("The character at " + index + " is not a digit."));
+
+		return Numeral.valueOf((byte)(c - '0'));
+	}
+
 	/**
 	 * Gets the count of digits in this code.
 	 * 
@@ -86,12 +401,18 @@ public class Barcode {
 
 	@Override
 	public boolean equals(Object object) {
+		if(object == this)
+			return true;
+
 		if(object instanceof Barcode) {
 			Barcode other = (Barcode)object;
 
 			if(other.digits.length != digits.length)
 				return false;
 
+			if(hash != 0 && other.hash != 0 && hash != other.hash)
+				return false;
+
 			for(int i = 0; i < digits.length; i++)
 				if(!digits[i].equals(other.digits[i]))
 					return false;
@@ -104,6 +425,14 @@ public class Barcode {
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(digits);
+		// The digits never change, so the hash is computed at most once
+		int h = hash;
+
+		if(h == 0) {
+			h = Arrays.hashCode(digits);
+			hash = h;
+		}
+
+		return h;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package org.lsmr.selfcheckout;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * A bounded pool of canonical instances of an immutable value type, so that
+ * equal values seen over and over (such as the barcode of a popular product)
+ * can share one instance and be compared by reference.
+ * <p>
+ * The pool is a fixed-size table indexed by hash code. A value whose slot holds
+ * a different value replaces it, so memory never grows but a value that has
+ * been displaced may later be pooled as a new instance. Canonical instances are
+ * therefore an optimization only: equality must still be checked with
+ * {@link Object#equals(Object)}. The pool is safe for use by multiple threads
+ * without locking.
+ * </p>
+ *
+ * @param <T>
+ *            The type of values pooled. Values must be immutable.
+ */
+public final class Interner<T> {
+	private final AtomicReferenceArray<T> slots;
+	private final int mask;
+
+	/**
+	 * Creates an empty pool.
+	 *
+	 * @param capacity
+	 *            The number of values the pool can hold; rounded up to a power of
+	 *            two.
+	 * @throws SimulationException
+	 *             If capacity is &lt;1 or &gt;2<sup>30</sup>.
+	 */
+	public Interner(int capacity) {
+		if(capacity < 1 || capacity > 1 << 30)
+			throw new SimulationException(
+				new IllegalArgumentException("The capacity must be between 1 and 2^30."));
+
+		int size = Integer.highestOneBit(capacity);
+
+		if(size < capacity)
+			size <<= 1;
+
+		slots = new AtomicReferenceArray<T>(size);
+		mask = size - 1;
+	}
+
+	/**
+	 * Gets the pooled instance equal to the indicated value, pooling the value
+	 * itself if there is none.
+	 *
+	 * @param value
+	 *            The value to look up.
+	 * @return The canonical instance, which may be value itself.
+	 * @throws SimulationException
+	 *             If value is null.
+	 */
+	public T intern(T value) {
+		if(value == null)
+			throw new SimulationException(new NullPointerException("value is null"));
+
+		int slot = slotOf(value.hashCode());
+		T pooled = slots.get(slot);
+
+		if(pooled != null && pooled.equals(value))
+			return pooled;
+
+		slots.set(slot, value);
+		return value;
+	}
+
+	/**
+	 * Gets the pooled value, if any, that a value with the indicated hash code
+	 * would share a slot with. Lets a caller compare raw data against the pooled
+	 * value before building a new instance.
+	 *
+	 * @param hashCode
+	 *            The hash code of the wanted value.
+	 * @return The value in that slot, which need not be equal to the wanted one,
+	 *         or null if the slot is empty.
+	 */
+	public T candidate(int hashCode) {
+		return slots.get(slotOf(hashCode));
+	}
+
+	/**
+	 * Gets the maximum number of values the pool holds.
+	 *
+	 * @return The capacity.
+	 */
+	public int capacity() {
+		return slots.length();
+	}
+
+	private int slotOf(int hashCode) {
+		// Spread the high bits, since small codes differ mostly in their low digits
+		return (hashCode ^ (hashCode >>> 16)) & mask;
+	}
+}
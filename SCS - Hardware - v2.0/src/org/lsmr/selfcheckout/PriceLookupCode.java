@@ -11,7 +11,10 @@ import org.lsmr.selfcheckout.devices.SimulationException;
  * purposes in the real world, but we will not worry about that here.
  */
 public class PriceLookupCode {
+	private static final Interner<PriceLookupCode> POOL = new Interner<PriceLookupCode>(1024);
+
 	private Numeral[] numerals;
+	private int hash;
 
 	/**
 	 * Constructs a PLU code from a string of numerals. There must be at least 4
@@ -79,6 +82,16 @@ public class PriceLookupCode {
 		}
 	}
 
+	/**
+	 * Gets the canonical instance of this code from a bounded pool shared by the
+	 * whole station. Pooled codes compare equal by reference.
+	 * 
+	 * @return The canonical code, which may be this one.
+	 */
+	public PriceLookupCode intern() {
+		return POOL.intern(this);
+	}
+
 	@Override
 	public String toString() {
 		char[] characters = new char[numerals.length];
@@ -91,6 +104,9 @@ public class PriceLookupCode {
 
 	@Override
 	public boolean equals(Object object) {
+		if(object == this)
+			return true;
+
 		if(object instanceof PriceLookupCode) {
 			PriceLookupCode other = (PriceLookupCode)object;
 
@@ -109,6 +125,14 @@ public class PriceLookupCode {
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(numerals);
+		// The numerals never change, so the hash is computed at most once
+		int h = hash;
+
+		if(h == 0) {
+			h = Arrays.hashCode(numerals);
+			hash = h;
+		}
+
+		return h;
 	}
 }
@@ -1,6 +1,6 @@
 package org.lsmr.selfcheckout.devices;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 
@@ -67,9 +67,94 @@ public abstract class AbstractDevice<T extends AbstractDeviceObserver> {
 	}
 
 	/**
-	 * A list of the registered observers on this device.
+	 * Selects the enabled event when attaching an observer.
 	 */
-	protected ArrayList<T> observers = new ArrayList<>();
+	public static final long ENABLED = 1L << 0;
+
+	/**
+	 * Selects the disabled event when attaching an observer.
+	 */
+	public static final long DISABLED = 1L << 1;
+
+	/**
+	 * Selects every event of a device when attaching an observer. The events of
+	 * each kind of device are selected by constants of its class, one bit each,
+	 * which may be combined with |.
+	 */
+	public static final long ALL_EVENTS = -1L;
+
+	private static final AbstractDeviceObserver[] NO_OBSERVERS = new AbstractDeviceObserver[0];
+
+	// The registered observers and the events each is attached for, guarded by observerLock
+	private AbstractDeviceObserver[] observers = NO_OBSERVERS;
+	private long[] events = new long[0];
+
+	/**
+	 * For each event bit, the observers attached for that event. The arrays are
+	 * never changed once published: attaching and detaching replace them, under
+	 * observerLock, so events can be announced by index without a lock, an
+	 * iterator or a check of each observer.
+	 */
+	private volatile AbstractDeviceObserver[][] observersByEvent = byEvent(NO_OBSERVERS, events);
+
+	private final Object observerLock = new Object();
+
+	private static AbstractDeviceObserver[][] byEvent(AbstractDeviceObserver[] observers, long[] events) {
+		long any = 0;
+		for(long e : events)
+			any |= e;
+
+		AbstractDeviceObserver[][] table = new AbstractDeviceObserver[Long.SIZE][];
+
+		for(int bit = 0; bit < Long.SIZE; bit++) {
+			long event = 1L << bit;
+
+			if((any & event) == 0) {
+				table[bit] = NO_OBSERVERS;
+				continue;
+			}
+
+			int count = 0;
+			for(long e : events)
+				if((e & event) != 0)
+					count++;
+
+			if(count == observers.length) {
+				table[bit] = observers; // Shared by every event all the observers are attached for
+				continue;
+			}
+
+			AbstractDeviceObserver[] selected = new AbstractDeviceObserver[count];
+			for(int i = 0, j = 0; i < observers.length; i++)
+				if((events[i] & event) != 0)
+					selected[j++] = observers[i];
+			table[bit] = selected;
+		}
+
+		return table;
+	}
+
+	// Publishes a new set of observers; called under observerLock
+	private void update(AbstractDeviceObserver[] observers, long[] events) {
+		this.observers = observers;
+		this.events = events;
+		observersByEvent = byEvent(observers, events);
+	}
+
+	/**
+	 * Gets the observers attached for an event of this device, for announcing it
+	 * to each in turn. Every element is a T. An observer attached or detached
+	 * while the event is being announced does not change the array returned, so
+	 * it affects only later events. The array must not be modified.
+	 * 
+	 * @param event
+	 *            The event, a single bit such as {@link #ENABLED}.
+	 * @return The observers attached for the event, in the order of their
+	 *         attachment.
+	 */
+	protected final AbstractDeviceObserver[] observers(long event) {
+		return observersByEvent[Long.numberOfTrailingZeros(event)];
+	}
 
 	/**
 	 * Locates the indicated observer and removes it such that it will no longer be
@@ -88,7 +173,22 @@ public abstract class AbstractDevice<T extends AbstractDeviceObserver> {
 			throw new SimulationException(new IllegalStateException(
 				"This method may not be used when the device is in an erroneous operation phase."));
 
-		return observers.remove(observer);
+		synchronized(observerLock) {
+			for(int i = 0; i < observers.length; i++) {
+				if(observers[i].equals(observer)) {
+					AbstractDeviceObserver[] remaining = new AbstractDeviceObserver[observers.length - 1];
+					System.arraycopy(observers, 0, remaining, 0, i);
+					System.arraycopy(observers, i + 1, remaining, i, remaining.length - i);
+					long[] remainingEvents = new long[remaining.length];
+					System.arraycopy(events, 0, remainingEvents, 0, i);
+					System.arraycopy(events, i + 1, remainingEvents, i, remaining.length - i);
+					update(remaining, remainingEvents);
+					return true;
+				}
+			}
+
+			return false;
+		}
 	}
 
 	/**
@@ -102,7 +202,9 @@ public abstract class AbstractDevice<T extends AbstractDeviceObserver> {
 			throw new SimulationException(new IllegalStateException(
 				"This method may not be used when the device is in an erroneous operation phase."));
 
-		observers.clear();
+		synchronized(observerLock) {
+			update(NO_OBSERVERS, new long[0]);
+		}
 	}
 
 	/**
@@ -115,6 +217,23 @@ public abstract class AbstractDevice<T extends AbstractDeviceObserver> {
 	 *            The observer to be added.
 	 */
 	public final void attach(T observer) {
+		attach(observer, ALL_EVENTS);
+	}
+
+	/**
+	 * Registers the indicated observer to receive notifications of only the
+	 * indicated events from this device. The observer is not called for the
+	 * others, so it need not be an observer that ignores them.
+	 * <p>
+	 * This operation is permissible during the configuration phase.
+	 * 
+	 * @param observer
+	 *            The observer to be added.
+	 * @param events
+	 *            The events to announce to it: constants of this device's class
+	 *            combined with |, or {@link #ALL_EVENTS}.
+	 */
+	public final void attach(T observer, long events) {
 		if(phase == Phase.ERROR)
 			throw new SimulationException(new IllegalStateException(
 				"This method may not be used when the device is in an erroneous operation phase."));
@@ -123,7 +242,78 @@ public abstract class AbstractDevice<T extends AbstractDeviceObserver> {
 			throw new SimulationException(new IllegalArgumentException(
 				"This method may not receive null, as it has no analogue in the real world."));
 
-		observers.add(observer);
+		if(events == 0)
+			throw new SimulationException(new IllegalArgumentException("An observer must be attached for some event."));
+
+		synchronized(observerLock) {
+			AbstractDeviceObserver[] added = Arrays.copyOf(observers, observers.length + 1);
+			added[observers.length] = observer;
+			long[] addedEvents = Arrays.copyOf(this.events, added.length);
+			addedEvents[observers.length] = events;
+			update(added, addedEvents);
+		}
+	}
+
+	/**
+	 * The queue of this device on its event bus, or null to announce events on
+	 * the calling thread.
+	 */
+	private volatile DeviceEventBus.Lane lane;
+
+	/**
+	 * Has this device announce its events through the indicated bus, on the
+	 * bus's threads and in order, or, when the bus is null, on the thread that
+	 * causes them. Events already queued on a previous bus are still announced by
+	 * that bus.
+	 * <p>
+	 * This operation is permissible during the configuration phase.
+	 * 
+	 * @param bus
+	 *            The bus to use, or null for none.
+	 */
+	public final void setEventBus(DeviceEventBus bus) {
+		if(phase == Phase.ERROR)
+			throw new SimulationException(new IllegalStateException(
+				"This method may not be used when the device is in an erroneous operation phase."));
+
+		lane = bus == null ? null : bus.laneOf(this);
+	}
+
+	/**
+	 * Gets the bus this device announces its events through.
+	 * 
+	 * @return The bus, or null if events are announced on the calling thread.
+	 */
+	public final DeviceEventBus getEventBus() {
+		DeviceEventBus.Lane current = lane;
+		return current == null ? null : current.bus();
+	}
+
+	/**
+	 * Determines whether this device's events go through an event bus, so that a
+	 * notifyXXX method need only build an event for {@link #post(Runnable)} when
+	 * they do.
+	 * 
+	 * @return true if they do.
+	 */
+	protected final boolean hasEventBus() {
+		return lane != null;
+	}
+
+	/**
+	 * Queues an event to be announced after the events this device posted before
+	 * it, or announces it now if this device has no event bus.
+	 * 
+	 * @param event
+	 *            Announces the event to the observers of this device.
+	 */
+	protected final void post(Runnable event) {
+		DeviceEventBus.Lane current = lane;
+
+		if(current == null)
+			event.run();
+		else
+			current.post(event);
 	}
 
 	private boolean disabled = false;
@@ -146,8 +336,16 @@ public abstract class AbstractDevice<T extends AbstractDeviceObserver> {
 	}
 
 	private void notifyDisabled() {
-		for(T observer : observers)
-			observer.disabled(this);
+		if(hasEventBus())
+			post(() -> announceDisabled());
+		else
+			announceDisabled();
+	}
+
+	private void announceDisabled() {
+		AbstractDeviceObserver[] snapshot = observers(DISABLED);
+		for(int i = 0; i < snapshot.length; i++)
+			snapshot[i].disabled(this);
 	}
 
 	/**
@@ -168,8 +366,16 @@ public abstract class AbstractDevice<T extends AbstractDeviceObserver> {
 	}
 
 	private void notifyEnabled() {
-		for(T observer : observers)
-			observer.enabled(this);
+		if(hasEventBus())
+			post(() -> announceEnabled());
+		else
+			announceEnabled();
+	}
+
+	private void announceEnabled() {
+		AbstractDeviceObserver[] snapshot = observers(ENABLED);
+		for(int i = 0; i < snapshot.length; i++)
+			snapshot[i].enabled(this);
 	}
 
 	/**
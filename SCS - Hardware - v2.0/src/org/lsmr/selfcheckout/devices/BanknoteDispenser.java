@@ -7,6 +7,7 @@ import java.util.Queue;
 
 import org.lsmr.selfcheckout.Banknote;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.BanknoteDispenserObserver;
 
 /**
@@ -19,6 +20,30 @@ import org.lsmr.selfcheckout.devices.observers.BanknoteDispenserObserver;
  */
 public final class BanknoteDispenser extends AbstractDevice<BanknoteDispenserObserver>
 	implements FromStorageEmitter<Banknote> {
+	/**
+	 * Selects the {@link BanknoteDispenserObserver#banknoteRemoved} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTE_REMOVED = 1L << 2;
+
+	/**
+	 * Selects the {@link BanknoteDispenserObserver#banknotesEmpty} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTES_EMPTY = 1L << 3;
+
+	/**
+	 * Selects the {@link BanknoteDispenserObserver#banknotesLoaded} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTES_LOADED = 1L << 4;
+
+	/**
+	 * Selects the {@link BanknoteDispenserObserver#banknotesUnloaded} event
+	 * when attaching an observer.
+	 */
+	public static final long BANKNOTES_UNLOADED = 1L << 5;
+
 	private int maxCapacity;
 	private Queue<Banknote> queue = new LinkedList<Banknote>();
 	private UnidirectionalChannel<Banknote> sink;
@@ -192,22 +217,54 @@ public final class BanknoteDispenser extends AbstractDevice<BanknoteDispenserObs
 	}
 
 	private void notifyBanknoteRemoved(Banknote banknote) {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknoteRemoved(this, banknote);
+		if(hasEventBus())
+			post(() -> announceBanknoteRemoved(banknote));
+		else
+			announceBanknoteRemoved(banknote);
+	}
+
+	private void announceBanknoteRemoved(Banknote banknote) {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTE_REMOVED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteDispenserObserver)snapshot[i]).banknoteRemoved(this, banknote);
 	}
 
 	private void notifyBanknotesEmpty() {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknotesEmpty(this);
+		if(hasEventBus())
+			post(() -> announceBanknotesEmpty());
+		else
+			announceBanknotesEmpty();
+	}
+
+	private void announceBanknotesEmpty() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTES_EMPTY);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteDispenserObserver)snapshot[i]).banknotesEmpty(this);
 	}
 
 	private void notifyBanknotesLoaded(Banknote[] banknotes) {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknotesLoaded(this, banknotes);
+		if(hasEventBus())
+			post(() -> announceBanknotesLoaded(banknotes));
+		else
+			announceBanknotesLoaded(banknotes);
+	}
+
+	private void announceBanknotesLoaded(Banknote[] banknotes) {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTES_LOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteDispenserObserver)snapshot[i]).banknotesLoaded(this, banknotes);
 	}
 
 	private void notifyBanknotesUnoaded(Banknote[] banknotes) {
-		for(BanknoteDispenserObserver observer : observers)
-			observer.banknotesUnloaded(this, banknotes);
+		if(hasEventBus())
+			post(() -> announceBanknotesUnoaded(banknotes));
+		else
+			announceBanknotesUnoaded(banknotes);
+	}
+
+	private void announceBanknotesUnoaded(Banknote[] banknotes) {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTES_UNLOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteDispenserObserver)snapshot[i]).banknotesUnloaded(this, banknotes);
 	}
 }
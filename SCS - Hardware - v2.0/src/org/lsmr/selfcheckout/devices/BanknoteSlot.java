@@ -2,6 +2,7 @@ package org.lsmr.selfcheckout.devices;
 
 import org.lsmr.selfcheckout.Banknote;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.BanknoteSlotObserver;
 
 /**
@@ -11,6 +12,24 @@ import org.lsmr.selfcheckout.devices.observers.BanknoteSlotObserver;
  */
 public class BanknoteSlot extends AbstractDevice<BanknoteSlotObserver>
 	implements Acceptor<Banknote>, FlowThroughEmitter<Banknote> {
+	/**
+	 * Selects the {@link BanknoteSlotObserver#banknoteInserted} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTE_INSERTED = 1L << 2;
+
+	/**
+	 * Selects the {@link BanknoteSlotObserver#banknoteEjected} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTE_EJECTED = 1L << 3;
+
+	/**
+	 * Selects the {@link BanknoteSlotObserver#banknoteRemoved} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTE_REMOVED = 1L << 4;
+
 	private BidirectionalChannel<Banknote> sink;
 	private boolean invert;
 
@@ -175,17 +194,41 @@ public class BanknoteSlot extends AbstractDevice<BanknoteSlotObserver>
 	}
 
 	private void notifyBanknoteInserted() {
-		for(BanknoteSlotObserver observer : observers)
-			observer.banknoteInserted(this);
+		if(hasEventBus())
+			post(() -> announceBanknoteInserted());
+		else
+			announceBanknoteInserted();
+	}
+
+	private void announceBanknoteInserted() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTE_INSERTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteSlotObserver)snapshot[i]).banknoteInserted(this);
 	}
 
 	private void notifyBanknoteEjected() {
-		for(BanknoteSlotObserver observer : observers)
-			observer.banknoteEjected(this);
+		if(hasEventBus())
+			post(() -> announceBanknoteEjected());
+		else
+			announceBanknoteEjected();
+	}
+
+	private void announceBanknoteEjected() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTE_EJECTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteSlotObserver)snapshot[i]).banknoteEjected(this);
 	}
 
 	private void notifyBanknoteRemoved() {
-		for(BanknoteSlotObserver observer : observers)
-			observer.banknoteRemoved(this);
+		if(hasEventBus())
+			post(() -> announceBanknoteRemoved());
+		else
+			announceBanknoteRemoved();
+	}
+
+	private void announceBanknoteRemoved() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTE_REMOVED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteSlotObserver)snapshot[i]).banknoteRemoved(this);
 	}
 }
@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.lsmr.selfcheckout.Banknote;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.BanknoteStorageUnitObserver;
 
 /**
@@ -14,6 +15,30 @@ import org.lsmr.selfcheckout.devices.observers.BanknoteStorageUnitObserver;
  * A {@link #load(Banknote...)} method is provided for symmetry.
  */
 public class BanknoteStorageUnit extends AbstractDevice<BanknoteStorageUnitObserver> implements Acceptor<Banknote> {
+	/**
+	 * Selects the {@link BanknoteStorageUnitObserver#banknotesLoaded} event
+	 * when attaching an observer.
+	 */
+	public static final long BANKNOTES_LOADED = 1L << 2;
+
+	/**
+	 * Selects the {@link BanknoteStorageUnitObserver#banknotesUnloaded} event
+	 * when attaching an observer.
+	 */
+	public static final long BANKNOTES_UNLOADED = 1L << 3;
+
+	/**
+	 * Selects the {@link BanknoteStorageUnitObserver#banknotesFull} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTES_FULL = 1L << 4;
+
+	/**
+	 * Selects the {@link BanknoteStorageUnitObserver#banknoteAdded} event when
+	 * attaching an observer.
+	 */
+	public static final long BANKNOTE_ADDED = 1L << 5;
+
 	private Banknote[] storage;
 	private int nextIndex = 0;
 
@@ -178,22 +203,54 @@ public class BanknoteStorageUnit extends AbstractDevice<BanknoteStorageUnitObser
 	}
 
 	private void notifyBanknotesLoaded() {
-		for(BanknoteStorageUnitObserver l : observers)
-			l.banknotesLoaded(this);
+		if(hasEventBus())
+			post(() -> announceBanknotesLoaded());
+		else
+			announceBanknotesLoaded();
+	}
+
+	private void announceBanknotesLoaded() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTES_LOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteStorageUnitObserver)snapshot[i]).banknotesLoaded(this);
 	}
 
 	private void notifyBanknotesUnloaded() {
-		for(BanknoteStorageUnitObserver l : observers)
-			l.banknotesUnloaded(this);
+		if(hasEventBus())
+			post(() -> announceBanknotesUnloaded());
+		else
+			announceBanknotesUnloaded();
+	}
+
+	private void announceBanknotesUnloaded() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTES_UNLOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteStorageUnitObserver)snapshot[i]).banknotesUnloaded(this);
 	}
 
 	private void notifyBanknotesFull() {
-		for(BanknoteStorageUnitObserver l : observers)
-			l.banknotesFull(this);
+		if(hasEventBus())
+			post(() -> announceBanknotesFull());
+		else
+			announceBanknotesFull();
+	}
+
+	private void announceBanknotesFull() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTES_FULL);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteStorageUnitObserver)snapshot[i]).banknotesFull(this);
 	}
 
 	private void notifyBanknoteAdded() {
-		for(BanknoteStorageUnitObserver l : observers)
-			l.banknoteAdded(this);
+		if(hasEventBus())
+			post(() -> announceBanknoteAdded());
+		else
+			announceBanknoteAdded();
+	}
+
+	private void announceBanknoteAdded() {
+		AbstractDeviceObserver[] snapshot = observers(BANKNOTE_ADDED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteStorageUnitObserver)snapshot[i]).banknoteAdded(this);
 	}
 }
@@ -8,6 +8,7 @@ import java.util.Random;
 
 import org.lsmr.selfcheckout.Banknote;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.BanknoteValidatorObserver;
 
 /**
@@ -17,6 +18,18 @@ import org.lsmr.selfcheckout.devices.observers.BanknoteValidatorObserver;
  */
 public final class BanknoteValidator extends AbstractDevice<BanknoteValidatorObserver>
 	implements Acceptor<Banknote>, Emitter<Banknote> {
+	/**
+	 * Selects the {@link BanknoteValidatorObserver#validBanknoteDetected} event
+	 * when attaching an observer.
+	 */
+	public static final long VALID_BANKNOTE_DETECTED = 1L << 2;
+
+	/**
+	 * Selects the {@link BanknoteValidatorObserver#invalidBanknoteDetected}
+	 * event when attaching an observer.
+	 */
+	public static final long INVALID_BANKNOTE_DETECTED = 1L << 3;
+
 	private final Currency currency;
 	private final int[] denominations;
 	private BidirectionalChannel<Banknote> source;
@@ -190,12 +203,28 @@ public final class BanknoteValidator extends AbstractDevice<BanknoteValidatorObs
 	}
 
 	private void notifyValidBanknoteDetected(Banknote banknote) {
-		for(BanknoteValidatorObserver observer : observers)
-			observer.validBanknoteDetected(this, banknote.getCurrency(), banknote.getValue());
+		if(hasEventBus())
+			post(() -> announceValidBanknoteDetected(banknote));
+		else
+			announceValidBanknoteDetected(banknote);
+	}
+
+	private void announceValidBanknoteDetected(Banknote banknote) {
+		AbstractDeviceObserver[] snapshot = observers(VALID_BANKNOTE_DETECTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteValidatorObserver)snapshot[i]).validBanknoteDetected(this, banknote.getCurrency(), banknote.getValue());
 	}
 
 	private void notifyInvalidBanknoteDetected() {
-		for(BanknoteValidatorObserver observer : observers)
-			observer.invalidBanknoteDetected(this);
+		if(hasEventBus())
+			post(() -> announceInvalidBanknoteDetected());
+		else
+			announceInvalidBanknoteDetected();
+	}
+
+	private void announceInvalidBanknoteDetected() {
+		AbstractDeviceObserver[] snapshot = observers(INVALID_BANKNOTE_DETECTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BanknoteValidatorObserver)snapshot[i]).invalidBanknoteDetected(this);
 	}
 }
@@ -1,10 +1,17 @@
 package org.lsmr.selfcheckout.devices;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
+import org.lsmr.selfcheckout.Barcode;
+
 import org.lsmr.selfcheckout.BarcodedItem;
 import org.lsmr.selfcheckout.Item;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.BarcodeScannerObserver;
 
 /**
@@ -12,6 +19,18 @@ import org.lsmr.selfcheckout.devices.observers.BarcodeScannerObserver;
  * about all.
  */
 public class BarcodeScanner extends AbstractDevice<BarcodeScannerObserver> {
+	/**
+	 * Selects the {@link BarcodeScannerObserver#barcodesScanned} event when
+	 * attaching an observer.
+	 */
+	public static final long BARCODES_SCANNED = 1L << 2;
+
+	/**
+	 * Selects the {@link BarcodeScannerObserver#barcodeScanned} event when
+	 * attaching an observer.
+	 */
+	public static final long BARCODE_SCANNED = 1L << 3;
+
 	/**
 	 * Create a barcode scanner.
 	 */
@@ -53,8 +72,72 @@ public class BarcodeScanner extends AbstractDevice<BarcodeScannerObserver> {
 		// otherwise, silently ignore it
 	}
 
+	/**
+	 * Simulates a tunnel or conveyor scanner reading a whole basket in one pass.
+	 * Each item is read as by {@link #scan(Item)}, and the barcodes that were
+	 * read are announced to any registered observers in a single event, in the
+	 * order of the items. Nothing is announced if no barcode was read.
+	 * <p>
+	 * This operation is not permissible during the configuration phase.
+	 * 
+	 * @param items
+	 *            The items to scan.
+	 * @throws SimulationException
+	 *             If items is null or contains null.
+	 */
+	public void scanAll(Collection<? extends Item> items) {
+		if(phase == Phase.ERROR)
+			throw new SimulationException(new IllegalStateException(
+				"This method may not be used when the device is in an erroneous operation phase."));
+		if(phase == Phase.CONFIGURATION)
+			throw new SimulationException(
+				new IllegalStateException("This method may not be called during the configuration phase."));
+
+		if(isDisabled())
+			return; // silently ignore it
+
+		if(items == null)
+			throw new SimulationException(
+				new NullPointerException("items is null, which has no analogue in the real world."));
+
+		List<Barcode> barcodes = new ArrayList<>(items.size());
+
+		for(Item item : items) {
+			if(item == null)
+				throw new SimulationException(
+					new NullPointerException("items contains null, which has no analogue in the real world."));
+
+			if(item instanceof BarcodedItem && random.nextInt(100) >= PROBABILITY_OF_FAILED_SCAN)
+				barcodes.add(((BarcodedItem)item).getBarcode());
+		}
+
+		if(!barcodes.isEmpty())
+			notifyBarcodesScanned(Collections.unmodifiableList(barcodes));
+	}
+
+	private void notifyBarcodesScanned(List<Barcode> barcodes) {
+		if(hasEventBus())
+			post(() -> announceBarcodesScanned(barcodes));
+		else
+			announceBarcodesScanned(barcodes);
+	}
+
+	private void announceBarcodesScanned(List<Barcode> barcodes) {
+		AbstractDeviceObserver[] snapshot = observers(BARCODES_SCANNED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BarcodeScannerObserver)snapshot[i]).barcodesScanned(this, barcodes);
+	}
+
 	private void notifyBarcodeScanned(BarcodedItem item) {
-		for(BarcodeScannerObserver l : observers)
-			l.barcodeScanned(this, item.getBarcode());
+		if(hasEventBus())
+			post(() -> announceBarcodeScanned(item));
+		else
+			announceBarcodeScanned(item);
+	}
+
+	private void announceBarcodeScanned(BarcodedItem item) {
+		AbstractDeviceObserver[] snapshot = observers(BARCODE_SCANNED);
+		for(int i = 0; i < snapshot.length; i++)
+			((BarcodeScannerObserver)snapshot[i]).barcodeScanned(this, item.getBarcode());
 	}
 }
@@ -9,6 +9,7 @@ import org.lsmr.selfcheckout.Card.CardData;
 import org.lsmr.selfcheckout.ChipFailureException;
 import org.lsmr.selfcheckout.MagneticStripeFailureException;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.CardReaderObserver;
 
 /**
@@ -17,6 +18,36 @@ import org.lsmr.selfcheckout.devices.observers.CardReaderObserver;
  * varying probabilities.
  */
 public class CardReader extends AbstractDevice<CardReaderObserver> {
+	/**
+	 * Selects the {@link CardReaderObserver#cardTapped} event when attaching an
+	 * observer.
+	 */
+	public static final long CARD_TAPPED = 1L << 2;
+
+	/**
+	 * Selects the {@link CardReaderObserver#cardInserted} event when attaching
+	 * an observer.
+	 */
+	public static final long CARD_INSERTED = 1L << 3;
+
+	/**
+	 * Selects the {@link CardReaderObserver#cardSwiped} event when attaching an
+	 * observer.
+	 */
+	public static final long CARD_SWIPED = 1L << 4;
+
+	/**
+	 * Selects the {@link CardReaderObserver#cardDataRead} event when attaching
+	 * an observer.
+	 */
+	public static final long CARD_DATA_READ = 1L << 5;
+
+	/**
+	 * Selects the {@link CardReaderObserver#cardRemoved} event when attaching
+	 * an observer.
+	 */
+	public static final long CARD_REMOVED = 1L << 6;
+
 	private boolean cardIsInserted = false;
 
 	/**
@@ -159,27 +190,67 @@ public class CardReader extends AbstractDevice<CardReaderObserver> {
 	}
 
 	private void notifyCardTapped() {
-		for(CardReaderObserver l : observers)
-			l.cardTapped(this);
+		if(hasEventBus())
+			post(() -> announceCardTapped());
+		else
+			announceCardTapped();
+	}
+
+	private void announceCardTapped() {
+		AbstractDeviceObserver[] snapshot = observers(CARD_TAPPED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CardReaderObserver)snapshot[i]).cardTapped(this);
 	}
 
 	private void notifyCardInserted() {
-		for(CardReaderObserver l : observers)
-			l.cardInserted(this);
+		if(hasEventBus())
+			post(() -> announceCardInserted());
+		else
+			announceCardInserted();
+	}
+
+	private void announceCardInserted() {
+		AbstractDeviceObserver[] snapshot = observers(CARD_INSERTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CardReaderObserver)snapshot[i]).cardInserted(this);
 	}
 
 	private void notifyCardSwiped() {
-		for(CardReaderObserver l : observers)
-			l.cardSwiped(this);
+		if(hasEventBus())
+			post(() -> announceCardSwiped());
+		else
+			announceCardSwiped();
+	}
+
+	private void announceCardSwiped() {
+		AbstractDeviceObserver[] snapshot = observers(CARD_SWIPED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CardReaderObserver)snapshot[i]).cardSwiped(this);
 	}
 
 	private void notifyCardDataRead(CardData data) {
-		for(CardReaderObserver l : observers)
-			l.cardDataRead(this, data);
+		if(hasEventBus())
+			post(() -> announceCardDataRead(data));
+		else
+			announceCardDataRead(data);
+	}
+
+	private void announceCardDataRead(CardData data) {
+		AbstractDeviceObserver[] snapshot = observers(CARD_DATA_READ);
+		for(int i = 0; i < snapshot.length; i++)
+			((CardReaderObserver)snapshot[i]).cardDataRead(this, data);
 	}
 
 	private void notifyCardRemoved() {
-		for(CardReaderObserver l : observers)
-			l.cardRemoved(this);
+		if(hasEventBus())
+			post(() -> announceCardRemoved());
+		else
+			announceCardRemoved();
+	}
+
+	private void announceCardRemoved() {
+		AbstractDeviceObserver[] snapshot = observers(CARD_REMOVED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CardReaderObserver)snapshot[i]).cardRemoved(this);
 	}
 }
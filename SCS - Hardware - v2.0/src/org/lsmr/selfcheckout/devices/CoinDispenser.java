@@ -7,6 +7,7 @@ import java.util.Queue;
 
 import org.lsmr.selfcheckout.Coin;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.CoinDispenserObserver;
 
 /**
@@ -20,6 +21,42 @@ import org.lsmr.selfcheckout.devices.observers.CoinDispenserObserver;
  */
 public final class CoinDispenser extends AbstractDevice<CoinDispenserObserver>
 	implements Acceptor<Coin>, FromStorageEmitter<Coin> {
+	/**
+	 * Selects the {@link CoinDispenserObserver#coinsLoaded} event when
+	 * attaching an observer.
+	 */
+	public static final long COINS_LOADED = 1L << 2;
+
+	/**
+	 * Selects the {@link CoinDispenserObserver#coinsUnloaded} event when
+	 * attaching an observer.
+	 */
+	public static final long COINS_UNLOADED = 1L << 3;
+
+	/**
+	 * Selects the {@link CoinDispenserObserver#coinAdded} event when attaching
+	 * an observer.
+	 */
+	public static final long COIN_ADDED = 1L << 4;
+
+	/**
+	 * Selects the {@link CoinDispenserObserver#coinRemoved} event when
+	 * attaching an observer.
+	 */
+	public static final long COIN_REMOVED = 1L << 5;
+
+	/**
+	 * Selects the {@link CoinDispenserObserver#coinsFull} event when attaching
+	 * an observer.
+	 */
+	public static final long COINS_FULL = 1L << 6;
+
+	/**
+	 * Selects the {@link CoinDispenserObserver#coinsEmpty} event when attaching
+	 * an observer.
+	 */
+	public static final long COINS_EMPTY = 1L << 7;
+
 	private int maxCapacity;
 	private Queue<Coin> queue = new LinkedList<Coin>();
 	private UnidirectionalChannel<Coin> sink;
@@ -84,8 +121,16 @@ public final class CoinDispenser extends AbstractDevice<CoinDispenserObserver>
 	}
 
 	private void notifyLoad(Coin[] coins) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsLoaded(this, coins);
+		if(hasEventBus())
+			post(() -> announceLoad(coins));
+		else
+			announceLoad(coins);
+	}
+
+	private void announceLoad(Coin[] coins) {
+		AbstractDeviceObserver[] snapshot = observers(COINS_LOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinDispenserObserver)snapshot[i]).coinsLoaded(this, coins);
 	}
 
 	/**
@@ -110,8 +155,16 @@ public final class CoinDispenser extends AbstractDevice<CoinDispenserObserver>
 	}
 
 	private void notifyUnload(Coin[] coins) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsUnloaded(this, coins);
+		if(hasEventBus())
+			post(() -> announceUnload(coins));
+		else
+			announceUnload(coins);
+	}
+
+	private void announceUnload(Coin[] coins) {
+		AbstractDeviceObserver[] snapshot = observers(COINS_UNLOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinDispenserObserver)snapshot[i]).coinsUnloaded(this, coins);
 	}
 
 	/**
@@ -241,22 +294,54 @@ public final class CoinDispenser extends AbstractDevice<CoinDispenserObserver>
 	}
 
 	private void notifyCoinAdded(Coin coin) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinAdded(this, coin);
+		if(hasEventBus())
+			post(() -> announceCoinAdded(coin));
+		else
+			announceCoinAdded(coin);
+	}
+
+	private void announceCoinAdded(Coin coin) {
+		AbstractDeviceObserver[] snapshot = observers(COIN_ADDED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinDispenserObserver)snapshot[i]).coinAdded(this, coin);
 	}
 
 	private void notifyCoinRemoved(Coin coin) {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinRemoved(this, coin);
+		if(hasEventBus())
+			post(() -> announceCoinRemoved(coin));
+		else
+			announceCoinRemoved(coin);
+	}
+
+	private void announceCoinRemoved(Coin coin) {
+		AbstractDeviceObserver[] snapshot = observers(COIN_REMOVED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinDispenserObserver)snapshot[i]).coinRemoved(this, coin);
 	}
 
 	private void notifyCoinsFull() {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsFull(this);
+		if(hasEventBus())
+			post(() -> announceCoinsFull());
+		else
+			announceCoinsFull();
+	}
+
+	private void announceCoinsFull() {
+		AbstractDeviceObserver[] snapshot = observers(COINS_FULL);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinDispenserObserver)snapshot[i]).coinsFull(this);
 	}
 
 	private void notifyCoinsEmpty() {
-		for(CoinDispenserObserver observer : observers)
-			observer.coinsEmpty(this);
+		if(hasEventBus())
+			post(() -> announceCoinsEmpty());
+		else
+			announceCoinsEmpty();
+	}
+
+	private void announceCoinsEmpty() {
+		AbstractDeviceObserver[] snapshot = observers(COINS_EMPTY);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinDispenserObserver)snapshot[i]).coinsEmpty(this);
 	}
 }
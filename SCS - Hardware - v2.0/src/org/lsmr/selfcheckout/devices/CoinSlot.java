@@ -2,6 +2,7 @@ package org.lsmr.selfcheckout.devices;
 
 import org.lsmr.selfcheckout.Coin;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.CoinSlotObserver;
 
 /**
@@ -10,6 +11,12 @@ import org.lsmr.selfcheckout.devices.observers.CoinSlotObserver;
  * determine the value and currency of the coin.
  */
 public final class CoinSlot extends AbstractDevice<CoinSlotObserver> implements Acceptor<Coin> {
+	/**
+	 * Selects the {@link CoinSlotObserver#coinInserted} event when attaching an
+	 * observer.
+	 */
+	public static final long COIN_INSERTED = 1L << 2;
+
 	private UnidirectionalChannel<Coin> sink;
 
 	/**
@@ -91,7 +98,15 @@ public final class CoinSlot extends AbstractDevice<CoinSlotObserver> implements
 	}
 
 	private void notifyCoinInserted() {
-		for(CoinSlotObserver observer : observers)
-			observer.coinInserted(this);
+		if(hasEventBus())
+			post(() -> announceCoinInserted());
+		else
+			announceCoinInserted();
+	}
+
+	private void announceCoinInserted() {
+		AbstractDeviceObserver[] snapshot = observers(COIN_INSERTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinSlotObserver)snapshot[i]).coinInserted(this);
 	}
 }
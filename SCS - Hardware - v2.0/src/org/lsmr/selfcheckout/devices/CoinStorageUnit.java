@@ -6,6 +6,7 @@ import java.util.List;
 
 import org.lsmr.selfcheckout.Coin;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.CoinStorageUnitObserver;
 
 /**
@@ -15,6 +16,30 @@ import org.lsmr.selfcheckout.devices.observers.CoinStorageUnitObserver;
  * {@link #load(Coin...)} method is provided for symmetry.
  */
 public class CoinStorageUnit extends AbstractDevice<CoinStorageUnitObserver> implements Acceptor<Coin> {
+	/**
+	 * Selects the {@link CoinStorageUnitObserver#coinsLoaded} event when
+	 * attaching an observer.
+	 */
+	public static final long COINS_LOADED = 1L << 2;
+
+	/**
+	 * Selects the {@link CoinStorageUnitObserver#coinsUnloaded} event when
+	 * attaching an observer.
+	 */
+	public static final long COINS_UNLOADED = 1L << 3;
+
+	/**
+	 * Selects the {@link CoinStorageUnitObserver#coinsFull} event when
+	 * attaching an observer.
+	 */
+	public static final long COINS_FULL = 1L << 4;
+
+	/**
+	 * Selects the {@link CoinStorageUnitObserver#coinAdded} event when
+	 * attaching an observer.
+	 */
+	public static final long COIN_ADDED = 1L << 5;
+
 	private Coin[] storage;
 	private int nextIndex = 0;
 
@@ -165,22 +190,54 @@ public class CoinStorageUnit extends AbstractDevice<CoinStorageUnitObserver> imp
 	}
 
 	private void notifyCoinsLoaded() {
-		for(CoinStorageUnitObserver l : observers)
-			l.coinsLoaded(this);
+		if(hasEventBus())
+			post(() -> announceCoinsLoaded());
+		else
+			announceCoinsLoaded();
+	}
+
+	private void announceCoinsLoaded() {
+		AbstractDeviceObserver[] snapshot = observers(COINS_LOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinStorageUnitObserver)snapshot[i]).coinsLoaded(this);
 	}
 
 	private void notifyCoinsUnloaded() {
-		for(CoinStorageUnitObserver l : observers)
-			l.coinsUnloaded(this);
+		if(hasEventBus())
+			post(() -> announceCoinsUnloaded());
+		else
+			announceCoinsUnloaded();
+	}
+
+	private void announceCoinsUnloaded() {
+		AbstractDeviceObserver[] snapshot = observers(COINS_UNLOADED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinStorageUnitObserver)snapshot[i]).coinsUnloaded(this);
 	}
 
 	private void notifyCoinsFull() {
-		for(CoinStorageUnitObserver l : observers)
-			l.coinsFull(this);
+		if(hasEventBus())
+			post(() -> announceCoinsFull());
+		else
+			announceCoinsFull();
+	}
+
+	private void announceCoinsFull() {
+		AbstractDeviceObserver[] snapshot = observers(COINS_FULL);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinStorageUnitObserver)snapshot[i]).coinsFull(this);
 	}
 
 	private void notifyCoinAdded() {
-		for(CoinStorageUnitObserver l : observers)
-			l.coinAdded(this);
+		if(hasEventBus())
+			post(() -> announceCoinAdded());
+		else
+			announceCoinAdded();
+	}
+
+	private void announceCoinAdded() {
+		AbstractDeviceObserver[] snapshot = observers(COIN_ADDED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinStorageUnitObserver)snapshot[i]).coinAdded(this);
 	}
 }
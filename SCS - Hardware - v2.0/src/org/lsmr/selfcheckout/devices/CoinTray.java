@@ -5,12 +5,19 @@ import java.util.List;
 
 import org.lsmr.selfcheckout.Coin;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.CoinTrayObserver;
 
 /**
  * Simulates the tray where dispensed coins go for the user to collect them.
  */
 public class CoinTray extends AbstractDevice<CoinTrayObserver> implements Acceptor<Coin> {
+	/**
+	 * Selects the {@link CoinTrayObserver#coinAdded} event when attaching an
+	 * observer.
+	 */
+	public static final long COIN_ADDED = 1L << 2;
+
 	private Coin[] coins;
 	private int nextIndex = 0;
 
@@ -96,7 +103,15 @@ public class CoinTray extends AbstractDevice<CoinTrayObserver> implements Accept
 	}
 
 	private void notifyCoinAdded() {
-		for(CoinTrayObserver l : observers)
-			l.coinAdded(this);
+		if(hasEventBus())
+			post(() -> announceCoinAdded());
+		else
+			announceCoinAdded();
+	}
+
+	private void announceCoinAdded() {
+		AbstractDeviceObserver[] snapshot = observers(COIN_ADDED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinTrayObserver)snapshot[i]).coinAdded(this);
 	}
 }
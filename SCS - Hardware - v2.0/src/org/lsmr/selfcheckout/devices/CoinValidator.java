@@ -11,6 +11,7 @@ import java.util.Random;
 
 import org.lsmr.selfcheckout.Coin;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.CoinValidatorObserver;
 
 /**
@@ -18,6 +19,18 @@ import org.lsmr.selfcheckout.devices.observers.CoinValidatorObserver;
  * deemed valid are moved to storage; coins deemed invalid are ejected.
  */
 public final class CoinValidator extends AbstractDevice<CoinValidatorObserver> implements Acceptor<Coin> {
+	/**
+	 * Selects the {@link CoinValidatorObserver#validCoinDetected} event when
+	 * attaching an observer.
+	 */
+	public static final long VALID_COIN_DETECTED = 1L << 2;
+
+	/**
+	 * Selects the {@link CoinValidatorObserver#invalidCoinDetected} event when
+	 * attaching an observer.
+	 */
+	public static final long INVALID_COIN_DETECTED = 1L << 3;
+
 	public final Currency currency;
 	private List<BigDecimal> denominations;
 	private UnidirectionalChannel<Coin> rejectionSink, overflowSink;
@@ -257,12 +270,28 @@ public final class CoinValidator extends AbstractDevice<CoinValidatorObserver> i
 	}
 
 	private void notifyValidCoinDetected(Coin coin) {
-		for(CoinValidatorObserver observer : observers)
-			observer.validCoinDetected(this, coin.getValue());
+		if(hasEventBus())
+			post(() -> announceValidCoinDetected(coin));
+		else
+			announceValidCoinDetected(coin);
+	}
+
+	private void announceValidCoinDetected(Coin coin) {
+		AbstractDeviceObserver[] snapshot = observers(VALID_COIN_DETECTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinValidatorObserver)snapshot[i]).validCoinDetected(this, coin.getValue());
 	}
 
 	private void notifyInvalidCoinDetected(Coin coin) {
-		for(CoinValidatorObserver observer : observers)
-			observer.invalidCoinDetected(this);
+		if(hasEventBus())
+			post(() -> announceInvalidCoinDetected(coin));
+		else
+			announceInvalidCoinDetected(coin);
+	}
+
+	private void announceInvalidCoinDetected(Coin coin) {
+		AbstractDeviceObserver[] snapshot = observers(INVALID_COIN_DETECTED);
+		for(int i = 0; i < snapshot.length; i++)
+			((CoinValidatorObserver)snapshot[i]).invalidCoinDetected(this);
 	}
 }
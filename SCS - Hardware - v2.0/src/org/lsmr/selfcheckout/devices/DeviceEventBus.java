@@ -0,0 +1,186 @@
+package org.lsmr.selfcheckout.devices;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Announces the events of devices on the threads of an executor instead of the
+ * thread that acted on the device, so that a slow observer does not hold up the
+ * device. Each device that uses the bus has its own queue: its events are
+ * announced one at a time, in the order they happened, while the events of
+ * different devices may be announced at the same time on different threads.
+ * <p>
+ * A device uses the bus once it is passed to
+ * {@link AbstractDevice#setEventBus(DeviceEventBus)}; devices without a bus
+ * announce their events on the calling thread, as before. A bus on
+ * {@link #synchronous()} announces each event on the thread that caused it,
+ * before the device's method returns, but still in order, which suits tests.
+ * </p>
+ * <p>
+ * An observer that asks a device about its state sees the state when the event
+ * is announced, which may be later than when it happened; the arguments of the
+ * event are those of when it happened. An exception thrown by an observer
+ * cannot reach the device's caller; it is counted and the device's later events
+ * are still announced.
+ * </p>
+ */
+public class DeviceEventBus {
+	/**
+	 * The most events of one device announced before the thread is handed back to
+	 * the executor, so one busy device cannot starve the others.
+	 */
+	private static final int BATCH = 64;
+
+	private final Executor executor;
+	private final Map<AbstractDevice<?>, Lane> lanes = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a bus that announces events on the threads of the indicated
+	 * executor. The executor is not shut down by the bus.
+	 *
+	 * @param executor
+	 *            The executor to run announcements on.
+	 * @throws SimulationException
+	 *             If executor is null.
+	 */
+	public DeviceEventBus(Executor executor) {
+		if(executor == null)
+			throw new SimulationException(new NullPointerException("executor is null"));
+
+		this.executor = executor;
+	}
+
+	/**
+	 * Creates a bus that announces events on the thread that caused them.
+	 *
+	 * @return The new bus.
+	 */
+	public static DeviceEventBus synchronous() {
+		return new DeviceEventBus(Runnable::run);
+	}
+
+	// Gets the queue of the device, creating it on first use
+	Lane laneOf(AbstractDevice<?> device) {
+		return lanes.computeIfAbsent(device, d -> new Lane());
+	}
+
+	/**
+	 * Gets the number of events of a device waiting to be announced, or being
+	 * announced.
+	 *
+	 * @param device
+	 *            The device.
+	 * @return The count; 0 if the device has not used this bus.
+	 */
+	public int getQueueDepth(AbstractDevice<?> device) {
+		Lane lane = lanes.get(device);
+		return lane == null ? 0 : lane.depth.get();
+	}
+
+	/**
+	 * Gets the greatest number of events of a device that have waited at once.
+	 *
+	 * @param device
+	 *            The device.
+	 * @return The count; 0 if the device has not used this bus.
+	 */
+	public int getMaxQueueDepth(AbstractDevice<?> device) {
+		Lane lane = lanes.get(device);
+		return lane == null ? 0 : lane.maxDepth.get();
+	}
+
+	/**
+	 * Gets the number of events of a device that have been announced.
+	 *
+	 * @param device
+	 *            The device.
+	 * @return The count; 0 if the device has not used this bus.
+	 */
+	public long getDeliveredCount(AbstractDevice<?> device) {
+		Lane lane = lanes.get(device);
+		return lane == null ? 0 : lane.delivered.get();
+	}
+
+	/**
+	 * Gets the number of events of a device whose announcement was cut short by
+	 * an exception from an observer.
+	 *
+	 * @param device
+	 *            The device.
+	 * @return The count; 0 if the device has not used this bus.
+	 */
+	public long getFailureCount(AbstractDevice<?> device) {
+		Lane lane = lanes.get(device);
+		return lane == null ? 0 : lane.failures.get();
+	}
+
+	/**
+	 * The queue of one device. At most one thread announces its events at a time:
+	 * the one that set scheduled.
+	 */
+	final class Lane {
+		private final ConcurrentLinkedQueue<Runnable> events = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private final AtomicInteger depth = new AtomicInteger();
+		private final AtomicInteger maxDepth = new AtomicInteger();
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+		private final Runnable drain = this::drain;
+
+		DeviceEventBus bus() {
+			return DeviceEventBus.this;
+		}
+
+		void post(Runnable event) {
+			events.add(event);
+			int d = depth.incrementAndGet();
+
+			for(int max = maxDepth.get(); d > max && !maxDepth.compareAndSet(max, d); max = maxDepth.get())
+				;
+
+			schedule();
+		}
+
+		private void schedule() {
+			if(!events.isEmpty() && scheduled.compareAndSet(false, true)) {
+				try {
+					executor.execute(drain);
+				}
+				catch(RuntimeException e) {
+					scheduled.set(false);
+					throw e;
+				}
+			}
+		}
+
+		private void drain() {
+			for(int i = 0; i < BATCH; i++) {
+				Runnable event = events.poll();
+
+				if(event == null)
+					break;
+
+				try {
+					event.run();
+				}
+				catch(RuntimeException e) {
+					failures.incrementAndGet();
+				}
+
+				// Leave the queue before counting the delivery, so whoever sees it counted
+				// also sees the queue without it
+				depth.decrementAndGet();
+				delivered.incrementAndGet();
+			}
+
+			scheduled.set(false);
+			// Events posted while this thread was finishing, or left over from the batch
+			schedule();
+		}
+	}
+}
@@ -2,12 +2,36 @@ package org.lsmr.selfcheckout.devices;
 
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 import org.lsmr.selfcheckout.Item;
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.ElectronicScaleObserver;
 
 public class ElectronicScale extends AbstractDevice<ElectronicScaleObserver> {
+	/**
+	 * Selects the {@link ElectronicScaleObserver#overload} event when attaching
+	 * an observer.
+	 */
+	public static final long OVERLOAD = 1L << 2;
+
+	/**
+	 * Selects the {@link ElectronicScaleObserver#outOfOverload} event when
+	 * attaching an observer.
+	 */
+	public static final long OUT_OF_OVERLOAD = 1L << 3;
+
+	/**
+	 * Selects the {@link ElectronicScaleObserver#weightChanged} event when
+	 * attaching an observer.
+	 */
+	public static final long WEIGHT_CHANGED = 1L << 4;
+
 	private ArrayList<Item> items = new ArrayList<>();
 
 	private double weightLimitInGrams;
@@ -15,6 +39,25 @@ public class ElectronicScale extends AbstractDevice<ElectronicScaleObserver> {
 	private double weightAtLastEvent = 0;
 	private double sensitivity;
 
+	// Coalescing of weight changes, guarded by this; a window of 0 announces every change at once
+	private long windowNanos;
+	private LongSupplier clock;
+	private boolean timed; // Whether settle() is called by the settler thread
+	private boolean pending; // Whether a change has not yet settled
+	private long lastChangeAt;
+	private double pendingWeightInGrams;
+	private double settledWeightInGrams;
+	private ScheduledFuture<?> settling;
+
+	// Settles the scales that coalesce without a clock of their own
+	private static class Settler {
+		static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "scale-settler");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
 	/**
 	 * Constructs an electronic scale with the indicated maximum weight that it can
 	 * handle before going into overload. The constructed scale will initially be in
@@ -123,7 +166,9 @@ public class ElectronicScale extends AbstractDevice<ElectronicScaleObserver> {
 		if(currentWeightInGrams > weightLimitInGrams)
 			notifyOverload();
 
-		if(Math.abs(currentWeightInGrams - weightAtLastEvent) > sensitivity)
+		if(isCoalescing())
+			changed(currentWeightInGrams);
+		else if(Math.abs(currentWeightInGrams - weightAtLastEvent) > sensitivity)
 			notifyWeightChanged();
 	}
 
@@ -163,26 +208,243 @@ public class ElectronicScale extends AbstractDevice<ElectronicScaleObserver> {
 		if(original > weightLimitInGrams && newWeightInGrams <= weightLimitInGrams)
 			notifyOutOfOverload();
 
-		if(currentWeightInGrams <= weightLimitInGrams && Math.abs(original - currentWeightInGrams) > sensitivity)
+		if(isCoalescing())
+			changed(currentWeightInGrams);
+		else if(currentWeightInGrams <= weightLimitInGrams && Math.abs(original - currentWeightInGrams) > sensitivity)
 			notifyWeightChanged();
 	}
 
+	/**
+	 * Has the scale announce only settled weights: a change in weight is held
+	 * until the weight has not changed again for the indicated window, and then
+	 * announced once, if it differs by more than the sensitivity from the weight
+	 * last announced and the scale is not overloaded. So at most
+	 * one weight changed event is announced per window, however often the weight
+	 * changes while a load settles. Overload events are still announced at once.
+	 * <p>
+	 * Settled weights are announced on a thread shared by the scales.
+	 * </p>
+	 * <p>
+	 * This operation is permissible during all phases except the error phase.
+	 * </p>
+	 * 
+	 * @param window
+	 *            How long the weight must be steady, &gt;0.
+	 * @param unit
+	 *            The unit of the window.
+	 * @throws SimulationException
+	 *             If unit is null or the window is not positive.
+	 */
+	public void setCoalescing(long window, TimeUnit unit) {
+		setCoalescing(window, unit, System::nanoTime, true);
+	}
+
+	/**
+	 * Has the scale announce only settled weights, as
+	 * {@link #setCoalescing(long, TimeUnit)} does, reading the time from the
+	 * indicated clock. Settled weights are then announced only when
+	 * {@link #settle()} is called, such as at each sample of the load cell.
+	 * <p>
+	 * This operation is permissible during all phases except the error phase.
+	 * </p>
+	 * 
+	 * @param window
+	 *            How long the weight must be steady, &gt;0.
+	 * @param unit
+	 *            The unit of the window.
+	 * @param clock
+	 *            Supplies the current time in nanoseconds.
+	 * @throws SimulationException
+	 *             If an argument is null or the window is not positive.
+	 */
+	public void setCoalescing(long window, TimeUnit unit, LongSupplier clock) {
+		setCoalescing(window, unit, clock, false);
+	}
+
+	private void setCoalescing(long window, TimeUnit unit, LongSupplier clock, boolean timed) {
+		if(phase == Phase.ERROR)
+			throw new SimulationException(
+				"This method may not be used when the device is in an erroneous operation phase.");
+
+		if(unit == null)
+			throw new SimulationException(new NullPointerException("unit is null"));
+
+		if(clock == null)
+			throw new SimulationException(new NullPointerException("clock is null"));
+
+		if(window <= 0)
+			throw new SimulationException(new IllegalArgumentException("The window must be positive."));
+
+		synchronized(this) {
+			if(!isCoalescing()) {
+				settledWeightInGrams = weightAtLastEvent;
+				pending = false;
+			}
+
+			windowNanos = unit.toNanos(window);
+			this.clock = clock;
+			this.timed = timed;
+			cancelSettling();
+			schedule();
+		}
+	}
+
+	/**
+	 * Has the scale announce every change in weight greater than its
+	 * sensitivity at once again. A change not yet settled is announced now.
+	 */
+	public void stopCoalescing() {
+		boolean announce;
+		double weight;
+
+		synchronized(this) {
+			if(!isCoalescing())
+				return;
+
+			windowNanos = 0;
+			cancelSettling();
+			announce = pending && differs(pendingWeightInGrams);
+			weight = pendingWeightInGrams;
+			pending = false;
+			weightAtLastEvent = announce ? weight : settledWeightInGrams;
+		}
+
+		if(announce)
+			notifyWeightChanged(weight);
+	}
+
+	/**
+	 * Determines whether the scale announces only settled weights.
+	 * 
+	 * @return true if it does.
+	 */
+	public synchronized boolean isCoalescing() {
+		return windowNanos > 0;
+	}
+
+	/**
+	 * Determines whether the weight on the scale is steady: it has not changed
+	 * within the coalescing window. A scale that does not coalesce is always
+	 * steady, as each change is announced when it happens.
+	 * 
+	 * @return true if the weight is steady.
+	 */
+	public synchronized boolean isStable() {
+		return !isCoalescing() || !pending || clock.getAsLong() - lastChangeAt >= windowNanos;
+	}
+
+	/**
+	 * Announces the weight on the scale if it has settled since it last changed,
+	 * and differs by more than the sensitivity from the weight last announced.
+	 * Has no effect on a scale that does not coalesce.
+	 * 
+	 * @return true if a weight was announced.
+	 */
+	public boolean settle() {
+		double weight;
+
+		synchronized(this) {
+			if(!isCoalescing() || !pending || clock.getAsLong() - lastChangeAt < windowNanos)
+				return false;
+
+			pending = false;
+
+			if(!differs(pendingWeightInGrams))
+				return false;
+
+			weight = pendingWeightInGrams;
+			settledWeightInGrams = weight;
+			weightAtLastEvent = weight;
+		}
+
+		notifyWeightChanged(weight);
+		return true;
+	}
+
+	// Notes a change in weight, restarting the window
+	private synchronized void changed(double weightInGrams) {
+		pending = true;
+		pendingWeightInGrams = weightInGrams;
+		lastChangeAt = clock.getAsLong();
+		schedule();
+	}
+
+	private boolean differs(double weightInGrams) {
+		return weightInGrams <= weightLimitInGrams && Math.abs(weightInGrams - settledWeightInGrams) > sensitivity;
+	}
+
+	// Has the settler thread settle the scale once its window has passed; called under the lock
+	private void schedule() {
+		if(!timed || !pending || settling != null)
+			return;
+
+		long delay = lastChangeAt + windowNanos - clock.getAsLong();
+		settling = Settler.TIMER.schedule(this::settleOnTimer, Math.max(delay, 0), TimeUnit.NANOSECONDS);
+	}
+
+	private void settleOnTimer() {
+		synchronized(this) {
+			settling = null;
+		}
+
+		settle();
+
+		synchronized(this) {
+			// The weight changed again within the window
+			schedule();
+		}
+	}
+
+	private void cancelSettling() {
+		if(settling != null) {
+			settling.cancel(false);
+			settling = null;
+		}
+	}
+
 	private void notifyOverload() {
-		for(ElectronicScaleObserver l : observers)
-			l.overload(this);
+		if(hasEventBus())
+			post(() -> announceOverload());
+		else
+			announceOverload();
+	}
+
+	private void announceOverload() {
+		AbstractDeviceObserver[] snapshot = observers(OVERLOAD);
+		for(int i = 0; i < snapshot.length; i++)
+			((ElectronicScaleObserver)snapshot[i]).overload(this);
 	}
 
 	private void notifyOutOfOverload() {
 		weightAtLastEvent = currentWeightInGrams;
 
-		for(ElectronicScaleObserver l : observers)
-			l.outOfOverload(this);
+		if(hasEventBus())
+			post(() -> announceOutOfOverload());
+		else
+			announceOutOfOverload();
+	}
+
+	private void announceOutOfOverload() {
+		AbstractDeviceObserver[] snapshot = observers(OUT_OF_OVERLOAD);
+		for(int i = 0; i < snapshot.length; i++)
+			((ElectronicScaleObserver)snapshot[i]).outOfOverload(this);
 	}
 
 	private void notifyWeightChanged() {
 		weightAtLastEvent = currentWeightInGrams;
+		notifyWeightChanged(currentWeightInGrams);
+	}
+
+	private void notifyWeightChanged(double weightInGrams) {
+		if(hasEventBus())
+			post(() -> announceWeightChanged(weightInGrams));
+		else
+			announceWeightChanged(weightInGrams);
+	}
 
-		for(ElectronicScaleObserver l : observers)
-			l.weightChanged(this, currentWeightInGrams);
+	private void announceWeightChanged(double weightInGrams) {
+		AbstractDeviceObserver[] snapshot = observers(WEIGHT_CHANGED);
+		for(int i = 0; i < snapshot.length; i++)
+			((ElectronicScaleObserver)snapshot[i]).weightChanged(this, weightInGrams);
 	}
 }
@@ -1,6 +1,7 @@
 package org.lsmr.selfcheckout.devices;
 
 import org.lsmr.selfcheckout.devices.AbstractDevice.Phase;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.ReceiptPrinterObserver;
 
 /**
@@ -13,6 +14,30 @@ import org.lsmr.selfcheckout.devices.observers.ReceiptPrinterObserver;
  * </p>
  */
 public class ReceiptPrinter extends AbstractDevice<ReceiptPrinterObserver> {
+	/**
+	 * Selects the {@link ReceiptPrinterObserver#outOfInk} event when attaching
+	 * an observer.
+	 */
+	public static final long OUT_OF_INK = 1L << 2;
+
+	/**
+	 * Selects the {@link ReceiptPrinterObserver#inkAdded} event when attaching
+	 * an observer.
+	 */
+	public static final long INK_ADDED = 1L << 3;
+
+	/**
+	 * Selects the {@link ReceiptPrinterObserver#outOfPaper} event when
+	 * attaching an observer.
+	 */
+	public static final long OUT_OF_PAPER = 1L << 4;
+
+	/**
+	 * Selects the {@link ReceiptPrinterObserver#paperAdded} event when
+	 * attaching an observer.
+	 */
+	public static final long PAPER_ADDED = 1L << 5;
+
 	public static final int MAXIMUM_INK = 1 << 20;
 	public static final int MAXIMUM_PAPER = 1 << 10;
 	private int charactersOfInkRemaining = 0;
@@ -183,22 +208,54 @@ public class ReceiptPrinter extends AbstractDevice<ReceiptPrinterObserver> {
 	}
 
 	private void notifyOutOfInk() {
-		for(ReceiptPrinterObserver l : observers)
-			l.outOfInk(this);
+		if(hasEventBus())
+			post(() -> announceOutOfInk());
+		else
+			announceOutOfInk();
+	}
+
+	private void announceOutOfInk() {
+		AbstractDeviceObserver[] snapshot = observers(OUT_OF_INK);
+		for(int i = 0; i < snapshot.length; i++)
+			((ReceiptPrinterObserver)snapshot[i]).outOfInk(this);
 	}
 
 	private void notifyInkAdded() {
-		for(ReceiptPrinterObserver l : observers)
-			l.inkAdded(this);
+		if(hasEventBus())
+			post(() -> announceInkAdded());
+		else
+			announceInkAdded();
+	}
+
+	private void announceInkAdded() {
+		AbstractDeviceObserver[] snapshot = observers(INK_ADDED);
+		for(int i = 0; i < snapshot.length; i++)
+			((ReceiptPrinterObserver)snapshot[i]).inkAdded(this);
 	}
 
 	private void notifyOutOfPaper() {
-		for(ReceiptPrinterObserver l : observers)
-			l.outOfPaper(this);
+		if(hasEventBus())
+			post(() -> announceOutOfPaper());
+		else
+			announceOutOfPaper();
+	}
+
+	private void announceOutOfPaper() {
+		AbstractDeviceObserver[] snapshot = observers(OUT_OF_PAPER);
+		for(int i = 0; i < snapshot.length; i++)
+			((ReceiptPrinterObserver)snapshot[i]).outOfPaper(this);
 	}
 
 	private void notifyPaperAdded() {
-		for(ReceiptPrinterObserver l : observers)
-			l.paperAdded(this);
+		if(hasEventBus())
+			post(() -> announcePaperAdded());
+		else
+			announcePaperAdded();
+	}
+
+	private void announcePaperAdded() {
+		AbstractDeviceObserver[] snapshot = observers(PAPER_ADDED);
+		for(int i = 0; i < snapshot.length; i++)
+			((ReceiptPrinterObserver)snapshot[i]).paperAdded(this);
 	}
 }
@@ -1,5 +1,7 @@
 package org.lsmr.selfcheckout.devices.observers;
 
+import java.util.List;
+
 import org.lsmr.selfcheckout.Barcode;
 import org.lsmr.selfcheckout.devices.BarcodeScanner;
 
@@ -17,4 +19,20 @@ public interface BarcodeScannerObserver extends AbstractDeviceObserver {
 	 */
 	void barcodeScanned(BarcodeScanner barcodeScanner, Barcode barcode);
 
+	/**
+	 * An event announcing that the indicated barcodes have been read in one pass,
+	 * such as by a tunnel scanner. By default, each barcode is announced to
+	 * {@link #barcodeScanned(BarcodeScanner, Barcode)} in turn.
+	 * 
+	 * @param barcodeScanner
+	 *            The device on which the event occurred.
+	 * @param barcodes
+	 *            The barcodes that were read, in the order the items were
+	 *            presented. The list cannot be modified.
+	 */
+	default void barcodesScanned(BarcodeScanner barcodeScanner, List<Barcode> barcodes) {
+		for(Barcode barcode : barcodes)
+			barcodeScanned(barcodeScanner, barcode);
+	}
+
 }
@@ -4,7 +4,6 @@ import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
 import java.util.Currency;
-import java.util.HashMap;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -16,14 +15,15 @@ import org.lsmr.selfcheckout.Numeral;
 import org.lsmr.selfcheckout.customer.BaggingAreaController;
 import org.lsmr.selfcheckout.customer.PaymentController;
 import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
 import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
 
 public class BaggingAreaControllerTest extends BaseTestClass {
 	private BaggingAreaController BACController;
 	private ScanItemController SICController;
-	private HashMap<Barcode, BigDecimal> barcodePrice = new HashMap<Barcode, BigDecimal>();
-	private final HashMap<Barcode, Double> barcodeWeight = new HashMap<Barcode, Double>();
+	private final ArrayProductCatalog catalog = new ArrayProductCatalog();
 	private SelfCheckoutStation cs;
 	
 	//initializing prices of items
@@ -85,17 +85,12 @@ public class BaggingAreaControllerTest extends BaseTestClass {
 		
 		
 		
-		//initalizing price hashmap		
-		barcodePrice.put(barcodeItem1, item1Price);	//Item1
-		barcodePrice.put(barcodeItem2, item2Price);	//Item2
-		barcodePrice.put(barcodeItem3, item3Price);	//item3
-				
-		//initalizing expected weight hashmap
-		barcodeWeight.put(barcodeItem1, 300.0);
-		barcodeWeight.put(barcodeItem2, 100.0);
-		barcodeWeight.put(barcodeItem3, 1000.0);
+		//initalizing the catalog with price and expected weight of each item
+		catalog.add(new BarcodedProduct(barcodeItem1, "Item1", item1Price, 300.0));	//Item1
+		catalog.add(new BarcodedProduct(barcodeItem2, "Item2", item2Price, 100.0));	//Item2
+		catalog.add(new BarcodedProduct(barcodeItem3, "Item3", item3Price, 1000.0));	//item3
 		
-		SICController = new ScanItemController(checkoutStation, barcodePrice, barcodeWeight);
+		SICController = new ScanItemController(checkoutStation, catalog);
 		BACController = new BaggingAreaController(checkoutStation);
 		
 		//Setting the Controllers of each Controller
@@ -423,6 +418,56 @@ public class BaggingAreaControllerTest extends BaseTestClass {
 		Assert.assertFalse(checkoutStation.handheldScanner.isDisabled());
 	}
 	
+	//Rescans a verified bag, already in the bagging area, if the attendant's scan missed it
+	private void chargeBag(Barcode barcodeBag, double weight) {
+		if(SICController.getCart().getQuantity(barcodeBag) == 0)
+			read(SICController, barcodeBag, weight);
+		Assert.assertEquals(1, SICController.getCart().getQuantity(barcodeBag));
+	}
+
+	//Each bag is charged on its own line at its own weight
+	@Test
+	public void twoBagsTest()
+	{
+		BACController.setAttendantHelp(true);
+
+		checkoutStation.baggingArea.add(new BarcodedItem(barcodeItem1, 25.0));
+		Barcode first = BACController.attendantVerifiedBag();
+		chargeBag(first, 25.0);
+
+		checkoutStation.baggingArea.add(new BarcodedItem(barcodeItem2, 40.0));
+		Barcode second = BACController.attendantVerifiedBag();
+		chargeBag(second, 40.0);
+
+		BACController.setAttendantHelp(false);
+
+		Assert.assertNotEquals(first, second);
+		Assert.assertEquals(2, SICController.getCart().getLineCount());
+		Assert.assertEquals(65.0, SICController.getWeightOfCart(), 0);
+		Assert.assertEquals(40.0, SICController.getCart().getLine(second).getUnitWeight(), 0);
+		Assert.assertFalse(checkoutStation.mainScanner.isDisabled());
+		Assert.assertFalse(checkoutStation.handheldScanner.isDisabled());
+	}
+
+	//A bag never takes the barcode of a product already in the catalog
+	@Test
+	public void bagBarcodeTakenTest()
+	{
+		Barcode taken = Barcode.parse("990000000000000001");
+		catalog.add(new BarcodedProduct(taken, "Item4", new BigDecimal("3.00"), 50.0));
+
+		BACController.setAttendantHelp(true);
+		checkoutStation.baggingArea.add(new BarcodedItem(barcodeItem1, 25.0));
+		Barcode bag = BACController.attendantVerifiedBag();
+		chargeBag(bag, 25.0);
+		BACController.setAttendantHelp(false);
+
+		Assert.assertNotEquals(taken, bag);
+		Assert.assertEquals("Item4", catalog.getDescription(catalog.find(taken)));
+		Assert.assertEquals(50.0, catalog.getWeight(catalog.find(taken)), 0);
+		Assert.assertEquals(0, SICController.getCart().getQuantity(taken));
+	}
+
 	@Test
 	public void tryToAddBagWithoutHelpOfAttendantTest()
 	{
@@ -0,0 +1,207 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.TouchScreenController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.BarcodeFilter;
+import org.lsmr.selfcheckout.customer.catalog.CachingProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.CatalogFileWriter;
+import org.lsmr.selfcheckout.customer.catalog.FilteredProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.LocalProductService;
+import org.lsmr.selfcheckout.customer.catalog.MappedProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcode;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.ProductService;
+import org.lsmr.selfcheckout.customer.catalog.VersionedProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+public class BarcodeFilterTest extends BaseTestClass {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static BarcodedProduct product(String barcode, String description) {
+		return new BarcodedProduct(Barcode.parse(barcode), description, new BigDecimal("2.50"), 3.0);
+	}
+
+	private static Barcode code(long value) {
+		return Barcode.parse(Long.toString(value));
+	}
+
+	@Test
+	public void noFalseNegativesTest() {
+		BarcodeFilter filter = new BarcodeFilter(10000, 0.01);
+		for(long i = 0; i < 10000; i++)
+			filter.add(code(100000000L + i * 7));
+
+		for(long i = 0; i < 10000; i++)
+			Assert.assertTrue(filter.mightContain(code(100000000L + i * 7)));
+	}
+
+	@Test
+	public void falsePositiveRateTest() {
+		BarcodeFilter filter = new BarcodeFilter(10000, 0.01);
+		for(long i = 0; i < 10000; i++)
+			filter.add(PackedBarcode.pack(code(100000000L + i)));
+
+		int positives = 0;
+		for(long i = 0; i < 100000; i++)
+			if(filter.mightContain(PackedBarcode.pack(code(900000000L + i))))
+				positives++;
+
+		Assert.assertTrue("False positives: " + positives, positives < 2000);
+	}
+
+	@Test
+	public void longBarcodeTest() {
+		Barcode long1 = Barcode.parse("12345678901234567890");
+		Barcode long2 = Barcode.parse("12345678901234567891");
+		BarcodeFilter filter = new BarcodeFilter(10, 0.001);
+		filter.add(long1);
+
+		Assert.assertTrue(filter.mightContain(long1));
+		Assert.assertFalse(filter.mightContain(long2));
+	}
+
+	//Unknown barcodes are rejected without asking the store
+	@Test
+	public void remoteCatalogTest() {
+		ArrayProductCatalog products = new ArrayProductCatalog();
+		products.add(new BarcodedProduct(Barcode.parse("1234"), "Milk", new BigDecimal("2.50"), 3.0));
+
+		AtomicInteger fetched = new AtomicInteger();
+		LocalProductService local = new LocalProductService(products);
+		ProductService service = new ProductService() {
+			@Override
+			public BarcodedProduct fetch(Barcode barcode) throws IOException {
+				fetched.incrementAndGet();
+				return local.fetch(barcode);
+			}
+
+			@Override
+			public PLUCodedProduct fetch(PriceLookupCode pluCode) {
+				return local.fetch(pluCode);
+			}
+		};
+		FilteredProductCatalog catalog = new FilteredProductCatalog(
+			new CachingProductCatalog(service, 16, 1, TimeUnit.MINUTES), BarcodeFilter.of(products, 0.001));
+
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, catalog.find(Barcode.parse("5678")));
+		Assert.assertEquals(0, fetched.get());
+		Assert.assertEquals(1, catalog.getRejectionCount());
+
+		ProductCatalog snapshot = catalog.snapshot();
+		Assert.assertEquals(new BigDecimal("2.50"), snapshot.getPrice(snapshot.find(Barcode.parse("1234"))));
+		Assert.assertEquals(1, fetched.get());
+
+		catalog.put(Barcode.parse("9999"), "Bag", BigDecimal.ZERO, 1.0);
+		Assert.assertNotEquals(ProductCatalog.NOT_FOUND, catalog.find(Barcode.parse("9999")));
+	}
+
+	//A filter attached to the store's catalog learns of products added after it was built
+	@Test
+	public void addedAfterBuildTest() {
+		ArrayProductCatalog products = new ArrayProductCatalog();
+		products.add(product("1234", "Milk"));
+		BarcodeFilter filter = BarcodeFilter.of(products, 0.001);
+		products.attach(filter);
+
+		products.add(product("5678", "Eggs"));
+		Assert.assertTrue(filter.mightContain(Barcode.parse("5678")));
+	}
+
+	//A filter built by the filtered catalog follows the catalog it filters
+	@Test
+	public void followCatalogTest() {
+		ArrayProductCatalog products = new ArrayProductCatalog();
+		products.add(product("1234", "Milk"));
+		FilteredProductCatalog catalog = new FilteredProductCatalog(products, 0.001);
+
+		products.add(product("5678", "Eggs"));
+		Assert.assertEquals("Eggs", catalog.getDescription(catalog.find(Barcode.parse("5678"))));
+		Assert.assertEquals(0, catalog.getRejectionCount());
+	}
+
+	//Updates are followed product by product, and a published catalog gets a filter of its own
+	@Test
+	public void followVersionsTest() {
+		ArrayProductCatalog products = new ArrayProductCatalog();
+		products.add(product("1234", "Milk"));
+		VersionedProductCatalog versions = new VersionedProductCatalog(products);
+		FilteredProductCatalog catalog = new FilteredProductCatalog(versions, 0.001);
+		catalog.put(Barcode.parse("9999"), "Bag", BigDecimal.ZERO, 1.0);
+
+		versions.update(copy -> copy.add(product("5678", "Eggs")));
+		ProductCatalog snapshot = catalog.snapshot();
+		Assert.assertEquals("Eggs", snapshot.getDescription(snapshot.find(Barcode.parse("5678"))));
+
+		ArrayProductCatalog next = new ArrayProductCatalog();
+		next.add(product("4321", "Toast"));
+		versions.publish(next);
+		Assert.assertNotEquals(ProductCatalog.NOT_FOUND, catalog.find(Barcode.parse("4321")));
+		Assert.assertNotEquals(ProductCatalog.NOT_FOUND, catalog.find(Barcode.parse("9999")));
+		Assert.assertEquals(0, catalog.getRejectionCount());
+	}
+
+	@Test
+	public void mappedCatalogTest() throws IOException {
+		CatalogFileWriter writer = new CatalogFileWriter();
+		writer.add(product("1234", "Milk"));
+		Path file = folder.newFile("catalog.bin").toPath();
+		writer.write(file);
+
+		BarcodeFilter filter = BarcodeFilter.of(MappedProductCatalog.open(file), 0.001);
+		Assert.assertTrue(filter.mightContain(Barcode.parse("1234")));
+		Assert.assertFalse(filter.mightContain(Barcode.parse("5678")));
+	}
+
+	//A catalog that cannot list its products cannot make a filter that would reject them
+	@Test (expected = SimulationException.class)
+	public void unlistableCatalogTest() {
+		ArrayProductCatalog products = new ArrayProductCatalog();
+		BarcodeFilter.of(new CachingProductCatalog(new LocalProductService(products), 16, 1, TimeUnit.MINUTES), 0.01);
+	}
+
+	//An unknown item raises an event rather than failing the scan
+	@Test
+	public void itemNotFoundTest() {
+		ArrayProductCatalog products = new ArrayProductCatalog();
+		products.add(new BarcodedProduct(Barcode.parse("1234"), "Milk", new BigDecimal("2.50"), 3.0));
+		ProductCatalog catalog = new FilteredProductCatalog(products, BarcodeFilter.of(products, 0.01));
+
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		TouchScreenController touchScreen = new TouchScreenController(checkoutStation);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+		SIcontroller.attach(touchScreen);
+
+		Barcode unknown = Barcode.parse("5678");
+		while(touchScreen.getItemNotFound() == null)
+			checkoutStation.mainScanner.scan(new BarcodedItem(unknown, 1.0));
+
+		Assert.assertEquals(unknown, touchScreen.getItemNotFound());
+		Assert.assertEquals(0, SIcontroller.numOfScannedItems());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void badRateTest() {
+		new BarcodeFilter(10, 1.0);
+	}
+}
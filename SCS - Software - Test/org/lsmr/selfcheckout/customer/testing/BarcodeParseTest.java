@@ -0,0 +1,96 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class BarcodeParseTest extends BaseTestClass {
+
+	@Test
+	public void parseTest() {
+		Barcode expected = new Barcode(new Numeral[] {Numeral.zero, Numeral.one, Numeral.two, Numeral.three});
+
+		Assert.assertEquals(expected, Barcode.parse("0123"));
+		Assert.assertEquals(expected, Barcode.parse("id=0123;", 3, 7));
+		Assert.assertEquals(expected, Barcode.parse("x0123".getBytes(StandardCharsets.US_ASCII), 1, 4));
+		Assert.assertEquals(expected, Barcode.parse(ByteBuffer.wrap("x0123".getBytes(StandardCharsets.US_ASCII)), 1, 4));
+	}
+
+	@Test
+	public void bufferPositionTest() {
+		ByteBuffer buffer = ByteBuffer.wrap("12345".getBytes(StandardCharsets.US_ASCII));
+		buffer.position(2);
+		Barcode.parse(buffer, 0, 5);
+		Assert.assertEquals(2, buffer.position());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void notDigitTest() {
+		Barcode.parse("12a4");
+	}
+
+	@Test (expected = SimulationException.class)
+	public void emptyTest() {
+		Barcode.parse("");
+	}
+
+	@Test (expected = SimulationException.class)
+	public void outOfRangeTest() {
+		Barcode.parse(new byte[4], 2, 4);
+	}
+
+	@Test
+	public void checkDigitTest() {
+		Assert.assertTrue(Barcode.parseGTIN("036000291452").hasValidCheckDigit());
+		Assert.assertTrue(Barcode.parseGTIN("96385074").hasValidCheckDigit());
+		Assert.assertTrue(Barcode.parseGTIN("4006381333931").hasValidCheckDigit());
+		Assert.assertTrue(Barcode.parseGTIN("00012345600012").hasValidCheckDigit());
+
+		Assert.assertFalse(Barcode.parse("036000291453").hasValidCheckDigit());
+		Assert.assertFalse(Barcode.parse("1234").hasValidCheckDigit());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void wrongCheckDigitTest() {
+		Barcode.parseGTIN("4006381333932");
+	}
+
+	@Test (expected = SimulationException.class)
+	public void notGTINLengthTest() {
+		Barcode.parseGTIN("1234");
+	}
+
+	//A misread GTIN is dropped before the catalog lookup
+	@Test
+	public void misreadScanTest() {
+		Barcode good = Barcode.parseGTIN("036000291452");
+		Barcode misread = Barcode.parse("036000291453");
+
+		ArrayProductCatalog catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(good, "Good", new BigDecimal("1.00"), 1.0));
+		catalog.add(new BarcodedProduct(misread, "Misread", new BigDecimal("1.00"), 1.0));
+
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+
+		for(int i = 0; i < 50; i++)
+			checkoutStation.mainScanner.scan(new BarcodedItem(misread, 1.0));
+		Assert.assertEquals(0, SIcontroller.numOfScannedItems());
+
+		scan(SIcontroller, good, 1.0);
+		Assert.assertEquals(1, SIcontroller.numOfScannedItems());
+	}
+}
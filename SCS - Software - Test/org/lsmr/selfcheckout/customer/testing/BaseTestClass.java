@@ -5,6 +5,9 @@ import java.util.Currency;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.customer.ScanItemController;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
 
 /**
@@ -43,6 +46,47 @@ public class BaseTestClass {
 
 	}
 	
+	/**
+	 * Scans an item on the main scanner until the controller adds it to the
+	 * cart, since the scanner misses now and then, giving up after 100 tries.
+	 * Reads handed to a pipeline are waited for before each retry.
+	 * 
+	 * @param scanControl
+	 *            The controller the scanner reports to.
+	 * @param barcode
+	 *            The barcode of the item.
+	 * @param weight
+	 *            The weight of the item.
+	 * @return The item, which is not placed in the bagging area.
+	 */
+	BarcodedItem read(ScanItemController scanControl, Barcode barcode, double weight) {
+		int expected = scanControl.numOfScannedItems() + 1;
+		BarcodedItem item = new BarcodedItem(barcode, weight);
+		for(int i = 0; i < 100 && scanControl.numOfScannedItems() < expected; i++) {
+			checkoutStation.mainScanner.scan(item);
+			if(scanControl.getPipeline() != null)
+				scanControl.getPipeline().awaitIdle();
+		}
+		return item;
+	}
+	
+	/**
+	 * Scans an item as {@link #read} does and places it in the bagging area.
+	 * 
+	 * @param scanControl
+	 *            The controller the scanner reports to.
+	 * @param barcode
+	 *            The barcode of the item.
+	 * @param weight
+	 *            The weight of the item.
+	 * @return The item, as placed in the bagging area.
+	 */
+	BarcodedItem scan(ScanItemController scanControl, Barcode barcode, double weight) {
+		BarcodedItem item = read(scanControl, barcode, weight);
+		checkoutStation.baggingArea.add(item);
+		return item;
+	}
+	
 	@Test
 	public void testCase() {
 		
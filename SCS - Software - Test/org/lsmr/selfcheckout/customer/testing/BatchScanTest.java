@@ -0,0 +1,112 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.Item;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+import org.lsmr.selfcheckout.devices.BarcodeScanner;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
+import org.lsmr.selfcheckout.devices.observers.BarcodeScannerObserver;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class BatchScanTest extends BaseTestClass {
+
+	private ArrayProductCatalog catalog;
+	private ScanItemController SIcontroller;
+	private BaggingAreaController bAcontroller;
+
+	private Barcode barcodeMilk = Barcode.parse("1234");
+	private Barcode barcodeEggs = Barcode.parse("4321");
+	private Barcode barcodeToast = Barcode.parse("3241");
+
+	//Counts what the scanner announces, without overriding the batch event
+	private static class Recorder implements BarcodeScannerObserver {
+		List<Barcode> barcodes = new ArrayList<Barcode>();
+		int disabled;
+
+		@Override
+		public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {}
+
+		@Override
+		public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
+			disabled++;
+		}
+
+		@Override
+		public void barcodeScanned(BarcodeScanner barcodeScanner, Barcode barcode) {
+			barcodes.add(barcode);
+		}
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 30.0));
+		catalog.add(new BarcodedProduct(barcodeEggs, "Eggs", new BigDecimal("4.05"), 20.0));
+		catalog.add(new BarcodedProduct(barcodeToast, "Toast", new BigDecimal("3.50"), 50.0));
+
+		bAcontroller = new BaggingAreaController(checkoutStation);
+		SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+	}
+
+	//One pass adds every item read and disables the scanners once for the whole basket
+	@Test
+	public void basketTest() {
+		Recorder recorder = new Recorder();
+		checkoutStation.mainScanner.attach(recorder);
+		List<BarcodedItem> basket = new ArrayList<BarcodedItem>();
+		for(Barcode barcode : new Barcode[] { barcodeMilk, barcodeMilk, barcodeEggs, barcodeToast })
+			basket.add(new BarcodedItem(barcode, catalog.getWeight(catalog.find(barcode))));
+
+		checkoutStation.mainScanner.scanAll(basket);
+
+		Assert.assertEquals(recorder.barcodes.size(), SIcontroller.numOfScannedItems());
+		Assert.assertEquals(recorder.barcodes.isEmpty() ? 0 : 1, recorder.disabled);
+
+		double weight = 0;
+		for(Barcode barcode : recorder.barcodes)
+			weight += catalog.getWeight(catalog.find(barcode));
+		Assert.assertEquals(weight, SIcontroller.getWeightOfCart(), 0);
+	}
+
+	//Items without a barcode are passed over
+	@Test
+	public void unbarcodedItemTest() {
+		Item bag = new Item(40.0) {};
+		Recorder recorder = new Recorder();
+		checkoutStation.mainScanner.attach(recorder);
+
+		checkoutStation.mainScanner.scanAll(Arrays.asList(bag, bag));
+		Assert.assertEquals(0, recorder.barcodes.size());
+		Assert.assertEquals(0, SIcontroller.numOfScannedItems());
+	}
+
+	//A disabled scanner reads nothing
+	@Test
+	public void disabledTest() {
+		checkoutStation.mainScanner.disable();
+		checkoutStation.mainScanner.scanAll(Arrays.asList(new BarcodedItem(barcodeMilk, 30.0)));
+		Assert.assertEquals(0, SIcontroller.numOfScannedItems());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void nullItemTest() {
+		checkoutStation.mainScanner.scanAll(Arrays.asList(new BarcodedItem(barcodeMilk, 30.0), null));
+	}
+}
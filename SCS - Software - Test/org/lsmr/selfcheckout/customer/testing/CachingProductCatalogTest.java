@@ -0,0 +1,273 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.CachingProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.LocalProductService;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.ProductService;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+public class CachingProductCatalogTest extends BaseTestClass {
+
+	private ArrayProductCatalog products;
+	private CountingService service;
+	private long now;
+
+	Barcode barcodeMilk = new Barcode(new Numeral[] {Numeral.one, Numeral.two, Numeral.three, Numeral.four});
+	Barcode barcodeEggs = new Barcode(new Numeral[] {Numeral.two, Numeral.three, Numeral.four, Numeral.one});
+	Barcode barcodeToast = new Barcode(new Numeral[] {Numeral.three, Numeral.two, Numeral.four, Numeral.one});
+	Barcode barcodeBag = new Barcode(new Numeral[] {Numeral.nine, Numeral.nine, Numeral.nine, Numeral.nine});
+
+	//Counts fetches and can be made to fail
+	private class CountingService implements ProductService {
+		private final LocalProductService local = new LocalProductService(products);
+		AtomicInteger fetched = new AtomicInteger();
+		volatile boolean down;
+
+		@Override
+		public BarcodedProduct fetch(Barcode barcode) throws IOException {
+			fetched.incrementAndGet();
+			if(down)
+				throw new IOException("Store server unreachable");
+			return local.fetch(barcode);
+		}
+
+		@Override
+		public PLUCodedProduct fetch(PriceLookupCode pluCode) throws IOException {
+			return local.fetch(pluCode);
+		}
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		products = new ArrayProductCatalog();
+		products.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 3.0));
+		products.add(new BarcodedProduct(barcodeEggs, "Eggs", new BigDecimal("4.05"), 2.0));
+		products.add(new BarcodedProduct(barcodeToast, "Toast", new BigDecimal("3.50"), 1.0));
+		service = new CountingService();
+		now = 0;
+	}
+
+	private CachingProductCatalog cache(int capacity) {
+		return new CachingProductCatalog(service, capacity, 10, TimeUnit.SECONDS, () -> now);
+	}
+
+	@Test
+	public void hitAndMissTest() {
+		CachingProductCatalog catalog = cache(4);
+
+		Assert.assertEquals(new BigDecimal("2.50"), catalog.getPrice(catalog.find(barcodeMilk)));
+		Assert.assertEquals(3.0, catalog.getWeight(catalog.find(barcodeMilk)), 0);
+
+		Assert.assertEquals(1, catalog.getMissCount());
+		Assert.assertEquals(1, catalog.getHitCount());
+		Assert.assertEquals(1, service.fetched.get());
+	}
+
+	@Test
+	public void unknownBarcodeTest() {
+		CachingProductCatalog catalog = cache(4);
+		Barcode unknown = new Barcode(new Numeral[] {Numeral.five});
+
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, catalog.find(unknown));
+		Assert.assertEquals(0, catalog.size());
+	}
+
+	@Test
+	public void expiryTest() {
+		CachingProductCatalog catalog = cache(4);
+
+		catalog.find(barcodeMilk);
+		now += TimeUnit.SECONDS.toNanos(9);
+		catalog.find(barcodeMilk);
+		Assert.assertEquals(1, service.fetched.get());
+
+		now += TimeUnit.SECONDS.toNanos(1);
+		catalog.find(barcodeMilk);
+		Assert.assertEquals(2, service.fetched.get());
+		Assert.assertEquals(2, catalog.getMissCount());
+	}
+
+	//A product the service gives its own time to live expires on its own
+	@Test
+	public void entryTimeToLiveTest() {
+		CachingProductCatalog catalog = new CachingProductCatalog(new CountingService() {
+			@Override
+			public long getTimeToLiveNanos(BarcodedProduct product) {
+				return product.getBarcode().equals(barcodeEggs) ? TimeUnit.SECONDS.toNanos(1) : 0;
+			}
+		}, 4, 10, TimeUnit.SECONDS, () -> now);
+
+		catalog.find(barcodeMilk);
+		catalog.find(barcodeEggs);
+		now += TimeUnit.SECONDS.toNanos(2);
+		catalog.find(barcodeMilk);
+		catalog.find(barcodeEggs);
+
+		Assert.assertEquals(1, catalog.getHitCount());
+		Assert.assertEquals(3, catalog.getMissCount());
+	}
+
+	//A snapshot is reused until it finds a product, which it then keeps
+	@Test
+	public void snapshotTest() {
+		CachingProductCatalog catalog = cache(4);
+		ProductCatalog first = catalog.snapshot();
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, first.find(new Barcode(new Numeral[] {Numeral.five})));
+		Assert.assertSame(first, catalog.snapshot());
+
+		int slot = first.find(barcodeMilk);
+		ProductCatalog second = catalog.snapshot();
+		Assert.assertNotSame(first, second);
+		second.find(barcodeEggs);
+		Assert.assertEquals("Milk", first.getDescription(slot));
+
+		// A snapshot that found a product is not repointed at another
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, first.find(barcodeEggs));
+		Assert.assertEquals(slot, first.find(barcodeMilk));
+		Assert.assertEquals("Milk", first.getDescription(slot));
+	}
+
+	//A product asked for once does not push out a product asked for often
+	@Test
+	public void admissionTest() {
+		CachingProductCatalog catalog = cache(1);
+
+		for(int i = 0; i < 5; i++)
+			catalog.find(barcodeMilk);
+
+		catalog.find(barcodeEggs);
+		Assert.assertEquals(1, catalog.getRejectionCount());
+		Assert.assertEquals(0, catalog.getEvictionCount());
+
+		catalog.find(barcodeMilk);
+		Assert.assertEquals(5, catalog.getHitCount());
+	}
+
+	@Test
+	public void evictionTest() {
+		CachingProductCatalog catalog = cache(1);
+
+		catalog.find(barcodeMilk);
+		for(int i = 0; i < 3; i++)
+			catalog.find(barcodeEggs);
+
+		Assert.assertEquals(1, catalog.getEvictionCount());
+		Assert.assertEquals(1, catalog.size());
+		Assert.assertEquals(new BigDecimal("4.05"), catalog.getPrice(catalog.find(barcodeEggs)));
+	}
+
+	//Simultaneous misses on one barcode make a single request to the service
+	@Test
+	public void coalescingTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger fetched = new AtomicInteger();
+		ProductService slow = new ProductService() {
+			@Override
+			public BarcodedProduct fetch(Barcode barcode) throws IOException {
+				fetched.incrementAndGet();
+				try {
+					release.await();
+				}
+				catch(InterruptedException e) {
+					throw new IOException(e);
+				}
+				return products.getProduct(products.find(barcode));
+			}
+
+			@Override
+			public PLUCodedProduct fetch(PriceLookupCode pluCode) {
+				return null;
+			}
+		};
+		CachingProductCatalog catalog = new CachingProductCatalog(slow, 4, 10, TimeUnit.SECONDS);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<BigDecimal>> prices = new ArrayList<Future<BigDecimal>>();
+			for(int i = 0; i < 8; i++)
+				prices.add(executor.submit(() -> catalog.getPrice(catalog.find(barcodeEggs))));
+
+			Thread.sleep(100);
+			release.countDown();
+
+			for(Future<BigDecimal> price : prices)
+				Assert.assertEquals(new BigDecimal("4.05"), price.get(10, TimeUnit.SECONDS));
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		Assert.assertEquals(1, fetched.get());
+		Assert.assertEquals(1, catalog.getFetchCount());
+	}
+
+	@Test
+	public void serviceDownTest() {
+		CachingProductCatalog catalog = cache(4);
+		service.down = true;
+
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, catalog.find(barcodeMilk));
+		Assert.assertEquals(1, catalog.getFailureCount());
+
+		service.down = false;
+		Assert.assertNotEquals(ProductCatalog.NOT_FOUND, catalog.find(barcodeMilk));
+	}
+
+	//Scanning through the cache, and unscanning after the product expired
+	@Test
+	public void scanTest() {
+		CachingProductCatalog catalog = cache(4);
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+
+		BarcodedItem milk = scan(SIcontroller, barcodeMilk, 3.0);
+
+		now += TimeUnit.SECONDS.toNanos(60);
+		service.down = true;
+
+		checkoutStation.baggingArea.remove(milk);
+		SIcontroller.unScanItem(barcodeMilk);
+		Assert.assertEquals(0, SIcontroller.getValueOfCart().signum());
+	}
+
+	@Test
+	public void stationItemTest() {
+		CachingProductCatalog catalog = cache(4);
+		catalog.put(barcodeBag, "Bag", BigDecimal.ZERO, 1.5);
+
+		Assert.assertEquals(1.5, catalog.getWeight(catalog.find(barcodeBag)), 0);
+		Assert.assertEquals(0, service.fetched.get());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void badCapacityTest() {
+		cache(0);
+	}
+}
@@ -0,0 +1,224 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.cart.Cart;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcodeIndex;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class CartTest extends BaseTestClass {
+
+	private static final Currency CAD = Currency.getInstance("CAD");
+
+	private ArrayProductCatalog catalog;
+	private Cart cart;
+
+	private Barcode barcodeMilk = Barcode.parse("1234");
+	private Barcode barcodeEggs = Barcode.parse("4321");
+	private Barcode barcodeToast = Barcode.parse("0101");
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 3.0));
+		catalog.add(new BarcodedProduct(barcodeEggs, "Eggs", new BigDecimal("4.05"), 2.0));
+		catalog.add(new BarcodedProduct(barcodeToast, "Toast", new BigDecimal("3.45"), 5.0));
+		cart = new Cart(CAD);
+	}
+
+	private static Money cad(String amount) {
+		return Money.of(CAD, new BigDecimal(amount));
+	}
+
+	private CartLine add(Barcode barcode) {
+		int slot = catalog.find(barcode);
+		return cart.add(barcode, catalog, slot, Money.of(CAD, catalog.getPrice(slot)), catalog.getWeight(slot));
+	}
+
+	private List<String> descriptions() {
+		List<String> descriptions = new ArrayList<>();
+		for(CartLine line : cart.lines())
+			descriptions.add(line.getDescription() + " x" + line.getQuantity());
+		return descriptions;
+	}
+
+	@Test
+	public void quantityTest() {
+		add(barcodeMilk);
+		add(barcodeEggs);
+		CartLine milk = add(Barcode.parse("1234"));
+
+		Assert.assertEquals(2, milk.getQuantity());
+		Assert.assertEquals(cad("5.00"), milk.getPrice());
+		Assert.assertEquals(2, cart.getLineCount());
+		Assert.assertEquals(3, cart.getItemCount());
+		Assert.assertEquals(cad("9.05"), cart.getTotal());
+		Assert.assertEquals(8.0, cart.getWeight(), 0);
+
+		cart.setQuantity(barcodeEggs, 4);
+		Assert.assertEquals(cad("21.20"), cart.getTotal());
+		Assert.assertEquals(6, cart.getItemCount());
+
+		Assert.assertSame(milk, cart.remove(barcodeMilk));
+		Assert.assertEquals(1, cart.getQuantity(barcodeMilk));
+		Assert.assertEquals(cad("18.70"), cart.getTotal());
+		Assert.assertNull(cart.remove(barcodeToast));
+	}
+
+	//Dropped lines leave the rest in scan order and their entries are reused
+	@Test
+	public void orderTest() {
+		add(barcodeMilk);
+		add(barcodeEggs);
+		add(barcodeToast);
+		cart.remove(barcodeEggs);
+		Assert.assertEquals("[Milk x1, Toast x1]", descriptions().toString());
+
+		add(barcodeEggs);
+		add(barcodeMilk);
+		Assert.assertEquals("[Milk x2, Toast x1, Eggs x1]", descriptions().toString());
+		Assert.assertEquals("Eggs", cart.getLine(2).getDescription());
+
+		cart.setQuantity(barcodeMilk, 0);
+		cart.setQuantity(barcodeEggs, 0);
+		Assert.assertEquals("[Toast x1]", descriptions().toString());
+		Assert.assertEquals(cad("3.45"), cart.getTotal());
+
+		cart.setQuantity(barcodeToast, 0);
+		Assert.assertFalse(cart.lines().iterator().hasNext());
+		Assert.assertEquals(0, cart.getTotal().signum());
+	}
+
+	//Lines got by position agree with the view, in order, backwards and after a change
+	@Test
+	public void positionTest() {
+		add(barcodeMilk);
+		add(barcodeEggs);
+		add(barcodeMilk);
+		add(barcodeToast);
+
+		List<CartLine> byPosition = new ArrayList<CartLine>();
+		for(int i = 0; i < cart.getLineCount(); i++)
+			byPosition.add(cart.getLine(i));
+		List<CartLine> viewed = new ArrayList<CartLine>();
+		for(CartLine line : cart.lines())
+			viewed.add(line);
+		Assert.assertEquals(viewed, byPosition);
+
+		Assert.assertEquals("Milk", cart.getLine(0).getDescription());
+		cart.remove(barcodeEggs);
+		Assert.assertEquals("Toast", cart.getLine(1).getDescription());
+	}
+
+	//The line keeps the price it was started with
+	@Test
+	public void lockedPriceTest() {
+		add(barcodeMilk);
+		CartLine milk = cart.add(barcodeMilk, catalog, catalog.find(barcodeMilk), cad("9.99"), 3.0);
+
+		Assert.assertEquals(cad("2.50"), milk.getUnitPrice());
+		Assert.assertEquals(cad("5.00"), cart.getTotal());
+	}
+
+	@Test
+	public void longBarcodeTest() {
+		Barcode long1 = Barcode.parse("12345678901234567890");
+		Barcode long2 = Barcode.parse("12345678901234567890");
+		cart.add(long1, catalog, 0, cad("1"), 1.0);
+		cart.add(long2, catalog, 0, cad("1"), 1.0);
+
+		Assert.assertEquals(1, cart.getLineCount());
+		Assert.assertEquals(2, cart.getQuantity(long1));
+		cart.remove(long2);
+		cart.remove(long2);
+		Assert.assertEquals(0, cart.getLineCount());
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void viewFailsFastTest() {
+		add(barcodeMilk);
+		add(barcodeEggs);
+		Iterator<CartLine> lines = cart.lines().iterator();
+		lines.next();
+		add(barcodeMilk);
+		lines.next();
+	}
+
+	@Test(expected = SimulationException.class)
+	public void negativeQuantityTest() {
+		add(barcodeMilk);
+		cart.setQuantity(barcodeMilk, -1);
+	}
+
+	@Test(expected = SimulationException.class)
+	public void positionOutOfRangeTest() {
+		add(barcodeMilk);
+		cart.getLine(1);
+	}
+
+	//Removal shifts entries back rather than leaving markers, so check it against a map
+	@Test
+	public void indexRemoveTest() {
+		PackedBarcodeIndex index = new PackedBarcodeIndex(16);
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		for(int i = 0; i < 20000; i++) {
+			long key = 10 + random.nextInt(300);
+			if(random.nextBoolean()) {
+				index.put(key, i);
+				expected.put(key, i);
+			}
+			else
+				Assert.assertEquals(expected.containsKey(key) ? (int)expected.remove(key) : ProductCatalog.NOT_FOUND,
+					index.remove(key));
+		}
+
+		Assert.assertEquals(expected.size(), index.size());
+		for(long key = 10; key < 310; key++)
+			Assert.assertEquals(expected.containsKey(key) ? (int)expected.get(key) : ProductCatalog.NOT_FOUND,
+				index.get(key));
+	}
+
+	//Scanning an item twice puts one line with two units on the receipt
+	@Test
+	public void scanTest() {
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+
+		scan(SIcontroller, barcodeMilk, 3.0);
+		scan(SIcontroller, barcodeMilk, 3.0);
+
+		Assert.assertEquals(1, SIcontroller.getCart().getLineCount());
+		Assert.assertEquals(2, SIcontroller.getCart().getQuantity(barcodeMilk));
+		Assert.assertEquals(new BigDecimal("5"), SIcontroller.getValueOfCart());
+		Assert.assertEquals(6.0, SIcontroller.getWeightOfCart(), 0);
+
+		SIcontroller.unScanItem(barcodeMilk);
+		Assert.assertEquals(1, SIcontroller.numOfScannedItems());
+		Assert.assertEquals(new BigDecimal("2.5"), SIcontroller.getValueOfCart());
+	}
+}
@@ -0,0 +1,162 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.CatalogFileWriter;
+import org.lsmr.selfcheckout.customer.catalog.CatalogImporter;
+import org.lsmr.selfcheckout.customer.catalog.ImportReport;
+import org.lsmr.selfcheckout.customer.catalog.MappedProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+import org.lsmr.selfcheckout.products.Product;
+
+public class CatalogImporterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String rows) throws IOException {
+		Path file = folder.newFile().toPath();
+		Files.write(file, rows.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void importTest() throws IOException {
+		Path file = write("# code|description|price|weight\n"
+			+ "036000291452|Tissues, 12 pack|3.49|410.0\n"
+			+ "1234|Milk|2.50|3.0\r\n"
+			+ "\n"
+			+ "4011|Bananas|1.99|\n");
+		ArrayProductCatalog catalog = new ArrayProductCatalog();
+
+		ImportReport report = new CatalogImporter().importInto(file, catalog);
+
+		Assert.assertEquals(3, report.getRowCount());
+		Assert.assertEquals(3, report.getImportedCount());
+		Assert.assertEquals(0, report.getRejectedCount());
+		Assert.assertEquals(Files.size(file), report.getByteCount());
+
+		int slot = catalog.find(Barcode.parse("036000291452"));
+		Assert.assertEquals("Tissues, 12 pack", catalog.getDescription(slot));
+		Assert.assertEquals(new BigDecimal("3.49"), catalog.getPrice(slot));
+		Assert.assertEquals(410.0, catalog.getWeight(slot), 0);
+		Assert.assertEquals(3.0, catalog.getWeight(catalog.find(Barcode.parse("1234"))), 0);
+		Assert.assertEquals("Bananas", catalog.find(new PriceLookupCode("4011")).getDescription());
+	}
+
+	//Bad rows are reported by line and the rest of the file still loads
+	@Test
+	public void rejectedRowsTest() throws IOException {
+		Path file = write("1234|Milk|2.50|3.0\n"
+			+ "1235|Eggs|4.05\n"
+			+ "036000291453|Misread|1.00|1.0\n"
+			+ "1236|Bread|free|1.0\n"
+			+ "1237|Cheese|5.00|-1\n"
+			+ "12a8|Jam|3.00|1.0\n"
+			+ "401|Apples|2.99|\n"
+			+ "1239|Butter|4.00|2.0");
+		ArrayProductCatalog catalog = new ArrayProductCatalog();
+
+		ImportReport report = new CatalogImporter().importInto(file, catalog);
+
+		Assert.assertEquals(8, report.getRowCount());
+		Assert.assertEquals(2, report.getImportedCount());
+		Assert.assertEquals(6, report.getRejectedCount());
+		Assert.assertEquals(2, catalog.size());
+
+		List<Long> lines = new ArrayList<Long>();
+		for(ImportReport.RejectedRow row : report.getRejectedRows())
+			lines.add(row.getLine());
+		Assert.assertEquals(java.util.Arrays.asList(2L, 3L, 4L, 5L, 6L, 7L), lines);
+	}
+
+	//Tiny chunks split rows across reads and across parsing tasks, without changing the result
+	@Test
+	public void chunkingTest() throws IOException {
+		StringBuilder rows = new StringBuilder();
+		for(int i = 0; i < 5000; i++) {
+			rows.append(1000000 + i % 3000).append("|Item ").append(i).append('|').append(i + 1).append(".00|1.0\n");
+			if(i % 1000 == 999)
+				rows.append("bad row\n");
+		}
+		byte[] bytes = rows.toString().getBytes(StandardCharsets.US_ASCII);
+
+		List<Product> products = new ArrayList<Product>();
+		ImportReport report = new CatalogImporter('|', 4, 100).importFrom(new ByteArrayInputStream(bytes), products::add);
+
+		Assert.assertEquals(5000, report.getImportedCount());
+		Assert.assertEquals(5, report.getRejectedCount());
+		Assert.assertEquals(1001, report.getRejectedRows().get(0).getLine());
+		for(int i = 0; i < 5000; i++)
+			Assert.assertEquals("Item " + i, ((BarcodedProduct)products.get(i)).getDescription());
+
+		//Later rows replace earlier rows with the same code
+		ArrayProductCatalog catalog = new ArrayProductCatalog();
+		new CatalogImporter('|', 4, 100).importFrom(new ByteArrayInputStream(bytes), product -> catalog.add((BarcodedProduct)product));
+		Assert.assertEquals(3000, catalog.size());
+		Assert.assertEquals("Item 3000", catalog.getDescription(catalog.find(Barcode.parse("1000000"))));
+	}
+
+	@Test
+	public void longRowTest() throws IOException {
+		String description = new String(new char[500]).replace('\0', 'x');
+		byte[] bytes = ("1234|" + description + "|1.00|1.0\n").getBytes(StandardCharsets.US_ASCII);
+
+		List<Product> products = new ArrayList<Product>();
+		new CatalogImporter(',', 1, 16).importFrom(new ByteArrayInputStream(bytes), products::add);
+
+		Assert.assertEquals(0, products.size());
+		new CatalogImporter('|', 1, 16).importFrom(new ByteArrayInputStream(bytes), products::add);
+		Assert.assertEquals(description, ((BarcodedProduct)products.get(0)).getDescription());
+	}
+
+	//Importing straight into a catalog file
+	@Test
+	public void catalogFileTest() throws IOException {
+		StringBuilder rows = new StringBuilder();
+		for(int i = 0; i < 200000; i++)
+			rows.append(100000000 + i).append("|Item ").append(i).append("|1.25|100.0\n");
+		rows.append("94011|Organic Bananas|1.99|\n");
+		Path file = write(rows.toString());
+
+		CatalogFileWriter writer = new CatalogFileWriter();
+		ImportReport report = new CatalogImporter().importInto(file, product -> {
+			if(product instanceof BarcodedProduct)
+				writer.add((BarcodedProduct)product);
+			else
+				writer.add((PLUCodedProduct)product);
+		});
+		Path binary = folder.newFile("catalog.bin").toPath();
+		writer.write(binary);
+
+		Assert.assertEquals(200001, report.getImportedCount());
+		Assert.assertTrue(report.getRowsPerSecond() > 0);
+		Assert.assertTrue(report.getMegabytesPerSecond() > 0);
+
+		MappedProductCatalog catalog = MappedProductCatalog.open(binary);
+		Assert.assertNotEquals(ProductCatalog.NOT_FOUND, catalog.find(Barcode.parse("100199999")));
+		Assert.assertEquals("Organic Bananas", catalog.find(new PriceLookupCode("94011")).getDescription());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void digitDelimiterTest() {
+		new CatalogImporter('7', 1);
+	}
+}
@@ -0,0 +1,163 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.TouchScreenController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.DescriptionIndex;
+import org.lsmr.selfcheckout.customer.catalog.VersionedProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+import org.lsmr.selfcheckout.products.Product;
+
+public class DescriptionIndexTest extends BaseTestClass {
+
+	private ArrayProductCatalog catalog;
+	private DescriptionIndex index;
+
+	private BarcodedProduct product(String code, String description) {
+		return new BarcodedProduct(Barcode.parse(code), description, BigDecimal.ONE, 1.0);
+	}
+
+	private PLUCodedProduct produce(String code, String description) {
+		return new PLUCodedProduct(new PriceLookupCode(code), description, BigDecimal.ONE);
+	}
+
+	//Descriptions of the matches, best first
+	private List<String> search(String text, int limit) {
+		List<String> found = new ArrayList<String>();
+		for(Product product : index.search(text, limit))
+			found.add(product instanceof BarcodedProduct ? ((BarcodedProduct)product).getDescription()
+				: ((PLUCodedProduct)product).getDescription());
+		return found;
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(product("1001", "Apple Pie Filling"));
+		catalog.add(product("1002", "Pineapple Chunks"));
+		catalog.add(product("1003", "Apple Juice"));
+		catalog.add(produce("4131", "Apples Fuji"));
+		catalog.add(produce("4011", "Bananas"));
+
+		index = new DescriptionIndex();
+		index.addAll(catalog);
+		catalog.attach(index);
+	}
+
+	@Test
+	public void prefixTest() {
+		Assert.assertEquals(5, index.size());
+		Assert.assertEquals(3, search("app", 10).size());
+		Assert.assertEquals("Apple Juice", search("APPLE", 10).get(0));
+		Assert.assertEquals(Collections.singletonList("Bananas"), search("ban", 10));
+		Assert.assertTrue(search("pear", 10).isEmpty());
+		Assert.assertTrue(search("  ", 10).isEmpty());
+	}
+
+	@Test
+	public void multipleWordsTest() {
+		Assert.assertEquals(Collections.singletonList("Apple Pie Filling"), search("pie app", 10));
+		Assert.assertEquals(Collections.singletonList("Apples Fuji"), search("apple fu", 10));
+	}
+
+	@Test
+	public void limitTest() {
+		Assert.assertEquals(2, search("app", 2).size());
+		Assert.assertTrue(search("app", 0).isEmpty());
+	}
+
+	//Catalog changes reach the index without a rebuild
+	@Test
+	public void catalogChangeTest() {
+		catalog.add(product("1003", "Orange Juice"));
+		Assert.assertEquals(Collections.singletonList("Orange Juice"), search("juice", 10));
+
+		catalog.put(Barcode.parse("1001"), "Bag", BigDecimal.ZERO, 2.0);
+		Assert.assertEquals(Collections.singletonList("Apples Fuji"), search("app", 10));
+		Assert.assertEquals(4, index.size());
+	}
+
+	@Test
+	public void versionedCatalogTest() {
+		VersionedProductCatalog versioned = new VersionedProductCatalog(catalog);
+		versioned.attach(index);
+		versioned.update(products -> products.add(product("2001", "Kiwi")));
+
+		Assert.assertEquals(Collections.singletonList("Kiwi"), search("kiw", 10));
+	}
+
+	@Test
+	public void touchScreenTest() {
+		TouchScreenController touchScreen = new TouchScreenController(checkoutStation);
+		Assert.assertTrue(touchScreen.search("ban", 5).isEmpty());
+
+		touchScreen.setSearchIndex(index);
+		Assert.assertEquals(1, touchScreen.search("ban", 5).size());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void negativeLimitTest() {
+		index.search("app", -1);
+	}
+
+	//Random adds and removals agree with a scan of every product
+	@Test
+	public void randomTest() {
+		String[] words = {"apple", "apricot", "banana", "bread", "brown", "milk", "mild", "cheddar", "cheese", "chips"};
+		Random random = new Random(42);
+		List<BarcodedProduct> live = new ArrayList<BarcodedProduct>();
+		catalog = new ArrayProductCatalog();
+		index = new DescriptionIndex();
+		catalog.attach(index);
+
+		for(int i = 0; i < 3000; i++) {
+			String description = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+			BarcodedProduct product = product(Integer.toString(10000 + random.nextInt(2000)), description);
+			live.removeIf(p -> p.getBarcode().equals(product.getBarcode()));
+			live.add(product);
+			catalog.add(product);
+
+			if(i % 7 == 0) {
+				BarcodedProduct removed = live.remove(random.nextInt(live.size()));
+				catalog.put(removed.getBarcode(), "Bag", BigDecimal.ZERO, 1.0);
+			}
+
+			if(i % 100 == 0)
+				for(String prefix : new String[] {"a", "br", "ch", "mil", "che b", "ap 1"}) {
+					List<String> expected = new ArrayList<String>();
+					for(BarcodedProduct p : live)
+						if(matches(p.getDescription(), prefix))
+							expected.add(p.getDescription());
+					expected.sort((a, b) -> a.length() != b.length() ? a.length() - b.length() : a.compareToIgnoreCase(b));
+
+					for(int limit : new int[] {10, 40})
+						Assert.assertEquals(expected.subList(0, Math.min(limit, expected.size())), search(prefix, limit));
+				}
+		}
+	}
+
+	private static boolean matches(String description, String query) {
+		for(String term : query.split(" ")) {
+			boolean found = false;
+			for(String word : description.toLowerCase().split(" "))
+				found |= word.startsWith(term);
+			if(!found)
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,193 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+import org.lsmr.selfcheckout.devices.DeviceEventBus;
+import org.lsmr.selfcheckout.devices.ReceiptPrinter;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
+import org.lsmr.selfcheckout.devices.observers.ReceiptPrinterObserver;
+
+public class DeviceEventBusTest extends BaseTestClass {
+
+	private ReceiptPrinter printer;
+	private List<String> events;
+	private ExecutorService executor;
+
+	//Records the events it receives, with the thread they arrive on
+	private class Recorder implements ReceiptPrinterObserver {
+		List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+		void record(String event) {
+			events.add(event);
+			threads.add(Thread.currentThread());
+		}
+
+		@Override
+		public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
+			record("enabled");
+		}
+
+		@Override
+		public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
+			record("disabled");
+		}
+
+		@Override
+		public void outOfPaper(ReceiptPrinter printer) {
+			record("outOfPaper");
+		}
+
+		@Override
+		public void outOfInk(ReceiptPrinter printer) {
+			record("outOfInk");
+		}
+
+		@Override
+		public void paperAdded(ReceiptPrinter printer) {
+			record("paperAdded");
+		}
+
+		@Override
+		public void inkAdded(ReceiptPrinter printer) {
+			record("inkAdded");
+		}
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		printer = checkoutStation.printer;
+		printer.detachAll();
+		events = Collections.synchronizedList(new ArrayList<String>());
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdownNow();
+	}
+
+	//The synchronous bus announces on the caller's thread, and an event caused by an observer waits its turn
+	@Test
+	public void synchronousTest() {
+		DeviceEventBus bus = DeviceEventBus.synchronous();
+		printer.setEventBus(bus);
+		Recorder recorder = new Recorder();
+		printer.attach(new ReceiptPrinterObserver() {
+			@Override
+			public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {}
+
+			@Override
+			public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {}
+
+			@Override
+			public void outOfPaper(ReceiptPrinter printer) {}
+
+			@Override
+			public void outOfInk(ReceiptPrinter printer) {}
+
+			@Override
+			public void paperAdded(ReceiptPrinter printer) {}
+
+			@Override
+			public void inkAdded(ReceiptPrinter printer) {
+				printer.disable();
+			}
+		});
+		printer.attach(recorder);
+
+		printer.addInk(1);
+		Assert.assertEquals("[inkAdded, disabled]", events.toString());
+		Assert.assertEquals(Collections.nCopies(2, Thread.currentThread()), recorder.threads);
+		Assert.assertEquals(2, bus.getDeliveredCount(printer));
+		Assert.assertEquals(2, bus.getMaxQueueDepth(printer));
+		Assert.assertEquals(0, bus.getQueueDepth(printer));
+	}
+
+	//A slow observer holds up neither the device nor the order of its events
+	@Test
+	public void orderTest() throws InterruptedException {
+		DeviceEventBus bus = new DeviceEventBus(executor);
+		printer.setEventBus(bus);
+		Assert.assertSame(bus, printer.getEventBus());
+		final CountDownLatch release = new CountDownLatch(1);
+		Recorder recorder = new Recorder() {
+			@Override
+			public void inkAdded(ReceiptPrinter printer) {
+				try {
+					release.await();
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.inkAdded(printer);
+			}
+		};
+		printer.attach(recorder);
+
+		printer.addInk(1);
+		for(int i = 0; i < 10; i++)
+			printer.addPaper(1);
+		Assert.assertTrue(events.isEmpty());
+		Assert.assertTrue(bus.getQueueDepth(printer) >= 10);
+
+		release.countDown();
+		for(int i = 0; i < 1000 && bus.getDeliveredCount(printer) < 11; i++)
+			Thread.sleep(5);
+
+		Assert.assertEquals(11, events.size());
+		Assert.assertEquals("inkAdded", events.get(0));
+		Assert.assertEquals(Collections.nCopies(10, "paperAdded"), events.subList(1, 11));
+		Assert.assertFalse(recorder.threads.contains(Thread.currentThread()));
+		Assert.assertEquals(11, bus.getMaxQueueDepth(printer));
+		Assert.assertEquals(0, bus.getQueueDepth(printer));
+	}
+
+	//An exception from an observer is counted and later events still arrive
+	@Test
+	public void failureTest() {
+		DeviceEventBus bus = DeviceEventBus.synchronous();
+		printer.setEventBus(bus);
+		printer.attach(new Recorder() {
+			@Override
+			public void inkAdded(ReceiptPrinter printer) {
+				throw new IllegalStateException();
+			}
+		});
+
+		printer.addInk(1);
+		printer.addPaper(1);
+		Assert.assertEquals("[paperAdded]", events.toString());
+		Assert.assertEquals(1, bus.getFailureCount(printer));
+		Assert.assertEquals(2, bus.getDeliveredCount(printer));
+	}
+
+	//Without a bus, events are announced as before
+	@Test
+	public void noBusTest() {
+		printer.setEventBus(DeviceEventBus.synchronous());
+		printer.setEventBus(null);
+		Assert.assertNull(printer.getEventBus());
+		printer.attach(new Recorder());
+
+		printer.addInk(1);
+		Assert.assertEquals("[inkAdded]", events.toString());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void nullExecutorTest() {
+		new DeviceEventBus(null);
+	}
+}
@@ -0,0 +1,208 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.Card;
+import org.lsmr.selfcheckout.customer.events.DeviceEvent;
+import org.lsmr.selfcheckout.customer.events.DeviceEvent.Type;
+import org.lsmr.selfcheckout.customer.events.DeviceEventHandler;
+import org.lsmr.selfcheckout.customer.events.DeviceEventRecorder;
+import org.lsmr.selfcheckout.customer.events.DeviceEventRing;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+public class DeviceEventRingTest extends BaseTestClass {
+
+	private long now;
+	private DeviceEventRing ring;
+
+	//Keeps a line for each event handled
+	private static class Recorder implements DeviceEventHandler {
+		List<String> events = new ArrayList<String>();
+
+		@Override
+		public void handle(DeviceEvent event) {
+			events.add(event.toString());
+		}
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		now = 0;
+		ring = new DeviceEventRing(8, () -> now);
+	}
+
+	//Readers handle the events placed after they were made, in order
+	@Test
+	public void orderTest() {
+		ring.publish(Type.INK_ADDED, checkoutStation.printer, null, 0);
+		Recorder recorder = new Recorder();
+		DeviceEventRing.Reader reader = ring.newReader(recorder);
+
+		now = 5;
+		ring.publish(Type.BARCODE_SCANNED, checkoutStation.mainScanner, Barcode.parse("1234"), 0);
+		ring.publish(Type.WEIGHT_CHANGED, checkoutStation.baggingArea, null, 30.0);
+		Assert.assertEquals(2, reader.getLag());
+
+		Assert.assertEquals(2, reader.poll());
+		Assert.assertEquals("[1 BARCODE_SCANNED 1234, 2 WEIGHT_CHANGED 30.0]", recorder.events.toString());
+		Assert.assertEquals(0, reader.poll());
+		Assert.assertEquals(3, reader.getSequence());
+	}
+
+	//The handler is given the event's own fields
+	@Test
+	public void fieldsTest() {
+		final List<Object> fields = new ArrayList<Object>();
+		DeviceEventRing.Reader reader = ring.newReader(event -> {
+			fields.add(event.getType());
+			fields.add(event.getDevice());
+			fields.add(event.getTime());
+		});
+
+		now = 42;
+		ring.publish(Type.OUT_OF_INK, checkoutStation.printer, null, 0);
+		reader.poll();
+		Assert.assertEquals(Type.OUT_OF_INK, fields.get(0));
+		Assert.assertSame(checkoutStation.printer, fields.get(1));
+		Assert.assertEquals(42L, fields.get(2));
+	}
+
+	//A reader that follows another handles only what the other has handled
+	@Test
+	public void followTest() {
+		Recorder first = new Recorder();
+		Recorder second = new Recorder();
+		DeviceEventRing.Reader leader = ring.newReader(first);
+		DeviceEventRing.Reader follower = ring.newReader(second, leader);
+
+		ring.publish(Type.PAPER_ADDED, checkoutStation.printer, null, 0);
+		Assert.assertEquals(0, follower.poll());
+		Assert.assertEquals(1, leader.poll());
+		Assert.assertEquals(1, follower.poll());
+		Assert.assertEquals(first.events, second.events);
+	}
+
+	//A reader a lap behind loses the overwritten events but never holds up the devices
+	@Test
+	public void lostTest() {
+		Recorder recorder = new Recorder();
+		DeviceEventRing.Reader reader = ring.newReader(recorder);
+
+		for(int i = 0; i < 20; i++)
+			ring.publish(Type.WEIGHT_CHANGED, checkoutStation.baggingArea, null, i);
+
+		Assert.assertEquals(8, reader.poll());
+		Assert.assertEquals(12, reader.getLostCount());
+		Assert.assertEquals("12 WEIGHT_CHANGED 12.0", recorder.events.get(0));
+		Assert.assertEquals(0, reader.getLag());
+	}
+
+	//Events placed by many threads at once each arrive once, in each thread's order
+	@Test
+	public void concurrentTest() throws InterruptedException {
+		final int threads = 4;
+		final int perThread = 20000;
+		final DeviceEventRing big = new DeviceEventRing(1 << 17);
+		final long[] last = new long[threads];
+		final int[] counts = new int[threads];
+		DeviceEventRing.Reader reader = big.newReader(event -> {
+			int t = (Integer)event.getDetail();
+			Assert.assertTrue(event.getAmount() > last[t] || counts[t] == 0);
+			last[t] = (long)event.getAmount();
+			counts[t]++;
+		});
+
+		List<Thread> producers = new ArrayList<Thread>();
+		for(int t = 0; t < threads; t++) {
+			final Integer id = t;
+			Thread producer = new Thread(() -> {
+				for(int i = 0; i < perThread; i++)
+					big.publish(Type.BARCODE_SCANNED, checkoutStation.mainScanner, id, i);
+			});
+			producers.add(producer);
+			producer.start();
+		}
+
+		int handled = 0;
+		while(handled < threads * perThread)
+			handled += reader.poll();
+
+		for(Thread producer : producers)
+			producer.join();
+
+		Assert.assertEquals(0, reader.getLostCount());
+		for(int t = 0; t < threads; t++)
+			Assert.assertEquals(perThread, counts[t]);
+	}
+
+	//The recorder places the station's device events in the ring
+	@Test
+	public void recorderTest() {
+		DeviceEventRing station = new DeviceEventRing(64);
+		Recorder recorder = new Recorder();
+		DeviceEventRing.Reader reader = station.newReader(recorder);
+		DeviceEventRecorder deviceRecorder = new DeviceEventRecorder(station);
+		deviceRecorder.attachTo(checkoutStation);
+
+		checkoutStation.printer.addInk(10);
+		checkoutStation.baggingArea.add(new BarcodedItem(Barcode.parse("1234"), 30.0));
+		BarcodedItem item = new BarcodedItem(Barcode.parse("4321"), 30.0);
+		for(int i = 0; i < 100 && station.getPublishedCount() == 2; i++)
+			checkoutStation.handheldScanner.scan(item);
+
+		reader.poll();
+		Assert.assertEquals(3, recorder.events.size());
+		Assert.assertTrue(recorder.events.get(0).endsWith("INK_ADDED"));
+		Assert.assertTrue(recorder.events.get(1).endsWith("WEIGHT_CHANGED 30.0"));
+		Assert.assertTrue(recorder.events.get(2).endsWith("BARCODE_SCANNED 4321"));
+
+		deviceRecorder.detachFrom(checkoutStation);
+		checkoutStation.printer.addInk(10);
+		Assert.assertEquals(0, reader.poll());
+	}
+
+	//A card read is recorded by its type alone
+	@Test
+	public void cardDataTest() {
+		DeviceEventRing station = new DeviceEventRing(64);
+		final List<Object> details = new ArrayList<Object>();
+		DeviceEventRing.Reader reader = station.newReader(event -> {
+			if(event.getType() == Type.CARD_DATA_READ)
+				details.add(event.getDetail());
+		});
+		new DeviceEventRecorder(station).attachTo(checkoutStation);
+
+		Card card = new Card("VISA", "4500123412341234", "Jane Doe", "123", "0000", false, false);
+		for(int i = 0; i < 100 && details.isEmpty(); i++) {
+			try {
+				checkoutStation.cardReader.swipe(card);
+			}
+			catch(IOException e) {
+				// A failed swipe is retried
+			}
+			reader.poll();
+		}
+
+		Assert.assertEquals(1, details.size());
+		Assert.assertEquals("VISA", details.get(0));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void capacityTest() {
+		new DeviceEventRing(12);
+	}
+
+	@Test(expected = SimulationException.class)
+	public void otherRingTest() {
+		ring.newReader(new Recorder(), new DeviceEventRing(8).newReader(new Recorder()));
+	}
+}
@@ -0,0 +1,100 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.Interner;
+import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+public class InternerTest {
+
+	//A value whose equal instances are distinct objects, hashed to itself
+	private static final class Key {
+		final int value;
+
+		Key(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			return object instanceof Key && ((Key)object).value == value;
+		}
+
+		@Override
+		public int hashCode() {
+			return value;
+		}
+	}
+
+	@Test
+	public void barcodeInternTest() {
+		Barcode first = new Barcode(new Numeral[] {Numeral.five, Numeral.five, Numeral.one, Numeral.two});
+		Barcode second = new Barcode(new Numeral[] {Numeral.five, Numeral.five, Numeral.one, Numeral.two});
+
+		Assert.assertSame(first.intern(), second.intern());
+		Assert.assertSame(first.intern(), Barcode.valueOf("5512"));
+	}
+
+	@Test
+	public void valueOfTest() {
+		Barcode pooled = Barcode.valueOf("036000291452");
+
+		Assert.assertSame(pooled, Barcode.valueOf("036000291452"));
+		Assert.assertEquals(Barcode.parse("036000291452"), pooled);
+		Assert.assertNotEquals(pooled, Barcode.valueOf("036000291453"));
+	}
+
+	@Test
+	public void priceLookupCodeInternTest() {
+		Assert.assertSame(new PriceLookupCode("4011").intern(), new PriceLookupCode("4011").intern());
+	}
+
+	//Values sharing a slot replace each other, so the pool never grows
+	@Test
+	public void boundedTest() {
+		Interner<Key> pool = new Interner<Key>(3);
+		Assert.assertEquals(4, pool.capacity());
+
+		Key first = new Key(1000);
+		Assert.assertSame(first, pool.intern(first));
+		Assert.assertSame(first, pool.intern(new Key(1000)));
+
+		Key displacing = new Key(1004);
+		Assert.assertSame(displacing, pool.intern(displacing));
+		Assert.assertSame(displacing, pool.candidate(1000));
+	}
+
+	@Test
+	public void concurrentTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<?>[] results = new Future<?>[4];
+			for(int t = 0; t < results.length; t++)
+				results[t] = executor.submit(() -> {
+					for(int i = 0; i < 10000; i++) {
+						String code = Integer.toString(10000 + i % 500);
+						Assert.assertEquals(code, Barcode.valueOf(code).toString());
+					}
+				});
+
+			for(Future<?> result : results)
+				result.get(30, TimeUnit.SECONDS);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test (expected = SimulationException.class)
+	public void nullTest() {
+		new Interner<Barcode>(4).intern(null);
+	}
+}
@@ -0,0 +1,148 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.CatalogFileWriter;
+import org.lsmr.selfcheckout.customer.catalog.MappedProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+public class MappedProductCatalogTest extends BaseTestClass {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+	private MappedProductCatalog catalog;
+
+	//Prices built from doubles have long unscaled values that must survive the file
+	BigDecimal milkPrice = new BigDecimal("2.50");
+	BigDecimal eggPrice = new BigDecimal("4.05");
+
+	Numeral[] nMilk = {Numeral.one, Numeral.two, Numeral.three, Numeral.four};
+	Numeral[] nEggs = {Numeral.zero, Numeral.two, Numeral.three, Numeral.four, Numeral.one};
+	Numeral[] nBag = {Numeral.nine, Numeral.nine, Numeral.nine, Numeral.nine};
+
+	Barcode barcodeMilk = new Barcode(nMilk);
+	Barcode barcodeEggs = new Barcode(nEggs);
+	Barcode barcodeBag = new Barcode(nBag);
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		try {
+			CatalogFileWriter writer = new CatalogFileWriter();
+			writer.add(new BarcodedProduct(barcodeMilk, "Milk", milkPrice, 3.0));
+			writer.add(new BarcodedProduct(barcodeEggs, "\u0152ufs", eggPrice, 2.0));
+			writer.add(new PLUCodedProduct(new PriceLookupCode("4011"), "Bananas", new BigDecimal("1.49")));
+			writer.add(new PLUCodedProduct(new PriceLookupCode("94011"), "Organic Bananas", new BigDecimal("1.99")));
+
+			file = folder.newFile("catalog.bin").toPath();
+			writer.write(file);
+			catalog = MappedProductCatalog.open(file);
+		}
+		catch(IOException e) {
+			Assert.fail("Could not write the catalog: " + e);
+		}
+	}
+
+	@Test
+	public void barcodedProductTest() {
+		int slot = catalog.find(new Barcode(nEggs));
+
+		Assert.assertEquals(2, catalog.size());
+		Assert.assertEquals(eggPrice, catalog.getPrice(slot));
+		Assert.assertEquals(2.0, catalog.getWeight(slot), 0);
+		Assert.assertEquals("\u0152ufs", catalog.getDescription(slot));
+		Assert.assertEquals(barcodeEggs, catalog.getProduct(slot).getBarcode());
+	}
+
+	@Test
+	public void unknownBarcodeTest() {
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, catalog.find(barcodeBag));
+	}
+
+	@Test
+	public void pluProductTest() {
+		Assert.assertEquals("Bananas", catalog.find(new PriceLookupCode("4011")).getDescription());
+		Assert.assertEquals(new BigDecimal("1.99"), catalog.find(new PriceLookupCode("94011")).getPrice());
+		Assert.assertNull(catalog.find(new PriceLookupCode("04011")));
+	}
+
+	//Station items are served from memory in front of the file
+	@Test
+	public void stationItemTest() {
+		catalog.put(barcodeBag, "Bag", BigDecimal.ZERO, 1.5);
+		int slot = catalog.find(barcodeBag);
+
+		Assert.assertEquals("Bag", catalog.getDescription(slot));
+		Assert.assertEquals(1.5, catalog.getWeight(slot), 0);
+		Assert.assertEquals(3.0, catalog.getWeight(catalog.find(barcodeMilk)), 0);
+	}
+
+	//Each station's own mapping keeps its own station items
+	@Test
+	public void separateMappingsTest() throws IOException {
+		MappedProductCatalog other = MappedProductCatalog.open(file);
+		catalog.put(barcodeBag, "Bag", BigDecimal.ZERO, 1.5);
+		other.put(barcodeBag, "Bag", BigDecimal.ZERO, 4.0);
+
+		Assert.assertEquals(1.5, catalog.getWeight(catalog.find(barcodeBag)), 0);
+		Assert.assertEquals(4.0, other.getWeight(other.find(barcodeBag)), 0);
+		Assert.assertEquals(3.0, other.getWeight(other.find(barcodeMilk)), 0);
+	}
+
+	//Station items can be registered while another thread looks items up
+	@Test
+	public void concurrentStationItemTest() throws InterruptedException {
+		Thread registrar = new Thread(() -> {
+			for(int i = 0; i < 2000; i++)
+				catalog.put(Barcode.parse(Integer.toString(10000 + i)), "Bag", BigDecimal.ZERO, i);
+		});
+		registrar.start();
+
+		while(registrar.isAlive())
+			Assert.assertEquals(3.0, catalog.getWeight(catalog.find(barcodeMilk)), 0);
+		registrar.join();
+
+		Assert.assertEquals(2 + 2000, catalog.size());
+		Assert.assertEquals(1999.0, catalog.getWeight(catalog.find(Barcode.parse("11999"))), 0);
+	}
+
+	//The scan controller works directly on the mapped file
+	@Test
+	public void scanWithMappedCatalogTest() {
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+
+		read(SIcontroller, barcodeMilk, 3.0);
+
+		Assert.assertEquals(1, SIcontroller.numOfScannedItems());
+		Assert.assertEquals(milkPrice.stripTrailingZeros(), SIcontroller.getValueOfCart());
+		Assert.assertEquals(3.0, SIcontroller.getWeightOfCart(), 0);
+	}
+
+	@Test (expected = IOException.class)
+	public void notACatalogFileTest() throws IOException {
+		Path other = folder.newFile("other.bin").toPath();
+		Files.write(other, new byte[64]);
+		MappedProductCatalog.open(other);
+	}
+}
@@ -0,0 +1,80 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Banknote;
+import org.lsmr.selfcheckout.Coin;
+import org.lsmr.selfcheckout.customer.ChangeReceiveController;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.PaymentController;
+import org.lsmr.selfcheckout.devices.DisabledException;
+import org.lsmr.selfcheckout.devices.OverloadException;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+public class MoneyTest extends BaseTestClass {
+
+	private static final Currency CAD = Currency.getInstance("CAD");
+	private static final Currency JPY = Currency.getInstance("JPY");
+
+	@Test
+	public void arithmeticTest() {
+		Money price = Money.of(CAD, new BigDecimal("4.05"));
+
+		Assert.assertEquals(405, price.getMinorUnits());
+		Assert.assertEquals(Money.ofMinor(CAD, 1215), price.multiply(3));
+		Assert.assertEquals(Money.ofMinor(CAD, -95), price.subtract(Money.ofMajor(CAD, 5)));
+		Assert.assertEquals(Money.ofMinor(CAD, 95), price.subtract(Money.ofMajor(CAD, 5)).abs());
+		Assert.assertTrue(price.compareTo(Money.ofMajor(CAD, 4)) > 0);
+		Assert.assertEquals("4.05 CAD", price.toString());
+	}
+
+	@Test
+	public void conversionTest() {
+		Assert.assertEquals(new BigDecimal("20.00"), Money.ofMajor(CAD, 20).toBigDecimal());
+		Assert.assertEquals(new BigDecimal("20"), Money.ofMajor(CAD, 20).toBigDecimalStripped());
+		Assert.assertEquals(new BigDecimal("0.5"), Money.ofMinor(CAD, 50).toBigDecimalStripped());
+		Assert.assertEquals(new BigDecimal("-101.5"), Money.ofMinor(CAD, -10150).toBigDecimalStripped());
+		Assert.assertEquals(new BigDecimal("300"), Money.ofMajor(JPY, 300).toBigDecimal());
+	}
+
+	//Denominations built from doubles are taken at their face value
+	@Test
+	public void coinAndBanknoteTest() {
+		Assert.assertEquals(5, Money.of(new Coin(CAD, new BigDecimal(0.05))).getMinorUnits());
+		Assert.assertEquals(10, Money.of(new Coin(CAD, new BigDecimal(0.10))).getMinorUnits());
+		Assert.assertEquals(Money.ofMajor(CAD, 20), Money.of(new Banknote(CAD, 20)));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void currencyMismatchTest() {
+		Money.ofMajor(CAD, 1).add(Money.ofMajor(JPY, 1));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void overflowTest() {
+		Money.ofMinor(CAD, Long.MAX_VALUE).add(Money.ofMinor(CAD, 1));
+	}
+
+	//Paying in coins and a banknote runs the balance past zero and the overpayment is the change
+	@Test
+	public void paymentTest() throws DisabledException, OverloadException {
+		PaymentController payment = new PaymentController(checkoutStation);
+		ChangeReceiveController change = new ChangeReceiveController(checkoutStation);
+		change.PC = payment;
+		payment.setValueOfCart(new BigDecimal("6.50"));
+
+		while(payment.getBalance().getMinorUnits() == 650)
+			checkoutStation.coinSlot.accept(new Coin(CAD, dec1));
+		Assert.assertEquals(Money.ofMinor(CAD, 600), payment.getBalance());
+		Assert.assertFalse(payment.isAllItemPaid());
+
+		checkoutStation.banknoteInput.accept(new Banknote(CAD, 10));
+		Assert.assertEquals(Money.ofMajor(CAD, -4), payment.getBalance());
+		Assert.assertTrue(payment.isAllItemPaid());
+		Assert.assertEquals(new BigDecimal("4"), change.changeDue());
+		Assert.assertEquals(new BigDecimal("6.5"), payment.getInitialValueOfCart());
+	}
+}
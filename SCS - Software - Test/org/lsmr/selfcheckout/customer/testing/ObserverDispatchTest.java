@@ -0,0 +1,151 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+import org.lsmr.selfcheckout.devices.ReceiptPrinter;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
+import org.lsmr.selfcheckout.devices.observers.ReceiptPrinterObserver;
+
+public class ObserverDispatchTest extends BaseTestClass {
+
+	private ReceiptPrinter printer;
+	private List<String> events;
+
+	//Records the ink events it receives under its name
+	private class Recorder implements ReceiptPrinterObserver {
+		String name;
+
+		Recorder(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
+			events.add(name + " enabled");
+		}
+
+		@Override
+		public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
+			events.add(name + " disabled");
+		}
+
+		@Override
+		public void outOfPaper(ReceiptPrinter printer) {}
+
+		@Override
+		public void outOfInk(ReceiptPrinter printer) {}
+
+		@Override
+		public void paperAdded(ReceiptPrinter printer) {}
+
+		@Override
+		public void inkAdded(ReceiptPrinter printer) {
+			events.add(name);
+		}
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		printer = checkoutStation.printer;
+		printer.detachAll();
+		events = new ArrayList<String>();
+	}
+
+	//An observer detaching itself and attaching another during an event leaves that event's observers unchanged
+	@Test
+	public void attachDuringDispatchTest() {
+		final Recorder late = new Recorder("late");
+		printer.attach(new Recorder("first") {
+			@Override
+			public void inkAdded(ReceiptPrinter printer) {
+				super.inkAdded(printer);
+				printer.detach(this);
+				printer.attach(late);
+			}
+		});
+		printer.attach(new Recorder("second"));
+
+		printer.addInk(1);
+		Assert.assertEquals("[first, second]", events.toString());
+
+		events.clear();
+		printer.addInk(1);
+		Assert.assertEquals("[second, late]", events.toString());
+	}
+
+	//Detaching every observer during an event stops only later events
+	@Test
+	public void detachAllDuringDispatchTest() {
+		printer.attach(new Recorder("first") {
+			@Override
+			public void inkAdded(ReceiptPrinter printer) {
+				super.inkAdded(printer);
+				printer.detachAll();
+			}
+		});
+		printer.attach(new Recorder("second"));
+
+		printer.addInk(1);
+		printer.addInk(1);
+		Assert.assertEquals("[first, second]", events.toString());
+	}
+
+	//Detaching removes one attachment of an observer, and only a registered one
+	@Test
+	public void detachTest() {
+		Recorder twice = new Recorder("twice");
+		printer.attach(twice);
+		printer.attach(new Recorder("other"));
+		printer.attach(twice);
+
+		Assert.assertTrue(printer.detach(twice));
+		printer.disable();
+		Assert.assertEquals("[other disabled, twice disabled]", events.toString());
+
+		Assert.assertTrue(printer.detach(twice));
+		Assert.assertFalse(printer.detach(twice));
+		events.clear();
+		printer.enable();
+		Assert.assertEquals("[other enabled]", events.toString());
+	}
+
+	//An observer attached for some events is called for those alone
+	@Test
+	public void subscriptionTest() {
+		printer.attach(new Recorder("ink"), ReceiptPrinter.INK_ADDED);
+		printer.attach(new Recorder("toggle"), AbstractDevice.ENABLED | AbstractDevice.DISABLED);
+		printer.attach(new Recorder("all"));
+
+		printer.addInk(1);
+		printer.disable();
+		printer.enable();
+		Assert.assertEquals("[ink, all, toggle disabled, all disabled, toggle enabled, all enabled]", events.toString());
+	}
+
+	//Detaching an observer also forgets the events it was attached for
+	@Test
+	public void detachSubscriptionTest() {
+		Recorder ink = new Recorder("ink");
+		printer.attach(new Recorder("toggle"), AbstractDevice.DISABLED);
+		printer.attach(ink, ReceiptPrinter.INK_ADDED);
+		printer.attach(new Recorder("both"), ReceiptPrinter.INK_ADDED | AbstractDevice.DISABLED);
+
+		Assert.assertTrue(printer.detach(ink));
+		printer.addInk(1);
+		printer.disable();
+		Assert.assertEquals("[both, toggle disabled, both disabled]", events.toString());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void noEventsTest() {
+		printer.attach(new Recorder("none"), 0);
+	}
+}
@@ -0,0 +1,66 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.catalog.PLUCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+public class PLUCatalogTest {
+
+	private PLUCatalog catalog;
+
+	PLUCodedProduct bananas = new PLUCodedProduct(new PriceLookupCode("4011"), "Bananas", new BigDecimal("1.49"));
+	PLUCodedProduct organicBananas = new PLUCodedProduct(new PriceLookupCode("94011"), "Organic Bananas",
+		new BigDecimal("1.99"));
+
+	@Before
+	public void setup() {
+		catalog = new PLUCatalog();
+	}
+
+	@Test
+	public void indexOfTest() {
+		Assert.assertEquals(0, PLUCatalog.indexOf(new PriceLookupCode("0000")));
+		Assert.assertEquals(4011, PLUCatalog.indexOf(new PriceLookupCode("4011")));
+		Assert.assertEquals(14011, PLUCatalog.indexOf(new PriceLookupCode("04011")));
+		Assert.assertEquals(PLUCatalog.CAPACITY - 1, PLUCatalog.indexOf(new PriceLookupCode("99999")));
+	}
+
+	@Test
+	public void getTest() {
+		catalog.add(bananas);
+		catalog.add(organicBananas);
+
+		Assert.assertSame(bananas, catalog.get(new PriceLookupCode("4011")));
+		Assert.assertSame(organicBananas, catalog.get(new PriceLookupCode("94011")));
+		Assert.assertNull(catalog.get(new PriceLookupCode("04011")));
+		Assert.assertEquals(2, catalog.size());
+	}
+
+	@Test
+	public void emptyCatalogTest() {
+		Assert.assertNull(catalog.get(new PriceLookupCode("4011")));
+		Assert.assertEquals(0, catalog.size());
+	}
+
+	//Replacing a product keeps the count
+	@Test
+	public void replaceTest() {
+		catalog.add(bananas);
+		PLUCodedProduct cheaper = new PLUCodedProduct(new PriceLookupCode("4011"), "Bananas", new BigDecimal("0.99"));
+		catalog.add(cheaper);
+
+		Assert.assertSame(cheaper, catalog.get(new PriceLookupCode("4011")));
+		Assert.assertEquals(1, catalog.size());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void addNullTest() {
+		catalog.add(null);
+	}
+}
@@ -0,0 +1,75 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcodeIndex;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+public class PackedBarcodeTest {
+
+	private Barcode barcode(String code) {
+		return Barcode.parse(code);
+	}
+
+	@Test
+	public void packTest() {
+		Assert.assertEquals(11234L, PackedBarcode.pack(barcode("1234")));
+		Assert.assertEquals(1999999999999999999L, PackedBarcode.pack(barcode("999999999999999999")));
+	}
+
+	//Leading zeros must not collapse distinct codes
+	@Test
+	public void leadingZerosTest() {
+		Assert.assertNotEquals(PackedBarcode.pack(barcode("0123")), PackedBarcode.pack(barcode("123")));
+		Assert.assertEquals(4, PackedBarcode.digitCount(PackedBarcode.pack(barcode("0123"))));
+	}
+
+	@Test
+	public void tooManyDigitsTest() {
+		Assert.assertEquals(PackedBarcode.NONE, PackedBarcode.pack(barcode("1234567890123456789")));
+	}
+
+	@Test
+	public void unpackTest() {
+		Barcode code = barcode("0036000291452");
+		Assert.assertEquals(code, PackedBarcode.unpack(PackedBarcode.pack(code)));
+	}
+
+	@Test (expected = SimulationException.class)
+	public void unpackInvalidTest() {
+		PackedBarcode.unpack(PackedBarcode.NONE);
+	}
+
+	//Index keeps every mapping through several resizes
+	@Test
+	public void indexTest() {
+		PackedBarcodeIndex index = new PackedBarcodeIndex(0);
+
+		for(int i = 0; i < 10000; i++)
+			index.put(10000000000000L + i, i);
+
+		Assert.assertEquals(10000, index.size());
+		for(int i = 0; i < 10000; i++)
+			Assert.assertEquals(i, index.get(10000000000000L + i));
+
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, index.get(10000000010000L));
+	}
+
+	@Test
+	public void indexReplaceTest() {
+		PackedBarcodeIndex index = new PackedBarcodeIndex(4);
+		index.put(11234L, 1);
+		index.put(11234L, 7);
+
+		Assert.assertEquals(1, index.size());
+		Assert.assertEquals(7, index.get(11234L));
+	}
+
+	@Test (expected = SimulationException.class)
+	public void indexInvalidKeyTest() {
+		new PackedBarcodeIndex(4).put(PackedBarcode.NONE, 0);
+	}
+}
@@ -10,7 +10,6 @@ import java.io.IOException;
 import java.math.BigDecimal;
 
 import java.util.Currency;
-import java.util.HashMap;
 import java.util.List;
 
 
@@ -27,6 +26,7 @@ import org.lsmr.selfcheckout.customer.BaggingAreaController;
 import org.lsmr.selfcheckout.customer.PaymentController;
 import org.lsmr.selfcheckout.customer.ReceiptPrinterController;
 import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
 import org.lsmr.selfcheckout.devices.CardReader;
 import org.lsmr.selfcheckout.devices.DisabledException;
 import org.lsmr.selfcheckout.devices.OverloadException;
@@ -57,9 +57,7 @@ public class PaymentControllerTest extends BaseTestClass {
 	BigDecimal milkPrice = new BigDecimal(2.50);
 	Numeral[] nMilk = {Numeral.one, Numeral.two, Numeral.three, Numeral.four};
 	Barcode barcodeMilk = new Barcode(nMilk);
-	HashMap<Barcode, BigDecimal> barcodePrice = new HashMap<Barcode, BigDecimal>();
-	HashMap<Barcode, Double> barcodeWeight = new HashMap<Barcode, Double>();
-	HashMap<Barcode, String> barcodeDescription = new HashMap<Barcode, String>();
+	ArrayProductCatalog catalog = new ArrayProductCatalog();
 	
 	//Payment Controller
 	@Before
@@ -76,9 +74,9 @@ public class PaymentControllerTest extends BaseTestClass {
 		//initializing payment controller
 		pController = new PaymentController(cs);
 		
-		SIcontroller = new ScanItemController(cs, barcodePrice, barcodeWeight);
+		SIcontroller = new ScanItemController(cs, catalog);
 		bAcontroller = new BaggingAreaController(cs);
-		RPcontroller = new ReceiptPrinterController(cs,barcodePrice, barcodeDescription);
+		RPcontroller = new ReceiptPrinterController(cs);
 		
 		bAcontroller.setScanItemControl(SIcontroller);
 		SIcontroller.setBagAreaControl(bAcontroller);
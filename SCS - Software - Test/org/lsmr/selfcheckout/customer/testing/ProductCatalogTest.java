@@ -0,0 +1,92 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+public class ProductCatalogTest {
+
+	private ArrayProductCatalog catalog;
+
+	Numeral[] nMilk = {Numeral.one, Numeral.two, Numeral.three, Numeral.four};
+	Numeral[] nEggs = {Numeral.two, Numeral.three, Numeral.four, Numeral.one};
+	Numeral[] nBag = {Numeral.nine, Numeral.nine, Numeral.nine, Numeral.nine};
+
+	Barcode barcodeMilk = new Barcode(nMilk);
+	Barcode barcodeEggs = new Barcode(nEggs);
+	Barcode barcodeBag = new Barcode(nBag);
+
+	BarcodedProduct milk = new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 3.0);
+	BarcodedProduct eggs = new BarcodedProduct(barcodeEggs, "Eggs", new BigDecimal("4.05"), 2.0);
+
+	@Before
+	public void setup() {
+		catalog = new ArrayProductCatalog(1);
+		catalog.add(milk);
+		catalog.add(eggs);
+	}
+
+	//One lookup gives access to price, weight, description and product
+	@Test
+	public void findTest() {
+		int slot = catalog.find(new Barcode(nEggs));
+
+		Assert.assertNotEquals(ProductCatalog.NOT_FOUND, slot);
+		Assert.assertEquals(new BigDecimal("4.05"), catalog.getPrice(slot));
+		Assert.assertEquals(2.0, catalog.getWeight(slot), 0);
+		Assert.assertEquals("Eggs", catalog.getDescription(slot));
+		Assert.assertSame(eggs, catalog.getProduct(slot));
+		Assert.assertEquals(2, catalog.size());
+	}
+
+	@Test
+	public void unknownBarcodeTest() {
+		Assert.assertEquals(ProductCatalog.NOT_FOUND, catalog.find(barcodeBag));
+	}
+
+	//Adding a product with an existing barcode replaces it in the same slot
+	@Test
+	public void replaceProductTest() {
+		int slot = catalog.find(barcodeMilk);
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk 2L", new BigDecimal("4.99"), 2000.0));
+
+		Assert.assertEquals(slot, catalog.find(barcodeMilk));
+		Assert.assertEquals("Milk 2L", catalog.getDescription(slot));
+		Assert.assertEquals(2, catalog.size());
+	}
+
+	//Station items can be free and have no product
+	@Test
+	public void putStationItemTest() {
+		catalog.put(barcodeBag, "Bag", BigDecimal.ZERO, 1.5);
+		int slot = catalog.find(barcodeBag);
+
+		Assert.assertEquals(BigDecimal.ZERO, catalog.getPrice(slot));
+		Assert.assertEquals(1.5, catalog.getWeight(slot), 0);
+		Assert.assertNull(catalog.getProduct(slot));
+	}
+
+	@Test (expected = SimulationException.class)
+	public void putNegativePriceTest() {
+		catalog.put(barcodeBag, "Bag", new BigDecimal(-1), 1.5);
+	}
+
+	@Test
+	public void pluProductTest() {
+		PLUCodedProduct apples = new PLUCodedProduct(new PriceLookupCode("4131"), "Apples", new BigDecimal("3.99"));
+		catalog.add(apples);
+
+		Assert.assertSame(apples, catalog.find(new PriceLookupCode("4131")));
+		Assert.assertNull(catalog.find(new PriceLookupCode("4132")));
+	}
+}
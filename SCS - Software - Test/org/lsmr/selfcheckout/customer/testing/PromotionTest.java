@@ -0,0 +1,208 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.PaymentController;
+import org.lsmr.selfcheckout.customer.ReceiptPrinterController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.cart.Cart;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.promotion.Promotion;
+import org.lsmr.selfcheckout.customer.promotion.PromotionEngine;
+import org.lsmr.selfcheckout.customer.promotion.PromotionTable;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class PromotionTest extends BaseTestClass {
+
+	private static final Currency CAD = Currency.getInstance("CAD");
+
+	private ArrayProductCatalog catalog;
+	private Cart cart;
+
+	private Barcode barcodeMilk = Barcode.parse("1234");
+	private Barcode barcodeEggs = Barcode.parse("4321");
+	private Barcode barcodeToast = Barcode.parse("3241");
+	private Barcode barcodeJam = Barcode.parse("5555");
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 3.0));
+		catalog.add(new BarcodedProduct(barcodeEggs, "Eggs", new BigDecimal("4.05"), 2.0));
+		catalog.add(new BarcodedProduct(barcodeToast, "Toast", new BigDecimal("3.50"), 5.0));
+		catalog.add(new BarcodedProduct(barcodeJam, "Jam", new BigDecimal("5.00"), 4.0));
+		cart = new Cart(CAD);
+	}
+
+	private static Money cad(String amount) {
+		return Money.of(CAD, new BigDecimal(amount));
+	}
+
+	private void add(Barcode barcode) {
+		int slot = catalog.find(barcode);
+		cart.add(barcode, catalog, slot, Money.of(CAD, catalog.getPrice(slot)), catalog.getWeight(slot));
+	}
+
+	private PromotionEngine engine(Promotion... promotions) {
+		PromotionEngine engine = new PromotionEngine(new PromotionTable(Arrays.asList(promotions)), CAD);
+		cart.attach(engine);
+		return engine;
+	}
+
+	//3 milk for $6: every third unit completes a group
+	@Test
+	public void multiBuyTest() {
+		PromotionEngine engine = engine(Promotion.multiBuy("Milk 3 for 6.00", barcodeMilk, 3, cad("6.00")));
+
+		add(barcodeMilk);
+		add(barcodeMilk);
+		Assert.assertEquals(0, engine.getDiscount().signum());
+
+		add(barcodeMilk);
+		Assert.assertEquals(cad("1.50"), engine.getDiscount());
+
+		cart.setQuantity(barcodeMilk, 7);
+		Assert.assertEquals(cad("3.00"), engine.getDiscount());
+
+		cart.remove(barcodeMilk);
+		cart.remove(barcodeMilk);
+		Assert.assertEquals(cad("1.50"), engine.getDiscount());
+		Assert.assertEquals(1, engine.getDiscounts().size());
+		Assert.assertEquals(cad("1.50"), engine.getDiscounts().get(0).getAmount());
+	}
+
+	//Any 2 breakfast items for $7: the dearest units are grouped first
+	@Test
+	public void mixAndMatchTest() {
+		PromotionEngine engine = engine(
+			Promotion.mixAndMatch("Breakfast 2 for 7.00", 2, cad("7.00"), barcodeEggs, barcodeToast, barcodeJam));
+
+		add(barcodeToast);
+		add(barcodeEggs);
+		Assert.assertEquals(cad("0.55"), engine.getDiscount());
+
+		// Jam and eggs are grouped, leaving the toast at full price
+		add(barcodeJam);
+		Assert.assertEquals(cad("2.05"), engine.getDiscount());
+
+		// Toast and toast cost exactly the deal price, so no further group pays
+		add(barcodeToast);
+		Assert.assertEquals(cad("2.05"), engine.getDiscount());
+
+		add(barcodeJam);
+		Assert.assertEquals(cad("3.55"), engine.getDiscount());
+	}
+
+	//A product in two promotions updates both
+	@Test
+	public void overlappingTest() {
+		PromotionEngine engine = engine(Promotion.multiBuy("Toast 2 for 6.00", barcodeToast, 2, cad("6.00")),
+			Promotion.mixAndMatch("Toast and jam 8.00", 2, cad("8.00"), barcodeToast, barcodeJam));
+
+		add(barcodeToast);
+		add(barcodeToast);
+		add(barcodeJam);
+		Assert.assertEquals(2, engine.getDiscounts().size());
+		Assert.assertEquals(cad("1.50"), engine.getDiscount());
+	}
+
+	//The running discount always matches a fresh evaluation of the cart, and its shares add up to it
+	@Test
+	public void incrementalTest() {
+		Promotion[] promotions = { Promotion.multiBuy("Milk 3 for 6.00", barcodeMilk, 3, cad("6.00")),
+			Promotion.mixAndMatch("Breakfast 3 for 10.00", 3, cad("10.00"), barcodeEggs, barcodeToast, barcodeJam),
+			Promotion.mixAndMatch("Any 4 for 11.00", 4, cad("11.00"), barcodeMilk, barcodeEggs) };
+		PromotionEngine engine = engine(promotions);
+		long[] shared = new long[1];
+		engine.attach((source, barcode, change) -> shared[0] += change);
+		Barcode[] barcodes = { barcodeMilk, barcodeEggs, barcodeToast, barcodeJam };
+		Random random = new Random(7);
+
+		for(int i = 0; i < 500; i++) {
+			Barcode barcode = barcodes[random.nextInt(barcodes.length)];
+			if(random.nextInt(3) == 0)
+				cart.remove(barcode);
+			else
+				add(barcode);
+
+			PromotionEngine fresh = new PromotionEngine(new PromotionTable(Arrays.asList(promotions)), CAD);
+			for(CartLine line : cart.lines())
+				fresh.lineChanged(cart, line, 0);
+			Assert.assertEquals(fresh.getDiscount(), engine.getDiscount());
+			Assert.assertEquals(engine.getDiscount().getMinorUnits(), shared[0]);
+		}
+	}
+
+	//A group spanning products shares its saving by what each paid toward it
+	@Test
+	public void shareTest() {
+		PromotionEngine engine = engine(
+			Promotion.mixAndMatch("Breakfast 3 for 10.00", 3, cad("10.00"), barcodeEggs, barcodeToast, barcodeJam));
+		add(barcodeEggs);
+		add(barcodeToast);
+		add(barcodeJam);
+
+		Map<Barcode, Long> shares = new HashMap<>();
+		engine.attach((source, barcode, change) -> shares.merge(barcode, change, Long::sum));
+		// 12.55 for 10.00 saves 2.55: 5.00, 4.05 and 3.50 of it
+		Assert.assertEquals(101L, (long)shares.get(barcodeJam));
+		Assert.assertEquals(82L, (long)shares.get(barcodeEggs));
+		Assert.assertEquals(72L, (long)shares.get(barcodeToast));
+
+		cart.remove(barcodeJam);
+		Assert.assertEquals(0L, (long)shares.get(barcodeEggs));
+		Assert.assertEquals(0L, (long)shares.get(barcodeToast));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void duplicateMemberTest() {
+		Promotion.mixAndMatch("Bad", 2, cad("1.00"), barcodeMilk, Barcode.parse("1234"));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void currencyTest() {
+		new PromotionEngine(new PromotionTable(Arrays.asList(Promotion.multiBuy("Milk", barcodeMilk, 2,
+			Money.ofMajor(Currency.getInstance("USD"), 4)))), CAD);
+	}
+
+	//The cart value is discounted and the receipt lists the discount
+	@Test
+	public void receiptTest() {
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		PaymentController PAcontroller = new PaymentController(checkoutStation);
+		ReceiptPrinterController RPcontroller = new ReceiptPrinterController(checkoutStation);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+		RPcontroller.setControllers(SIcontroller, PAcontroller);
+		SIcontroller.setPromotions(new PromotionTable(
+			Arrays.asList(Promotion.multiBuy("Milk 2 for 4.00", barcodeMilk, 2, cad("4.00")))));
+
+		scan(SIcontroller, barcodeMilk, 3.0);
+		scan(SIcontroller, barcodeMilk, 3.0);
+
+		Assert.assertEquals(new BigDecimal("4"), SIcontroller.getValueOfCart());
+
+		PAcontroller.setValueOfCart(SIcontroller.getValueOfCart());
+		RPcontroller.printReceipt();
+		Assert.assertTrue(RPcontroller.getReceipt().contains("Milk 2 @ 2.50 5.00\nMilk 2 for 4.00 -1.00\n"));
+
+		SIcontroller.unScanItem(barcodeMilk);
+		Assert.assertEquals(new BigDecimal("2.5"), SIcontroller.getValueOfCart());
+	}
+}
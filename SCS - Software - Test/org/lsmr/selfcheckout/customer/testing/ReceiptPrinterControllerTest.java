@@ -3,7 +3,6 @@ package org.lsmr.selfcheckout.customer.testing;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import java.util.HashMap;
 
 import org.lsmr.selfcheckout.Banknote;
 import org.lsmr.selfcheckout.Barcode;
@@ -18,9 +17,11 @@ import org.lsmr.selfcheckout.customer.BaggingAreaController;
 import org.lsmr.selfcheckout.customer.PaymentController;
 import org.lsmr.selfcheckout.customer.ReceiptPrinterController;
 import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
 import org.lsmr.selfcheckout.devices.DisabledException;
 import org.lsmr.selfcheckout.devices.OverloadException;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
 import org.lsmr.selfcheckout.Numeral;
 
 import java.io.IOException;
@@ -61,10 +62,8 @@ public class ReceiptPrinterControllerTest extends BaseTestClass{
 	Barcode barcodeToast = new Barcode(nToast);
 	
 	
-	//declaring hashmap barcodePrice hashmap and barcodeWeight hashmap
-	private final HashMap<Barcode, BigDecimal> barcodePrice = new HashMap<Barcode, BigDecimal>();
-	private final HashMap<Barcode, Double> barcodeWeight = new HashMap<Barcode, Double>();
-	private final HashMap<Barcode, String> barcodeDescription = new HashMap<Barcode, String>();
+	//declaring the product catalog shared by the controllers
+	private final ArrayProductCatalog catalog = new ArrayProductCatalog();
 	
 	
 	//Initialize checkoutStation
@@ -77,27 +76,17 @@ public class ReceiptPrinterControllerTest extends BaseTestClass{
 		cs = checkoutStation;
 		
 		
-		//initalizing price hashmap		
-		barcodePrice.put(barcodeMilk, milkPrice);	//milk
-		barcodePrice.put(barcodeEggs, eggPrice);	//eggs
-		barcodePrice.put(barcodeToast, toastPrice);	//toast
-		
-		//initalizing weight hashmap
-		barcodeWeight.put(barcodeMilk, 3.0);	//milk
-		barcodeWeight.put(barcodeEggs, 2.0);	//eggs
-		barcodeWeight.put(barcodeToast, 5.0);	//toast
-		
-		//initializng barcode description 
-		barcodeDescription.put(barcodeMilk, "Milk");	//milk
-		barcodeDescription.put(barcodeEggs, "Eggs");	//eggs
-		barcodeDescription.put(barcodeToast, "Toast");	//toast
+		//initalizing the catalog with description, price and weight of each product
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", milkPrice, 3.0));	//milk
+		catalog.add(new BarcodedProduct(barcodeEggs, "Eggs", eggPrice, 2.0));	//eggs
+		catalog.add(new BarcodedProduct(barcodeToast, "Toast", toastPrice, 5.0));	//toast
 		
 		
 		
 		//initalizing controllers
-		SIcontroller = new ScanItemController(cs, barcodePrice, barcodeWeight);
+		SIcontroller = new ScanItemController(cs, catalog);
 		PAcontroller = new PaymentController(cs);
-		RPcontroller = new ReceiptPrinterController(cs,barcodePrice, barcodeDescription);
+		RPcontroller = new ReceiptPrinterController(cs);
 		bAcontroller = new BaggingAreaController(cs);
 		
 		
@@ -0,0 +1,144 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.Item;
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+import org.lsmr.selfcheckout.devices.ElectronicScale;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
+import org.lsmr.selfcheckout.devices.observers.ElectronicScaleObserver;
+
+public class ScaleCoalescingTest extends BaseTestClass {
+
+	private long now;
+	private ElectronicScale scale;
+	private List<String> events;
+
+	//Keeps a line for each event of the scale
+	private class Recorder implements ElectronicScaleObserver {
+		@Override
+		public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {}
+
+		@Override
+		public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {}
+
+		@Override
+		public void weightChanged(ElectronicScale scale, double weightInGrams) {
+			events.add("weight " + weightInGrams);
+		}
+
+		@Override
+		public void overload(ElectronicScale scale) {
+			events.add("overload");
+		}
+
+		@Override
+		public void outOfOverload(ElectronicScale scale) {
+			events.add("outOfOverload");
+		}
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		now = 0;
+		events = Collections.synchronizedList(new ArrayList<String>());
+		scale = new ElectronicScale(1000, 2);
+		scale.endConfigurationPhase();
+		scale.attach(new Recorder());
+	}
+
+	private static Item item(double weight) {
+		return new BarcodedItem(Barcode.parse("1234"), weight);
+	}
+
+	private void at(long millis) {
+		now = TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	//Changes within the window are announced once, as the weight they settle at
+	@Test
+	public void settleTest() {
+		scale.setCoalescing(100, TimeUnit.MILLISECONDS, () -> now);
+		scale.add(item(30.0));
+		at(10);
+		scale.add(item(20.0));
+		at(20);
+		Item jitter = item(5.0);
+		scale.add(jitter);
+		Assert.assertFalse(scale.isStable());
+
+		at(110);
+		Assert.assertFalse(scale.settle());
+		at(120);
+		Assert.assertTrue(scale.isStable());
+		Assert.assertTrue(scale.settle());
+		Assert.assertFalse(scale.settle());
+		Assert.assertEquals("[weight 55.0]", events.toString());
+
+		// Back within the sensitivity of the weight announced
+		at(200);
+		scale.remove(jitter);
+		scale.add(item(4.0));
+		at(300);
+		Assert.assertFalse(scale.settle());
+		Assert.assertEquals(1, events.size());
+	}
+
+	//Overload is announced at once, and no weight is announced while overloaded
+	@Test
+	public void overloadTest() {
+		scale.setCoalescing(100, TimeUnit.MILLISECONDS, () -> now);
+		Item heavy = item(1500.0);
+		scale.add(heavy);
+		Assert.assertEquals("[overload]", events.toString());
+
+		at(100);
+		Assert.assertFalse(scale.settle());
+		scale.remove(heavy);
+		Assert.assertEquals("[overload, outOfOverload]", events.toString());
+	}
+
+	//Stopping announces a change that has not settled, and then every change again
+	@Test
+	public void stopTest() {
+		scale.setCoalescing(100, TimeUnit.MILLISECONDS, () -> now);
+		Assert.assertTrue(scale.isCoalescing());
+		scale.add(item(30.0));
+
+		scale.stopCoalescing();
+		Assert.assertFalse(scale.isCoalescing());
+		Assert.assertTrue(scale.isStable());
+		scale.add(item(20.0));
+		Assert.assertEquals("[weight 30.0, weight 50.0]", events.toString());
+	}
+
+	//Without a clock of its own, the scale settles by itself once the window passes
+	//The windows themselves are covered with a clock of the test's own above
+	@Test
+	public void timerTest() throws InterruptedException {
+		scale.setCoalescing(20, TimeUnit.MILLISECONDS);
+		scale.add(item(30.0));
+
+		for(int i = 0; i < 400 && events.isEmpty(); i++)
+			Thread.sleep(5);
+
+		Assert.assertEquals("[weight 30.0]", events.toString());
+		Assert.assertTrue(scale.isStable());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void windowTest() {
+		scale.setCoalescing(0, TimeUnit.MILLISECONDS);
+	}
+}
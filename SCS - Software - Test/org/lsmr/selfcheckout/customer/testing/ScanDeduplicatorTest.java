@@ -0,0 +1,114 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanDeduplicator;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.devices.BarcodeScanner;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class ScanDeduplicatorTest extends BaseTestClass {
+
+	private long now;
+	private ScanDeduplicator deduplicator;
+	private BarcodeScanner main;
+	private BarcodeScanner handheld;
+
+	private Barcode barcodeMilk = Barcode.parse("1234");
+	private Barcode barcodeEggs = Barcode.parse("4321");
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		now = 0;
+		deduplicator = new ScanDeduplicator(4, 300, TimeUnit.MILLISECONDS, () -> now);
+		main = checkoutStation.mainScanner;
+		handheld = checkoutStation.handheldScanner;
+	}
+
+	//A second read within the window is dropped; the window is not extended by it
+	@Test
+	public void windowTest() {
+		Assert.assertTrue(deduplicator.accept(main, barcodeMilk));
+
+		now = TimeUnit.MILLISECONDS.toNanos(200);
+		Assert.assertFalse(deduplicator.accept(main, Barcode.parse("1234")));
+		Assert.assertTrue(deduplicator.accept(main, barcodeEggs));
+
+		now = TimeUnit.MILLISECONDS.toNanos(300);
+		Assert.assertTrue(deduplicator.accept(main, barcodeMilk));
+		Assert.assertEquals(1, deduplicator.getDuplicateCount());
+	}
+
+	//Reads are keyed by scanner as well as barcode
+	@Test
+	public void scannerTest() {
+		Assert.assertTrue(deduplicator.accept(main, barcodeMilk));
+		Assert.assertTrue(deduplicator.accept(handheld, barcodeMilk));
+		Assert.assertFalse(deduplicator.accept(handheld, barcodeMilk));
+	}
+
+	//Once the table is full, the oldest read is forgotten
+	@Test
+	public void capacityTest() {
+		for(int i = 0; i < 5; i++)
+			Assert.assertTrue(deduplicator.accept(main, Barcode.parse("10" + i)));
+
+		Assert.assertTrue(deduplicator.accept(main, Barcode.parse("100")));
+		Assert.assertFalse(deduplicator.accept(main, Barcode.parse("104")));
+
+		deduplicator.clear();
+		Assert.assertTrue(deduplicator.accept(main, Barcode.parse("104")));
+	}
+
+	//Barcodes too long to pack are compared whole
+	@Test
+	public void longBarcodeTest() {
+		Barcode a = Barcode.parse("123456789012345678901234567890");
+		Barcode b = Barcode.parse("123456789012345678901234567891");
+
+		Assert.assertTrue(deduplicator.accept(main, a));
+		Assert.assertTrue(deduplicator.accept(main, b));
+		Assert.assertFalse(deduplicator.accept(main, Barcode.parse("123456789012345678901234567890")));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void windowRangeTest() {
+		new ScanDeduplicator(4, 0, TimeUnit.MILLISECONDS);
+	}
+
+	//A double read adds the item once, and unscanning lets it be scanned again straight away
+	@Test
+	public void controllerTest() {
+		ArrayProductCatalog catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 30.0));
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+		SIcontroller.setDeduplicator(deduplicator);
+
+		BarcodedItem milk = scan(SIcontroller, barcodeMilk, 30.0);
+
+		for(int i = 0; i < 20; i++)
+			main.scan(milk);
+		Assert.assertEquals(1, SIcontroller.numOfScannedItems());
+		Assert.assertTrue(deduplicator.getDuplicateCount() > 0);
+
+		checkoutStation.baggingArea.remove(milk);
+		SIcontroller.unScanItem(barcodeMilk);
+		for(int i = 0; i < 100 && SIcontroller.numOfScannedItems() == 0; i++)
+			main.scan(milk);
+		Assert.assertEquals(1, SIcontroller.numOfScannedItems());
+	}
+}
@@ -5,7 +5,6 @@ package org.lsmr.selfcheckout.customer.testing;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import java.util.HashMap;
 
 import org.lsmr.selfcheckout.Banknote;
 import org.lsmr.selfcheckout.Barcode;
@@ -15,9 +14,11 @@ import org.lsmr.selfcheckout.Numeral;
 import org.lsmr.selfcheckout.customer.BaggingAreaController;
 import org.lsmr.selfcheckout.customer.PaymentController;
 import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
 import org.lsmr.selfcheckout.devices.DisabledException;
 import org.lsmr.selfcheckout.devices.OverloadException;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
 import org.lsmr.selfcheckout.Numeral;
 
 import java.math.BigDecimal;
@@ -40,9 +41,9 @@ public class ScanItemControllerTest extends BaseTestClass{
 	private PaymentController pController;
 	
 	//initializing prices of items
-	BigDecimal milkPrice = new BigDecimal(2.50);
-	BigDecimal eggPrice = new BigDecimal(4.05);
-	BigDecimal toastPrice = new BigDecimal(3.50);
+	BigDecimal milkPrice = new BigDecimal("2.50");
+	BigDecimal eggPrice = new BigDecimal("4.05");
+	BigDecimal toastPrice = new BigDecimal("3.50");
 	
 	Numeral[] nMilk = {Numeral.one, Numeral.two, Numeral.three, Numeral.four};
 	Numeral[] nEggs = {Numeral.two, Numeral.three, Numeral.four, Numeral.one};
@@ -55,9 +56,8 @@ public class ScanItemControllerTest extends BaseTestClass{
 	Barcode barcodeToast = new Barcode(nToast);
 	
 	
-	//declaring hashmap barcodePrice hashmap and barcodeWeight hashmap
-	private HashMap<Barcode, BigDecimal> barcodePrice = new HashMap<Barcode, BigDecimal>();
-	private final HashMap<Barcode, Double> barcodeWeight = new HashMap<Barcode, Double>();
+	//declaring the product catalog
+	private final ArrayProductCatalog catalog = new ArrayProductCatalog();
 	
 	//Initialize checkoutStation
 	//Create a hasMap of bar code to price
@@ -69,20 +69,15 @@ public class ScanItemControllerTest extends BaseTestClass{
 		cs = checkoutStation;
 		
 		
-		//initalizing price hashmap		
-		barcodePrice.put(barcodeMilk, milkPrice);	//milk
-		barcodePrice.put(barcodeEggs, eggPrice);	//eggs
-		barcodePrice.put(barcodeToast, toastPrice);	//toast
-		
-		//initalizing weight hashmap
-		barcodeWeight.put(barcodeMilk, 3.0);	//milk
-		barcodeWeight.put(barcodeEggs, 2.0);	//eggs
-		barcodeWeight.put(barcodeToast, 5.0);	//toast
+		//initalizing the catalog with price and weight of each product
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", milkPrice, 3.0));	//milk
+		catalog.add(new BarcodedProduct(barcodeEggs, "Eggs", eggPrice, 2.0));	//eggs
+		catalog.add(new BarcodedProduct(barcodeToast, "Toast", toastPrice, 5.0));	//toast
 		
 		
 		//initalizing the BaggingAreaController and scanItemController
 		bAcontroller = new BaggingAreaController(cs);
-		SIcontroller = new ScanItemController(cs, barcodePrice, barcodeWeight);
+		SIcontroller = new ScanItemController(cs, catalog);
 
 		pController = new PaymentController(cs);
 		
@@ -174,6 +169,22 @@ public class ScanItemControllerTest extends BaseTestClass{
 		
 	}
 	
+	//Items are counted by unit, and lines are indexed below the count of lines
+	@Test
+	public void lineIndexTest() {
+		scanError(new BarcodedItem(barcodeMilk, 3.0));
+		scanError(new BarcodedItem(barcodeMilk, 3.0));
+		scanError(new BarcodedItem(barcodeEggs, 2.0));
+
+		Assert.assertEquals(3, SIcontroller.numOfScannedItems());
+		Assert.assertEquals(2, SIcontroller.numOfScannedLines());
+		BigDecimal unitPrices = BigDecimal.ZERO;
+		for(int i = 0; i < SIcontroller.numOfScannedLines(); i++)
+			unitPrices = unitPrices.add(SIcontroller.getPriceOfItem(i));
+		Assert.assertEquals(new BigDecimal("6.55"), unitPrices);
+		Assert.assertEquals("Eggs", SIcontroller.getDescriptionOfItem(1));
+	}
+
 	//unscans a valid item
 		@Test
 		public void unScan1() {
@@ -201,7 +212,7 @@ public class ScanItemControllerTest extends BaseTestClass{
 			expectedWeightOfCart -= eggs.getWeight();
 			
 			Assert.assertEquals(expectedWeightOfCart, SIcontroller.getWeightOfCart());
-			Assert.assertEquals(expectedValueOfCart, SIcontroller.getValueOfCart());
+			Assert.assertEquals(expectedValueOfCart.stripTrailingZeros(), SIcontroller.getValueOfCart());
 			Assert.assertFalse(cs.mainScanner.isDisabled());
 			Assert.assertFalse(cs.handheldScanner.isDisabled());
 		}
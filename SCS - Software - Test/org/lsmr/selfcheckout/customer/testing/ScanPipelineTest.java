@@ -0,0 +1,162 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.ScanPipeline;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+import org.lsmr.selfcheckout.devices.BarcodeScanner;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
+import org.lsmr.selfcheckout.devices.observers.BarcodeScannerObserver;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class ScanPipelineTest extends BaseTestClass {
+
+	private ArrayProductCatalog catalog;
+	private ScanItemController SIcontroller;
+	private BaggingAreaController bAcontroller;
+	private ScanPipeline pipeline;
+
+	private Barcode barcodeMilk = Barcode.parse("1234");
+	private Barcode barcodeEggs = Barcode.parse("4321");
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 30.0));
+		catalog.add(new BarcodedProduct(barcodeEggs, "Eggs", new BigDecimal("4.05"), 20.0));
+
+		bAcontroller = new BaggingAreaController(checkoutStation);
+		SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+	}
+
+	@After
+	public void teardown() {
+		if(pipeline != null)
+			pipeline.close();
+	}
+
+	//Reads handled on the pipeline's thread update the cart as they would on the scanner's
+	@Test
+	public void pipelineTest() {
+		pipeline = new ScanPipeline(SIcontroller, 8);
+		Assert.assertSame(pipeline, SIcontroller.getPipeline());
+
+		scan(SIcontroller, barcodeMilk, 30.0);
+		scan(SIcontroller, barcodeEggs, 20.0);
+		scan(SIcontroller, barcodeMilk, 30.0);
+
+		Assert.assertEquals(3, SIcontroller.numOfScannedItems());
+		Assert.assertEquals(new BigDecimal("9.05"), SIcontroller.getValueOfCart());
+		Assert.assertEquals(80.0, SIcontroller.getWeightOfCart(), 0);
+		Assert.assertFalse(checkoutStation.mainScanner.isDisabled());
+		Assert.assertEquals(3, pipeline.getProcessedCount());
+		Assert.assertTrue(pipeline.getTotalNanos(ScanPipeline.Stage.PRICING) > 0);
+		Assert.assertTrue(pipeline.getMaxNanos(ScanPipeline.Stage.BAGGING) > 0);
+	}
+
+	//A full ring disables the scanners until the pipeline works it down
+	@Test
+	public void backpressureTest() {
+		pipeline = new ScanPipeline(SIcontroller, 4);
+		final List<Barcode> reads = new ArrayList<Barcode>();
+		checkoutStation.mainScanner.attach(new BarcodeScannerObserver() {
+			@Override
+			public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {}
+
+			@Override
+			public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {}
+
+			@Override
+			public void barcodeScanned(BarcodeScanner barcodeScanner, Barcode barcode) {
+				reads.add(barcode);
+			}
+		});
+		List<BarcodedItem> basket = new ArrayList<BarcodedItem>();
+		for(int i = 0; i < 20; i++)
+			basket.add(new BarcodedItem(barcodeMilk, 30.0));
+
+		// Holding the controller stalls the pipeline's thread, which may first take one read off the ring
+		long accepted;
+		synchronized(SIcontroller) {
+			checkoutStation.mainScanner.scanAll(basket);
+			Assert.assertTrue(pipeline.isSaturated());
+			Assert.assertTrue(checkoutStation.mainScanner.isDisabled());
+			Assert.assertTrue(checkoutStation.handheldScanner.isDisabled());
+			accepted = reads.size() - pipeline.getDroppedCount();
+			Assert.assertTrue(accepted == 4 || accepted == 5);
+		}
+
+		pipeline.awaitIdle();
+		Assert.assertFalse(pipeline.isSaturated());
+		Assert.assertEquals(accepted, SIcontroller.numOfScannedItems());
+		Assert.assertTrue(pipeline.getTotalNanos(ScanPipeline.Stage.QUEUE) > 0);
+	}
+
+	//A ring that fills and drains over and over always lets the scanners back on
+	@Test
+	public void saturationStressTest() throws InterruptedException {
+		pipeline = new ScanPipeline(SIcontroller, 2);
+		// Unknown items add nothing, so the bagging area never holds the scanners
+		BarcodedItem unknown = new BarcodedItem(Barcode.parse("5555"), 30.0);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		List<Thread> producers = new ArrayList<Thread>();
+
+		for(BarcodeScanner scanner : new BarcodeScanner[] { checkoutStation.mainScanner, checkoutStation.handheldScanner }) {
+			// A lost wakeup leaves the scanners disabled for good, and the reads stop
+			Thread producer = new Thread(() -> {
+				while(pipeline.getProcessedCount() < 20000 && System.nanoTime() < deadline) {
+					if(scanner.isDisabled())
+						Thread.yield();
+					else
+						scanner.scan(unknown);
+				}
+			});
+			producer.start();
+			producers.add(producer);
+		}
+		for(Thread producer : producers)
+			producer.join();
+
+		pipeline.awaitIdle();
+		Assert.assertTrue(pipeline.getProcessedCount() >= 20000);
+		Assert.assertFalse(pipeline.isSaturated());
+		Assert.assertFalse(checkoutStation.mainScanner.isDisabled());
+		Assert.assertFalse(checkoutStation.handheldScanner.isDisabled());
+	}
+
+	//Once closed, reads are handled on the scanner's thread again
+	@Test
+	public void closeTest() {
+		pipeline = new ScanPipeline(SIcontroller, 8);
+		pipeline.close();
+		Assert.assertNull(SIcontroller.getPipeline());
+
+		BarcodedItem milk = new BarcodedItem(barcodeMilk, 30.0);
+		for(int i = 0; i < 100 && SIcontroller.numOfScannedItems() == 0; i++)
+			checkoutStation.mainScanner.scan(milk);
+		Assert.assertEquals(1, SIcontroller.numOfScannedItems());
+		Assert.assertEquals(0, pipeline.getProcessedCount());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void capacityTest() {
+		new ScanPipeline(SIcontroller, 6);
+	}
+}
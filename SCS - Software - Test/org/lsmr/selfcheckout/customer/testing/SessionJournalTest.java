@@ -0,0 +1,278 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.PaymentController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.ScanItemObserver;
+import org.lsmr.selfcheckout.customer.SessionRecovery;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.journal.SessionJournal;
+import org.lsmr.selfcheckout.customer.journal.SessionJournalListener;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class SessionJournalTest extends BaseTestClass {
+
+	private static final Currency CAD = Currency.getInstance("CAD");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+	private SessionJournal journal;
+	private ArrayProductCatalog catalog;
+
+	private Barcode barcodeMilk = Barcode.parse("1234");
+	private Barcode barcodeBread = Barcode.parse("4321");
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 30.0));
+		catalog.add(new BarcodedProduct(barcodeBread, "Bread", new BigDecimal("3.25"), 20.0));
+
+		try {
+			file = folder.newFile("session.journal").toPath();
+			Files.delete(file);
+			journal = SessionJournal.open(file, CAD);
+		}
+		catch(IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@After
+	public void teardown() throws IOException {
+		journal.close();
+	}
+
+	private static Money cad(String amount) {
+		return Money.of(CAD, new BigDecimal(amount));
+	}
+
+	private SessionJournal reopen() throws IOException {
+		journal.close();
+		journal = SessionJournal.open(file, CAD);
+		return journal;
+	}
+
+	//Writes each event as a line, for comparing replays
+	private static class Recorder implements SessionJournalListener {
+		List<String> events = new ArrayList<String>();
+
+		@Override
+		public void scanned(Barcode barcode, Money unitPrice, double unitWeight) {
+			events.add("scanned " + barcode + " " + unitPrice + " " + unitWeight);
+		}
+
+		@Override
+		public void unscanned(Barcode barcode) {
+			events.add("unscanned " + barcode);
+		}
+
+		@Override
+		public void bagVerified(double weight) {
+			events.add("bag " + weight);
+		}
+
+		@Override
+		public void charged(Money amount) {
+			events.add("charged " + amount);
+		}
+
+		@Override
+		public void coinAccepted(Money value) {
+			events.add("coin " + value);
+		}
+
+		@Override
+		public void banknoteAccepted(Money value) {
+			events.add("banknote " + value);
+		}
+
+		@Override
+		public void cardApproved() {
+			events.add("card");
+		}
+	}
+
+	private List<String> replay() {
+		Recorder recorder = new Recorder();
+		Assert.assertEquals(journal.replay(recorder), recorder.events.size());
+		return recorder.events;
+	}
+
+	//Every kind of event survives closing and reopening the journal
+	@Test
+	public void roundTripTest() throws IOException {
+		Barcode longBarcode = Barcode.parse("123456789012345678901234567890");
+		journal.scanned(barcodeMilk, cad("2.50"), 30.0);
+		journal.scanned(longBarcode, cad("0.99"), 1.5);
+		journal.unscanned(barcodeMilk);
+		journal.bagVerified(12.5);
+		journal.charged(cad("3.49"));
+		journal.coinAccepted(cad("0.25"));
+		journal.banknoteAccepted(cad("5"));
+		journal.cardApproved();
+		journal.sync();
+
+		List<String> expected = replay();
+		Assert.assertEquals(8, expected.size());
+		Assert.assertEquals("scanned " + longBarcode + " 0.99 CAD 1.5", expected.get(1));
+
+		reopen();
+		Assert.assertEquals(expected, replay());
+	}
+
+	//A record cut short by a crash is dropped, and the session goes on after the last whole one
+	@Test
+	public void tornRecordTest() throws IOException {
+		journal.scanned(barcodeMilk, cad("2.50"), 30.0);
+		journal.scanned(barcodeBread, cad("3.25"), 20.0);
+		journal.unscanned(barcodeBread);
+		journal.close();
+
+		// Damage the last byte of the barcode in the third record
+		long end = 16 + 2 * (4 + 22 + 4) + 4 + 6 - 1;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { '0' }), end);
+		}
+
+		journal = SessionJournal.open(file, CAD);
+		Assert.assertEquals(2, replay().size());
+
+		journal.coinAccepted(cad("1.00"));
+		reopen();
+		List<String> events = replay();
+		Assert.assertEquals(3, events.size());
+		Assert.assertEquals("coin 1.00 CAD", events.get(2));
+	}
+
+	//The file grows by whole segments once the first fills
+	@Test
+	public void growTest() throws IOException {
+		journal.close();
+		Files.delete(file);
+		journal = SessionJournal.open(file, CAD, 128, 0);
+
+		for(int i = 0; i < 100; i++)
+			journal.scanned(barcodeMilk, Money.ofMinor(CAD, i), i);
+
+		// Growing leaves the forcing of every mapping to the flusher
+		journal.sync();
+		journal.close();
+		Assert.assertEquals(0, Files.size(file) % 128);
+
+		journal = SessionJournal.open(file, CAD, 128, 0);
+		List<String> events = replay();
+		Assert.assertEquals(100, events.size());
+		Assert.assertEquals("scanned 1234 0.99 CAD 99.0", events.get(99));
+	}
+
+	//A reset journal starts the next session empty
+	@Test
+	public void resetTest() throws IOException {
+		journal.scanned(barcodeMilk, cad("2.50"), 30.0);
+		Assert.assertFalse(journal.isEmpty());
+
+		journal.reset();
+		Assert.assertTrue(journal.isEmpty());
+		reopen();
+		Assert.assertTrue(journal.isEmpty());
+		Assert.assertEquals(0, replay().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void currencyTest() throws IOException {
+		journal.close();
+		SessionJournal.open(file, Currency.getInstance("USD"));
+	}
+
+	//A session rebuilt from its journal has the same cart, weight and balance
+	@Test
+	public void recoveryTest() throws IOException {
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		PaymentController PAcontroller = new PaymentController(checkoutStation);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+		SIcontroller.setJournal(journal);
+		bAcontroller.setJournal(journal);
+		PAcontroller.setJournal(journal);
+
+		scan(SIcontroller, barcodeMilk, 30.0);
+		scan(SIcontroller, barcodeMilk, 30.0);
+		scan(SIcontroller, barcodeBread, 20.0);
+		SIcontroller.unScanItem(barcodeBread);
+		PAcontroller.chargeFor(SIcontroller);
+		journal.coinAccepted(cad("2.00"));
+
+		// The station restarts with the prices changed
+		reopen();
+		super.setup();
+		catalog.put(barcodeMilk, "Milk", new BigDecimal("9.99"), 30.0);
+		BaggingAreaController bAcontroller2 = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller2 = new ScanItemController(checkoutStation, catalog);
+		PaymentController PAcontroller2 = new PaymentController(checkoutStation);
+		bAcontroller2.setScanItemControl(SIcontroller2);
+		SIcontroller2.setBagAreaControl(bAcontroller2);
+
+		Assert.assertEquals(6, SessionRecovery.recover(journal, SIcontroller2, bAcontroller2, PAcontroller2));
+		Assert.assertEquals(2, SIcontroller2.numOfScannedItems());
+		Assert.assertEquals(1, SIcontroller2.getCart().getLineCount());
+		Assert.assertEquals(new BigDecimal("5"), SIcontroller2.getValueOfCart());
+		Assert.assertEquals(60.0, SIcontroller2.getWeightOfCart(), 0);
+		Assert.assertEquals(new BigDecimal("5"), PAcontroller2.getInitialValueOfCart());
+		Assert.assertEquals(cad("3.00"), PAcontroller2.getBalance());
+
+		// The recovered controllers go on journalling
+		SIcontroller2.unScanItem(barcodeMilk);
+		List<String> events = replay();
+		Assert.assertEquals(7, events.size());
+		Assert.assertEquals("unscanned 1234", events.get(6));
+	}
+
+	//A journalled item that left the catalog is reported rather than restored
+	@Test
+	public void missingProductTest() {
+		journal.scanned(Barcode.parse("5555"), cad("1.00"), 10.0);
+
+		BaggingAreaController bAcontroller = new BaggingAreaController(checkoutStation);
+		ScanItemController SIcontroller = new ScanItemController(checkoutStation, catalog);
+		PaymentController PAcontroller = new PaymentController(checkoutStation);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+		final List<Barcode> notFound = new ArrayList<Barcode>();
+		SIcontroller.attach(new ScanItemObserver() {
+			@Override
+			public void itemNotFound(ScanItemController controller, Barcode barcode) {
+				notFound.add(barcode);
+			}
+		});
+
+		SessionRecovery.recover(journal, SIcontroller, bAcontroller, PAcontroller);
+		Assert.assertEquals(0, SIcontroller.numOfScannedItems());
+		Assert.assertEquals(1, notFound.size());
+		Assert.assertEquals(Barcode.parse("5555"), notFound.get(0));
+	}
+}
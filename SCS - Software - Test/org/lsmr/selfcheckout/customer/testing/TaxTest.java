@@ -0,0 +1,225 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Currency;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ChangeReceiveController;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.PaymentController;
+import org.lsmr.selfcheckout.customer.ReceiptPrinterController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.promotion.Promotion;
+import org.lsmr.selfcheckout.customer.promotion.PromotionTable;
+import org.lsmr.selfcheckout.customer.tax.TaxCategory;
+import org.lsmr.selfcheckout.customer.tax.TaxEngine;
+import org.lsmr.selfcheckout.customer.tax.TaxTable;
+import org.lsmr.selfcheckout.devices.OverloadException;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class TaxTest extends BaseTestClass {
+
+	private static final Currency CAD = Currency.getInstance("CAD");
+
+	private ArrayProductCatalog catalog;
+	private ScanItemController SIcontroller;
+	private BaggingAreaController bAcontroller;
+
+	private TaxCategory exempt = new TaxCategory("Exempt", BigDecimal.ZERO);
+	private TaxCategory gst = new TaxCategory("GST", new BigDecimal("0.05"));
+	private TaxCategory hst = new TaxCategory("HST", new BigDecimal("0.13"));
+	private TaxTable table;
+
+	private Barcode barcodeMilk = Barcode.parse("1234");
+	private Barcode barcodeSoap = Barcode.parse("4321");
+	private Barcode barcodeCandy = Barcode.parse("3241");
+
+	//Appends the GTIN check digit to the digits
+	private static Barcode gtin(String digits) {
+		int sum = 0;
+		for(int i = 0; i < digits.length(); i++)
+			sum += (digits.length() - i) % 2 == 1 ? 3 * (digits.charAt(i) - '0') : digits.charAt(i) - '0';
+		return Barcode.parseGTIN(digits + (10 - sum % 10) % 10);
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 3.0));
+		catalog.add(new BarcodedProduct(barcodeSoap, "Soap", new BigDecimal("4.05"), 2.0));
+		catalog.add(new BarcodedProduct(barcodeCandy, "Candy", new BigDecimal("0.99"), 50.0));
+		catalog.add(new BarcodedProduct(gtin("21234500000"), "Deli Ham", new BigDecimal("1.00"), 250.0));
+
+		table = new TaxTable(exempt, gst, hst);
+		table.assign(barcodeSoap, hst);
+		table.assign(barcodeCandy, gst);
+		table.assign(gtin("21234500000"), gst);
+
+		bAcontroller = new BaggingAreaController(checkoutStation);
+		SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+	}
+
+	private static Money cad(String amount) {
+		return Money.of(CAD, new BigDecimal(amount));
+	}
+
+	//The precomputed fraction rounds like BigDecimal in every mode
+	@Test
+	public void roundingTest() {
+		BigDecimal rate = new BigDecimal("0.075");
+		RoundingMode[] modes = { RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+			RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN };
+
+		for(RoundingMode mode : modes) {
+			TaxCategory category = new TaxCategory("PST", rate, mode);
+			for(long subtotal = -500; subtotal <= 500; subtotal++) {
+				long expected = rate.multiply(BigDecimal.valueOf(subtotal)).setScale(0, mode).longValueExact();
+				Assert.assertEquals(mode + " " + subtotal, expected, category.tax(subtotal));
+			}
+		}
+
+		Assert.assertEquals("PST 7.5%", new TaxCategory("PST", rate).toString());
+	}
+
+	@Test(expected = SimulationException.class)
+	public void unnecessaryRoundingTest() {
+		new TaxCategory("PST", new BigDecimal("0.07"), RoundingMode.UNNECESSARY);
+	}
+
+	@Test(expected = SimulationException.class)
+	public void rateTooPreciseTest() {
+		new TaxCategory("PST", new BigDecimal("0.0000000001"));
+	}
+
+	@Test(expected = SimulationException.class)
+	public void foreignCategoryTest() {
+		table.assign(barcodeMilk, new TaxCategory("GST", new BigDecimal("0.05")));
+	}
+
+	//Each category is taxed on its own subtotal as items come and go
+	@Test
+	public void categorySubtotalTest() {
+		SIcontroller.setTaxes(table);
+		TaxEngine taxes = SIcontroller.getTaxes();
+
+		scan(SIcontroller, barcodeMilk, 3.0);
+		scan(SIcontroller, barcodeSoap, 2.0);
+		scan(SIcontroller, barcodeCandy, 50.0);
+		scan(SIcontroller, barcodeCandy, 50.0);
+
+		Assert.assertEquals(cad("2.50"), taxes.getSubtotal(table.indexOf(exempt)));
+		Assert.assertEquals(cad("4.05"), taxes.getSubtotal(table.indexOf(hst)));
+		Assert.assertEquals(cad("1.98"), taxes.getSubtotal(table.indexOf(gst)));
+		// 0.5265 and 0.099 round to 0.53 and 0.10
+		Assert.assertEquals(cad("0.53"), taxes.getTax(table.indexOf(hst)));
+		Assert.assertEquals(cad("0.10"), taxes.getTax(table.indexOf(gst)));
+		Assert.assertEquals(cad("0.63"), taxes.getTax());
+		Assert.assertEquals(cad("9.16"), SIcontroller.getTotalOfCart());
+
+		SIcontroller.unScanItem(barcodeCandy);
+		SIcontroller.unScanItem(barcodeSoap);
+		Assert.assertEquals(cad("0.05"), taxes.getTax());
+		Assert.assertEquals(cad("3.54"), SIcontroller.getTotalOfCart());
+		Assert.assertEquals(new BigDecimal("3.49"), SIcontroller.getValueOfCart());
+	}
+
+	//Each category is taxed on what is paid for it after promotions, whichever is set first
+	@Test
+	public void discountTest() {
+		SIcontroller.setTaxes(table);
+		scan(SIcontroller, barcodeSoap, 2.0);
+		scan(SIcontroller, barcodeSoap, 2.0);
+		scan(SIcontroller, barcodeCandy, 50.0);
+		Assert.assertEquals(cad("1.10"), SIcontroller.getTaxes().getTax());
+
+		// 2 soap for 6.00 takes 2.10 off the HST subtotal of 8.10
+		SIcontroller.setPromotions(new PromotionTable(Arrays.asList(
+			Promotion.multiBuy("Soap 2 for 6.00", barcodeSoap, 2, cad("6.00")))));
+		TaxEngine taxes = SIcontroller.getTaxes();
+		Assert.assertEquals(cad("2.10"), taxes.getDiscount(table.indexOf(hst)));
+		Assert.assertEquals(cad("0.78"), taxes.getTax(table.indexOf(hst)));
+		Assert.assertEquals(cad("0.83"), taxes.getTax());
+		Assert.assertEquals(cad("7.82"), SIcontroller.getTotalOfCart());
+
+		SIcontroller.unScanItem(barcodeSoap);
+		Assert.assertEquals(0, taxes.getDiscount(table.indexOf(hst)).signum());
+		Assert.assertEquals(cad("0.58"), taxes.getTax());
+	}
+
+	//A deal across categories takes its saving off each by what was paid for it
+	@Test
+	public void sharedDiscountTest() {
+		SIcontroller.setPromotions(new PromotionTable(Arrays.asList(
+			Promotion.mixAndMatch("Any 2 for 4.00", 2, cad("4.00"), barcodeSoap, barcodeCandy))));
+		SIcontroller.setTaxes(table);
+		scan(SIcontroller, barcodeSoap, 2.0);
+		scan(SIcontroller, barcodeCandy, 50.0);
+
+		// 5.04 for 4.00 saves 1.04: 0.83 off the soap and 0.21 off the candy
+		TaxEngine taxes = SIcontroller.getTaxes();
+		Assert.assertEquals(cad("0.83"), taxes.getDiscount(table.indexOf(hst)));
+		Assert.assertEquals(cad("0.21"), taxes.getDiscount(table.indexOf(gst)));
+		Assert.assertEquals(cad("0.42"), taxes.getTax(table.indexOf(hst)));
+		Assert.assertEquals(cad("0.04"), taxes.getTax(table.indexOf(gst)));
+		Assert.assertEquals(cad("4.46"), SIcontroller.getTotalOfCart());
+	}
+
+	//A table set after scanning taxes the items already in the cart
+	@Test
+	public void lateTableTest() {
+		scan(SIcontroller, barcodeSoap, 2.0);
+		Assert.assertEquals(cad("4.05"), SIcontroller.getTotalOfCart());
+
+		SIcontroller.setTaxes(table);
+		Assert.assertEquals(cad("4.58"), SIcontroller.getTotalOfCart());
+
+		SIcontroller.setTaxes(null);
+		Assert.assertNull(SIcontroller.getTaxes());
+		Assert.assertEquals(cad("4.05"), SIcontroller.getTotalOfCart());
+	}
+
+	//A price-embedded label is taxed as the product it was priced from
+	@Test
+	public void variableMeasureTest() {
+		SIcontroller.setTaxes(table);
+		scan(SIcontroller, gtin("21234500399"), 250.0);
+		scan(SIcontroller, gtin("21234501250"), 250.0);
+
+		Assert.assertEquals(cad("16.49"), SIcontroller.getTaxes().getSubtotal(table.indexOf(gst)));
+		Assert.assertEquals(cad("0.82"), SIcontroller.getTaxes().getTax());
+	}
+
+	//Payment is charged the taxed total and the receipt lists the tax
+	@Test
+	public void paymentTest() throws OverloadException {
+		PaymentController PAcontroller = new PaymentController(checkoutStation);
+		ChangeReceiveController CRcontroller = new ChangeReceiveController(checkoutStation);
+		CRcontroller.PC = PAcontroller;
+		ReceiptPrinterController RPcontroller = new ReceiptPrinterController(checkoutStation);
+		RPcontroller.setControllers(SIcontroller, PAcontroller);
+		SIcontroller.setTaxes(table);
+
+		scan(SIcontroller, barcodeSoap, 2.0);
+		PAcontroller.chargeFor(SIcontroller);
+		Assert.assertEquals(new BigDecimal("4.58"), PAcontroller.getValueOfCart());
+
+		PAcontroller.setValueOfCart(PAcontroller.getBalance().subtract(cad("5.00")));
+		Assert.assertEquals(new BigDecimal("0.42"), CRcontroller.changeDue());
+
+		RPcontroller.printReceipt();
+		Assert.assertTrue(RPcontroller.getReceipt().contains("Soap 4.05\nHST 13% 0.53\n"));
+		Assert.assertFalse(RPcontroller.getReceipt().contains("GST"));
+	}
+}
@@ -0,0 +1,105 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcode;
+import org.lsmr.selfcheckout.customer.catalog.VariableMeasureDecoder;
+import org.lsmr.selfcheckout.customer.catalog.VariableMeasureFormat;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class VariableMeasureTest extends BaseTestClass {
+
+	private ArrayProductCatalog catalog;
+	private ScanItemController SIcontroller;
+	private BaggingAreaController bAcontroller;
+
+	//Appends the GTIN check digit to the digits
+	private static Barcode gtin(String digits) {
+		int sum = 0;
+		for(int i = 0; i < digits.length(); i++)
+			sum += (digits.length() - i) % 2 == 1 ? 3 * (digits.charAt(i) - '0') : digits.charAt(i) - '0';
+		return Barcode.parseGTIN(digits + (10 - sum % 10) % 10);
+	}
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		catalog = new ArrayProductCatalog();
+		catalog.add(new BarcodedProduct(gtin("21234500000"), "Deli Ham", new BigDecimal("1.00"), 250.0));
+		catalog.add(new BarcodedProduct(gtin("280123400000"), "Cheddar", new BigDecimal("24.00"), 1.0));
+
+		bAcontroller = new BaggingAreaController(checkoutStation);
+		SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+	}
+
+	@Test
+	public void decodeTest() {
+		Barcode label = gtin("21234500399");
+		VariableMeasureFormat format = new VariableMeasureDecoder().match(label);
+
+		Assert.assertSame(VariableMeasureFormat.UPC_A_PRICE, format);
+		Assert.assertEquals(399, format.value(label));
+		Assert.assertEquals(gtin("21234500000"), format.referenceBarcode(label));
+		Assert.assertEquals(PackedBarcode.pack(gtin("21234500000")), format.reference(label));
+		Assert.assertNull(new VariableMeasureDecoder().match(Barcode.parseGTIN("036000291452")));
+	}
+
+	//Every label of the item is priced from its one catalog entry
+	@Test
+	public void priceEmbeddedScanTest() {
+		scan(SIcontroller, gtin("21234500399"), 250.0);
+		scan(SIcontroller, gtin("21234501250"), 250.0);
+
+		Assert.assertEquals(2, SIcontroller.numOfScannedItems());
+		Assert.assertEquals(new BigDecimal("16.49"), SIcontroller.getValueOfCart());
+		CartLine first = SIcontroller.getCart().lines().iterator().next();
+		Assert.assertEquals("Deli Ham", first.getDescription());
+		Assert.assertEquals(new BigDecimal("3.99"), first.getUnitPrice().toBigDecimal());
+		Assert.assertEquals(500.0, SIcontroller.getWeightOfCart(), 0);
+
+		SIcontroller.unScanItem(gtin("21234500399"));
+		Assert.assertEquals(new BigDecimal("12.5"), SIcontroller.getValueOfCart());
+	}
+
+	@Test
+	public void weightEmbeddedScanTest() {
+		SIcontroller.setVariableMeasureDecoder(new VariableMeasureDecoder(
+			new VariableMeasureFormat(13, "28", 7, 5, VariableMeasureFormat.Measure.WEIGHT)));
+
+		scan(SIcontroller, gtin("280123400350"), 350.0);
+
+		Assert.assertEquals(new BigDecimal("8.4"), SIcontroller.getValueOfCart());
+		Assert.assertEquals(350.0, SIcontroller.getWeightOfCart(), 0);
+	}
+
+	//A label registered as is still scans without a decoder
+	@Test
+	public void exactLabelTest() {
+		SIcontroller.setVariableMeasureDecoder(null);
+		for(int i = 0; i < 50; i++)
+			checkoutStation.mainScanner.scan(new BarcodedItem(gtin("21234500399"), 250.0));
+		Assert.assertEquals(0, SIcontroller.numOfScannedItems());
+
+		catalog.add(new BarcodedProduct(gtin("21234500399"), "Deli Ham", new BigDecimal("3.99"), 250.0));
+		scan(SIcontroller, gtin("21234500399"), 250.0);
+		Assert.assertEquals(new BigDecimal("3.99"), SIcontroller.getValueOfCart());
+	}
+
+	@Test (expected = SimulationException.class)
+	public void badFormatTest() {
+		new VariableMeasureFormat(12, "2", 6, 6, VariableMeasureFormat.Measure.PRICE);
+	}
+}
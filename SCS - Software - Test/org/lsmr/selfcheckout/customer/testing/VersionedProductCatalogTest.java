@@ -0,0 +1,130 @@
+package org.lsmr.selfcheckout.customer.testing;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.BarcodedItem;
+import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.customer.BaggingAreaController;
+import org.lsmr.selfcheckout.customer.ScanItemController;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.catalog.ArrayProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.CatalogSnapshot;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.VersionedProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+public class VersionedProductCatalogTest extends BaseTestClass {
+
+	private VersionedProductCatalog catalog;
+	private ScanItemController SIcontroller;
+	private BaggingAreaController bAcontroller;
+
+	Numeral[] nMilk = {Numeral.one, Numeral.two, Numeral.three, Numeral.four};
+	Numeral[] nEggs = {Numeral.two, Numeral.three, Numeral.four, Numeral.one};
+	Numeral[] nBag = {Numeral.nine, Numeral.nine, Numeral.nine, Numeral.nine};
+
+	Barcode barcodeMilk = new Barcode(nMilk);
+	Barcode barcodeEggs = new Barcode(nEggs);
+	Barcode barcodeBag = new Barcode(nBag);
+
+	@Before
+	public void setup() {
+		super.setup();
+
+		ArrayProductCatalog products = new ArrayProductCatalog();
+		products.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal("2.50"), 3.0));
+		products.add(new BarcodedProduct(barcodeEggs, "Eggs", new BigDecimal("4.05"), 2.0));
+		catalog = new VersionedProductCatalog(products);
+
+		bAcontroller = new BaggingAreaController(checkoutStation);
+		SIcontroller = new ScanItemController(checkoutStation, catalog);
+		bAcontroller.setScanItemControl(SIcontroller);
+		SIcontroller.setBagAreaControl(bAcontroller);
+	}
+
+	//Changes the price of milk in a new version
+	private CatalogSnapshot changeMilkPrice(String price) {
+		return catalog.update(products -> products.add(new BarcodedProduct(barcodeMilk, "Milk", new BigDecimal(price), 3.0)));
+	}
+
+	//A snapshot taken before an update keeps its data
+	@Test
+	public void snapshotIsConsistentTest() {
+		ProductCatalog before = catalog.snapshot();
+		CatalogSnapshot after = changeMilkPrice("2.99");
+
+		Assert.assertEquals(1, before.version());
+		Assert.assertEquals(2, after.version());
+		Assert.assertEquals(2, catalog.version());
+		Assert.assertEquals(new BigDecimal("2.50"), before.getPrice(before.find(barcodeMilk)));
+		Assert.assertEquals(new BigDecimal("2.99"), after.getPrice(after.find(barcodeMilk)));
+		Assert.assertEquals(new BigDecimal("4.05"), after.getPrice(after.find(barcodeEggs)));
+	}
+
+	@Test
+	public void updateAsyncTest() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CatalogSnapshot snapshot = catalog.updateAsync(products -> {
+				for(int i = 0; i < 50000; i++) {
+					Numeral[] digits = new Numeral[12];
+					long rest = 100000000000L + i;
+					for(int d = 11; d >= 0; d--, rest /= 10)
+						digits[d] = Numeral.valueOf((byte)(rest % 10));
+					products.add(new BarcodedProduct(new Barcode(digits), "Item " + i, BigDecimal.ONE, 1.0));
+				}
+			}, executor).get(30, TimeUnit.SECONDS);
+
+			Assert.assertEquals(2, snapshot.version());
+			Assert.assertEquals(50002, catalog.size());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	//The cart records the version of each line and unscanning takes back the scanned price
+	@Test
+	public void cartRecordsVersionTest() {
+		BarcodedItem milk = scan(SIcontroller, barcodeMilk, 3.0);
+		changeMilkPrice("2.99");
+		scan(SIcontroller, barcodeEggs, 2.0);
+
+		List<Long> versions = new ArrayList<Long>();
+		for(CartLine line : SIcontroller.getCart().lines())
+			versions.add(line.getCatalog().version());
+		Assert.assertEquals(Arrays.asList(1L, 2L), versions);
+
+		checkoutStation.baggingArea.remove(milk);
+		SIcontroller.unScanItem(barcodeMilk);
+
+		Assert.assertEquals(new BigDecimal("4.05"), SIcontroller.getValueOfCart());
+	}
+
+	//Station items stay registered across versions
+	@Test
+	public void stationItemTest() {
+		catalog.put(barcodeBag, "Bag", BigDecimal.ZERO, 1.5);
+		changeMilkPrice("2.99");
+
+		ProductCatalog snapshot = catalog.snapshot();
+		Assert.assertEquals(1.5, snapshot.getWeight(snapshot.find(barcodeBag)), 0);
+		Assert.assertNull(snapshot.getProduct(snapshot.find(barcodeBag)));
+	}
+
+	@Test (expected = SimulationException.class)
+	public void publishNullTest() {
+		catalog.publish(null);
+	}
+}
@@ -4,7 +4,8 @@ import java.math.BigDecimal;
 
 import org.lsmr.selfcheckout.Barcode;
 import org.lsmr.selfcheckout.BarcodedItem;
-import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.customer.journal.SessionJournal;
 import org.lsmr.selfcheckout.devices.AbstractDevice;
 import org.lsmr.selfcheckout.devices.ElectronicScale;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
@@ -22,6 +23,8 @@ public class BaggingAreaController extends TouchScreenController{
 	private double previousWeightOfCart;
 	private double begin;
 	private boolean askAttendantHelp = false;
+	private SessionJournal journal; // Where verified bags are recorded for recovery, or null
+	private int numOfBags; // Customer bags registered, which numbers the barcode of each
 
 
 	// Constructor
@@ -34,7 +37,7 @@ public class BaggingAreaController extends TouchScreenController{
 		numOfItemsInBaggingArea = 0;
 
 		// Register observers to the scanner
-		checkoutStation.baggingArea.attach(bac);
+		checkoutStation.baggingArea.attach(bac, ElectronicScale.WEIGHT_CHANGED | ElectronicScale.OVERLOAD | ElectronicScale.OUT_OF_OVERLOAD);
 
 	}
 
@@ -43,6 +46,11 @@ public class BaggingAreaController extends TouchScreenController{
 		this.scanItemControl = sIController;
 	}
 
+	// Sets the journal verified bags are recorded in; null to record nothing
+	public void setJournal(SessionJournal journal) {
+		this.journal = journal;
+	}
+
 	public int getNumOfItemsInBaggingArea() {
 		return numOfItemsInBaggingArea;
 	}
@@ -111,17 +119,35 @@ public class BaggingAreaController extends TouchScreenController{
 		}
 	}
 
-	public void attendantVerifiedBag() {
-		BigDecimal bagPrice = new BigDecimal(0);
-		Numeral[] nBag = { Numeral.nine, Numeral.nine, Numeral.nine, Numeral.nine };
-		Barcode barcodeBag = new Barcode(nBag);
-		scanItemControl.getBarcodePrice().put(barcodeBag, bagPrice);
+	// Charges the customer's bag just placed in the bagging area, and returns its barcode
+	public Barcode attendantVerifiedBag() {
 		double bagWeight = weightOfCart - previousWeightOfCart;
-		scanItemControl.getBarcodeWeight().put(barcodeBag, bagWeight);
+		if (journal != null) {
+			journal.bagVerified(bagWeight);
+		}
+		Barcode barcodeBag = registerBag(bagWeight);
 		BarcodedItem bagItem = new BarcodedItem(barcodeBag, bagWeight);
 		checkoutStation.mainScanner.enable();
 		checkoutStation.handheldScanner.enable();
 		checkoutStation.mainScanner.scan(bagItem);
+		return barcodeBag;
+	}
+	
+	// Adds the customer's bag to the catalog so it can be scanned, and returns its barcode
+	// Each bag has a barcode of its own, so it is a cart line of its own at its own weight
+	// Bags are numbered in order, so a recovered session registers them under the same barcodes
+	// Bag barcodes have 18 digits, longer than any GTIN, and a code already in the catalog is
+	// skipped, so a bag never overwrites or shadows a product
+	Barcode registerBag(double bagWeight) {
+		BigDecimal bagPrice = new BigDecimal(0);
+		ProductCatalog catalog = scanItemControl.getCatalog();
+		Barcode barcodeBag;
+		do {
+			numOfBags++;
+			barcodeBag = Barcode.valueOf(String.format("99%016d", numOfBags));
+		} while(catalog.find(barcodeBag) != ProductCatalog.NOT_FOUND);
+		catalog.put(barcodeBag, "Bag", bagPrice, bagWeight);
+		return barcodeBag;
 	}
 	
 	public void setAttendantHelp(boolean attendantHelp)
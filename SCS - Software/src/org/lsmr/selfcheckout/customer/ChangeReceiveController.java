@@ -42,11 +42,10 @@ public class ChangeReceiveController {
 	// Want to return any money that was over paid by the customer (change)
 
 	private final SelfCheckoutStation checkoutStation;
-	private BigDecimal valueOfCart;
-	private BigDecimal initialValueOfCart;
+	private final Currency currency; //Currency of the station
 	private CDObs cdobs;
 	private BnDObs bndobs;
-	private BigDecimal changeBack;
+	private Money changeBack;
 
 	int changeBackList[]; // list to keep track of number of bills/coins returned
 
@@ -61,8 +60,7 @@ public class ChangeReceiveController {
 	// constructor for the customer gets change use case
 	public ChangeReceiveController(SelfCheckoutStation cs) throws SimulationException, OverloadException{
 		checkoutStation = cs;
-		initialValueOfCart = new BigDecimal(0);
-		valueOfCart = new BigDecimal(0);
+		currency = cs.coinValidator.currency;
 		
 		//checkoutStation.coinDenominations = Arrays.asList(cDenominations);
 		
@@ -75,13 +73,13 @@ public class ChangeReceiveController {
 		
 		for(BigDecimal denomination : checkoutStation.coinDispensers.keySet()) {
 			CoinDispenser dispenser = checkoutStation.coinDispensers.get(denomination);
-			dispenser.attach(cdobs);
+			dispenser.attach(cdobs, CoinDispenser.COIN_REMOVED);
 			
 		}
 		for(Integer integer : checkoutStation.banknoteDispensers.keySet()) {
 			BanknoteDispenser noteDispenser;
 			noteDispenser = checkoutStation.banknoteDispensers.get(integer);
-			noteDispenser.attach(bndobs);
+			noteDispenser.attach(bndobs, BanknoteDispenser.BANKNOTE_REMOVED);
 			
 		}
 		
@@ -93,14 +91,19 @@ public class ChangeReceiveController {
 	 * @returns the change that is due.
 	 */
 	public BigDecimal changeDue() {
-		BigDecimal change = PC.getValueOfCart();
+		return owed().toBigDecimalStripped();
+	}
+
+	// The change due as money
+	private Money owed() {
+		Money change = PC.getBalance();
 
-		if (change.compareTo(new BigDecimal(0)) < 0) {
+		if (change.signum() < 0) {
 			// then the customer put more money into the machine than they needed to so we
 			// must return change
-			return change.abs();
+			return change.negate();
 		}
-		return new BigDecimal(0);
+		return Money.zero(currency);
 	}
 
 	/**
@@ -115,45 +118,47 @@ public class ChangeReceiveController {
 	 */
 	public void calcChangeDue() throws EmptyException, DisabledException, OverloadException {
 
-		changeBack = changeDue(); // the total amount of money owed to the customer
-		BigDecimal currentChangeLeft;
+		changeBack = owed(); // the total amount of money owed to the customer
+		long currentChangeLeft; // in minor units, e.g. cents
 		int numOutput;
 
-		if (changeBack.compareTo(new BigDecimal(0)) == 0) {
+		if (changeBack.signum() == 0) {
 			// no change to give back we are done
 			return;
 		}
 
 		// the following loop deals with banknote change
-		currentChangeLeft = changeBack; // Initial amount of change to give back
+		currentChangeLeft = changeBack.getMinorUnits(); // Initial amount of change to give back
 		for (Integer i : checkoutStation.banknoteDispensers.keySet()) {
 			BanknoteDispenser noteDispenser = checkoutStation.banknoteDispensers.get(i);
-			numOutput = currentChangeLeft.intValue() / i;
+			long value = Money.ofMajor(currency, i).getMinorUnits();
+			numOutput = (int) (currentChangeLeft / value);
 			for (int j = 0; j < numOutput; j++) {
 				noteDispenser.emit(); // emit the bank note
 
 				// user removes banknote and then we can continue dispensing the next
 			}
-			currentChangeLeft = currentChangeLeft.subtract(new BigDecimal(numOutput).multiply(new BigDecimal(i)));
+			currentChangeLeft = currentChangeLeft - numOutput * value;
 			System.out.println("numOutPut " + numOutput);
 			System.out.println("currentchangeleft " + currentChangeLeft);
 		}
 			
 		// Now we have to give the customer coin change
-		if (currentChangeLeft.compareTo(new BigDecimal(0)) <= 0) {
+		if (currentChangeLeft <= 0) {
 			// if change is already given back then return
 			return;
 
 		}
 		for (BigDecimal d : checkoutStation.coinDispensers.keySet()) {
 			CoinDispenser coinDispenser = checkoutStation.coinDispensers.get(d);
-			numOutput = currentChangeLeft.divide(d).intValue();
+			long value = Money.of(currency, d).getMinorUnits();
+			numOutput = (int) (currentChangeLeft / value);
 			for (int k = 0; k < numOutput; k++) {
 				coinDispenser.emit(); // emit the coin
 
 				// user removes coin and then we can continue dispensing the next
 			}
-			currentChangeLeft = currentChangeLeft.subtract(new BigDecimal(numOutput).multiply(d));
+			currentChangeLeft = currentChangeLeft - numOutput * value;
 			System.out.println("Coin numOutPut " + numOutput);
 			System.out.println("Coing currentchangeleft " + currentChangeLeft);
 		}
@@ -0,0 +1,348 @@
+package org.lsmr.selfcheckout.customer;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+import org.lsmr.selfcheckout.Banknote;
+import org.lsmr.selfcheckout.Coin;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * An immutable amount of money, held as a whole number of the minor unit of
+ * its currency (e.g., cents of a Canadian dollar). Arithmetic works on the
+ * primitive count, so totals can be kept and compared without the allocation
+ * of {@link BigDecimal}; conversions are made where amounts enter from coins,
+ * banknotes and prices, and leave for display.
+ * <p>
+ * Amounts of different currencies cannot be combined. Arithmetic that would
+ * overflow a long throws rather than wrapping.
+ * </p>
+ */
+public final class Money implements Comparable<Money> {
+	private static final long[] POWERS_OF_TEN = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+
+	private final long minorUnits;
+	private final Currency currency;
+
+	private Money(Currency currency, long minorUnits) {
+		this.currency = currency;
+		this.minorUnits = minorUnits;
+	}
+
+	/**
+	 * Creates an amount from a count of minor units.
+	 *
+	 * @param currency
+	 *            The currency.
+	 * @param minorUnits
+	 *            The number of minor units, e.g., cents.
+	 * @return The amount.
+	 * @throws SimulationException
+	 *             If currency is null.
+	 */
+	public static Money ofMinor(Currency currency, long minorUnits) {
+		if(currency == null)
+			throw new SimulationException(new NullPointerException("currency is null"));
+
+		return new Money(currency, minorUnits);
+	}
+
+	/**
+	 * Creates an amount from a count of whole units of currency.
+	 *
+	 * @param currency
+	 *            The currency.
+	 * @param majorUnits
+	 *            The number of whole units, e.g., dollars.
+	 * @return The amount.
+	 * @throws SimulationException
+	 *             If currency is null or the amount cannot be held.
+	 */
+	public static Money ofMajor(Currency currency, long majorUnits) {
+		if(currency == null)
+			throw new SimulationException(new NullPointerException("currency is null"));
+
+		return new Money(currency, multiplyExact(majorUnits, unit(currency)));
+	}
+
+	/**
+	 * Creates an amount from a decimal number of whole units. A value finer than
+	 * the minor unit is rounded half up, so a denomination built from a double
+	 * such as {@code new BigDecimal(0.05)} becomes exactly 5 cents.
+	 *
+	 * @param currency
+	 *            The currency.
+	 * @param amount
+	 *            The number of whole units.
+	 * @return The amount.
+	 * @throws SimulationException
+	 *             If an argument is null or the amount cannot be held.
+	 */
+	public static Money of(Currency currency, BigDecimal amount) {
+		if(currency == null)
+			throw new SimulationException(new NullPointerException("currency is null"));
+
+		if(amount == null)
+			throw new SimulationException(new NullPointerException("amount is null"));
+
+		try {
+			return new Money(currency, amount.setScale(digits(currency), RoundingMode.HALF_UP).unscaledValue().longValueExact());
+		}
+		catch(ArithmeticException e) {
+			throw new SimulationException(e);
+		}
+	}
+
+	/**
+	 * Gets the value of a coin.
+	 *
+	 * @param coin
+	 *            The coin.
+	 * @return The value of the coin in its currency.
+	 * @throws SimulationException
+	 *             If coin is null.
+	 */
+	public static Money of(Coin coin) {
+		if(coin == null)
+			throw new SimulationException(new NullPointerException("coin is null"));
+
+		return of(coin.getCurrency(), coin.getValue());
+	}
+
+	/**
+	 * Gets the value of a banknote.
+	 *
+	 * @param banknote
+	 *            The banknote.
+	 * @return The value of the banknote in its currency.
+	 * @throws SimulationException
+	 *             If banknote is null.
+	 */
+	public static Money of(Banknote banknote) {
+		if(banknote == null)
+			throw new SimulationException(new NullPointerException("banknote is null"));
+
+		return ofMajor(banknote.getCurrency(), banknote.getValue());
+	}
+
+	/**
+	 * Gets nothing in the indicated currency.
+	 *
+	 * @param currency
+	 *            The currency.
+	 * @return A zero amount.
+	 */
+	public static Money zero(Currency currency) {
+		return ofMinor(currency, 0);
+	}
+
+	/**
+	 * Accessor for the currency.
+	 *
+	 * @return The currency of this amount.
+	 */
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	/**
+	 * Accessor for the amount in minor units.
+	 *
+	 * @return The number of minor units, e.g., cents.
+	 */
+	public long getMinorUnits() {
+		return minorUnits;
+	}
+
+	/**
+	 * Adds another amount.
+	 *
+	 * @param other
+	 *            An amount of the same currency.
+	 * @return The sum.
+	 * @throws SimulationException
+	 *             If the currencies differ or the sum cannot be held.
+	 */
+	public Money add(Money other) {
+		check(other);
+
+		if(other.minorUnits == 0)
+			return this;
+
+		return new Money(currency, addExact(minorUnits, other.minorUnits));
+	}
+
+	/**
+	 * Subtracts another amount.
+	 *
+	 * @param other
+	 *            An amount of the same currency.
+	 * @return The difference.
+	 * @throws SimulationException
+	 *             If the currencies differ or the difference cannot be held.
+	 */
+	public Money subtract(Money other) {
+		check(other);
+
+		if(other.minorUnits == 0)
+			return this;
+
+		return new Money(currency, addExact(minorUnits, negateExact(other.minorUnits)));
+	}
+
+	/**
+	 * Multiplies this amount by a whole number.
+	 *
+	 * @param factor
+	 *            The factor, e.g., a quantity.
+	 * @return The product.
+	 * @throws SimulationException
+	 *             If the product cannot be held.
+	 */
+	public Money multiply(long factor) {
+		if(factor == 1)
+			return this;
+
+		return new Money(currency, multiplyExact(minorUnits, factor));
+	}
+
+	/**
+	 * Negates this amount.
+	 *
+	 * @return The negated amount.
+	 */
+	public Money negate() {
+		return new Money(currency, negateExact(minorUnits));
+	}
+
+	/**
+	 * Gets the absolute value of this amount.
+	 *
+	 * @return This amount if it is not negative, otherwise its negation.
+	 */
+	public Money abs() {
+		return minorUnits < 0 ? negate() : this;
+	}
+
+	/**
+	 * Gets the sign of this amount.
+	 *
+	 * @return -1, 0 or 1 as this amount is negative, zero or positive.
+	 */
+	public int signum() {
+		return Long.signum(minorUnits);
+	}
+
+	/**
+	 * Compares this amount with another of the same currency.
+	 *
+	 * @param other
+	 *            The amount to compare with.
+	 * @return A negative number, zero or a positive number as this amount is
+	 *         less than, equal to or greater than other.
+	 * @throws SimulationException
+	 *             If the currencies differ.
+	 */
+	@Override
+	public int compareTo(Money other) {
+		check(other);
+		return Long.compare(minorUnits, other.minorUnits);
+	}
+
+	/**
+	 * Converts this amount to a number of whole units with as many decimal
+	 * places as the currency has, e.g., 20.00 for twenty dollars.
+	 *
+	 * @return The amount as a decimal.
+	 */
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(minorUnits, digits(currency));
+	}
+
+	/**
+	 * Converts this amount to a number of whole units with no trailing zeros
+	 * after the decimal point, e.g., 20 for twenty dollars and 0.5 for fifty
+	 * cents.
+	 *
+	 * @return The amount as a decimal, with a scale &ge;0.
+	 */
+	public BigDecimal toBigDecimalStripped() {
+		int scale = digits(currency);
+		long value = minorUnits;
+
+		while(scale > 0 && value % 10 == 0) {
+			value /= 10;
+			scale--;
+		}
+
+		return BigDecimal.valueOf(value, scale);
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if(object == this)
+			return true;
+
+		if(!(object instanceof Money))
+			return false;
+
+		Money other = (Money)object;
+		return minorUnits == other.minorUnits && currency.equals(other.currency);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString() + " " + currency;
+	}
+
+	private void check(Money other) {
+		if(other == null)
+			throw new SimulationException(new NullPointerException("other is null"));
+
+		if(!currency.equals(other.currency))
+			throw new SimulationException(
+				new IllegalArgumentException("Cannot combine " + currency + " with " + other.currency + "."));
+	}
+
+	// Pseudo-currencies have no minor unit
+	private static int digits(Currency currency) {
+		return Math.max(currency.getDefaultFractionDigits(), 0);
+	}
+
+	private static long unit(Currency currency) {
+		return POWERS_OF_TEN[digits(currency)];
+	}
+
+	private static long addExact(long a, long b) {
+		try {
+			return Math.addExact(a, b);
+		}
+		catch(ArithmeticException e) {
+			throw new SimulationException(e);
+		}
+	}
+
+	private static long multiplyExact(long a, long b) {
+		try {
+			return Math.multiplyExact(a, b);
+		}
+		catch(ArithmeticException e) {
+			throw new SimulationException(e);
+		}
+	}
+
+	private static long negateExact(long a) {
+		try {
+			return Math.negateExact(a);
+		}
+		catch(ArithmeticException e) {
+			throw new SimulationException(e);
+		}
+	}
+}
@@ -10,21 +10,19 @@ import org.lsmr.selfcheckout.BlockedCardException;
 import org.lsmr.selfcheckout.Card;
 import org.lsmr.selfcheckout.Coin;
 import org.lsmr.selfcheckout.customer.TouchScreenController.checkoutState;
+import org.lsmr.selfcheckout.customer.journal.SessionJournal;
 import org.lsmr.selfcheckout.Card.CardData;
 import org.lsmr.selfcheckout.Card.CardSwipeData;
 import org.lsmr.selfcheckout.devices.AbstractDevice;
-import org.lsmr.selfcheckout.devices.BanknoteSlot;
 import org.lsmr.selfcheckout.devices.BanknoteValidator;
 import org.lsmr.selfcheckout.devices.CardReader;
-import org.lsmr.selfcheckout.devices.CoinSlot;
 import org.lsmr.selfcheckout.devices.CoinTray;
 import org.lsmr.selfcheckout.devices.CoinValidator;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
+import org.lsmr.selfcheckout.devices.SimulationException;
 import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
-import org.lsmr.selfcheckout.devices.observers.BanknoteSlotObserver;
 import org.lsmr.selfcheckout.devices.observers.BanknoteValidatorObserver;
 import org.lsmr.selfcheckout.devices.observers.CardReaderObserver;
-import org.lsmr.selfcheckout.devices.observers.CoinSlotObserver;
 import org.lsmr.selfcheckout.devices.observers.CoinTrayObserver;
 import org.lsmr.selfcheckout.devices.observers.CoinValidatorObserver;
 import org.lsmr.selfcheckout.customer.ScanItemController;
@@ -41,7 +39,8 @@ public class PaymentController extends TouchScreenController{
 	
 	
 	
-	private BigDecimal valueOfCart;
+	private final Currency currency; //Currency of the station
+	private Money valueOfCart; //What is left to pay; negative once overpaid
 	private final SelfCheckoutStation checkoutStation; 
 	///private TouchScreenController touchScreen = new TouchScreenController(checkoutStation);
 	private PCC pcc;
@@ -49,20 +48,22 @@ public class PaymentController extends TouchScreenController{
 	private CC cc;
 	private ScanItemController SIcontroller;
 	private List<Coin> coinTrayList;
-	private BigDecimal initialValueOfCart;
+	private Money initialValueOfCart;
 	private String membershipNo = null;
 	private boolean showError = false;
 	private boolean cardDataRead = false;
 	private boolean cardInsert = false;
 	private boolean acceptBanknote = false;
+	private SessionJournal journal; //Where charges and payments are recorded for recovery, or null
 	
 	public PaymentController(SelfCheckoutStation cs){
 		super(cs);
 		checkoutStation = cs;
 		
 		//touchScreen = new TouchScreenController(checkoutStation);
-		initialValueOfCart = new BigDecimal(0);
-		valueOfCart = new BigDecimal(0);
+		currency = cs.coinValidator.currency;
+		initialValueOfCart = Money.zero(currency);
+		valueOfCart = initialValueOfCart;
 		coinTrayList = new ArrayList<Coin>();
 		
 		// Initializing observers
@@ -70,33 +71,79 @@ public class PaymentController extends TouchScreenController{
 		pcb = new PCB();
 		cc = new CC();
 		
-		// Register observers in the coin related devices
-		checkoutStation.coinSlot.attach(pcc);
-		checkoutStation.coinValidator.attach(pcc);
-		checkoutStation.coinTray.attach(pcc);
+		// Register observers in the coin related devices, for only the events they handle
+		checkoutStation.coinValidator.attach(pcc, CoinValidator.VALID_COIN_DETECTED);
+		checkoutStation.coinTray.attach(pcc, CoinTray.COIN_ADDED);
 		
 		// Registers observers in the bank note related devices
-		checkoutStation.banknoteInput.attach(pcb);
-		checkoutStation.banknoteValidator.attach(pcb);
-		checkoutStation.banknoteInput.attach(pcb);
+		checkoutStation.banknoteValidator.attach(pcb, BanknoteValidator.VALID_BANKNOTE_DETECTED);
 		
 		// Registers observers in the Card related devices
-		 checkoutStation.cardReader.attach(cc);
+		checkoutStation.cardReader.attach(cc, CardReader.CARD_INSERTED | CardReader.CARD_REMOVED | CardReader.CARD_TAPPED
+			| CardReader.CARD_SWIPED | CardReader.CARD_DATA_READ);
 	}
 	
 	public BigDecimal getValueOfCart() {
-		return valueOfCart;
+		return valueOfCart.toBigDecimalStripped();
 	}
 	
 	public BigDecimal getInitialValueOfCart() {
-		return initialValueOfCart;
+		return initialValueOfCart.toBigDecimalStripped();
+	}
+	
+	//Returns what is left to pay, which is negative once the customer has overpaid
+	public Money getBalance() {
+		return valueOfCart;
 	}
 	
 	public void setValueOfCart(BigDecimal cartValue) {
+		setValueOfCart(Money.of(currency, cartValue));
+	}
+	
+	//Charges the customer the final total of the scanned cart, including discounts and taxes
+	public void chargeFor(ScanItemController scanControl) {
+		setValueOfCart(scanControl.getTotalOfCart());
+	}
+	
+	public void setValueOfCart(Money cartValue) {
+		if(cartValue == null)
+			throw new SimulationException(new NullPointerException("cartValue is null"));
+		if(journal != null)
+			journal.charged(cartValue);
 		initialValueOfCart = cartValue;
 		valueOfCart = cartValue;
 	}
 	
+	//Sets the journal charges and payments are recorded in; null to record nothing
+	public void setJournal(SessionJournal journal) {
+		this.journal = journal;
+	}
+	
+	//Takes a coin's value off what is left to pay
+	void coinPaid(Money value) {
+		if(journal != null)
+			journal.coinAccepted(value);
+		valueOfCart = valueOfCart.subtract(value);
+		isAllItemPaid();
+	}
+	
+	//Takes a banknote's value off what is left to pay
+	void banknotePaid(Money value) {
+		if(journal != null)
+			journal.banknoteAccepted(value);
+		acceptBanknote = true;
+		valueOfCart = valueOfCart.subtract(value);
+		isAllItemPaid();
+	}
+	
+	//Settles what is left to pay with an approved card
+	void cardPaid() {
+		if(journal != null)
+			journal.cardApproved();
+		valueOfCart = Money.zero(currency);
+		isAllItemPaid();
+	}
+	
 	public boolean getShowError()
 	{
 		return showError;
@@ -161,7 +208,7 @@ public class PaymentController extends TouchScreenController{
 	 * And disable the coin and bank note slot.
 	*/
 	public boolean isAllItemPaid() {
-		if (valueOfCart.compareTo(new BigDecimal(0)) == -1 || valueOfCart.compareTo(new BigDecimal(0)) == 0 ) {
+		if (valueOfCart.signum() <= 0) {
 			checkoutStation.coinSlot.disable();
 			checkoutStation.banknoteInput.disable();
 			checkoutStation.cardReader.disable();
@@ -184,7 +231,7 @@ public class PaymentController extends TouchScreenController{
 
 
 	//COIN PAYMENT - Implementation of Coin observers
-	private class PCC implements CoinSlotObserver, CoinValidatorObserver, CoinTrayObserver{
+	private class PCC implements CoinValidatorObserver, CoinTrayObserver{
 		@Override
 		public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
 			// Ignore	
@@ -196,16 +243,9 @@ public class PaymentController extends TouchScreenController{
 		}
 
 		
-		@Override
-		public void coinInserted(CoinSlot slot) {
-			// Ignore
-		}
-
-		
 		@Override
 		public void validCoinDetected(CoinValidator validator, BigDecimal value) {
-			valueOfCart = valueOfCart.subtract(value);
-			isAllItemPaid();
+			coinPaid(Money.of(currency, value));
 		}
 
 		@Override
@@ -225,7 +265,7 @@ public class PaymentController extends TouchScreenController{
 	
 	
 	//BANKNOTE PAYMENT - Implementation of Bank note observers
-	private class PCB implements BanknoteSlotObserver, BanknoteValidatorObserver{	
+	private class PCB implements BanknoteValidatorObserver{	
 		@Override
 		public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {			
 			//Ignore
@@ -235,30 +275,11 @@ public class PaymentController extends TouchScreenController{
 		public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
 			//Ignore
 		}
-		
-		@Override
-		public void banknoteInserted(BanknoteSlot slot) {
-			//Ignore 
-		}
-
-		
-		@Override
-		public void banknoteEjected(BanknoteSlot slot) {
-			//Ignore
-		}
-
-		@Override
-		public void banknoteRemoved(BanknoteSlot slot) {
-			//Ignore
-		}
 
 		@Override
 		public void validBanknoteDetected(BanknoteValidator validator, Currency currency, int value) {
 			//Subtract the value of cart from the customer bank note value
-			acceptBanknote = true;
-			BigDecimal bigDecimalVal = new BigDecimal(value);
-			valueOfCart = valueOfCart.subtract(bigDecimalVal);
-			isAllItemPaid();
+			banknotePaid(Money.ofMajor(currency, value));
 			
 		}
 
@@ -361,8 +382,7 @@ public class PaymentController extends TouchScreenController{
 				if (!(data instanceof CardSwipeData)) {
 					if(verifyCardNumber(cardNumber) == true && cardHolder != null && verifyCVV(cardCVV) == true) {
 						if(verifyDebitCard(data) == true) {
-							valueOfCart = new BigDecimal(0);
-							isAllItemPaid();
+							cardPaid();
 						} else {
 							displayError();
 						}
@@ -374,8 +394,7 @@ public class PaymentController extends TouchScreenController{
 				} else {
 					if(verifyCardNumber(cardNumber) == true && cardHolder != null) {
 						if(verifyDebitCard(data) == true) {
-							valueOfCart = new BigDecimal(0);
-							isAllItemPaid();
+							cardPaid();
 						} else {
 							displayError();
 						}
@@ -390,8 +409,7 @@ public class PaymentController extends TouchScreenController{
 				if (!(data instanceof CardSwipeData)) {
 					if(verifyCardNumber(cardNumber) == true && cardHolder != null && verifyCVV(cardCVV) == true) {
 						if(verifyDebitCard(data) == true) {
-							valueOfCart = new BigDecimal(0);
-							isAllItemPaid();
+							cardPaid();
 						} else {
 							displayError();
 						}
@@ -403,8 +421,7 @@ public class PaymentController extends TouchScreenController{
 				} else {
 					if(verifyCardNumber(cardNumber) == true && cardHolder != null) {
 						if(verifyCreditCard(data) == true) {
-							valueOfCart = new BigDecimal(0);
-							isAllItemPaid();
+							cardPaid();
 						} else {
 							displayError();
 						}
@@ -1,10 +1,9 @@
 package org.lsmr.selfcheckout.customer;
 
 
-import java.math.BigDecimal;
-import java.util.HashMap;
-
-import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.promotion.PromotionEngine;
+import org.lsmr.selfcheckout.customer.tax.TaxEngine;
 import org.lsmr.selfcheckout.devices.AbstractDevice;
 import org.lsmr.selfcheckout.devices.ReceiptPrinter;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
@@ -17,19 +16,14 @@ public class ReceiptPrinterController {
 	private RPC rpc;
 	private ScanItemController scanControl;
 	private PaymentController payControl;
-	private HashMap<Barcode, BigDecimal> barcodePrice;
-	private HashMap<Barcode, String> barcodeDescription;
 	private String receiptMessage;
 	
-	public ReceiptPrinterController(SelfCheckoutStation cs, HashMap<Barcode, BigDecimal> barcodePrice,
-			HashMap<Barcode, String> barcodeDescription) {
+	public ReceiptPrinterController(SelfCheckoutStation cs) {
 		
 		checkoutStation = cs;
 		rpc = new RPC();
 		this.scanControl = null;
 		this.payControl = null;
-		this.barcodePrice = barcodePrice;
-		this.barcodeDescription = barcodeDescription;
 		receiptMessage = "";
 		
 		//Add ink and paper to the printer
@@ -37,17 +31,39 @@ public class ReceiptPrinterController {
 		checkoutStation.printer.addInk(15);
 	
 		//Register observers to the scanner
-		checkoutStation.printer.attach(rpc);
+		checkoutStation.printer.attach(rpc, ReceiptPrinter.OUT_OF_PAPER | ReceiptPrinter.OUT_OF_INK);
 		
 	}
 	
 	//Calls the printer to print item description and price
 	public void printReceipt() {
 		receiptMessage = "";
-		for(Barcode barcode: scanControl.getScannedItemList()) {
-			receiptMessage = receiptMessage +
-					barcodeDescription.get(barcode) + " " 
-					+ barcodePrice.get(barcode) + "\n";
+		for(CartLine line : scanControl.getCart().lines()) {
+			//Print the item as it was priced when scanned
+			receiptMessage = receiptMessage + line.getDescription() + " ";
+			
+			//Several units of one item share a line
+			if(line.getQuantity() > 1)
+				receiptMessage = receiptMessage + line.getQuantity() + " @ " + line.getUnitPrice().toBigDecimal() + " ";
+			
+			receiptMessage = receiptMessage + line.getPrice().toBigDecimal() + "\n";
+		}
+		
+		//List each promotion the customer earned a discount under
+		if(scanControl.getPromotions() != null) {
+			for(PromotionEngine.Discount discount : scanControl.getPromotions().getDiscounts())
+				receiptMessage = receiptMessage + discount.getPromotion().getName() + " -" 
+						+ discount.getAmount().toBigDecimal() + "\n";
+		}
+		
+		//List the tax charged in each category
+		TaxEngine taxes = scanControl.getTaxes();
+		if(taxes != null) {
+			for(int i = 0; i < taxes.getTable().size(); i++) {
+				if(taxes.getTax(i).signum() != 0)
+					receiptMessage = receiptMessage + taxes.getTable().get(i) + " " 
+							+ taxes.getTax(i).toBigDecimal() + "\n";
+			}
 		}
 		receiptMessage = receiptMessage + "Total Price: " + payControl.getInitialValueOfCart();
 		
@@ -0,0 +1,142 @@
+package org.lsmr.selfcheckout.customer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcode;
+import org.lsmr.selfcheckout.devices.BarcodeScanner;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * Recognizes double reads: a barcode read again by the same scanner within a
+ * short window of the read that was accepted. The most recent accepted reads
+ * are kept in a fixed-size table, keyed by packed barcode and scanner, which
+ * is searched on each read and never allocates.
+ * <p>
+ * The window runs from the accepted read and is not extended by the duplicates
+ * it suppresses, so an item held under the scanner is counted again once per
+ * window.
+ * </p>
+ */
+public class ScanDeduplicator {
+	private final long windowNanos;
+	private final LongSupplier clock;
+
+	// The recent accepted reads, replaced oldest first, guarded by this
+	private final long[] keys;
+	private final Barcode[] unpacked; // Barcodes too long to pack, else null
+	private final BarcodeScanner[] scanners; // null for an unused entry
+	private final long[] times;
+	private int next;
+	private long duplicates;
+
+	/**
+	 * Creates a deduplicator.
+	 *
+	 * @param capacity
+	 *            The number of recent reads to remember, &gt;0.
+	 * @param window
+	 *            How long a read is remembered, &gt;0.
+	 * @param unit
+	 *            The unit of the window.
+	 * @throws SimulationException
+	 *             If unit is null or a number is out of range.
+	 */
+	public ScanDeduplicator(int capacity, long window, TimeUnit unit) {
+		this(capacity, window, unit, System::nanoTime);
+	}
+
+	/**
+	 * Creates a deduplicator reading time from the indicated clock.
+	 *
+	 * @param capacity
+	 *            The number of recent reads to remember, &gt;0.
+	 * @param window
+	 *            How long a read is remembered, &gt;0.
+	 * @param unit
+	 *            The unit of the window.
+	 * @param clock
+	 *            Supplies the current time in nanoseconds.
+	 * @throws SimulationException
+	 *             If an argument is null or a number is out of range.
+	 */
+	public ScanDeduplicator(int capacity, long window, TimeUnit unit, LongSupplier clock) {
+		if(unit == null)
+			throw new SimulationException(new NullPointerException("unit is null"));
+
+		if(clock == null)
+			throw new SimulationException(new NullPointerException("clock is null"));
+
+		if(capacity <= 0)
+			throw new SimulationException(new IllegalArgumentException("The capacity must be positive."));
+
+		if(window <= 0)
+			throw new SimulationException(new IllegalArgumentException("The window must be positive."));
+
+		windowNanos = unit.toNanos(window);
+		this.clock = clock;
+		keys = new long[capacity];
+		unpacked = new Barcode[capacity];
+		scanners = new BarcodeScanner[capacity];
+		times = new long[capacity];
+	}
+
+	/**
+	 * Decides whether a read should be handled. A read is accepted, and
+	 * remembered, unless the same scanner read the same barcode within the
+	 * window of a read accepted earlier.
+	 *
+	 * @param scanner
+	 *            The scanner that read the barcode.
+	 * @param barcode
+	 *            The barcode read.
+	 * @return true if the read should be handled; false if it is a duplicate.
+	 * @throws SimulationException
+	 *             If an argument is null.
+	 */
+	public synchronized boolean accept(BarcodeScanner scanner, Barcode barcode) {
+		if(scanner == null)
+			throw new SimulationException(new NullPointerException("scanner is null"));
+
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		long now = clock.getAsLong();
+		long key = PackedBarcode.pack(barcode);
+
+		for(int i = 0; i < scanners.length; i++) {
+			if(scanners[i] == scanner && keys[i] == key && now - times[i] < windowNanos
+				&& (key != PackedBarcode.NONE || barcode.equals(unpacked[i]))) {
+				duplicates++;
+				return false;
+			}
+		}
+
+		keys[next] = key;
+		unpacked[next] = key == PackedBarcode.NONE ? barcode : null;
+		scanners[next] = scanner;
+		times[next] = now;
+		next = (next + 1) % scanners.length;
+		return true;
+	}
+
+	/**
+	 * Forgets every read, so the next read of any barcode is accepted.
+	 */
+	public synchronized void clear() {
+		for(int i = 0; i < scanners.length; i++) {
+			scanners[i] = null;
+			unpacked[i] = null;
+		}
+	}
+
+	/**
+	 * Gets the number of duplicates suppressed.
+	 *
+	 * @return The count.
+	 */
+	public synchronized long getDuplicateCount() {
+		return duplicates;
+	}
+}
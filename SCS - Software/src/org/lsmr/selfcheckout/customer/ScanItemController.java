@@ -2,10 +2,20 @@ package org.lsmr.selfcheckout.customer;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Currency;
 import java.util.List;
 
 import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.cart.Cart;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.customer.catalog.VariableMeasureDecoder;
+import org.lsmr.selfcheckout.customer.catalog.VariableMeasureFormat;
+import org.lsmr.selfcheckout.customer.journal.SessionJournal;
+import org.lsmr.selfcheckout.customer.promotion.PromotionEngine;
+import org.lsmr.selfcheckout.customer.promotion.PromotionTable;
+import org.lsmr.selfcheckout.customer.tax.TaxEngine;
+import org.lsmr.selfcheckout.customer.tax.TaxTable;
 import org.lsmr.selfcheckout.devices.AbstractDevice;
 import org.lsmr.selfcheckout.devices.BarcodeScanner;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
@@ -17,33 +27,39 @@ public class ScanItemController  {
 	 
 
 	private final SelfCheckoutStation checkoutStation; 
-	private BigDecimal valueOfCart; //total cost of item field
 	private Double weightOfCart;
-	private HashMap<Barcode, BigDecimal> barcodePrice; //Map barcode to price
-	private HashMap<Barcode, Double> barcodeWeight;
+	private ProductCatalog catalog; //Price, weight and description of every product
 	private SIC sic;
-	private List<Barcode> scannedItemList;  
+	private Currency currency; //Currency of the station, which prices are charged in
+	private Cart cart; //Scanned items, one line per barcode, with the price and weight charged
+	private PromotionEngine promotions; //Discount earned by the cart, or null if no promotions run
+	private TaxEngine taxes; //Tax on the cart by category, or null if nothing is taxed
+	private VariableMeasureDecoder variableMeasureDecoder; //Recognizes labels with an embedded price or weight
+	private List<ScanItemObserver> observers; //Told of scans that could not be added
+	private SessionJournal journal; //Where scans are recorded for recovery, or null
+	private ScanDeduplicator deduplicator; //Drops double reads, or null to handle every read
+	private volatile ScanPipeline pipeline; //Prices reads on its own thread, or null to price them on the device's
 	private BaggingAreaController bagAreaControl;	
 
 	
 
 	//Constructor
-	public ScanItemController(SelfCheckoutStation cs, HashMap<Barcode, BigDecimal> barcodePrice, 
-		HashMap<Barcode, Double> barcodeWeight) {
+	public ScanItemController(SelfCheckoutStation cs, ProductCatalog catalog) {
 		checkoutStation = cs;
-		valueOfCart = new BigDecimal(0);
 		weightOfCart = 0.0;
 		sic = new SIC();
-		this.barcodePrice = barcodePrice;
-		this.barcodeWeight = barcodeWeight;
+		this.catalog = catalog;
 		this.bagAreaControl = null;
-		scannedItemList = new ArrayList<Barcode>();
+		currency = cs.coinValidator.currency;
+		cart = new Cart(currency);
+		variableMeasureDecoder = new VariableMeasureDecoder();
+		observers = new ArrayList<ScanItemObserver>();
 		
 		
 		
-		//Register observers in the scanner
-		checkoutStation.mainScanner.attach(sic);
-		checkoutStation.handheldScanner.attach(sic);
+		//Register observers in the scanner, for reads only: the scanners are enabled and disabled on every item
+		checkoutStation.mainScanner.attach(sic, BarcodeScanner.BARCODE_SCANNED | BarcodeScanner.BARCODES_SCANNED);
+		checkoutStation.handheldScanner.attach(sic, BarcodeScanner.BARCODE_SCANNED | BarcodeScanner.BARCODES_SCANNED);
 		
 	}
 	
@@ -53,25 +69,137 @@ public class ScanItemController  {
 		this.bagAreaControl = bAController;
 	}
 	
+	//Registers an observer to be told of unknown items
+	public void attach(ScanItemObserver observer) {
+		observers.add(observer);
+	}
+	
+	//Deregisters an observer
+	public boolean detach(ScanItemObserver observer) {
+		return observers.remove(observer);
+	}
+	
+	//Sets the variable-measure formats used by the store; null to look every barcode up as is
+	public void setVariableMeasureDecoder(VariableMeasureDecoder decoder) {
+		this.variableMeasureDecoder = decoder;
+	}
+	
+	//Sets the journal scans and unscans are recorded in; null to record nothing
+	public void setJournal(SessionJournal journal) {
+		this.journal = journal;
+	}
+	
+	//Sets what recognizes double reads from either scanner; null to handle every read
+	public void setDeduplicator(ScanDeduplicator deduplicator) {
+		this.deduplicator = deduplicator;
+	}
+	
+	//Sets the pipeline reads are handed to; null to handle them on the scanner's thread
+	void setPipeline(ScanPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+	
+	//Returns the pipeline reads are handed to, or null if they are handled on the scanner's thread
+	public ScanPipeline getPipeline() {
+		return pipeline;
+	}
+	
+	//Sets the promotions running on the lane; null for none
+	//The discount, and the tax net of it, are brought up to date with the items already scanned
+	public synchronized void setPromotions(PromotionTable table) {
+		if(promotions != null)
+			cart.detach(promotions);
+		promotions = null;
+		if(table != null) {
+			promotions = new PromotionEngine(table, currency);
+			for(CartLine line : cart.lines())
+				promotions.lineChanged(cart, line, 0);
+			cart.attach(promotions);
+		}
+		if(taxes != null)
+			setTaxes(taxes.getTable());
+	}
+	
+	//Sets the tax categories of the store and its products; null for no tax
+	//The tax is brought up to date with the items already scanned and the discount they earned
+	public synchronized void setTaxes(TaxTable table) {
+		if(taxes != null) {
+			cart.detach(taxes);
+			if(promotions != null)
+				promotions.detach(taxes);
+		}
+		taxes = null;
+		if(table == null)
+			return;
+		taxes = new TaxEngine(table, currency);
+		for(CartLine line : cart.lines())
+			taxes.lineChanged(cart, line, 0);
+		cart.attach(taxes);
+		if(promotions != null)
+			promotions.attach(taxes);
+	}
+	
+	//Returns the tax engine of the cart, or null if nothing is taxed
+	public TaxEngine getTaxes() {
+		return taxes;
+	}
+	
+	//Returns the discount engine of the cart, or null if no promotions run
+	public PromotionEngine getPromotions() {
+		return promotions;
+	}
+	
 	//Returns the number of item scanned
-	public int numOfScannedItems() {
-		return scannedItemList.size();
+	public synchronized int numOfScannedItems() {
+		return cart.getItemCount();
+	}
+	
+	//Returns the number of cart lines, one per distinct barcode scanned
+	//The methods taking the index of a line take one below this count
+	public synchronized int numOfScannedLines() {
+		return cart.getLineCount();
+	}
+	
+	//Returns the scanned items, for reading; iterate over its lines() to visit them all
+	//While a pipeline runs, hold the lock on this controller to read them
+	public Cart getCart() {
+		return cart;
+	}
+	
+	//Returns the catalog snapshot the cart line at the index (below numOfScannedLines()) was priced with
+	public synchronized ProductCatalog getCatalogOfItem(int index) {
+		return cart.getLine(index).getCatalog();
+	}
+	
+	//Returns the description of the cart line at the index (below numOfScannedLines())
+	public synchronized String getDescriptionOfItem(int index) {
+		return cart.getLine(index).getDescription();
 	}
 	
-	public List<Barcode> getScannedItemList(){
-		return scannedItemList;
+	//Returns the price charged for each unit on the cart line at the index (below numOfScannedLines())
+	public synchronized BigDecimal getPriceOfItem(int index) {
+		return cart.getLine(index).getUnitPrice().toBigDecimal();
+	}
+	
+	//Returns the catalog version the cart line at the index (below numOfScannedLines()) was priced with
+	public synchronized long getVersionOfItem(int index) {
+		return cart.getLine(index).getCatalog().version();
 	}
 	
 	//Remove item from scan
 	//Decrease the scanner expected weight of cart
 	//Enable the scanner if expected weight of cart and actual weight of cart matches
-	public void unScanItem(Barcode barcode) {
-		int index = scannedItemList.indexOf(barcode);
-		if(index == -1)
+	public synchronized void unScanItem(Barcode barcode) {
+		//Take back what was charged when the item was scanned, even if prices changed since
+		CartLine line = cart.remove(barcode);
+		if(line == null)
 			return;
-		scannedItemList.remove(index);
-		weightOfCart = weightOfCart - barcodeWeight.get(barcode);
-		valueOfCart = valueOfCart.subtract(barcodePrice.get(barcode));
+		if(journal != null)
+			journal.unscanned(barcode);
+		//The customer may scan the item again straight away
+		if(deduplicator != null)
+			deduplicator.clear();
+		weightOfCart = weightOfCart - line.getUnitWeight();
 		
 		if(bagAreaControl.getWeightOfCart() == weightOfCart) {
 			checkoutStation.mainScanner.enable();
@@ -93,51 +221,186 @@ public class ScanItemController  {
 			// Ignore	
 		}
 
-		//Retrieve the bar code and use hash map to retrieve price
-		//Update the value of the cart
+		//Add the scanned item to the cart, then wait for it in the bagging area
 		@Override
 		public void barcodeScanned(BarcodeScanner barcodeScanner, Barcode barcode) {
-			if(weightOfCart + barcodeWeight.get(barcode) <= checkoutStation.baggingArea.getWeightLimit()) {
-				weightOfCart = weightOfCart + barcodeWeight.get(barcode);	
+			//A second read of the item from the same scanner is not another item
+			if(deduplicator != null && !deduplicator.accept(barcodeScanner, barcode))
+				return;
+			
+			//With a pipeline the read is priced on the pipeline's thread, so the scanner is free at once
+			ScanPipeline pipeline = ScanItemController.this.pipeline;
+			if(pipeline != null) {
+				pipeline.offer(barcodeScanner, barcode, true);
+				return;
 			}
-
-			valueOfCart = valueOfCart.add(barcodePrice.get(barcode));
-			scannedItemList.add(barcode);
 			
+			synchronized(ScanItemController.this) {
+				if(addItem(barcode))
+					awaitBagging();
+			}
+		}
+		
+		//Add every item a tunnel scanner read, then wait for them all in the bagging area at once
+		//Identical items in one basket are each read once, so a batch is not deduplicated
+		@Override
+		public void barcodesScanned(BarcodeScanner barcodeScanner, List<Barcode> barcodes) {
+			ScanPipeline pipeline = ScanItemController.this.pipeline;
+			if(pipeline != null) {
+				for(int i = 0; i < barcodes.size(); i++)
+					pipeline.offer(barcodeScanner, barcodes.get(i), i == barcodes.size() - 1);
+				return;
+			}
 			
-			//Once an item is scanned, disable the scanner
-			//If expected weight of cart (determined by scanner)
-			//Is not the same of actual weigh of cart (determined by electronic scale)
-			if(bagAreaControl.getWeightOfCart() != weightOfCart) {
-				checkoutStation.mainScanner.disable();
-				checkoutStation.handheldScanner.disable();
+			synchronized(ScanItemController.this) {
+				boolean added = false;
+				for(Barcode barcode : barcodes)
+					added |= addItem(barcode);
 				
-			}else {
-				checkoutStation.mainScanner.enable();
-				checkoutStation.handheldScanner.enable();
+				if(added)
+					awaitBagging();
 			}
+		}
+	}
+	
+	//Retrieve the bar code and use the catalog to retrieve price and weight
+	//Update the value of the cart; returns false if no item was added
+	//Called with the lock on the controller held
+	boolean addItem(Barcode barcode) {
+		//A GTIN with a wrong check digit is a misread, so skip the lookup and let the customer rescan
+		if(Barcode.isGTINLength(barcode.digitCount()) && !barcode.hasValidCheckDigit())
+			return false;
+		
+		//Keep the pooled instance in the cart rather than the one the scanner made
+		barcode = barcode.intern();
+		
+		//A rescan of a barcode already in the cart adds a unit at that line's price, without a lookup
+		//Otherwise all lookups of one scan use the same catalog version
+		CartLine line = cart.getLine(barcode);
+		ProductCatalog snapshot = line != null ? line.getCatalog() : catalog.snapshot();
+		int slot = ProductCatalog.NOT_FOUND;
+		Money price = null;
+		double weight = 0;
+		if(line != null) {
+			slot = line.getSlot();
+			price = line.getUnitPrice();
+			weight = line.getUnitWeight();
+		}
+		
+		//A label with an embedded price or weight is priced from its item's reference entry
+		VariableMeasureFormat format = variableMeasureDecoder == null ? null : variableMeasureDecoder.match(barcode);
+		if(format != null && slot == ProductCatalog.NOT_FOUND) {
+			slot = snapshot.findPacked(format.reference(barcode));
+			if(slot != ProductCatalog.NOT_FOUND) {
+				int value = format.value(barcode);
+				if(format.getMeasure() == VariableMeasureFormat.Measure.PRICE) {
+					price = Money.ofMinor(currency, value);
+					weight = snapshot.getWeight(slot);
+				}
+				else {
+					price = Money.of(currency, snapshot.getPrice(slot).multiply(BigDecimal.valueOf(value, 3)));
+					weight = value;
+				}
+			}
+		}
+		
+		//Otherwise the label itself must be in the catalog
+		if(slot == ProductCatalog.NOT_FOUND) {
+			slot = snapshot.find(barcode);
+			if(slot == ProductCatalog.NOT_FOUND) {
+				for(ScanItemObserver observer : observers)
+					observer.itemNotFound(this, barcode);
+				return false;
+			}
+			price = Money.of(currency, snapshot.getPrice(slot));
+			weight = snapshot.getWeight(slot);
+		}
+		
+		if(weightOfCart + weight <= checkoutStation.baggingArea.getWeightLimit()) {
+			weightOfCart = weightOfCart + weight;	
+		}
+
+		cart.add(barcode, snapshot, slot, price, weight);
+		if(journal != null)
+			journal.scanned(barcode, price, weight);
+		return true;
+	}
+	
+	//Wait for the items just added to be placed in the bagging area
+	//Called with the lock on the controller held
+	void awaitBagging() {
+		updateScanners();
+		double begin = System.currentTimeMillis();
+		bagAreaControl.setBeginTime(begin);
+	}
+	
+	//Once an item is scanned, disable the scanner
+	//If expected weight of cart (determined by scanner)
+	//Is not the same of actual weigh of cart (determined by electronic scale)
+	//The scanners also stay disabled while the pipeline is full
+	synchronized void updateScanners() {
+		ScanPipeline pipeline = this.pipeline;
+		if(bagAreaControl.getWeightOfCart() != weightOfCart || pipeline != null && pipeline.isSaturated()) {
+			checkoutStation.mainScanner.disable();
+			checkoutStation.handheldScanner.disable();
 			
-			double begin = System.currentTimeMillis();
-			bagAreaControl.setBeginTime(begin);
+		}else {
+			checkoutStation.mainScanner.enable();
+			checkoutStation.handheldScanner.enable();
+		}
+	}
+	
+	//Puts a journalled scan back in the cart at the price and weight it was charged at
+	//The product is found in the current catalog; observers are told if it is no longer there
+	synchronized void restoreScan(Barcode barcode, Money price, double weight) {
+		barcode = barcode.intern();
+		CartLine line = cart.getLine(barcode);
+		ProductCatalog snapshot = line != null ? line.getCatalog() : catalog.snapshot();
+		int slot = line != null ? line.getSlot() : ProductCatalog.NOT_FOUND;
+		
+		VariableMeasureFormat format = variableMeasureDecoder == null ? null : variableMeasureDecoder.match(barcode);
+		if(format != null && slot == ProductCatalog.NOT_FOUND)
+			slot = snapshot.findPacked(format.reference(barcode));
+		if(slot == ProductCatalog.NOT_FOUND)
+			slot = snapshot.find(barcode);
+		if(slot == ProductCatalog.NOT_FOUND) {
+			for(ScanItemObserver observer : observers)
+				observer.itemNotFound(this, barcode);
+			return;
+		}
+		
+		if(weightOfCart + weight <= checkoutStation.baggingArea.getWeightLimit()) {
+			weightOfCart = weightOfCart + weight;	
 		}
+		cart.add(barcode, snapshot, slot, price, weight);
 	}
 	
+	//Returns the price of the cart after discounts
+	public synchronized BigDecimal getValueOfCart() {
+		return getValueAfterDiscounts().toBigDecimalStripped();
+	}
 	
+	//Returns what the customer owes: the price of the cart after discounts, plus tax
+	public synchronized Money getTotalOfCart() {
+		Money total = getValueAfterDiscounts();
+		if(taxes != null)
+			total = total.add(taxes.getTax());
+		return total;
+	}
 	
-	public BigDecimal getValueOfCart() {
-		return valueOfCart;
+	private Money getValueAfterDiscounts() {
+		Money value = cart.getTotal();
+		if(promotions != null)
+			value = value.subtract(promotions.getDiscount());
+		return value;
 	}
 	
-	public Double getWeightOfCart() {
+	public synchronized Double getWeightOfCart() {
 		return weightOfCart;
 	}
 
-	public HashMap<Barcode, BigDecimal> getBarcodePrice(){
-		return this.barcodePrice;
-	}
-
-	public HashMap<Barcode, Double> getBarcodeWeight(){
-		return this.barcodeWeight;
+	public ProductCatalog getCatalog(){
+		return this.catalog;
 	}
 
 }
\ No newline at end of file
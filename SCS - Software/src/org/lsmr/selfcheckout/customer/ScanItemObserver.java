@@ -0,0 +1,19 @@
+package org.lsmr.selfcheckout.customer;
+
+import org.lsmr.selfcheckout.Barcode;
+
+/**
+ * Observes the outcome of scans handled by a {@link ScanItemController}.
+ */
+public interface ScanItemObserver {
+	/**
+	 * Announces that a barcode was read that the catalog does not know, so no
+	 * item was added to the cart.
+	 * 
+	 * @param controller
+	 *            The controller that handled the scan.
+	 * @param barcode
+	 *            The unknown barcode.
+	 */
+	void itemNotFound(ScanItemController controller, Barcode barcode);
+}
@@ -0,0 +1,305 @@
+package org.lsmr.selfcheckout.customer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.devices.BarcodeScanner;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * Moves the handling of reads off the scanners' thread. The scanner's
+ * observer only places each read in a bounded ring; a thread of the pipeline
+ * takes reads from the ring in order, looks them up and adds them to the cart
+ * (which updates promotions and taxes), holding the lock on the controller for
+ * each read. At the end of a pass of a scanner that added items, it has the
+ * controller wait for the bagging area, which disables the scanners until the
+ * items are placed. Reads already in the ring are not held back by this: they
+ * were made before the scanners were disabled and are added in turn, to be
+ * placed with the rest.
+ * <p>
+ * When the ring fills, the scanners are disabled, so the customer stops
+ * scanning rather than have reads dropped. They are enabled again, if the
+ * bagging area allows, once the pipeline has worked the ring down to half.
+ * </p>
+ * <p>
+ * The time reads spend in each {@link Stage} is measured. The ring is
+ * preallocated and reads are placed in it without locking the controller or
+ * allocating; reads from the two scanners are placed one at a time.
+ * </p>
+ */
+public class ScanPipeline implements AutoCloseable {
+	/**
+	 * The stages a read goes through.
+	 */
+	public enum Stage {
+		/**
+		 * Waiting in the ring for the pipeline's thread.
+		 */
+		QUEUE,
+		/**
+		 * Looking the barcode up and adding the item to the cart.
+		 */
+		PRICING,
+		/**
+		 * Enabling or disabling the scanners to wait for the bagging area.
+		 */
+		BAGGING
+	}
+
+	private final ScanItemController controller;
+	private final int mask;
+	private final BarcodeScanner[] scanners;
+	private final Barcode[] barcodes;
+	private final boolean[] settles; // Whether the read ends a pass of the scanner
+	private final long[] offeredAt;
+	private final Object producerLock = new Object();
+	private final AtomicLong published = new AtomicLong(); // Reads placed in the ring
+	private final AtomicLong consumed = new AtomicLong(); // Reads taken from the ring
+	private final AtomicLong processed = new AtomicLong(); // Reads fully handled
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLongArray totalNanos = new AtomicLongArray(Stage.values().length);
+	private final AtomicLongArray maxNanos = new AtomicLongArray(Stage.values().length);
+	private final Thread worker;
+	private volatile boolean saturated;
+	private volatile boolean parked;
+	private volatile boolean running = true;
+
+	/**
+	 * Creates a pipeline and has the controller hand it every read from now on.
+	 *
+	 * @param controller
+	 *            The controller whose reads are handled.
+	 * @param capacity
+	 *            The number of reads the ring holds; a power of 2.
+	 * @throws SimulationException
+	 *             If controller is null, the capacity is not a power of 2, or
+	 *             the controller already has a pipeline.
+	 */
+	public ScanPipeline(ScanItemController controller, int capacity) {
+		if(controller == null)
+			throw new SimulationException(new NullPointerException("controller is null"));
+
+		if(capacity <= 0 || Integer.bitCount(capacity) != 1)
+			throw new SimulationException(new IllegalArgumentException("The capacity must be a power of 2."));
+
+		if(controller.getPipeline() != null)
+			throw new SimulationException(new IllegalStateException("The controller already has a pipeline."));
+
+		this.controller = controller;
+		mask = capacity - 1;
+		scanners = new BarcodeScanner[capacity];
+		barcodes = new Barcode[capacity];
+		settles = new boolean[capacity];
+		offeredAt = new long[capacity];
+
+		worker = new Thread(this::run, "scan-pipeline");
+		worker.setDaemon(true);
+		worker.start();
+		controller.setPipeline(this);
+	}
+
+	/**
+	 * Places a read in the ring. If this fills the ring, the scanners are
+	 * disabled.
+	 *
+	 * @param scanner
+	 *            The scanner that made the read.
+	 * @param barcode
+	 *            The barcode read.
+	 * @param settle
+	 *            Whether the read ends a pass of the scanner, after which the
+	 *            bagging area is waited for.
+	 * @return false if the ring was full and the read was dropped.
+	 */
+	boolean offer(BarcodeScanner scanner, Barcode barcode, boolean settle) {
+		boolean filled = false;
+
+		synchronized(producerLock) {
+			long p = published.get();
+
+			if(p - consumed.get() > mask) {
+				dropped.incrementAndGet();
+				return false;
+			}
+
+			int i = (int)(p & mask);
+			scanners[i] = scanner;
+			barcodes[i] = barcode;
+			settles[i] = settle;
+			offeredAt[i] = System.nanoTime();
+
+			// Flag a full ring before publishing the read that fills it, so the worker,
+			// which checks the flag after handling each read, is sure to see and clear it
+			if(p + 1 - consumed.get() > mask) {
+				saturated = true;
+				filled = true;
+			}
+
+			// A volatile write, so the check of parked below cannot miss a worker about to park
+			published.set(p + 1);
+		}
+
+		if(filled)
+			controller.updateScanners();
+
+		if(parked)
+			LockSupport.unpark(worker);
+
+		return true;
+	}
+
+	// Handles reads in order until closed and empty
+	private void run() {
+		boolean added = false; // Whether an item was added since the bagging area was last waited for
+
+		while(true) {
+			long c = consumed.get();
+
+			if(c == published.get()) {
+				if(!running)
+					return;
+
+				parked = true;
+				if(c == published.get() && running)
+					LockSupport.park(this);
+				parked = false;
+				continue;
+			}
+
+			int i = (int)(c & mask);
+			Barcode barcode = barcodes[i];
+			boolean settle = settles[i];
+			long start = System.nanoTime();
+			record(Stage.QUEUE, start - offeredAt[i]);
+			scanners[i] = null;
+			barcodes[i] = null;
+			consumed.set(c + 1);
+
+			try {
+				synchronized(controller) {
+					added |= controller.addItem(barcode);
+					long priced = System.nanoTime();
+					record(Stage.PRICING, priced - start);
+
+					if(settle && added) {
+						controller.awaitBagging();
+						record(Stage.BAGGING, System.nanoTime() - priced);
+						added = false;
+					}
+				}
+			}
+			catch(RuntimeException e) {
+				// A read that cannot be handled is dropped, as a failed scan would be
+				dropped.incrementAndGet();
+			}
+
+			processed.incrementAndGet();
+
+			if(saturated && published.get() - consumed.get() <= (mask + 1) / 2) {
+				saturated = false;
+				controller.updateScanners();
+			}
+		}
+	}
+
+	private void record(Stage stage, long nanos) {
+		int s = stage.ordinal();
+		totalNanos.addAndGet(s, nanos);
+
+		if(nanos > maxNanos.get(s))
+			maxNanos.set(s, nanos);
+	}
+
+	/**
+	 * Determines whether the ring is full, so that the scanners are held
+	 * disabled.
+	 *
+	 * @return true if it is.
+	 */
+	public boolean isSaturated() {
+		return saturated;
+	}
+
+	/**
+	 * Waits until every read placed in the ring so far has been handled.
+	 */
+	public void awaitIdle() {
+		long target = published.get();
+
+		while(processed.get() < target && worker.isAlive())
+			LockSupport.parkNanos(100_000);
+	}
+
+	/**
+	 * Gets the number of reads handled.
+	 *
+	 * @return The count.
+	 */
+	public long getProcessedCount() {
+		return processed.get();
+	}
+
+	/**
+	 * Gets the number of reads dropped, because the ring was full or the read
+	 * could not be handled.
+	 *
+	 * @return The count.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Gets the total time reads have spent in a stage.
+	 *
+	 * @param stage
+	 *            The stage.
+	 * @return The time in nanoseconds.
+	 */
+	public long getTotalNanos(Stage stage) {
+		return totalNanos.get(stage.ordinal());
+	}
+
+	/**
+	 * Gets the longest time a read has spent in a stage.
+	 *
+	 * @param stage
+	 *            The stage.
+	 * @return The time in nanoseconds.
+	 */
+	public long getMaxNanos(Stage stage) {
+		return maxNanos.get(stage.ordinal());
+	}
+
+	/**
+	 * Handles the reads left in the ring, stops the pipeline's thread and has
+	 * the controller handle reads on the scanner's thread again.
+	 */
+	@Override
+	public void close() {
+		controller.setPipeline(null);
+		running = false;
+		LockSupport.unpark(worker);
+
+		boolean interrupted = false;
+
+		while(worker.isAlive()) {
+			try {
+				worker.join();
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if(interrupted)
+			Thread.currentThread().interrupt();
+
+		if(saturated) {
+			saturated = false;
+			controller.updateScanners();
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package org.lsmr.selfcheckout.customer;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.journal.SessionJournal;
+import org.lsmr.selfcheckout.customer.journal.SessionJournalListener;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * Rebuilds a checkout session from its journal when the station's software
+ * restarts, and has the controllers record the rest of the session in the
+ * same journal.
+ */
+public class SessionRecovery {
+
+	private SessionRecovery() {}
+
+	/**
+	 * Replays the journal into newly created controllers, which must be
+	 * connected to each other and not yet have a journal. Scanned items are
+	 * charged at the prices they were journalled at; an item whose product is
+	 * no longer in the catalog is announced to the scan controller's observers
+	 * as not found. Once the session is rebuilt, the controllers are given the
+	 * journal.
+	 *
+	 * @param journal
+	 *            The journal of the session.
+	 * @param scanControl
+	 *            The controller of the cart.
+	 * @param bagAreaControl
+	 *            The controller of the bagging area.
+	 * @param paymentControl
+	 *            The controller of payment.
+	 * @return The number of events replayed.
+	 * @throws SimulationException
+	 *             If an argument is null.
+	 */
+	public static int recover(SessionJournal journal, final ScanItemController scanControl,
+		final BaggingAreaController bagAreaControl, final PaymentController paymentControl) {
+		if(journal == null)
+			throw new SimulationException(new NullPointerException("journal is null"));
+
+		if(scanControl == null)
+			throw new SimulationException(new NullPointerException("scanControl is null"));
+
+		if(bagAreaControl == null)
+			throw new SimulationException(new NullPointerException("bagAreaControl is null"));
+
+		if(paymentControl == null)
+			throw new SimulationException(new NullPointerException("paymentControl is null"));
+
+		int count = journal.replay(new SessionJournalListener() {
+			@Override
+			public void scanned(Barcode barcode, Money unitPrice, double unitWeight) {
+				scanControl.restoreScan(barcode, unitPrice, unitWeight);
+			}
+
+			@Override
+			public void unscanned(Barcode barcode) {
+				scanControl.unScanItem(barcode);
+			}
+
+			@Override
+			public void bagVerified(double weight) {
+				bagAreaControl.registerBag(weight);
+			}
+
+			@Override
+			public void charged(Money amount) {
+				paymentControl.setValueOfCart(amount);
+			}
+
+			@Override
+			public void coinAccepted(Money value) {
+				paymentControl.coinPaid(value);
+			}
+
+			@Override
+			public void banknoteAccepted(Money value) {
+				paymentControl.banknotePaid(value);
+			}
+
+			@Override
+			public void cardApproved() {
+				paymentControl.cardPaid();
+			}
+		});
+
+		scanControl.setJournal(journal);
+		bagAreaControl.setJournal(journal);
+		paymentControl.setJournal(journal);
+		return count;
+	}
+}
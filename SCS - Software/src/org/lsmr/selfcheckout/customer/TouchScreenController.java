@@ -1,15 +1,23 @@
 package org.lsmr.selfcheckout.customer;
+import java.util.Collections;
+import java.util.List;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.catalog.DescriptionIndex;
 import org.lsmr.selfcheckout.devices.AbstractDevice;
 import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
 import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
 import org.lsmr.selfcheckout.devices.observers.TouchScreenObserver;
+import org.lsmr.selfcheckout.products.Product;
 
 
 
-public class TouchScreenController implements TouchScreenObserver {
+public class TouchScreenController implements TouchScreenObserver, ScanItemObserver {
 		
 	private final SelfCheckoutStation checkoutStation;
 	public checkoutState state;
+	private DescriptionIndex searchIndex;
+	private Barcode itemNotFound;
 	
 	// These 2 booleans are for Iteration 2 testing
 	public boolean enabledTrue = false;
@@ -52,6 +60,38 @@ public class TouchScreenController implements TouchScreenObserver {
 		checkoutStation.banknoteInput.enable();
 	}
 
+	/**
+	 * Sets the index used to look products up by name.
+	 */
+	public void setSearchIndex(DescriptionIndex searchIndex) {
+		this.searchIndex = searchIndex;
+	}
+	
+	/**
+	 * Finds the products whose descriptions match what the customer has typed so far,
+	 * best first. Returns no products if no search index is set.
+	 */
+	public List<Product> search(String text, int limit) {
+		if(searchIndex == null)
+			return Collections.emptyList();
+		return searchIndex.search(text, limit);
+	}
+
+	/**
+	 * Shows the customer that the scanned item is not in the catalog.
+	 */
+	@Override
+	public void itemNotFound(ScanItemController controller, Barcode barcode) {
+		itemNotFound = barcode;
+	}
+	
+	/**
+	 * Returns the barcode of the last item that was not found, or null if none.
+	 */
+	public Barcode getItemNotFound() {
+		return itemNotFound;
+	}
+
 	@Override
 	public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
 		// For testing purposes
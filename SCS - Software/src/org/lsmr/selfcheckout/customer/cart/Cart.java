@@ -0,0 +1,432 @@
+package org.lsmr.selfcheckout.customer.cart;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcodeIndex;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * The items scanned in one session, held as one {@link CartLine} per barcode
+ * with a quantity. Lines are found through a {@link PackedBarcodeIndex} and
+ * kept in scan order by a linked list threaded through primitive arrays, so
+ * adding, removing or requantifying a unit costs the same however large the
+ * cart is. The total price, total weight and number of units are kept as the
+ * cart changes, the price as a count of minor units of the cart's currency.
+ * Attached {@link CartObserver}s are told of every change in quantity.
+ * <p>
+ * The cart is not safe for use by multiple threads.
+ * </p>
+ */
+public class Cart {
+	private static final int NIL = -1;
+
+	private CartLine[] lines;
+	private int[] previous;
+	private int[] next;
+	private int head;
+	private int tail;
+	private int free;
+	private int used;
+
+	private final PackedBarcodeIndex index;
+	private final Map<Barcode, Integer> unpacked; // Barcodes too long to pack
+
+	private final Currency currency;
+	private long total;
+	private double weight;
+	private int itemCount;
+	private int lineCount;
+	private int modifications;
+	private int cursorPosition = NIL; // The position last got by getLine(int), and its entry
+	private int cursorEntry;
+	private int cursorModifications;
+
+	private final Iterable<CartLine> view;
+	private ArrayList<CartObserver> observers = new ArrayList<CartObserver>();
+
+	/**
+	 * Creates an empty cart.
+	 *
+	 * @param currency
+	 *            The currency items are priced in.
+	 * @throws SimulationException
+	 *             If currency is null.
+	 */
+	public Cart(Currency currency) {
+		if(currency == null)
+			throw new SimulationException(new NullPointerException("currency is null"));
+
+		this.currency = currency;
+		lines = new CartLine[16];
+		previous = new int[16];
+		next = new int[16];
+		head = tail = free = NIL;
+		index = new PackedBarcodeIndex(16);
+		unpacked = new HashMap<>();
+		view = LineIterator::new;
+	}
+
+	/**
+	 * Adds one unit. A barcode already in the cart adds to its line at the price
+	 * the line was started with; otherwise a new line is started at the end.
+	 *
+	 * @param barcode
+	 *            The barcode scanned.
+	 * @param catalog
+	 *            The catalog snapshot the unit was priced with.
+	 * @param slot
+	 *            The slot of the product in the snapshot.
+	 * @param unitPrice
+	 *            The price of the unit.
+	 * @param unitWeight
+	 *            The expected weight of the unit in grams.
+	 * @return The line the unit was added to.
+	 * @throws SimulationException
+	 *             If an argument is null or the price is in another currency.
+	 */
+	public CartLine add(Barcode barcode, ProductCatalog catalog, int slot, Money unitPrice, double unitWeight) {
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		if(catalog == null)
+			throw new SimulationException(new NullPointerException("catalog is null"));
+
+		if(unitPrice == null)
+			throw new SimulationException(new NullPointerException("unitPrice is null"));
+
+		if(!unitPrice.getCurrency().equals(currency))
+			throw new SimulationException(new IllegalArgumentException("The price is not in " + currency + "."));
+
+		int i = find(barcode);
+
+		if(i == NIL)
+			i = link(new CartLine(barcode, catalog, slot, unitPrice, unitWeight));
+
+		CartLine line = lines[i];
+		adjust(line, line.quantity + 1);
+		return line;
+	}
+
+	/**
+	 * Removes one unit. The line is dropped with its last unit.
+	 *
+	 * @param barcode
+	 *            The barcode of the unit.
+	 * @return The line the unit was taken from, or null if the barcode is not in
+	 *         the cart.
+	 */
+	public CartLine remove(Barcode barcode) {
+		int i = find(barcode);
+
+		if(i == NIL)
+			return null;
+
+		CartLine line = lines[i];
+		setQuantity(i, line.quantity - 1);
+		return line;
+	}
+
+	/**
+	 * Sets the number of units of a barcode already in the cart. A quantity of
+	 * zero drops the line.
+	 *
+	 * @param barcode
+	 *            The barcode.
+	 * @param quantity
+	 *            The new quantity, &ge;0.
+	 * @return The line, or null if the barcode is not in the cart.
+	 * @throws SimulationException
+	 *             If the quantity is negative.
+	 */
+	public CartLine setQuantity(Barcode barcode, int quantity) {
+		if(quantity < 0)
+			throw new SimulationException(new IllegalArgumentException("The quantity cannot be negative."));
+
+		int i = find(barcode);
+
+		if(i == NIL)
+			return null;
+
+		CartLine line = lines[i];
+		setQuantity(i, quantity);
+		return line;
+	}
+
+	/**
+	 * Attaches an observer, which will be told of every later change.
+	 *
+	 * @param observer
+	 *            The observer to attach.
+	 * @throws SimulationException
+	 *             If observer is null.
+	 */
+	public void attach(CartObserver observer) {
+		if(observer == null)
+			throw new SimulationException(new NullPointerException("observer is null"));
+
+		observers.add(observer);
+	}
+
+	/**
+	 * Detaches an observer.
+	 *
+	 * @param observer
+	 *            The observer to detach.
+	 * @return true if the observer was attached.
+	 */
+	public boolean detach(CartObserver observer) {
+		return observers.remove(observer);
+	}
+
+	/**
+	 * Gets the number of units of a barcode.
+	 *
+	 * @param barcode
+	 *            The barcode.
+	 * @return The quantity, or 0 if the barcode is not in the cart.
+	 */
+	public int getQuantity(Barcode barcode) {
+		int i = find(barcode);
+		return i == NIL ? 0 : lines[i].quantity;
+	}
+
+	/**
+	 * Gets the line of a barcode.
+	 *
+	 * @param barcode
+	 *            The barcode.
+	 * @return The line, or null if the barcode is not in the cart.
+	 */
+	public CartLine getLine(Barcode barcode) {
+		int i = find(barcode);
+		return i == NIL ? null : lines[i];
+	}
+
+	/**
+	 * Gets a line by its position in scan order. This walks the lines from the
+	 * position last got, if the cart has not changed since, so getting them in
+	 * order costs one step each; otherwise iterate over {@link #lines()}.
+	 *
+	 * @param position
+	 *            The position, &ge;0 and &lt;{@link #getLineCount()}.
+	 * @return The line.
+	 * @throws SimulationException
+	 *             If the position is out of range.
+	 */
+	public CartLine getLine(int position) {
+		if(position < 0 || position >= lineCount)
+			throw new SimulationException(new IndexOutOfBoundsException("position " + position + " is out of range"));
+
+		int i = head;
+		int at = 0;
+
+		if(cursorPosition != NIL && cursorModifications == modifications && cursorPosition <= position) {
+			i = cursorEntry;
+			at = cursorPosition;
+		}
+
+		for(; at < position; at++)
+			i = next[i];
+
+		cursorPosition = position;
+		cursorEntry = i;
+		cursorModifications = modifications;
+		return lines[i];
+	}
+
+	/**
+	 * Gets a read-only view of the lines in scan order. The view follows the
+	 * cart; changing the cart while iterating fails fast.
+	 *
+	 * @return The lines.
+	 */
+	public Iterable<CartLine> lines() {
+		return view;
+	}
+
+	/**
+	 * Gets the price of every unit in the cart.
+	 *
+	 * @return The total price.
+	 */
+	public Money getTotal() {
+		return Money.ofMinor(currency, total);
+	}
+
+	/**
+	 * Gets the expected weight of every unit in the cart.
+	 *
+	 * @return The total weight in grams.
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Gets the number of units in the cart.
+	 *
+	 * @return The number of units.
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Gets the number of lines in the cart.
+	 *
+	 * @return The number of distinct barcodes.
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	private int find(Barcode barcode) {
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		long packed = PackedBarcode.pack(barcode);
+
+		if(packed != PackedBarcode.NONE) {
+			int i = index.get(packed);
+			return i == ProductCatalog.NOT_FOUND ? NIL : i;
+		}
+
+		Integer i = unpacked.get(barcode);
+		return i == null ? NIL : i;
+	}
+
+	private void setQuantity(int i, int quantity) {
+		CartLine line = lines[i];
+		adjust(line, quantity);
+
+		if(quantity == 0)
+			unlink(i);
+	}
+
+	// Moves the totals by the change in the line's quantity
+	private void adjust(CartLine line, int quantity) {
+		int previousQuantity = line.quantity;
+		int delta = quantity - previousQuantity;
+
+		if(delta == 0)
+			return;
+
+		total = Math.addExact(total, Math.multiplyExact(line.getUnitPrice().getMinorUnits(), (long)delta));
+		weight += line.getUnitWeight() * delta;
+		itemCount += delta;
+		line.quantity = quantity;
+		modifications++;
+
+		for(CartObserver observer : observers)
+			observer.lineChanged(this, line, previousQuantity);
+	}
+
+	// Appends a line, reusing a free entry if there is one
+	private int link(CartLine line) {
+		int i;
+
+		if(free != NIL) {
+			i = free;
+			free = next[i];
+		}
+		else {
+			if(used == lines.length)
+				grow();
+
+			i = used++;
+		}
+
+		lines[i] = line;
+		previous[i] = tail;
+		next[i] = NIL;
+
+		if(tail == NIL)
+			head = i;
+		else
+			next[tail] = i;
+
+		tail = i;
+		lineCount++;
+
+		long packed = PackedBarcode.pack(line.getBarcode());
+
+		if(packed != PackedBarcode.NONE)
+			index.put(packed, i);
+		else
+			unpacked.put(line.getBarcode(), i);
+
+		return i;
+	}
+
+	private void unlink(int i) {
+		Barcode barcode = lines[i].getBarcode();
+		long packed = PackedBarcode.pack(barcode);
+
+		if(packed != PackedBarcode.NONE)
+			index.remove(packed);
+		else
+			unpacked.remove(barcode);
+
+		if(previous[i] == NIL)
+			head = next[i];
+		else
+			next[previous[i]] = next[i];
+
+		if(next[i] == NIL)
+			tail = previous[i];
+		else
+			previous[next[i]] = previous[i];
+
+		lines[i] = null;
+		next[i] = free;
+		free = i;
+		lineCount--;
+		modifications++;
+	}
+
+	private void grow() {
+		int capacity = lines.length * 2;
+		CartLine[] newLines = new CartLine[capacity];
+		int[] newPrevious = new int[capacity];
+		int[] newNext = new int[capacity];
+		System.arraycopy(lines, 0, newLines, 0, used);
+		System.arraycopy(previous, 0, newPrevious, 0, used);
+		System.arraycopy(next, 0, newNext, 0, used);
+		lines = newLines;
+		previous = newPrevious;
+		next = newNext;
+	}
+
+	private class LineIterator implements Iterator<CartLine> {
+		private final int expected = modifications;
+		private int i = head;
+
+		@Override
+		public boolean hasNext() {
+			return i != NIL;
+		}
+
+		@Override
+		public CartLine next() {
+			if(modifications != expected)
+				throw new ConcurrentModificationException();
+
+			if(i == NIL)
+				throw new NoSuchElementException();
+
+			CartLine line = lines[i];
+			i = next[i];
+			return line;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package org.lsmr.selfcheckout.customer.cart;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+
+/**
+ * One line of a {@link Cart}: every unit scanned under one barcode. The unit
+ * price and weight are those found when the line was started, so a price
+ * change in the catalog does not reprice units already in the cart.
+ */
+public final class CartLine {
+	private final Barcode barcode;
+	private final ProductCatalog catalog;
+	private final int slot;
+	private final Money unitPrice;
+	private final double unitWeight;
+	int quantity;
+
+	CartLine(Barcode barcode, ProductCatalog catalog, int slot, Money unitPrice, double unitWeight) {
+		this.barcode = barcode;
+		this.catalog = catalog;
+		this.slot = slot;
+		this.unitPrice = unitPrice;
+		this.unitWeight = unitWeight;
+	}
+
+	/**
+	 * Gets the barcode scanned.
+	 *
+	 * @return The barcode.
+	 */
+	public Barcode getBarcode() {
+		return barcode;
+	}
+
+	/**
+	 * Gets the catalog snapshot the line was priced with.
+	 *
+	 * @return The snapshot.
+	 */
+	public ProductCatalog getCatalog() {
+		return catalog;
+	}
+
+	/**
+	 * Gets the slot of the product in {@link #getCatalog()}.
+	 *
+	 * @return The slot.
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
+	/**
+	 * Gets the description of the product.
+	 *
+	 * @return The description.
+	 */
+	public String getDescription() {
+		return catalog.getDescription(slot);
+	}
+
+	/**
+	 * Gets the price charged for each unit.
+	 *
+	 * @return The unit price.
+	 */
+	public Money getUnitPrice() {
+		return unitPrice;
+	}
+
+	/**
+	 * Gets the expected weight of each unit.
+	 *
+	 * @return The unit weight in grams.
+	 */
+	public double getUnitWeight() {
+		return unitWeight;
+	}
+
+	/**
+	 * Gets the number of units on the line.
+	 *
+	 * @return The quantity, &ge;1 while the line is in a cart.
+	 */
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * Gets the price charged for the whole line.
+	 *
+	 * @return The unit price times the quantity.
+	 */
+	public Money getPrice() {
+		return unitPrice.multiply(quantity);
+	}
+}
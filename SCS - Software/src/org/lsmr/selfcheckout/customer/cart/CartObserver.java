@@ -0,0 +1,19 @@
+package org.lsmr.selfcheckout.customer.cart;
+
+/**
+ * Observes changes to the lines of a cart.
+ */
+public interface CartObserver {
+	/**
+	 * An event announcing that the quantity of a line changed.
+	 * 
+	 * @param cart
+	 *            The cart.
+	 * @param line
+	 *            The line, with its new quantity. A quantity of zero means the
+	 *            line was dropped.
+	 * @param previousQuantity
+	 *            The quantity before the change; zero for a new line.
+	 */
+	void lineChanged(Cart cart, CartLine line, int previousQuantity);
+}
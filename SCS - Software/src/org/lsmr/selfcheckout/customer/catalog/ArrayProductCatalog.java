@@ -0,0 +1,292 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+import org.lsmr.selfcheckout.products.Product;
+
+/**
+ * An in-memory product catalog. Each barcoded entry occupies one slot, and the
+ * fields of all entries are kept in parallel arrays indexed by slot so that a
+ * single index lookup gives access to the price, weight and description.
+ * Barcodes of up to {@link PackedBarcode#MAX_DIGITS} digits are indexed by
+ * their packed code; longer ones fall back to a hash map. PLU coded products
+ * are kept in a {@link PLUCatalog}.
+ * <p>
+ * Attached {@link ProductCatalogObserver}s are told of every product added,
+ * replaced or removed.
+ * </p>
+ */
+public class ArrayProductCatalog implements ProductCatalog {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int size;
+	private Barcode[] barcodes;
+	private BarcodedProduct[] products;
+	private BigDecimal[] prices;
+	private double[] weights;
+	private String[] descriptions;
+
+	private PackedBarcodeIndex packedSlots;
+	private HashMap<Barcode, Integer> longBarcodeSlots;
+	private PLUCatalog pluProducts;
+
+	private ArrayList<ProductCatalogObserver> observers = new ArrayList<ProductCatalogObserver>();
+
+	/**
+	 * Creates an empty catalog.
+	 */
+	public ArrayProductCatalog() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty catalog sized for the expected number of barcoded
+	 * products.
+	 *
+	 * @param expectedSize
+	 *            The number of barcoded products expected.
+	 * @throws SimulationException
+	 *             If the expected size is negative.
+	 */
+	public ArrayProductCatalog(int expectedSize) {
+		if(expectedSize < 0)
+			throw new SimulationException(new IllegalArgumentException("The expected size cannot be negative."));
+
+		int capacity = Math.max(expectedSize, 1);
+		size = 0;
+		barcodes = new Barcode[capacity];
+		products = new BarcodedProduct[capacity];
+		prices = new BigDecimal[capacity];
+		weights = new double[capacity];
+		descriptions = new String[capacity];
+		packedSlots = new PackedBarcodeIndex(capacity);
+		longBarcodeSlots = new HashMap<Barcode, Integer>();
+		pluProducts = new PLUCatalog();
+	}
+
+	/**
+	 * Creates a catalog holding the same entries as another. Later changes to
+	 * either catalog do not affect the other. Observers are not copied.
+	 *
+	 * @param other
+	 *            The catalog to copy.
+	 * @throws SimulationException
+	 *             If the other catalog is null.
+	 */
+	public ArrayProductCatalog(ArrayProductCatalog other) {
+		if(other == null)
+			throw new SimulationException(new NullPointerException("other is null"));
+
+		size = other.size;
+		barcodes = other.barcodes.clone();
+		products = other.products.clone();
+		prices = other.prices.clone();
+		weights = other.weights.clone();
+		descriptions = other.descriptions.clone();
+		packedSlots = new PackedBarcodeIndex(other.packedSlots);
+		longBarcodeSlots = new HashMap<Barcode, Integer>(other.longBarcodeSlots);
+		pluProducts = new PLUCatalog(other.pluProducts);
+	}
+
+	/**
+	 * Adds a barcoded product, replacing any entry with the same barcode.
+	 *
+	 * @param product
+	 *            The product to add.
+	 * @throws SimulationException
+	 *             If the product is null.
+	 */
+	public void add(BarcodedProduct product) {
+		if(product == null)
+			throw new SimulationException(new NullPointerException("product is null"));
+
+		int slot = slotFor(product.getBarcode());
+		BarcodedProduct previous = products[slot];
+		products[slot] = product;
+		prices[slot] = product.getPrice();
+		weights[slot] = product.getExpectedWeight();
+		descriptions[slot] = product.getDescription();
+		notifyProductChanged(previous, product);
+	}
+
+	/**
+	 * Adds a PLU coded product, replacing any product with the same code.
+	 *
+	 * @param product
+	 *            The product to add.
+	 * @throws SimulationException
+	 *             If the product is null.
+	 */
+	public void add(PLUCodedProduct product) {
+		if(product == null)
+			throw new SimulationException(new NullPointerException("product is null"));
+
+		PLUCodedProduct previous = pluProducts.get(product.getPLUCode());
+		pluProducts.add(product);
+		notifyProductChanged(previous, product);
+	}
+
+	/**
+	 * Performs the indicated action on every barcoded and PLU coded product.
+	 * Station items are skipped, as they have no product.
+	 *
+	 * @param action
+	 *            The action to perform.
+	 */
+	public void forEachProduct(Consumer<? super Product> action) {
+		for(int slot = 0; slot < size; slot++)
+			if(products[slot] != null)
+				action.accept(products[slot]);
+
+		pluProducts.forEach(action);
+	}
+
+	/**
+	 * Attaches an observer, which will be told of every later change.
+	 *
+	 * @param observer
+	 *            The observer to attach.
+	 * @throws SimulationException
+	 *             If observer is null.
+	 */
+	public void attach(ProductCatalogObserver observer) {
+		if(observer == null)
+			throw new SimulationException(new NullPointerException("observer is null"));
+
+		observers.add(observer);
+	}
+
+	/**
+	 * Detaches an observer.
+	 *
+	 * @param observer
+	 *            The observer to detach.
+	 * @return true if the observer was attached.
+	 */
+	public boolean detach(ProductCatalogObserver observer) {
+		return observers.remove(observer);
+	}
+
+	@Override
+	public void put(Barcode barcode, String description, BigDecimal price, double weightInGrams) {
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		if(description == null)
+			throw new SimulationException(new NullPointerException("description is null"));
+
+		if(price == null)
+			throw new SimulationException(new NullPointerException("price is null"));
+
+		if(price.signum() < 0)
+			throw new SimulationException(new IllegalArgumentException("The price cannot be negative."));
+
+		int slot = slotFor(barcode);
+		BarcodedProduct previous = products[slot];
+		products[slot] = null;
+		prices[slot] = price;
+		weights[slot] = weightInGrams;
+		descriptions[slot] = description;
+
+		if(previous != null)
+			notifyProductChanged(previous, null);
+	}
+
+	@Override
+	public int find(Barcode barcode) {
+		long packed = PackedBarcode.pack(barcode);
+
+		if(packed != PackedBarcode.NONE)
+			return packedSlots.get(packed);
+
+		Integer slot = longBarcodeSlots.get(barcode);
+
+		if(slot == null)
+			return NOT_FOUND;
+
+		return slot;
+	}
+
+	@Override
+	public int findPacked(long packed) {
+		if(packed == PackedBarcode.NONE)
+			return NOT_FOUND;
+
+		return packedSlots.get(packed);
+	}
+
+	@Override
+	public BigDecimal getPrice(int slot) {
+		return prices[slot];
+	}
+
+	@Override
+	public double getWeight(int slot) {
+		return weights[slot];
+	}
+
+	@Override
+	public String getDescription(int slot) {
+		return descriptions[slot];
+	}
+
+	@Override
+	public BarcodedProduct getProduct(int slot) {
+		return products[slot];
+	}
+
+	@Override
+	public PLUCodedProduct find(PriceLookupCode pluCode) {
+		return pluProducts.get(pluCode);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// Returns the slot of the barcode, allocating a new one at the end if needed
+	private int slotFor(Barcode barcode) {
+		int slot = find(barcode);
+
+		if(slot != NOT_FOUND)
+			return slot;
+
+		if(size == barcodes.length)
+			grow();
+
+		slot = size++;
+		barcodes[slot] = barcode;
+
+		long packed = PackedBarcode.pack(barcode);
+		if(packed != PackedBarcode.NONE)
+			packedSlots.put(packed, slot);
+		else
+			longBarcodeSlots.put(barcode, slot);
+
+		return slot;
+	}
+
+	private void notifyProductChanged(Product previous, Product current) {
+		for(ProductCatalogObserver observer : observers)
+			observer.productChanged(previous, current);
+	}
+
+	private void grow() {
+		int capacity = barcodes.length * 2;
+		barcodes = Arrays.copyOf(barcodes, capacity);
+		products = Arrays.copyOf(products, capacity);
+		prices = Arrays.copyOf(prices, capacity);
+		weights = Arrays.copyOf(weights, capacity);
+		descriptions = Arrays.copyOf(descriptions, capacity);
+	}
+}
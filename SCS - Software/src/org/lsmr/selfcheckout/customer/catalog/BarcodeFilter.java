@@ -0,0 +1,215 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.Product;
+
+/**
+ * A Bloom filter over barcodes: a compact bit set that can tell, without a
+ * catalog lookup, that a barcode is certainly unknown. A barcode that was added
+ * is always reported as possibly known; one that was not is reported as
+ * possibly known only at the configured false positive rate. Barcodes cannot be
+ * removed, so a filter should be rebuilt when many products are withdrawn.
+ * <p>
+ * A filter must hold every barcode its catalog knows, or known products would
+ * be rejected. As an observer of a catalog it adds each product added there;
+ * {@link FilteredProductCatalog} keeps its own filter current this way.
+ * </p>
+ * <p>
+ * Barcodes are keyed by their packed code where possible, so that checks made
+ * with {@link #mightContain(long)} agree with {@link #mightContain(Barcode)}.
+ * The filter is safe for use by multiple threads.
+ * </p>
+ */
+public class BarcodeFilter implements ProductCatalogObserver {
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * Creates an empty filter sized for the indicated number of barcodes.
+	 *
+	 * @param expectedBarcodes
+	 *            The number of barcodes expected, &ge;0.
+	 * @param falsePositiveRate
+	 *            The wanted rate of unknown barcodes reported as possibly known,
+	 *            &gt;0 and &lt;1.
+	 * @throws SimulationException
+	 *             If a number is out of range.
+	 */
+	public BarcodeFilter(int expectedBarcodes, double falsePositiveRate) {
+		if(expectedBarcodes < 0)
+			throw new SimulationException(new IllegalArgumentException("The expected number of barcodes cannot be negative."));
+
+		if(!(falsePositiveRate > 0 && falsePositiveRate < 1))
+			throw new SimulationException(new IllegalArgumentException("The false positive rate must be between 0 and 1."));
+
+		// The standard optimal sizing: m = -n ln p / (ln 2)^2 bits and k = m/n ln 2 hashes
+		int n = Math.max(expectedBarcodes, 1);
+		long m = (long)Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int words = (int)Math.max(1, (m + 63) / 64);
+
+		bits = new AtomicLongArray(words);
+		bitCount = words * 64L;
+		hashCount = Math.max(1, (int)Math.round((double)bitCount / n * Math.log(2)));
+	}
+
+	/**
+	 * Creates a filter holding every barcoded product of the indicated catalog:
+	 * an {@link ArrayProductCatalog}, a {@link MappedProductCatalog}, or the
+	 * current version of a {@link VersionedProductCatalog} holding either. A
+	 * catalog that cannot list its products, such as a
+	 * {@link CachingProductCatalog}, needs a filter built from the store's
+	 * catalog instead.
+	 *
+	 * @param catalog
+	 *            The catalog.
+	 * @param falsePositiveRate
+	 *            The wanted false positive rate, &gt;0 and &lt;1.
+	 * @return The filter.
+	 * @throws SimulationException
+	 *             If catalog is null or cannot list its products.
+	 */
+	public static BarcodeFilter of(ProductCatalog catalog, double falsePositiveRate) {
+		if(catalog == null)
+			throw new SimulationException(new NullPointerException("catalog is null"));
+
+		ProductCatalog products = catalog;
+
+		if(products instanceof VersionedProductCatalog)
+			products = ((VersionedProductCatalog)products).snapshot();
+
+		if(products instanceof CatalogSnapshot)
+			products = ((CatalogSnapshot)products).getProducts();
+
+		BarcodeFilter filter = new BarcodeFilter(products.size(), falsePositiveRate);
+
+		if(products instanceof ArrayProductCatalog)
+			((ArrayProductCatalog)products).forEachProduct(product -> filter.productChanged(null, product));
+		else if(products instanceof MappedProductCatalog)
+			((MappedProductCatalog)products).forEachPacked(filter::add);
+		else
+			throw new SimulationException(new IllegalArgumentException(
+				"The catalog cannot list its products; build the filter from the store's catalog."));
+
+		return filter;
+	}
+
+	/**
+	 * Adds the barcode of a product added to or replaced in the catalog.
+	 * Removed products stay in the filter.
+	 */
+	@Override
+	public void productChanged(Product previous, Product current) {
+		if(current instanceof BarcodedProduct)
+			add(((BarcodedProduct)current).getBarcode());
+	}
+
+	/**
+	 * Adds a barcode.
+	 *
+	 * @param barcode
+	 *            The barcode to add.
+	 */
+	public void add(Barcode barcode) {
+		add(key(barcode));
+	}
+
+	/**
+	 * Adds a packed barcode.
+	 *
+	 * @param packed
+	 *            The barcode packed by {@link PackedBarcode#pack(Barcode)}.
+	 */
+	public void add(long packed) {
+		long hash = mix(packed);
+		long h1 = hash;
+		long h2 = hash >>> 32 | 1;
+
+		for(int i = 0; i < hashCount; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+			int word = (int)(bit >>> 6);
+			long mask = 1L << bit;
+			long old;
+
+			do {
+				old = bits.get(word);
+			}
+			while((old & mask) == 0 && !bits.compareAndSet(word, old, old | mask));
+		}
+	}
+
+	/**
+	 * Determines whether a barcode may have been added. This does not allocate.
+	 *
+	 * @param barcode
+	 *            The barcode to check.
+	 * @return false if the barcode was certainly never added.
+	 */
+	public boolean mightContain(Barcode barcode) {
+		return mightContain(key(barcode));
+	}
+
+	/**
+	 * Determines whether a packed barcode may have been added.
+	 *
+	 * @param packed
+	 *            The barcode packed by {@link PackedBarcode#pack(Barcode)}.
+	 * @return false if the barcode was certainly never added.
+	 */
+	public boolean mightContain(long packed) {
+		long hash = mix(packed);
+		long h1 = hash;
+		long h2 = hash >>> 32 | 1;
+
+		for(int i = 0; i < hashCount; i++) {
+			long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+
+			if((bits.get((int)(bit >>> 6)) & 1L << bit) == 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets the size of the filter.
+	 *
+	 * @return The number of bits.
+	 */
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	// Packs the barcode, or hashes its digits if it is too long to pack
+	private static long key(Barcode barcode) {
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		long packed = PackedBarcode.pack(barcode);
+
+		if(packed != PackedBarcode.NONE)
+			return packed;
+
+		// Negative, so it cannot clash with a packed code
+		long hash = 0xCBF29CE484222325L;
+
+		for(int i = 0; i < barcode.digitCount(); i++)
+			hash = (hash ^ barcode.getDigitAt(i).getValue()) * 0x100000001B3L;
+
+		return hash | Long.MIN_VALUE;
+	}
+
+	// The MurmurHash3 finalizer, spreading every bit of the key over the hash
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		key ^= key >>> 33;
+		key *= 0xC4CEB9FE1A85EC53L;
+		key ^= key >>> 33;
+		return key;
+	}
+}
@@ -0,0 +1,506 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * A station's client for a store-level {@link ProductService}. Hot barcoded
+ * products are kept in a bounded in-memory cache, and only misses go to the
+ * service.
+ * <ul>
+ * <li>Each cached product expires after its own time to live, after which it is
+ * fetched again. The service may give a product a time to live of its own, such
+ * as a short one for a product whose price is about to change; others keep the
+ * cache's default.</li>
+ * <li>When the cache is full, a victim is chosen with the CLOCK algorithm. The
+ * fetched product only replaces it if it has been asked for more often
+ * recently, as estimated by a small frequency sketch, so that one-off scans do
+ * not push out hot products.</li>
+ * <li>Simultaneous misses on the same barcode share a single fetch.</li>
+ * <li>Hits, misses, fetches, failures, evictions and rejected admissions are
+ * counted.</li>
+ * </ul>
+ * A barcode is treated as unknown when the service cannot be reached, so that
+ * the scan is ignored rather than failing.
+ * <p>
+ * The lookup methods of this class answer through a view kept for the calling
+ * thread; {@link #snapshot()} returns a view that keeps the first product it
+ * finds, so a cart line keeps the product it was scanned with. A thread's
+ * snapshot is reused until it finds a product, so lookups that find nothing
+ * allocate no view.
+ * </p>
+ */
+public class CachingProductCatalog implements ProductCatalog {
+	private final ProductService service;
+	private final long timeToLiveNanos;
+	private final LongSupplier clock;
+
+	// The cache proper, guarded by this
+	private final HashMap<Barcode, Entry> entries;
+	private final Entry[] ring;
+	private final long[] expiries; // When the entry in each position of the ring expires
+	private int hand;
+	private final FrequencySketch sketch;
+	private final HashMap<Barcode, Entry> stationItems = new HashMap<Barcode, Entry>();
+
+	private final ConcurrentHashMap<Barcode, CompletableFuture<Entry>> inFlight =
+		new ConcurrentHashMap<Barcode, CompletableFuture<Entry>>();
+	private final ThreadLocal<CacheView> threadViews = ThreadLocal.withInitial(() -> new CacheView(false));
+	private final ThreadLocal<CacheView> spareViews = new ThreadLocal<CacheView>(); // Snapshots yet to find a product
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder fetches = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+
+	/**
+	 * Creates a client for the indicated service.
+	 *
+	 * @param service
+	 *            The store-level product service.
+	 * @param capacity
+	 *            The maximum number of products to cache, &gt;0.
+	 * @param timeToLive
+	 *            How long a cached product may be used unless the service says
+	 *            otherwise, &gt;0.
+	 * @param unit
+	 *            The unit of the time to live.
+	 * @throws SimulationException
+	 *             If service or unit is null, or a number is out of range.
+	 */
+	public CachingProductCatalog(ProductService service, int capacity, long timeToLive, TimeUnit unit) {
+		this(service, capacity, timeToLive, unit, System::nanoTime);
+	}
+
+	/**
+	 * Creates a client for the indicated service, reading time from the
+	 * indicated clock.
+	 *
+	 * @param service
+	 *            The store-level product service.
+	 * @param capacity
+	 *            The maximum number of products to cache, &gt;0.
+	 * @param timeToLive
+	 *            How long a cached product may be used unless the service says
+	 *            otherwise, &gt;0.
+	 * @param unit
+	 *            The unit of the time to live.
+	 * @param clock
+	 *            Supplies the current time in nanoseconds.
+	 * @throws SimulationException
+	 *             If an argument is null or a number is out of range.
+	 */
+	public CachingProductCatalog(ProductService service, int capacity, long timeToLive, TimeUnit unit,
+		LongSupplier clock) {
+		if(service == null)
+			throw new SimulationException(new NullPointerException("service is null"));
+
+		if(unit == null)
+			throw new SimulationException(new NullPointerException("unit is null"));
+
+		if(clock == null)
+			throw new SimulationException(new NullPointerException("clock is null"));
+
+		if(capacity <= 0)
+			throw new SimulationException(new IllegalArgumentException("The capacity must be positive."));
+
+		if(timeToLive <= 0)
+			throw new SimulationException(new IllegalArgumentException("The time to live must be positive."));
+
+		this.service = service;
+		this.timeToLiveNanos = unit.toNanos(timeToLive);
+		this.clock = clock;
+		entries = new HashMap<Barcode, Entry>(capacity * 2);
+		ring = new Entry[capacity];
+		expiries = new long[capacity];
+		sketch = new FrequencySketch(capacity);
+	}
+
+	@Override
+	public ProductCatalog snapshot() {
+		CacheView view = spareViews.get();
+
+		if(view == null || view.entry != null) {
+			view = new CacheView(true);
+			spareViews.set(view);
+		}
+
+		return view;
+	}
+
+	@Override
+	public int find(Barcode barcode) {
+		return threadViews.get().find(barcode);
+	}
+
+	@Override
+	public BigDecimal getPrice(int slot) {
+		return threadViews.get().getPrice(slot);
+	}
+
+	@Override
+	public double getWeight(int slot) {
+		return threadViews.get().getWeight(slot);
+	}
+
+	@Override
+	public String getDescription(int slot) {
+		return threadViews.get().getDescription(slot);
+	}
+
+	@Override
+	public BarcodedProduct getProduct(int slot) {
+		return threadViews.get().getProduct(slot);
+	}
+
+	@Override
+	public PLUCodedProduct find(PriceLookupCode pluCode) {
+		try {
+			return service.fetch(pluCode);
+		}
+		catch(IOException e) {
+			failures.increment();
+			return null;
+		}
+	}
+
+	@Override
+	public synchronized void put(Barcode barcode, String description, BigDecimal price, double weightInGrams) {
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		if(description == null)
+			throw new SimulationException(new NullPointerException("description is null"));
+
+		if(price == null)
+			throw new SimulationException(new NullPointerException("price is null"));
+
+		if(price.signum() < 0)
+			throw new SimulationException(new IllegalArgumentException("The price cannot be negative."));
+
+		stationItems.put(barcode, new Entry(barcode, null, description, price, weightInGrams));
+	}
+
+	/**
+	 * Gets the number of products currently cached, plus station items.
+	 */
+	@Override
+	public synchronized int size() {
+		return entries.size() + stationItems.size();
+	}
+
+	/**
+	 * Gets the number of lookups answered from the cache.
+	 *
+	 * @return The number of hits.
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the number of lookups that were not answered from the cache.
+	 *
+	 * @return The number of misses.
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the number of requests made to the service. Coalesced misses count
+	 * once.
+	 *
+	 * @return The number of fetches.
+	 */
+	public long getFetchCount() {
+		return fetches.sum();
+	}
+
+	/**
+	 * Gets the number of fetches that failed because the service could not be
+	 * reached.
+	 *
+	 * @return The number of failures.
+	 */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	/**
+	 * Gets the number of products removed from the cache to make room for
+	 * others.
+	 *
+	 * @return The number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Gets the number of fetched products that were not cached because they were
+	 * asked for less often than the product they would have replaced.
+	 *
+	 * @return The number of rejected admissions.
+	 */
+	public long getRejectionCount() {
+		return rejections.sum();
+	}
+
+	// Finds the entry of a barcode, fetching it on a miss; null if unknown
+	private Entry resolve(Barcode barcode) {
+		long now = clock.getAsLong();
+
+		synchronized(this) {
+			Entry item = stationItems.get(barcode);
+			if(item != null)
+				return item;
+
+			sketch.increment(barcode.hashCode());
+			Entry entry = entries.get(barcode);
+
+			if(entry != null && now - expiries[entry.position] < 0) {
+				entry.referenced = true;
+				hits.increment();
+				return entry;
+			}
+		}
+
+		misses.increment();
+		return fetch(barcode, now);
+	}
+
+	private Entry fetch(Barcode barcode, long now) {
+		CompletableFuture<Entry> mine = new CompletableFuture<Entry>();
+		CompletableFuture<Entry> pending = inFlight.putIfAbsent(barcode, mine);
+
+		if(pending != null)
+			return pending.join();
+
+		try {
+			fetches.increment();
+			BarcodedProduct product = service.fetch(barcode);
+			Entry entry = null;
+
+			if(product != null) {
+				long timeToLive = service.getTimeToLiveNanos(product);
+				entry = new Entry(barcode, product, product.getDescription(), product.getPrice(),
+					product.getExpectedWeight());
+				admit(entry, now + (timeToLive > 0 ? timeToLive : timeToLiveNanos));
+			}
+
+			// The entry is cached before waiting callers are released, so later misses find it
+			mine.complete(entry);
+			return entry;
+		}
+		catch(IOException e) {
+			failures.increment();
+			mine.complete(null);
+			return null;
+		}
+		catch(RuntimeException e) {
+			mine.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			inFlight.remove(barcode, mine);
+		}
+	}
+
+	private synchronized void admit(Entry entry, long expiresAt) {
+		Entry old = entries.get(entry.barcode);
+
+		if(old != null) {
+			replace(old.position, entry, expiresAt);
+			return;
+		}
+
+		if(entries.size() < ring.length) {
+			replace(entries.size(), entry, expiresAt);
+			return;
+		}
+
+		long now = clock.getAsLong();
+		int victim = nextVictim(now);
+		Entry current = ring[victim];
+		boolean expired = now - expiries[victim] >= 0;
+
+		if(!expired && sketch.frequency(entry.barcode.hashCode()) <= sketch.frequency(current.barcode.hashCode())) {
+			rejections.increment();
+			return;
+		}
+
+		entries.remove(current.barcode);
+		evictions.increment();
+		replace(victim, entry, expiresAt);
+	}
+
+	// CLOCK: skip recently used entries once, clearing their mark; expired entries go first
+	private int nextVictim(long now) {
+		while(true) {
+			Entry entry = ring[hand];
+			int position = hand;
+			hand = (hand + 1) % ring.length;
+
+			if(!entry.referenced || now - expiries[position] >= 0)
+				return position;
+
+			entry.referenced = false;
+		}
+	}
+
+	private void replace(int position, Entry entry, long expiresAt) {
+		entry.position = position;
+		ring[position] = entry;
+		expiries[position] = expiresAt;
+		entries.put(entry.barcode, entry);
+	}
+
+	private static class Entry {
+		final Barcode barcode;
+		final BarcodedProduct product;
+		final String description;
+		final BigDecimal price;
+		final double weight;
+		int position;
+		boolean referenced;
+
+		Entry(Barcode barcode, BarcodedProduct product, String description, BigDecimal price, double weight) {
+			this.barcode = barcode;
+			this.product = product;
+			this.description = description;
+			this.price = price;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * A view holding the last product it found, so that the price, weight and
+	 * description read after a find always belong to that product. A snapshot
+	 * view keeps the first product it finds for good: it answers later finds of
+	 * the same barcode without asking the cache again, and finds nothing for any
+	 * other barcode.
+	 */
+	private class CacheView implements ProductCatalog {
+		private final boolean memoize;
+		private Entry entry;
+
+		CacheView(boolean memoize) {
+			this.memoize = memoize;
+		}
+
+		@Override
+		public int find(Barcode barcode) {
+			if(memoize && entry != null)
+				return entry.barcode.equals(barcode) ? 0 : NOT_FOUND;
+
+			Entry found = resolve(barcode);
+
+			if(found == null)
+				return NOT_FOUND;
+
+			entry = found;
+			return 0;
+		}
+
+		@Override
+		public BigDecimal getPrice(int slot) {
+			return entry.price;
+		}
+
+		@Override
+		public double getWeight(int slot) {
+			return entry.weight;
+		}
+
+		@Override
+		public String getDescription(int slot) {
+			return entry.description;
+		}
+
+		@Override
+		public BarcodedProduct getProduct(int slot) {
+			return entry.product;
+		}
+
+		@Override
+		public PLUCodedProduct find(PriceLookupCode pluCode) {
+			return CachingProductCatalog.this.find(pluCode);
+		}
+
+		@Override
+		public void put(Barcode barcode, String description, BigDecimal price, double weightInGrams) {
+			CachingProductCatalog.this.put(barcode, description, price, weightInGrams);
+		}
+
+		@Override
+		public int size() {
+			return CachingProductCatalog.this.size();
+		}
+	}
+
+	/**
+	 * A count-min sketch estimating how often each barcode was asked for
+	 * recently. Counts are halved periodically so that old popularity fades.
+	 */
+	private static class FrequencySketch {
+		private static final int MAX_COUNT = 15;
+		private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+		private final int[] counts;
+		private final int mask;
+		private final int resetAfter;
+		private int additions;
+
+		FrequencySketch(int capacity) {
+			int width = Integer.highestOneBit(Math.max(capacity * 4, 16) - 1) << 1;
+			counts = new int[width];
+			mask = width - 1;
+			resetAfter = capacity * 10;
+		}
+
+		void increment(int hash) {
+			for(int seed : SEEDS) {
+				int i = index(hash, seed);
+
+				if(counts[i] < MAX_COUNT)
+					counts[i]++;
+			}
+
+			if(++additions >= resetAfter) {
+				for(int i = 0; i < counts.length; i++)
+					counts[i] >>>= 1;
+
+				additions = 0;
+			}
+		}
+
+		int frequency(int hash) {
+			int frequency = MAX_COUNT;
+
+			for(int seed : SEEDS)
+				frequency = Math.min(frequency, counts[index(hash, seed)]);
+
+			return frequency;
+		}
+
+		private int index(int hash, int seed) {
+			int h = hash * seed;
+			return (h ^ (h >>> 16)) & mask;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import org.lsmr.selfcheckout.PriceLookupCode;
+
+/**
+ * Layout of the binary catalog files written by {@link CatalogFileWriter} and
+ * read by {@link MappedProductCatalog}. All values are big-endian. A file holds,
+ * in order:
+ * <ol>
+ * <li>A header of {@link #HEADER_SIZE} bytes.</li>
+ * <li>An open-addressing table of packed barcodes, each entry holding the
+ * packed code (long, 0 if unused) and the record number (int).</li>
+ * <li>One fixed-size record per barcoded product, holding the packed code, the
+ * expected weight, the price scale and the data offsets of the unscaled price
+ * and description.</li>
+ * <li>The PLU coded products, sorted by packed PLU code, each holding the packed
+ * code, the price scale and the data offsets of the unscaled price and
+ * description.</li>
+ * <li>The data section, a sequence of byte strings each prefixed with an
+ * unsigned short length. Unscaled prices are stored as two's-complement bytes,
+ * descriptions as UTF-8.</li>
+ * </ol>
+ */
+final class CatalogFileFormat {
+	static final int MAGIC = 0x53435343; // "SCSC"
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 32;
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int BARCODE_COUNT_OFFSET = 8;
+	static final int TABLE_CAPACITY_OFFSET = 12;
+	static final int PLU_COUNT_OFFSET = 16;
+	static final int DATA_SIZE_OFFSET = 20;
+
+	static final int TABLE_ENTRY_SIZE = 12;
+	static final int TABLE_KEY = 0;
+	static final int TABLE_RECORD = 8;
+
+	static final int RECORD_SIZE = 32;
+	static final int RECORD_KEY = 0;
+	static final int RECORD_WEIGHT = 8;
+	static final int RECORD_PRICE_SCALE = 16;
+	static final int RECORD_PRICE = 20;
+	static final int RECORD_DESCRIPTION = 24;
+
+	static final int PLU_SIZE = 16;
+	static final int PLU_KEY = 0;
+	static final int PLU_PRICE_SCALE = 4;
+	static final int PLU_PRICE = 8;
+	static final int PLU_DESCRIPTION = 12;
+
+	static final int MAX_DATA_LENGTH = 0xFFFF;
+
+	private CatalogFileFormat() {}
+
+	/**
+	 * Packs a PLU code into an int, behind a sentinel digit 1 as for
+	 * {@link PackedBarcode}.
+	 */
+	static int packPLU(PriceLookupCode pluCode) {
+		int packed = 1;
+
+		for(int i = 0; i < pluCode.numeralCount(); i++)
+			packed = packed * 10 + pluCode.getNumeralAt(i).getValue();
+
+		return packed;
+	}
+
+	/**
+	 * Computes the capacity of the barcode table for the number of products,
+	 * keeping it at most half full.
+	 */
+	static int tableCapacity(int barcodeCount) {
+		int capacity = 16;
+
+		while(capacity < barcodeCount * 2)
+			capacity <<= 1;
+
+		return capacity;
+	}
+}
@@ -0,0 +1,155 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import static org.lsmr.selfcheckout.customer.catalog.CatalogFileFormat.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * Collects products and writes them as a binary catalog file that can be opened
+ * with {@link MappedProductCatalog#open(Path)}. See {@link CatalogFileFormat}
+ * for the layout.
+ */
+public class CatalogFileWriter {
+	private LinkedHashMap<Long, BarcodedProduct> barcodedProducts = new LinkedHashMap<Long, BarcodedProduct>();
+	private TreeMap<Integer, PLUCodedProduct> pluProducts = new TreeMap<Integer, PLUCodedProduct>();
+
+	/**
+	 * Adds a barcoded product, replacing any product with the same barcode.
+	 *
+	 * @param product
+	 *            The product to add.
+	 * @throws SimulationException
+	 *             If the product is null.
+	 * @throws SimulationException
+	 *             If the barcode has more than {@link PackedBarcode#MAX_DIGITS}
+	 *             digits.
+	 */
+	public void add(BarcodedProduct product) {
+		if(product == null)
+			throw new SimulationException(new NullPointerException("product is null"));
+
+		long packed = PackedBarcode.pack(product.getBarcode());
+
+		if(packed == PackedBarcode.NONE)
+			throw new SimulationException(new IllegalArgumentException(
+				"Catalog files cannot hold barcodes with more than " + PackedBarcode.MAX_DIGITS + " digits."));
+
+		barcodedProducts.put(packed, product);
+	}
+
+	/**
+	 * Adds a PLU coded product, replacing any product with the same code.
+	 *
+	 * @param product
+	 *            The product to add.
+	 * @throws SimulationException
+	 *             If the product is null.
+	 */
+	public void add(PLUCodedProduct product) {
+		if(product == null)
+			throw new SimulationException(new NullPointerException("product is null"));
+
+		pluProducts.put(packPLU(product.getPLUCode()), product);
+	}
+
+	/**
+	 * Writes all products added so far to the indicated file, replacing it if it
+	 * exists.
+	 *
+	 * @param file
+	 *            The file to write.
+	 * @throws IOException
+	 *             If the file cannot be written.
+	 */
+	public void write(Path file) throws IOException {
+		int barcodeCount = barcodedProducts.size();
+		int pluCount = pluProducts.size();
+		int capacity = tableCapacity(barcodeCount);
+		int shift = Long.numberOfLeadingZeros(capacity - 1);
+
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		ByteBuffer table = ByteBuffer.allocate(capacity * TABLE_ENTRY_SIZE);
+		ByteBuffer records = ByteBuffer.allocate(barcodeCount * RECORD_SIZE);
+		ByteBuffer plus = ByteBuffer.allocate(pluCount * PLU_SIZE);
+
+		List<Long> keys = new ArrayList<Long>(barcodedProducts.keySet());
+		for(int record = 0; record < barcodeCount; record++) {
+			long key = keys.get(record);
+			BarcodedProduct product = barcodedProducts.get(key);
+
+			int entry = PackedBarcodeIndex.hash(key, shift);
+			while(table.getLong(entry * TABLE_ENTRY_SIZE + TABLE_KEY) != PackedBarcode.NONE)
+				entry = (entry + 1) & (capacity - 1);
+
+			table.putLong(entry * TABLE_ENTRY_SIZE + TABLE_KEY, key);
+			table.putInt(entry * TABLE_ENTRY_SIZE + TABLE_RECORD, record);
+
+			int base = record * RECORD_SIZE;
+			records.putLong(base + RECORD_KEY, key);
+			records.putDouble(base + RECORD_WEIGHT, product.getExpectedWeight());
+			records.putInt(base + RECORD_PRICE_SCALE, product.getPrice().scale());
+			records.putInt(base + RECORD_PRICE, append(data, unscaled(product.getPrice())));
+			records.putInt(base + RECORD_DESCRIPTION, append(data, utf8(product.getDescription())));
+		}
+
+		int index = 0;
+		for(Integer key : pluProducts.keySet()) {
+			PLUCodedProduct product = pluProducts.get(key);
+			int base = index++ * PLU_SIZE;
+			plus.putInt(base + PLU_KEY, key);
+			plus.putInt(base + PLU_PRICE_SCALE, product.getPrice().scale());
+			plus.putInt(base + PLU_PRICE, append(data, unscaled(product.getPrice())));
+			plus.putInt(base + PLU_DESCRIPTION, append(data, utf8(product.getDescription())));
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC_OFFSET, MAGIC);
+		header.putInt(VERSION_OFFSET, VERSION);
+		header.putInt(BARCODE_COUNT_OFFSET, barcodeCount);
+		header.putInt(TABLE_CAPACITY_OFFSET, capacity);
+		header.putInt(PLU_COUNT_OFFSET, pluCount);
+		header.putInt(DATA_SIZE_OFFSET, data.size());
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+			for(ByteBuffer section : new ByteBuffer[] { header, table, records, plus, ByteBuffer.wrap(data.toByteArray()) })
+				while(section.hasRemaining())
+					channel.write(section);
+		}
+	}
+
+	private static byte[] unscaled(BigDecimal price) {
+		return price.unscaledValue().toByteArray();
+	}
+
+	private static byte[] utf8(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	// Appends a length-prefixed byte string and returns its offset in the data section
+	private static int append(ByteArrayOutputStream data, byte[] bytes) {
+		if(bytes.length > MAX_DATA_LENGTH)
+			throw new SimulationException(new IllegalArgumentException("A catalog value is too long to be stored."));
+
+		int offset = data.size();
+		data.write(bytes.length >>> 8);
+		data.write(bytes.length);
+		data.write(bytes, 0, bytes.length);
+		return offset;
+	}
+}
@@ -0,0 +1,409 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.customer.catalog.ImportReport.RejectedRow;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+import org.lsmr.selfcheckout.products.Product;
+
+/**
+ * Loads products from a delimited text file, such as the nightly catalog
+ * export. Each row holds a code, a description, a price and an expected weight
+ * in grams, separated by the delimiter:
+ *
+ * <pre>
+ * 036000291452|Tissues, 12 pack|3.49|410.0
+ * 4011|Bananas|1.99|
+ * </pre>
+ *
+ * A row with a weight is a barcoded product; a row without one is a PLU coded
+ * product priced per kilogram. Descriptions cannot contain the delimiter.
+ * Blank lines and lines starting with {@code #} are skipped.
+ * <p>
+ * The file is read in chunks that are parsed in parallel on a fork-join pool,
+ * while the calling thread passes the parsed products to the catalog in file
+ * order, so later rows replace earlier rows with the same code. Only a few
+ * chunks are in memory at once, however large the file. A row that cannot be
+ * parsed is counted and reported in the {@link ImportReport} without stopping
+ * the run.
+ * </p>
+ */
+public class CatalogImporter {
+	/**
+	 * The maximum number of rejected rows listed in a report.
+	 */
+	public static final int MAX_REPORTED_REJECTIONS = 1000;
+
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+	private static final int SPLIT_SIZE = 64 * 1024;
+
+	private final byte delimiter;
+	private final int parallelism;
+	private final int chunkSize;
+
+	/**
+	 * Creates an importer for '|' delimited files using every core.
+	 */
+	public CatalogImporter() {
+		this('|', Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates an importer.
+	 *
+	 * @param delimiter
+	 *            The ASCII character separating the fields of a row.
+	 * @param parallelism
+	 *            The number of threads parsing rows, &gt;0.
+	 * @throws SimulationException
+	 *             If the delimiter is not a printable ASCII character other than
+	 *             a digit, or parallelism is &lt;1.
+	 */
+	public CatalogImporter(char delimiter, int parallelism) {
+		this(delimiter, parallelism, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates an importer reading chunks of the indicated size.
+	 *
+	 * @param delimiter
+	 *            The ASCII character separating the fields of a row.
+	 * @param parallelism
+	 *            The number of threads parsing rows, &gt;0.
+	 * @param chunkSize
+	 *            The number of bytes read at a time, &gt;0. A chunk grows to hold
+	 *            a row that is longer.
+	 * @throws SimulationException
+	 *             If the delimiter is not a printable ASCII character other than
+	 *             a digit, or a number is out of range.
+	 */
+	public CatalogImporter(char delimiter, int parallelism, int chunkSize) {
+		if(delimiter < 0x20 && delimiter != '\t' || delimiter > 0x7E || delimiter >= '0' && delimiter <= '9')
+			throw new SimulationException(new IllegalArgumentException("The delimiter must be printable ASCII other than a digit."));
+
+		if(parallelism < 1)
+			throw new SimulationException(new IllegalArgumentException("The parallelism must be positive."));
+
+		if(chunkSize < 1)
+			throw new SimulationException(new IllegalArgumentException("The chunk size must be positive."));
+
+		this.delimiter = (byte)delimiter;
+		this.parallelism = parallelism;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Imports a file into an in-memory catalog.
+	 *
+	 * @param file
+	 *            The file to read.
+	 * @param catalog
+	 *            The catalog to add the products to.
+	 * @return The report of the run.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public ImportReport importInto(Path file, ArrayProductCatalog catalog) throws IOException {
+		if(catalog == null)
+			throw new SimulationException(new NullPointerException("catalog is null"));
+
+		return importInto(file, product -> {
+			if(product instanceof BarcodedProduct)
+				catalog.add((BarcodedProduct)product);
+			else
+				catalog.add((PLUCodedProduct)product);
+		});
+	}
+
+	/**
+	 * Imports a file, passing each product to the indicated sink, such as a
+	 * {@link CatalogFileWriter}.
+	 *
+	 * @param file
+	 *            The file to read.
+	 * @param sink
+	 *            Receives each product, in file order, on the calling thread.
+	 * @return The report of the run.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public ImportReport importInto(Path file, Consumer<? super Product> sink) throws IOException {
+		if(file == null)
+			throw new SimulationException(new NullPointerException("file is null"));
+
+		try(InputStream in = Files.newInputStream(file)) {
+			return importFrom(in, sink);
+		}
+	}
+
+	/**
+	 * Imports rows from a stream, passing each product to the indicated sink.
+	 * The stream is not closed.
+	 *
+	 * @param in
+	 *            The stream to read.
+	 * @param sink
+	 *            Receives each product, in stream order, on the calling thread.
+	 * @return The report of the run.
+	 * @throws IOException
+	 *             If the stream cannot be read.
+	 */
+	public ImportReport importFrom(InputStream in, Consumer<? super Product> sink) throws IOException {
+		if(in == null)
+			throw new SimulationException(new NullPointerException("in is null"));
+
+		if(sink == null)
+			throw new SimulationException(new NullPointerException("sink is null"));
+
+		long start = System.nanoTime();
+		Tally tally = new Tally();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+			// At most this many chunks are parsed or waiting at once
+			int maxPending = parallelism * 2;
+			ArrayDeque<ForkJoinTask<Chunk>> pending = new ArrayDeque<ForkJoinTask<Chunk>>();
+			byte[] buffer = new byte[chunkSize];
+			int filled = 0;
+			long nextLine = 1;
+			boolean eof = false;
+
+			while(!eof) {
+				int read = in.read(buffer, filled, buffer.length - filled);
+
+				if(read < 0)
+					eof = true;
+				else {
+					filled += read;
+					tally.bytes += read;
+
+					if(filled < buffer.length)
+						continue;
+				}
+
+				int end = eof ? filled : lastLineEnd(buffer, filled);
+
+				if(end == 0) {
+					if(!eof)
+						buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+					continue;
+				}
+
+				byte[] rows = Arrays.copyOf(buffer, end);
+				System.arraycopy(buffer, end, buffer, 0, filled - end);
+				filled -= end;
+
+				while(pending.size() >= maxPending)
+					tally.apply(pending.removeFirst().join(), sink);
+
+				pending.addLast(pool.submit(new ParseTask(rows, 0, rows.length, nextLine)));
+				nextLine += countLines(rows, 0, rows.length);
+			}
+
+			while(!pending.isEmpty())
+				tally.apply(pending.removeFirst().join(), sink);
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		return new ImportReport(tally.rows, tally.imported, tally.rejectedCount, tally.rejected, tally.bytes,
+			System.nanoTime() - start);
+	}
+
+	// Returns the index after the last newline, or 0 if there is none
+	private static int lastLineEnd(byte[] buffer, int filled) {
+		for(int i = filled - 1; i >= 0; i--)
+			if(buffer[i] == '\n')
+				return i + 1;
+
+		return 0;
+	}
+
+	private static int countLines(byte[] bytes, int from, int to) {
+		int lines = 0;
+
+		for(int i = from; i < to; i++)
+			if(bytes[i] == '\n')
+				lines++;
+
+		return lines;
+	}
+
+	// The running totals of a run, kept by the calling thread
+	private static class Tally {
+		long rows;
+		long imported;
+		long rejectedCount;
+		long bytes;
+		List<RejectedRow> rejected = new ArrayList<RejectedRow>();
+
+		void apply(Chunk chunk, Consumer<? super Product> sink) {
+			for(Product product : chunk.products)
+				sink.accept(product);
+
+			rows += chunk.rows;
+			imported += chunk.products.size();
+			rejectedCount += chunk.rejectedCount;
+
+			for(RejectedRow row : chunk.rejected)
+				if(rejected.size() < MAX_REPORTED_REJECTIONS)
+					rejected.add(row);
+		}
+	}
+
+	// The parsed products and rejections of a range of rows
+	private static class Chunk {
+		final ArrayList<Product> products;
+		final ArrayList<RejectedRow> rejected = new ArrayList<RejectedRow>();
+		int rows;
+		int rejectedCount;
+
+		Chunk(int expectedRows) {
+			products = new ArrayList<Product>(expectedRows);
+		}
+
+		void append(Chunk other) {
+			products.addAll(other.products);
+			rows += other.rows;
+			rejectedCount += other.rejectedCount;
+
+			for(RejectedRow row : other.rejected)
+				if(rejected.size() < MAX_REPORTED_REJECTIONS)
+					rejected.add(row);
+		}
+
+		void reject(long line, String reason) {
+			rejectedCount++;
+
+			if(rejected.size() < MAX_REPORTED_REJECTIONS)
+				rejected.add(new RejectedRow(line, reason));
+		}
+	}
+
+	// Parses whole lines in [from, to), splitting large ranges in two at a line end
+	private class ParseTask extends RecursiveTask<Chunk> {
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] bytes;
+		private final int from;
+		private final int to;
+		private final long firstLine;
+
+		// The start of each field of the row being parsed, reused across rows
+		private final int[] fields = new int[5];
+
+		ParseTask(byte[] bytes, int from, int to, long firstLine) {
+			this.bytes = bytes;
+			this.from = from;
+			this.to = to;
+			this.firstLine = firstLine;
+		}
+
+		@Override
+		protected Chunk compute() {
+			if(to - from > SPLIT_SIZE) {
+				int middle = from + (to - from) / 2;
+
+				while(middle < to && bytes[middle - 1] != '\n')
+					middle++;
+
+				if(middle < to) {
+					ParseTask left = new ParseTask(bytes, from, middle, firstLine);
+					ParseTask right = new ParseTask(bytes, middle, to, firstLine + countLines(bytes, from, middle));
+					right.fork();
+					Chunk chunk = left.compute();
+					chunk.append(right.join());
+					return chunk;
+				}
+			}
+
+			Chunk chunk = new Chunk((to - from) / 48);
+			long line = firstLine;
+			int start = from;
+
+			for(int i = from; i <= to; i++) {
+				if(i == to || bytes[i] == '\n') {
+					if(i > start)
+						parseRow(start, i, line, chunk);
+
+					line++;
+					start = i + 1;
+				}
+			}
+
+			return chunk;
+		}
+
+		private void parseRow(int start, int end, long line, Chunk chunk) {
+			if(bytes[end - 1] == '\r')
+				end--;
+
+			if(end == start || bytes[start] == '#')
+				return;
+
+			chunk.rows++;
+
+			int count = 0;
+			fields[count++] = start;
+
+			for(int i = start; i < end && count < fields.length; i++)
+				if(bytes[i] == delimiter)
+					fields[count++] = i + 1;
+
+			if(count != 4) {
+				chunk.reject(line, "Expected 4 fields but found " + count + ".");
+				return;
+			}
+
+			try {
+				int codeEnd = fields[1] - 1;
+				String description = new String(bytes, fields[1], fields[2] - 1 - fields[1], StandardCharsets.UTF_8);
+				BigDecimal price = new BigDecimal(ascii(fields[2], fields[3] - 1));
+
+				if(fields[3] == end) {
+					PriceLookupCode code = new PriceLookupCode(ascii(fields[0], codeEnd));
+					chunk.products.add(new PLUCodedProduct(code, description, price));
+				}
+				else {
+					Barcode barcode = Barcode.parse(bytes, fields[0], codeEnd - fields[0]);
+
+					if(Barcode.isGTINLength(barcode.digitCount()) && !barcode.hasValidCheckDigit())
+						throw new IllegalArgumentException("The check digit of " + barcode + " is wrong.");
+
+					double weight = Double.parseDouble(ascii(fields[3], end));
+					chunk.products.add(new BarcodedProduct(barcode, description, price, weight));
+				}
+			}
+			catch(SimulationException e) {
+				chunk.reject(line, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+			}
+			catch(IllegalArgumentException e) {
+				// Also covers malformed numbers
+				chunk.reject(line, e.getMessage());
+			}
+		}
+
+		private String ascii(int start, int end) {
+			return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.math.BigDecimal;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * One published version of a {@link VersionedProductCatalog}. The product data
+ * of a snapshot never changes, so every lookup made on it is consistent with
+ * the others.
+ * <p>
+ * Station items registered with
+ * {@link #put(Barcode, String, BigDecimal, double)} are not product data: they
+ * are shared by all snapshots of the same catalog and take precedence over the
+ * products.
+ * </p>
+ */
+public class CatalogSnapshot implements ProductCatalog {
+	private final long version;
+	private final ProductCatalog products;
+	private final int stationBase;
+	private final ArrayProductCatalog stationItems;
+
+	CatalogSnapshot(long version, ProductCatalog products, ArrayProductCatalog stationItems) {
+		this.version = version;
+		this.products = products;
+		this.stationBase = products.size();
+		this.stationItems = stationItems;
+	}
+
+	@Override
+	public long version() {
+		return version;
+	}
+
+	@Override
+	public ProductCatalog snapshot() {
+		return this;
+	}
+
+	@Override
+	public int find(Barcode barcode) {
+		synchronized(stationItems) {
+			if(stationItems.size() > 0) {
+				int slot = stationItems.find(barcode);
+
+				if(slot != NOT_FOUND)
+					return stationBase + slot;
+			}
+		}
+
+		return products.find(barcode);
+	}
+
+	@Override
+	public int findPacked(long packed) {
+		synchronized(stationItems) {
+			if(stationItems.size() > 0) {
+				int slot = stationItems.findPacked(packed);
+
+				if(slot != NOT_FOUND)
+					return stationBase + slot;
+			}
+		}
+
+		return products.findPacked(packed);
+	}
+
+	@Override
+	public BigDecimal getPrice(int slot) {
+		if(slot >= stationBase) {
+			synchronized(stationItems) {
+				return stationItems.getPrice(slot - stationBase);
+			}
+		}
+
+		return products.getPrice(slot);
+	}
+
+	@Override
+	public double getWeight(int slot) {
+		if(slot >= stationBase) {
+			synchronized(stationItems) {
+				return stationItems.getWeight(slot - stationBase);
+			}
+		}
+
+		return products.getWeight(slot);
+	}
+
+	@Override
+	public String getDescription(int slot) {
+		if(slot >= stationBase) {
+			synchronized(stationItems) {
+				return stationItems.getDescription(slot - stationBase);
+			}
+		}
+
+		return products.getDescription(slot);
+	}
+
+	@Override
+	public BarcodedProduct getProduct(int slot) {
+		if(slot >= stationBase)
+			return null;
+
+		return products.getProduct(slot);
+	}
+
+	@Override
+	public PLUCodedProduct find(PriceLookupCode pluCode) {
+		return products.find(pluCode);
+	}
+
+	@Override
+	public void put(Barcode barcode, String description, BigDecimal price, double weightInGrams) {
+		synchronized(stationItems) {
+			stationItems.put(barcode, description, price, weightInGrams);
+		}
+	}
+
+	@Override
+	public int size() {
+		return stationBase;
+	}
+
+	ProductCatalog getProducts() {
+		return products;
+	}
+}
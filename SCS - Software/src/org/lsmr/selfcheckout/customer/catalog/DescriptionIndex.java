@@ -0,0 +1,603 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+import org.lsmr.selfcheckout.products.Product;
+
+/**
+ * Finds products by the words of their descriptions, for a customer typing a
+ * name on the touch screen. Each query word matches any description word it is
+ * a prefix of, case-insensitively, and a product matches when every query word
+ * does. Matches are ranked shortest description first, so that "Apples" comes
+ * before "Apple pie filling".
+ * <p>
+ * Description words are kept in a trie. Every trie node caches the best
+ * {@link #CACHED_MATCHES} products below it, so a one-word query is answered
+ * from a single node however many products share the prefix. Other queries
+ * merge the products of the nodes below the rarest word's prefix in rank order,
+ * and stop as soon as enough of them match every word. Products are
+ * added and removed one at a time; a removal only marks the nodes on its path
+ * for their cache to be recomputed from their children on the next query. The
+ * index observes catalog changes, so it can be attached to an
+ * {@link ArrayProductCatalog} or a {@link VersionedProductCatalog} to stay
+ * current. It is safe for use by multiple threads.
+ * </p>
+ */
+public class DescriptionIndex implements ProductCatalogObserver {
+	/**
+	 * The number of best matches cached for each prefix. Other queries merge the
+	 * ranked products of the nodes below the prefix.
+	 */
+	public static final int CACHED_MATCHES = 16;
+
+	private static final int[] NO_IDS = new int[0];
+	private static final int MASKED_PREFIX = 4;
+
+	private final Node root = new Node();
+
+	// Products by id; ids of removed products are reused
+	private Product[] products = new Product[16];
+	private String[] descriptions = new String[16];
+	private String[][] words = new String[16][];
+	private long[] prefixMasks = new long[16];
+	private int[] freeIds = new int[16];
+	private int freeCount;
+	private int nextId;
+	private int size;
+
+	// Product codes (Barcode or PriceLookupCode) to ids
+	private final HashMap<Object, Integer> ids = new HashMap<Object, Integer>();
+
+	// Marks ids already seen by the current merged query
+	private int[] seen = new int[16];
+	private int query;
+
+	/**
+	 * Adds every product of the indicated catalog.
+	 *
+	 * @param catalog
+	 *            The catalog to index.
+	 * @throws SimulationException
+	 *             If catalog is null.
+	 */
+	public synchronized void addAll(ArrayProductCatalog catalog) {
+		if(catalog == null)
+			throw new SimulationException(new NullPointerException("catalog is null"));
+
+		catalog.forEachProduct(this::add);
+	}
+
+	/**
+	 * Adds a product, replacing any product with the same code.
+	 *
+	 * @param product
+	 *            A {@link BarcodedProduct} or {@link PLUCodedProduct}.
+	 * @throws SimulationException
+	 *             If product is null or of another kind.
+	 */
+	public synchronized void add(Product product) {
+		Object code = codeOf(product);
+		remove(code);
+
+		int id = freeCount > 0 ? freeIds[--freeCount] : nextId++;
+
+		if(id == products.length)
+			grow();
+
+		String description = descriptionOf(product);
+		products[id] = product;
+		descriptions[id] = description;
+		words[id] = split(description);
+		prefixMasks[id] = prefixMask(words[id]);
+		ids.put(code, id);
+		size++;
+
+		for(String word : words[id])
+			insert(word, id);
+	}
+
+	/**
+	 * Removes the product with the indicated code.
+	 *
+	 * @param code
+	 *            The {@link org.lsmr.selfcheckout.Barcode} or
+	 *            {@link org.lsmr.selfcheckout.PriceLookupCode} of the product.
+	 * @return true if a product was removed.
+	 */
+	public synchronized boolean remove(Object code) {
+		Integer found = ids.remove(code);
+
+		if(found == null)
+			return false;
+
+		int id = found;
+
+		for(String word : words[id])
+			delete(word, id);
+
+		products[id] = null;
+		descriptions[id] = null;
+		words[id] = null;
+		freeIds[freeCount++] = id;
+		size--;
+		return true;
+	}
+
+	@Override
+	public synchronized void productChanged(Product previous, Product current) {
+		if(current != null)
+			add(current);
+		else if(previous != null)
+			remove(codeOf(previous));
+	}
+
+	/**
+	 * Gets the number of products indexed.
+	 *
+	 * @return The number of products.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Finds the best products matching the indicated text.
+	 *
+	 * @param text
+	 *            The text typed so far; each word is matched as a prefix.
+	 * @param limit
+	 *            The maximum number of products to return.
+	 * @return The matches, best first. Empty if the text has no words.
+	 * @throws SimulationException
+	 *             If text is null or limit is negative.
+	 */
+	public synchronized List<Product> search(String text, int limit) {
+		if(text == null)
+			throw new SimulationException(new NullPointerException("text is null"));
+
+		if(limit < 0)
+			throw new SimulationException(new IllegalArgumentException("The limit cannot be negative."));
+
+		String[] terms = split(text);
+		List<Product> results = new ArrayList<Product>(Math.min(limit, CACHED_MATCHES));
+
+		if(terms.length == 0 || limit == 0)
+			return results;
+
+		// Start from the term with the fewest words below it
+		Node narrowest = null;
+
+		for(String term : terms) {
+			Node node = find(term);
+
+			if(node == null)
+				return results;
+
+			if(narrowest == null || node.wordCount < narrowest.wordCount)
+				narrowest = node;
+		}
+
+		if(terms.length == 1 && limit <= CACHED_MATCHES) {
+			refresh(narrowest);
+
+			for(int i = 0; i < narrowest.topCount && i < limit; i++)
+				results.add(products[narrowest.top[i]]);
+
+			return results;
+		}
+
+		// Merge the ranked products of every node below, stopping once enough match
+		ArrayList<Node> nodes = new ArrayList<Node>();
+		gather(narrowest, nodes);
+
+		int[] heap = new int[nodes.size()];
+		int[] cursors = new int[nodes.size()];
+		int heapSize = 0;
+
+		for(int n = 0; n < nodes.size(); n++)
+			heapSize = push(heap, heapSize, n, nodes, cursors);
+
+		long mask = prefixMask(terms);
+		int stamp = nextQuery();
+
+		while(heapSize > 0 && results.size() < limit) {
+			int n = heap[0];
+			Node node = nodes.get(n);
+			int id = node.ids[cursors[n]++];
+
+			heapSize = pop(heap, heapSize, nodes, cursors);
+
+			if(cursors[n] < node.idCount)
+				heapSize = push(heap, heapSize, n, nodes, cursors);
+
+			// The mask rules out most products without reading their words
+			if((prefixMasks[id] & mask) != mask || seen[id] == stamp)
+				continue;
+
+			seen[id] = stamp;
+
+			if(matchesAll(id, terms))
+				results.add(products[id]);
+		}
+
+		return results;
+	}
+
+	// Collects the nodes at or below node that end words, with their products ranked
+	private void gather(Node node, List<Node> nodes) {
+		if(node.idCount > 0) {
+			if(!node.idsRanked) {
+				rank(node.ids, node.idCount);
+				node.idsRanked = true;
+			}
+
+			nodes.add(node);
+		}
+
+		for(int i = 0; i < node.childCount; i++)
+			gather(node.children[i], nodes);
+	}
+
+	// A binary heap of node numbers, ordered by the product at each node's cursor
+	private int push(int[] heap, int size, int n, List<Node> nodes, int[] cursors) {
+		int i = size;
+		heap[i] = n;
+
+		while(i > 0) {
+			int parent = (i - 1) / 2;
+
+			if(!heapBefore(heap[i], heap[parent], nodes, cursors))
+				break;
+
+			int swap = heap[i];
+			heap[i] = heap[parent];
+			heap[parent] = swap;
+			i = parent;
+		}
+
+		return size + 1;
+	}
+
+	private int pop(int[] heap, int size, List<Node> nodes, int[] cursors) {
+		size--;
+		heap[0] = heap[size];
+		int i = 0;
+
+		while(true) {
+			int first = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+
+			if(left < size && heapBefore(heap[left], heap[first], nodes, cursors))
+				first = left;
+
+			if(right < size && heapBefore(heap[right], heap[first], nodes, cursors))
+				first = right;
+
+			if(first == i)
+				return size;
+
+			int swap = heap[i];
+			heap[i] = heap[first];
+			heap[first] = swap;
+			i = first;
+		}
+	}
+
+	private boolean heapBefore(int a, int b, List<Node> nodes, int[] cursors) {
+		return better(nodes.get(a).ids[cursors[a]], nodes.get(b).ids[cursors[b]]);
+	}
+
+	// Sorts ids best first; a merge sort, as ids are primitive and better is not a Comparator
+	private void rank(int[] ids, int count) {
+		if(count < 2)
+			return;
+
+		int[] buffer = new int[count];
+
+		for(int width = 1; width < count; width *= 2) {
+			for(int start = 0; start < count; start += 2 * width) {
+				int middle = Math.min(start + width, count);
+				int end = Math.min(start + 2 * width, count);
+				int left = start;
+				int right = middle;
+
+				for(int i = start; i < end; i++)
+					buffer[i] = right >= end || (left < middle && !better(ids[right], ids[left])) ? ids[left++] : ids[right++];
+			}
+
+			System.arraycopy(buffer, 0, ids, 0, count);
+		}
+	}
+
+	private boolean matchesAll(int id, String[] terms) {
+		for(String term : terms) {
+			boolean matched = false;
+
+			for(String word : words[id])
+				if(word.startsWith(term)) {
+					matched = true;
+					break;
+				}
+
+			if(!matched)
+				return false;
+		}
+
+		return true;
+	}
+
+	// Sets a bit for each of the first few prefixes of each word; a product can only
+	// match a query if its mask covers the query's mask
+	private static long prefixMask(String[] words) {
+		long mask = 0;
+
+		for(String word : words) {
+			int hash = 0;
+
+			for(int i = 0; i < word.length() && i < MASKED_PREFIX; i++) {
+				hash = hash * 31 + word.charAt(i);
+				mask |= 1L << (hash * 0x9E3779B9 >>> 26);
+			}
+		}
+
+		return mask;
+	}
+
+	private int nextQuery() {
+		if(seen.length < products.length)
+			seen = new int[products.length];
+
+		if(++query == 0) {
+			Arrays.fill(seen, 0);
+			query = 1;
+		}
+
+		return query;
+	}
+
+	private Node find(String prefix) {
+		Node node = root;
+
+		for(int i = 0; i < prefix.length() && node != null; i++)
+			node = node.child(prefix.charAt(i));
+
+		return node;
+	}
+
+	private void insert(String word, int id) {
+		Node node = root;
+		addToNode(node, id);
+
+		for(int i = 0; i < word.length(); i++) {
+			node = node.childOrNew(word.charAt(i));
+			addToNode(node, id);
+		}
+
+		node.addId(id);
+	}
+
+	private void addToNode(Node node, int id) {
+		node.wordCount++;
+
+		// A node awaiting a refresh will pick the product up from below
+		if(!node.stale)
+			node.topCount = insertRanked(node.top, node.topCount, CACHED_MATCHES, id);
+	}
+
+	private void delete(String word, int id) {
+		Node[] path = new Node[word.length() + 1];
+		path[0] = root;
+
+		for(int i = 0; i < word.length(); i++)
+			path[i + 1] = path[i].child(word.charAt(i));
+
+		path[word.length()].removeId(id);
+
+		for(int i = word.length(); i >= 0; i--) {
+			Node node = path[i];
+			node.wordCount--;
+
+			if(node.topContains(id))
+				node.stale = true;
+
+			if(i > 0 && node.wordCount == 0)
+				path[i - 1].removeChild(word.charAt(i - 1));
+		}
+	}
+
+	// Recomputes a stale cache from the node's own products and its children's caches
+	private void refresh(Node node) {
+		if(!node.stale)
+			return;
+
+		node.topCount = 0;
+
+		for(int i = 0; i < node.idCount; i++)
+			node.topCount = insertRanked(node.top, node.topCount, CACHED_MATCHES, node.ids[i]);
+
+		for(int c = 0; c < node.childCount; c++) {
+			Node child = node.children[c];
+			refresh(child);
+
+			for(int i = 0; i < child.topCount; i++)
+				node.topCount = insertRanked(node.top, node.topCount, CACHED_MATCHES, child.top[i]);
+		}
+
+		node.stale = false;
+	}
+
+	// Inserts id into the ranked array if it belongs among the best; returns the new count
+	private int insertRanked(int[] ranked, int count, int capacity, int id) {
+		for(int i = 0; i < count; i++)
+			if(ranked[i] == id)
+				return count;
+
+		int position = count;
+
+		while(position > 0 && better(id, ranked[position - 1]))
+			position--;
+
+		if(position == capacity)
+			return count;
+
+		int moved = Math.min(count, capacity - 1) - position;
+		System.arraycopy(ranked, position, ranked, position + 1, moved);
+		ranked[position] = id;
+		return Math.min(count + 1, capacity);
+	}
+
+	private boolean better(int a, int b) {
+		int lengthA = descriptions[a].length();
+		int lengthB = descriptions[b].length();
+
+		if(lengthA != lengthB)
+			return lengthA < lengthB;
+
+		int order = descriptions[a].compareToIgnoreCase(descriptions[b]);
+		return order != 0 ? order < 0 : a < b;
+	}
+
+	private void grow() {
+		int capacity = products.length * 2;
+		products = Arrays.copyOf(products, capacity);
+		descriptions = Arrays.copyOf(descriptions, capacity);
+		words = Arrays.copyOf(words, capacity);
+		prefixMasks = Arrays.copyOf(prefixMasks, capacity);
+		freeIds = Arrays.copyOf(freeIds, capacity);
+	}
+
+	private static Object codeOf(Product product) {
+		if(product instanceof BarcodedProduct)
+			return ((BarcodedProduct)product).getBarcode();
+
+		if(product instanceof PLUCodedProduct)
+			return ((PLUCodedProduct)product).getPLUCode();
+
+		if(product == null)
+			throw new SimulationException(new NullPointerException("product is null"));
+
+		throw new SimulationException(new IllegalArgumentException("Only barcoded and PLU coded products have descriptions."));
+	}
+
+	private static String descriptionOf(Product product) {
+		if(product instanceof BarcodedProduct)
+			return ((BarcodedProduct)product).getDescription();
+
+		return ((PLUCodedProduct)product).getDescription();
+	}
+
+	// Splits text into distinct lower-case words of letters and digits
+	private static String[] split(String text) {
+		String lower = text.toLowerCase(Locale.ROOT);
+		ArrayList<String> words = new ArrayList<String>(4);
+		int start = -1;
+
+		for(int i = 0; i <= lower.length(); i++) {
+			boolean inWord = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+
+			if(inWord && start < 0)
+				start = i;
+			else if(!inWord && start >= 0) {
+				String word = lower.substring(start, i);
+
+				if(!words.contains(word))
+					words.add(word);
+
+				start = -1;
+			}
+		}
+
+		return words.toArray(new String[words.size()]);
+	}
+
+	private static final class Node {
+		private static final char[] NO_KEYS = new char[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		// Children sorted by character
+		char[] keys = NO_KEYS;
+		Node[] children = NO_CHILDREN;
+		int childCount;
+
+		// Products with a word ending here, best first when idsRanked
+		int[] ids = NO_IDS;
+		int idCount;
+		boolean idsRanked = true;
+
+		// Number of product words ending at or below this node
+		int wordCount;
+
+		int[] top = new int[CACHED_MATCHES];
+		int topCount;
+		boolean stale;
+
+		Node child(char key) {
+			int i = Arrays.binarySearch(keys, 0, childCount, key);
+			return i >= 0 ? children[i] : null;
+		}
+
+		Node childOrNew(char key) {
+			int i = Arrays.binarySearch(keys, 0, childCount, key);
+
+			if(i >= 0)
+				return children[i];
+
+			i = -i - 1;
+
+			if(childCount == keys.length) {
+				int capacity = Math.max(2, childCount * 2);
+				keys = Arrays.copyOf(keys, capacity);
+				children = Arrays.copyOf(children, capacity);
+			}
+
+			System.arraycopy(keys, i, keys, i + 1, childCount - i);
+			System.arraycopy(children, i, children, i + 1, childCount - i);
+			keys[i] = key;
+			children[i] = new Node();
+			childCount++;
+			return children[i];
+		}
+
+		void removeChild(char key) {
+			int i = Arrays.binarySearch(keys, 0, childCount, key);
+			childCount--;
+			System.arraycopy(keys, i + 1, keys, i, childCount - i);
+			System.arraycopy(children, i + 1, children, i, childCount - i);
+			children[childCount] = null;
+		}
+
+		void addId(int id) {
+			if(idCount == ids.length)
+				ids = Arrays.copyOf(ids, Math.max(2, idCount * 2));
+
+			ids[idCount++] = id;
+			idsRanked = false;
+		}
+
+		void removeId(int id) {
+			for(int i = 0; i < idCount; i++)
+				if(ids[i] == id) {
+					// Shift rather than swap, to keep the ranking
+					idCount--;
+					System.arraycopy(ids, i + 1, ids, i, idCount - i);
+					return;
+				}
+		}
+
+		boolean topContains(int id) {
+			for(int i = 0; i < topCount; i++)
+				if(top[i] == id)
+					return true;
+
+			return false;
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+import org.lsmr.selfcheckout.products.Product;
+
+/**
+ * A catalog that answers lookups of certainly unknown barcodes itself, using a
+ * {@link BarcodeFilter} of every known barcode, and passes only the rest to
+ * the catalog behind it. This keeps misses from costing a round trip to a
+ * remote catalog such as a {@link CachingProductCatalog}. Station items
+ * registered through this catalog are added to the filter.
+ * <p>
+ * The filter must learn of every product that becomes known. A filter built by
+ * this catalog follows an {@link ArrayProductCatalog} or
+ * {@link VersionedProductCatalog} as it changes, and is rebuilt when a whole
+ * new catalog is published. A filter passed in must be kept current by its
+ * owner, e.g. by attaching it to the store's catalog it was built from.
+ * </p>
+ */
+public class FilteredProductCatalog implements ProductCatalog {
+	private final ProductCatalog catalog;
+	private final FilteredProductCatalog owner; // The catalog holding the filter; this one unless a snapshot
+	private volatile BarcodeFilter filter;
+	private final LongAdder rejections;
+	private final HashSet<Barcode> stationBarcodes; // Station items registered here, guarded by itself
+
+	/**
+	 * Creates a catalog filtering lookups on the indicated catalog.
+	 *
+	 * @param catalog
+	 *            The catalog to pass possibly known barcodes to.
+	 * @param filter
+	 *            A filter holding every barcode the catalog knows, now and
+	 *            later.
+	 * @throws SimulationException
+	 *             If an argument is null.
+	 */
+	public FilteredProductCatalog(ProductCatalog catalog, BarcodeFilter filter) {
+		if(catalog == null)
+			throw new SimulationException(new NullPointerException("catalog is null"));
+
+		if(filter == null)
+			throw new SimulationException(new NullPointerException("filter is null"));
+
+		this.catalog = catalog;
+		this.owner = this;
+		this.filter = filter;
+		this.rejections = new LongAdder();
+		this.stationBarcodes = new HashSet<Barcode>();
+	}
+
+	/**
+	 * Creates a catalog filtering lookups on the indicated catalog with a filter
+	 * built from its products, which follows the catalog as it changes.
+	 *
+	 * @param catalog
+	 *            The catalog to filter, as accepted by
+	 *            {@link BarcodeFilter#of(ProductCatalog, double)}.
+	 * @param falsePositiveRate
+	 *            The wanted false positive rate, &gt;0 and &lt;1.
+	 * @throws SimulationException
+	 *             If catalog is null or cannot list its products, or the rate is
+	 *             out of range.
+	 */
+	public FilteredProductCatalog(ProductCatalog catalog, double falsePositiveRate) {
+		this(catalog, BarcodeFilter.of(catalog, falsePositiveRate));
+
+		Follower follower = new Follower(falsePositiveRate);
+
+		if(catalog instanceof VersionedProductCatalog)
+			((VersionedProductCatalog)catalog).attach(follower);
+		else if(catalog instanceof ArrayProductCatalog)
+			((ArrayProductCatalog)catalog).attach(follower);
+	}
+
+	// A view over a snapshot, sharing the filter and counter
+	private FilteredProductCatalog(ProductCatalog catalog, FilteredProductCatalog owner) {
+		this.catalog = catalog;
+		this.owner = owner;
+		this.rejections = owner.rejections;
+		this.stationBarcodes = owner.stationBarcodes;
+	}
+
+	/**
+	 * Gets the number of lookups answered by the filter alone.
+	 *
+	 * @return The number of barcodes rejected as unknown.
+	 */
+	public long getRejectionCount() {
+		return rejections.sum();
+	}
+
+	@Override
+	public ProductCatalog snapshot() {
+		ProductCatalog snapshot = catalog.snapshot();
+		return snapshot == catalog ? this : new FilteredProductCatalog(snapshot, owner);
+	}
+
+	@Override
+	public long version() {
+		return catalog.version();
+	}
+
+	@Override
+	public int find(Barcode barcode) {
+		if(!owner.filter.mightContain(barcode)) {
+			rejections.increment();
+			return NOT_FOUND;
+		}
+
+		return catalog.find(barcode);
+	}
+
+	@Override
+	public int findPacked(long packed) {
+		if(!owner.filter.mightContain(packed)) {
+			rejections.increment();
+			return NOT_FOUND;
+		}
+
+		return catalog.findPacked(packed);
+	}
+
+	@Override
+	public BigDecimal getPrice(int slot) {
+		return catalog.getPrice(slot);
+	}
+
+	@Override
+	public double getWeight(int slot) {
+		return catalog.getWeight(slot);
+	}
+
+	@Override
+	public String getDescription(int slot) {
+		return catalog.getDescription(slot);
+	}
+
+	@Override
+	public BarcodedProduct getProduct(int slot) {
+		return catalog.getProduct(slot);
+	}
+
+	@Override
+	public PLUCodedProduct find(PriceLookupCode pluCode) {
+		return catalog.find(pluCode);
+	}
+
+	@Override
+	public void put(Barcode barcode, String description, BigDecimal price, double weightInGrams) {
+		// Added first, so the item is never rejected once the catalog has it
+		synchronized(stationBarcodes) {
+			stationBarcodes.add(barcode);
+			owner.filter.add(barcode);
+		}
+
+		catalog.put(barcode, description, price, weightInGrams);
+	}
+
+	@Override
+	public int size() {
+		return catalog.size();
+	}
+
+	/**
+	 * Adds the products added to the filtered catalog to the filter, and builds
+	 * a new filter before a new catalog is published.
+	 */
+	private class Follower implements ProductCatalogObserver {
+		private final double falsePositiveRate;
+
+		Follower(double falsePositiveRate) {
+			this.falsePositiveRate = falsePositiveRate;
+		}
+
+		@Override
+		public void productChanged(Product previous, Product current) {
+			filter.productChanged(previous, current);
+		}
+
+		@Override
+		public void productsReplaced(ProductCatalog products) {
+			BarcodeFilter next = BarcodeFilter.of(products, falsePositiveRate);
+
+			// Station items are kept across versions, so they must stay in the filter
+			synchronized(stationBarcodes) {
+				for(Barcode barcode : stationBarcodes)
+					next.add(barcode);
+
+				filter = next;
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a {@link CatalogImporter} run: how much was imported, how
+ * fast, and which rows were rejected.
+ */
+public class ImportReport {
+	private final long rows;
+	private final long imported;
+	private final long rejectedCount;
+	private final List<RejectedRow> rejected;
+	private final long bytes;
+	private final long elapsedNanos;
+
+	ImportReport(long rows, long imported, long rejectedCount, List<RejectedRow> rejected, long bytes,
+		long elapsedNanos) {
+		this.rows = rows;
+		this.imported = imported;
+		this.rejectedCount = rejectedCount;
+		this.rejected = Collections.unmodifiableList(rejected);
+		this.bytes = bytes;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Gets the number of rows read, not counting blank lines and comments.
+	 *
+	 * @return The number of rows.
+	 */
+	public long getRowCount() {
+		return rows;
+	}
+
+	/**
+	 * Gets the number of products passed to the catalog.
+	 *
+	 * @return The number of products imported.
+	 */
+	public long getImportedCount() {
+		return imported;
+	}
+
+	/**
+	 * Gets the number of rows rejected.
+	 *
+	 * @return The number of rejected rows.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	/**
+	 * Gets the first rejected rows, in file order. At most
+	 * {@link CatalogImporter#MAX_REPORTED_REJECTIONS} are kept, so that a
+	 * malformed file cannot exhaust memory.
+	 *
+	 * @return The rejected rows; cannot be modified.
+	 */
+	public List<RejectedRow> getRejectedRows() {
+		return rejected;
+	}
+
+	/**
+	 * Gets the number of bytes read.
+	 *
+	 * @return The number of bytes.
+	 */
+	public long getByteCount() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the time the run took.
+	 *
+	 * @return The elapsed time, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Gets the throughput of the run.
+	 *
+	 * @return The rows read per second.
+	 */
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Gets the throughput of the run.
+	 *
+	 * @return The megabytes (10<sup>6</sup> bytes) read per second.
+	 */
+	public double getMegabytesPerSecond() {
+		return elapsedNanos == 0 ? 0 : bytes * 1e3 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d rows, %d imported, %d rejected in %.1f ms (%.0f rows/s, %.1f MB/s)", rows, imported,
+			rejectedCount, elapsedNanos / 1e6, getRowsPerSecond(), getMegabytesPerSecond());
+	}
+
+	/**
+	 * A row that could not be imported.
+	 */
+	public static class RejectedRow {
+		private final long line;
+		private final String reason;
+
+		RejectedRow(long line, String reason) {
+			this.line = line;
+			this.reason = reason;
+		}
+
+		/**
+		 * Gets the line number of the row, counting from 1.
+		 *
+		 * @return The line number.
+		 */
+		public long getLine() {
+			return line;
+		}
+
+		/**
+		 * Gets why the row was rejected.
+		 *
+		 * @return The reason.
+		 */
+		public String getReason() {
+			return reason;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + line + ": " + reason;
+		}
+	}
+}
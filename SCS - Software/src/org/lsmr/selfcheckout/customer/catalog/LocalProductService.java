@@ -0,0 +1,46 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * A product service answered from a catalog in the same process, standing in
+ * for the store-level service in tests and single-station setups.
+ */
+public class LocalProductService implements ProductService {
+	private final ProductCatalog catalog;
+
+	/**
+	 * Creates a service answering from the indicated catalog.
+	 *
+	 * @param catalog
+	 *            The catalog holding every product.
+	 * @throws SimulationException
+	 *             If catalog is null.
+	 */
+	public LocalProductService(ProductCatalog catalog) {
+		if(catalog == null)
+			throw new SimulationException(new NullPointerException("catalog is null"));
+
+		this.catalog = catalog;
+	}
+
+	@Override
+	public BarcodedProduct fetch(Barcode barcode) {
+		ProductCatalog snapshot = catalog.snapshot();
+		int slot = snapshot.find(barcode);
+
+		if(slot == ProductCatalog.NOT_FOUND)
+			return null;
+
+		return snapshot.getProduct(slot);
+	}
+
+	@Override
+	public PLUCodedProduct fetch(PriceLookupCode pluCode) {
+		return catalog.find(pluCode);
+	}
+}
@@ -0,0 +1,265 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import static org.lsmr.selfcheckout.customer.catalog.CatalogFileFormat.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * A read-only product catalog served directly from a memory-mapped catalog file
+ * written by {@link CatalogFileWriter}. Opening the file only maps it and checks
+ * its header, so it takes the same time whatever the number of products; pages
+ * are read in by the operating system as lookups touch them. Separate mappings
+ * of the same file share the same physical pages, so each station can open its
+ * own at no extra cost.
+ * <p>
+ * Barcode lookups do not allocate. Prices, descriptions and products are
+ * decoded from the file on each call.
+ * </p>
+ * <p>
+ * Station items registered with
+ * {@link #put(Barcode, String, BigDecimal, double)} are kept in memory in front
+ * of the file, and are seen by every user of the mapping. They may be
+ * registered while other threads look items up, but stations that register
+ * their own, such as customers' bags, should each open their own mapping.
+ * </p>
+ */
+public class MappedProductCatalog implements ProductCatalog {
+	private final ByteBuffer buffer;
+	private final int barcodeCount;
+	private final int tableCapacity;
+	private final int shift;
+	private final int pluCount;
+	private final int tableStart;
+	private final int recordsStart;
+	private final int pluStart;
+	private final int dataStart;
+
+	private final ArrayProductCatalog stationItems = new ArrayProductCatalog();
+
+	private MappedProductCatalog(ByteBuffer buffer) throws IOException {
+		if(buffer.capacity() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC)
+			throw new IOException("The file is not a catalog file.");
+
+		if(buffer.getInt(VERSION_OFFSET) != VERSION)
+			throw new IOException("Unsupported catalog file version " + buffer.getInt(VERSION_OFFSET) + ".");
+
+		this.buffer = buffer;
+		barcodeCount = buffer.getInt(BARCODE_COUNT_OFFSET);
+		tableCapacity = buffer.getInt(TABLE_CAPACITY_OFFSET);
+		pluCount = buffer.getInt(PLU_COUNT_OFFSET);
+		shift = Long.numberOfLeadingZeros(tableCapacity - 1);
+
+		tableStart = HEADER_SIZE;
+		recordsStart = tableStart + tableCapacity * TABLE_ENTRY_SIZE;
+		pluStart = recordsStart + barcodeCount * RECORD_SIZE;
+		dataStart = pluStart + pluCount * PLU_SIZE;
+
+		if(Integer.bitCount(tableCapacity) != 1
+			|| (long)dataStart + buffer.getInt(DATA_SIZE_OFFSET) != buffer.capacity())
+			throw new IOException("The catalog file is corrupt.");
+	}
+
+	/**
+	 * Maps the indicated catalog file.
+	 *
+	 * @param file
+	 *            A file written by {@link CatalogFileWriter}.
+	 * @return The catalog.
+	 * @throws IOException
+	 *             If the file cannot be read or is not a valid catalog file.
+	 */
+	public static MappedProductCatalog open(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// The mapping remains valid once the channel is closed
+			return new MappedProductCatalog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	@Override
+	public int find(Barcode barcode) {
+		synchronized(stationItems) {
+			if(stationItems.size() > 0) {
+				int slot = stationItems.find(barcode);
+
+				if(slot != NOT_FOUND)
+					return barcodeCount + slot;
+			}
+		}
+
+		return probe(PackedBarcode.pack(barcode));
+	}
+
+	@Override
+	public int findPacked(long packed) {
+		synchronized(stationItems) {
+			if(stationItems.size() > 0) {
+				int slot = stationItems.findPacked(packed);
+
+				if(slot != NOT_FOUND)
+					return barcodeCount + slot;
+			}
+		}
+
+		return probe(packed);
+	}
+
+	// Looks a packed barcode up in the file's hash table
+	private int probe(long key) {
+		if(key == PackedBarcode.NONE)
+			return NOT_FOUND;
+
+		int mask = tableCapacity - 1;
+		for(int i = PackedBarcodeIndex.hash(key, shift);; i = (i + 1) & mask) {
+			int entry = tableStart + i * TABLE_ENTRY_SIZE;
+			long k = buffer.getLong(entry + TABLE_KEY);
+
+			if(k == key)
+				return buffer.getInt(entry + TABLE_RECORD);
+
+			if(k == PackedBarcode.NONE)
+				return NOT_FOUND;
+		}
+	}
+
+	@Override
+	public BigDecimal getPrice(int slot) {
+		if(slot >= barcodeCount) {
+			synchronized(stationItems) {
+				return stationItems.getPrice(slot - barcodeCount);
+			}
+		}
+
+		int record = record(slot);
+		return price(buffer.getInt(record + RECORD_PRICE_SCALE), buffer.getInt(record + RECORD_PRICE));
+	}
+
+	@Override
+	public double getWeight(int slot) {
+		if(slot >= barcodeCount) {
+			synchronized(stationItems) {
+				return stationItems.getWeight(slot - barcodeCount);
+			}
+		}
+
+		return buffer.getDouble(record(slot) + RECORD_WEIGHT);
+	}
+
+	@Override
+	public String getDescription(int slot) {
+		if(slot >= barcodeCount) {
+			synchronized(stationItems) {
+				return stationItems.getDescription(slot - barcodeCount);
+			}
+		}
+
+		return string(buffer.getInt(record(slot) + RECORD_DESCRIPTION));
+	}
+
+	@Override
+	public BarcodedProduct getProduct(int slot) {
+		if(slot >= barcodeCount) {
+			synchronized(stationItems) {
+				return stationItems.getProduct(slot - barcodeCount);
+			}
+		}
+
+		Barcode barcode = PackedBarcode.unpack(buffer.getLong(record(slot) + RECORD_KEY));
+		return new BarcodedProduct(barcode, getDescription(slot), getPrice(slot), getWeight(slot));
+	}
+
+	@Override
+	public PLUCodedProduct find(PriceLookupCode pluCode) {
+		int key = packPLU(pluCode);
+		int low = 0;
+		int high = pluCount - 1;
+
+		// The PLU section is sorted by packed code
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int entry = pluStart + middle * PLU_SIZE;
+			int k = buffer.getInt(entry + PLU_KEY);
+
+			if(k < key)
+				low = middle + 1;
+			else if(k > key)
+				high = middle - 1;
+			else {
+				BigDecimal price = price(buffer.getInt(entry + PLU_PRICE_SCALE), buffer.getInt(entry + PLU_PRICE));
+				return new PLUCodedProduct(pluCode, string(buffer.getInt(entry + PLU_DESCRIPTION)), price);
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void put(Barcode barcode, String description, BigDecimal price, double weightInGrams) {
+		synchronized(stationItems) {
+			stationItems.put(barcode, description, price, weightInGrams);
+		}
+	}
+
+	@Override
+	public int size() {
+		synchronized(stationItems) {
+			return barcodeCount + stationItems.size();
+		}
+	}
+
+	/**
+	 * Performs an action for the packed barcode of every barcoded product in the
+	 * file. Station items are skipped.
+	 *
+	 * @param action
+	 *            The action to perform.
+	 */
+	public void forEachPacked(LongConsumer action) {
+		for(int slot = 0; slot < barcodeCount; slot++)
+			action.accept(buffer.getLong(record(slot) + RECORD_KEY));
+	}
+
+	/**
+	 * Gets the number of PLU coded products in the file.
+	 *
+	 * @return The number of PLU coded products.
+	 */
+	public int pluSize() {
+		return pluCount;
+	}
+
+	private int record(int slot) {
+		return recordsStart + slot * RECORD_SIZE;
+	}
+
+	private BigDecimal price(int scale, int offset) {
+		return new BigDecimal(new BigInteger(bytes(offset)), scale);
+	}
+
+	private String string(int offset) {
+		return new String(bytes(offset), StandardCharsets.UTF_8);
+	}
+
+	private byte[] bytes(int offset) {
+		int position = dataStart + offset;
+		int length = buffer.getShort(position) & 0xFFFF;
+		byte[] bytes = new byte[length];
+
+		// An absolute bulk read leaves the shared buffer's position untouched
+		buffer.get(position + 2, bytes);
+
+		return bytes;
+	}
+}
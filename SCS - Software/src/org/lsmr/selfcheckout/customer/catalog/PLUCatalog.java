@@ -0,0 +1,129 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.util.function.Consumer;
+
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * PLU coded products kept in a flat array indexed by the numeric value of
+ * their code, so that a lookup is a single array access. Four-digit codes use
+ * indices 0-9999 and five-digit codes use indices 10000-109999, which keeps
+ * codes such as 4011 and 04011 apart.
+ */
+public class PLUCatalog {
+	/**
+	 * The number of distinct PLU codes, and so the size of the table.
+	 */
+	public static final int CAPACITY = 10000 + 100000;
+
+	private PLUCodedProduct[] products;
+	private int size;
+
+	/**
+	 * Creates an empty catalog.
+	 */
+	public PLUCatalog() {}
+
+	/**
+	 * Creates a catalog holding the same products as another.
+	 *
+	 * @param other
+	 *            The catalog to copy.
+	 */
+	public PLUCatalog(PLUCatalog other) {
+		products = other.products == null ? null : other.products.clone();
+		size = other.size;
+	}
+
+	/**
+	 * Converts a PLU code into its index in the table. This does not allocate.
+	 *
+	 * @param pluCode
+	 *            The PLU code.
+	 * @return The index, &ge;0 and &lt;{@link #CAPACITY}.
+	 */
+	public static int indexOf(PriceLookupCode pluCode) {
+		int count = pluCode.numeralCount();
+		int value = 0;
+
+		for(int i = 0; i < count; i++)
+			value = value * 10 + pluCode.getNumeralAt(i).getValue();
+
+		return count == 4 ? value : 10000 + value;
+	}
+
+	/**
+	 * Adds a product, replacing any product with the same code.
+	 *
+	 * @param product
+	 *            The product to add.
+	 * @throws SimulationException
+	 *             If the product is null.
+	 */
+	public void add(PLUCodedProduct product) {
+		if(product == null)
+			throw new SimulationException(new NullPointerException("product is null"));
+
+		// The table is only allocated once there is produce to hold
+		if(products == null)
+			products = new PLUCodedProduct[CAPACITY];
+
+		int index = indexOf(product.getPLUCode());
+
+		if(products[index] == null)
+			size++;
+
+		products[index] = product;
+	}
+
+	/**
+	 * Gets the product with the indicated code.
+	 *
+	 * @param pluCode
+	 *            The PLU code.
+	 * @return The product, or null if the code is not known.
+	 */
+	public PLUCodedProduct get(PriceLookupCode pluCode) {
+		return get(indexOf(pluCode));
+	}
+
+	/**
+	 * Gets the product at the indicated index.
+	 *
+	 * @param index
+	 *            An index obtained from {@link #indexOf(PriceLookupCode)}.
+	 * @return The product, or null if there is none.
+	 */
+	public PLUCodedProduct get(int index) {
+		if(products == null)
+			return null;
+
+		return products[index];
+	}
+
+	/**
+	 * Performs the indicated action on every product, in order of index.
+	 *
+	 * @param action
+	 *            The action to perform.
+	 */
+	public void forEach(Consumer<? super PLUCodedProduct> action) {
+		if(products == null)
+			return;
+
+		for(PLUCodedProduct product : products)
+			if(product != null)
+				action.accept(product);
+	}
+
+	/**
+	 * Gets the number of products.
+	 *
+	 * @return The number of products.
+	 */
+	public int size() {
+		return size;
+	}
+}
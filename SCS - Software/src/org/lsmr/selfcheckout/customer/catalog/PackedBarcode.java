@@ -0,0 +1,88 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.Numeral;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * Packs barcodes of up to {@link #MAX_DIGITS} digits into a single long. The
+ * digits are read as a decimal number behind a leading sentinel digit 1, so
+ * that codes differing only in leading zeros (e.g., 0123 and 123) stay
+ * distinct. Every packed code is therefore &ge;10, and 0 can be used to mark
+ * unused entries.
+ */
+public final class PackedBarcode {
+	/**
+	 * The maximum number of digits that can be packed.
+	 */
+	public static final int MAX_DIGITS = 18;
+
+	/**
+	 * The value returned by {@link #pack(Barcode)} for barcodes that are too long
+	 * to be packed. It is never a valid packed code.
+	 */
+	public static final long NONE = 0L;
+
+	private PackedBarcode() {}
+
+	/**
+	 * Packs the indicated barcode. This does not allocate.
+	 *
+	 * @param barcode
+	 *            The barcode to pack.
+	 * @return The packed code, or {@link #NONE} if the barcode has more than
+	 *             {@link #MAX_DIGITS} digits.
+	 */
+	public static long pack(Barcode barcode) {
+		int count = barcode.digitCount();
+
+		if(count > MAX_DIGITS)
+			return NONE;
+
+		long packed = 1;
+		for(int i = 0; i < count; i++)
+			packed = packed * 10 + barcode.getDigitAt(i).getValue();
+
+		return packed;
+	}
+
+	/**
+	 * Gets the number of digits in a packed code.
+	 *
+	 * @param packed
+	 *            A packed code.
+	 * @return The number of digits.
+	 */
+	public static int digitCount(long packed) {
+		int count = 0;
+
+		for(long rest = packed; rest >= 10; rest /= 10)
+			count++;
+
+		return count;
+	}
+
+	/**
+	 * Unpacks a packed code into a barcode.
+	 *
+	 * @param packed
+	 *            A packed code.
+	 * @return The barcode.
+	 * @throws SimulationException
+	 *             If the value is not a packed code.
+	 */
+	public static Barcode unpack(long packed) {
+		if(packed < 10)
+			throw new SimulationException(new IllegalArgumentException("The value is not a packed barcode."));
+
+		Numeral[] digits = new Numeral[digitCount(packed)];
+		long rest = packed;
+
+		for(int i = digits.length - 1; i >= 0; i--) {
+			digits[i] = Numeral.valueOf((byte)(rest % 10));
+			rest /= 10;
+		}
+
+		return new Barcode(digits);
+	}
+}
@@ -0,0 +1,187 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * Maps packed barcodes (see {@link PackedBarcode}) to catalog slots. Keys and
+ * values are stored in two primitive arrays using open addressing with linear
+ * probing, so a lookup neither allocates nor follows references.
+ */
+public class PackedBarcodeIndex {
+	private static final long EMPTY = PackedBarcode.NONE;
+
+	private long[] keys;
+	private int[] values;
+	private int size;
+	private int shift;
+
+	/**
+	 * Creates an empty index sized for the expected number of entries.
+	 *
+	 * @param expectedSize
+	 *            The number of entries expected.
+	 */
+	public PackedBarcodeIndex(int expectedSize) {
+		int capacity = 16;
+
+		// Keep the table at most half full
+		while(capacity < expectedSize * 2)
+			capacity <<= 1;
+
+		allocate(capacity);
+	}
+
+	/**
+	 * Creates an index holding the same entries as another.
+	 *
+	 * @param other
+	 *            The index to copy.
+	 */
+	public PackedBarcodeIndex(PackedBarcodeIndex other) {
+		keys = other.keys.clone();
+		values = other.values.clone();
+		size = other.size;
+		shift = other.shift;
+	}
+
+	/**
+	 * Gets the slot mapped to the indicated packed code.
+	 *
+	 * @param key
+	 *            The packed code.
+	 * @return The slot, or {@link ProductCatalog#NOT_FOUND}.
+	 */
+	public int get(long key) {
+		int mask = keys.length - 1;
+
+		for(int i = indexOf(key);; i = (i + 1) & mask) {
+			long k = keys[i];
+
+			if(k == key)
+				return values[i];
+
+			if(k == EMPTY)
+				return ProductCatalog.NOT_FOUND;
+		}
+	}
+
+	/**
+	 * Maps the indicated packed code to a slot, replacing any previous mapping.
+	 *
+	 * @param key
+	 *            The packed code.
+	 * @param slot
+	 *            The slot, &ge;0.
+	 * @throws SimulationException
+	 *             If the key is not a packed code or the slot is negative.
+	 */
+	public void put(long key, int slot) {
+		if(key == EMPTY)
+			throw new SimulationException(new IllegalArgumentException("The key is not a packed barcode."));
+
+		if(slot < 0)
+			throw new SimulationException(new IllegalArgumentException("The slot cannot be negative."));
+
+		if((size + 1) * 2 > keys.length)
+			rehash(keys.length * 2);
+
+		insert(key, slot);
+	}
+
+	/**
+	 * Removes the mapping of the indicated packed code. The entries probed after
+	 * it are shifted back, so the table holds no deletion markers.
+	 *
+	 * @param key
+	 *            The packed code.
+	 * @return The slot it was mapped to, or {@link ProductCatalog#NOT_FOUND}.
+	 */
+	public int remove(long key) {
+		int mask = keys.length - 1;
+		int i = indexOf(key);
+
+		while(keys[i] != key) {
+			if(keys[i] == EMPTY)
+				return ProductCatalog.NOT_FOUND;
+
+			i = (i + 1) & mask;
+		}
+
+		int slot = values[i];
+
+		for(int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+			int home = indexOf(keys[j]);
+
+			// An entry whose home lies after the hole, up to itself, stays put
+			if(i <= j ? i < home && home <= j : i < home || home <= j)
+				continue;
+
+			keys[i] = keys[j];
+			values[i] = values[j];
+			i = j;
+		}
+
+		keys[i] = EMPTY;
+		size--;
+		return slot;
+	}
+
+	/**
+	 * Gets the number of entries in the index.
+	 *
+	 * @return The number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void insert(long key, int slot) {
+		int mask = keys.length - 1;
+		int i = indexOf(key);
+
+		while(keys[i] != EMPTY && keys[i] != key)
+			i = (i + 1) & mask;
+
+		if(keys[i] == EMPTY) {
+			keys[i] = key;
+			size++;
+		}
+
+		values[i] = slot;
+	}
+
+	private int indexOf(long key) {
+		return hash(key, shift);
+	}
+
+	/**
+	 * Fibonacci hashing, which spreads the mostly sequential decimal codes over a
+	 * table whose capacity is a power of two.
+	 *
+	 * @param key
+	 *            The packed code.
+	 * @param shift
+	 *            64 minus the number of bits in a table index.
+	 * @return The home index of the key.
+	 */
+	static int hash(long key, int shift) {
+		return (int)((key * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		shift = Long.numberOfLeadingZeros(capacity - 1);
+		size = 0;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+
+		for(int i = 0; i < oldKeys.length; i++)
+			if(oldKeys[i] != EMPTY)
+				insert(oldKeys[i], oldValues[i]);
+	}
+}
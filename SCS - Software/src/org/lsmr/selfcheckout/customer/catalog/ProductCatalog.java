@@ -0,0 +1,138 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.math.BigDecimal;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * The product data shared by every controller of a station. A barcode is
+ * resolved once with {@link #find(Barcode)} into a slot, and the price, weight
+ * and description of that product are then read from the slot without any
+ * further lookups.
+ */
+public interface ProductCatalog {
+	/**
+	 * The slot returned by {@link #find(Barcode)} when the barcode is not known.
+	 */
+	public static final int NOT_FOUND = -1;
+
+	/**
+	 * Locates the slot holding the product with the indicated barcode.
+	 *
+	 * @param barcode
+	 *            The barcode to look up.
+	 * @return The slot of the product, or {@link #NOT_FOUND}.
+	 */
+	public int find(Barcode barcode);
+
+	/**
+	 * Locates the slot holding the product whose barcode packs to the indicated
+	 * code, as computed by {@link PackedBarcode#pack(Barcode)}. Lets a caller
+	 * that has derived a code from other digits look it up without building a
+	 * barcode.
+	 *
+	 * @param packed
+	 *            The packed barcode.
+	 * @return The slot of the product, or {@link #NOT_FOUND}.
+	 */
+	public default int findPacked(long packed) {
+		if(packed == PackedBarcode.NONE)
+			return NOT_FOUND;
+
+		return find(PackedBarcode.unpack(packed));
+	}
+
+	/**
+	 * Gets the per-unit price of the product in the indicated slot.
+	 *
+	 * @param slot
+	 *            A slot returned by {@link #find(Barcode)}.
+	 * @return The price.
+	 */
+	public BigDecimal getPrice(int slot);
+
+	/**
+	 * Gets the expected weight of the product in the indicated slot.
+	 *
+	 * @param slot
+	 *            A slot returned by {@link #find(Barcode)}.
+	 * @return The expected weight in grams.
+	 */
+	public double getWeight(int slot);
+
+	/**
+	 * Gets the description of the product in the indicated slot.
+	 *
+	 * @param slot
+	 *            A slot returned by {@link #find(Barcode)}.
+	 * @return The description.
+	 */
+	public String getDescription(int slot);
+
+	/**
+	 * Gets the product in the indicated slot.
+	 *
+	 * @param slot
+	 *            A slot returned by {@link #find(Barcode)}.
+	 * @return The product, or null if the slot holds a station item registered
+	 *             with {@link #put(Barcode, String, BigDecimal, double)}.
+	 */
+	public BarcodedProduct getProduct(int slot);
+
+	/**
+	 * Locates the product with the indicated PLU code.
+	 *
+	 * @param pluCode
+	 *            The PLU code to look up.
+	 * @return The product, or null if the code is not known.
+	 */
+	public PLUCodedProduct find(PriceLookupCode pluCode);
+
+	/**
+	 * Registers or replaces an item that is sold at the station without being a
+	 * catalog product, such as a customer's own bag. Unlike products, such items
+	 * may be free.
+	 *
+	 * @param barcode
+	 *            The barcode of the item.
+	 * @param description
+	 *            The description of the item.
+	 * @param price
+	 *            The price of the item, &ge;0.
+	 * @param weightInGrams
+	 *            The expected weight of the item.
+	 */
+	public void put(Barcode barcode, String description, BigDecimal price, double weightInGrams);
+
+	/**
+	 * Gets the number of barcoded entries in the catalog.
+	 *
+	 * @return The number of entries.
+	 */
+	public int size();
+
+	/**
+	 * Gets a view of the catalog that will not change while it is used. Slots
+	 * are only meaningful for the view that returned them, so an operation that
+	 * makes several lookups, such as handling one scan, should make them all on
+	 * one view. Catalogs without versions return themselves.
+	 *
+	 * @return The view.
+	 */
+	public default ProductCatalog snapshot() {
+		return this;
+	}
+
+	/**
+	 * Gets the version of the catalog data. Catalogs without versions are always
+	 * at version 0.
+	 *
+	 * @return The version.
+	 */
+	public default long version() {
+		return 0;
+	}
+}
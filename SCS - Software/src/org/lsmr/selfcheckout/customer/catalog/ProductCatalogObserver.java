@@ -0,0 +1,29 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import org.lsmr.selfcheckout.products.Product;
+
+/**
+ * Observes changes to the products of a catalog.
+ */
+public interface ProductCatalogObserver {
+	/**
+	 * An event announcing that a product was added, replaced or removed.
+	 * 
+	 * @param previous
+	 *            The product that was held under the code before, or null if
+	 *            there was none.
+	 * @param current
+	 *            The product now held under the code, or null if it was removed.
+	 */
+	void productChanged(Product previous, Product current);
+
+	/**
+	 * An event announcing that every product is being replaced at once, such as
+	 * by publishing a freshly mapped catalog file. It is announced before the new
+	 * products are used for lookups. By default it is ignored.
+	 * 
+	 * @param products
+	 *            The new products.
+	 */
+	default void productsReplaced(ProductCatalog products) {}
+}
@@ -0,0 +1,51 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.io.IOException;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * The store-level service holding the full product catalog, which stations
+ * query through a {@link CachingProductCatalog}. Implementations may be remote;
+ * {@link LocalProductService} serves an in-process catalog.
+ */
+public interface ProductService {
+	/**
+	 * Fetches the product with the indicated barcode.
+	 *
+	 * @param barcode
+	 *            The barcode to look up.
+	 * @return The product, or null if the barcode is not known.
+	 * @throws IOException
+	 *             If the service cannot be reached.
+	 */
+	public BarcodedProduct fetch(Barcode barcode) throws IOException;
+
+	/**
+	 * Fetches the product with the indicated PLU code.
+	 *
+	 * @param pluCode
+	 *            The PLU code to look up.
+	 * @return The product, or null if the code is not known.
+	 * @throws IOException
+	 *             If the service cannot be reached.
+	 */
+	public PLUCodedProduct fetch(PriceLookupCode pluCode) throws IOException;
+
+	/**
+	 * Gets how long a station may keep using a product fetched from this service
+	 * before fetching it again, such as a short time for a product whose price
+	 * is about to change.
+	 *
+	 * @param product
+	 *            The product fetched.
+	 * @return The time to live in nanoseconds, or 0 to keep the station's
+	 *         default.
+	 */
+	public default long getTimeToLiveNanos(BarcodedProduct product) {
+		return 0;
+	}
+}
@@ -0,0 +1,54 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * Recognizes variable-measure barcodes ahead of the catalog lookup, so that one
+ * catalog entry per item serves every label printed for it.
+ */
+public class VariableMeasureDecoder {
+	private final VariableMeasureFormat[] formats;
+
+	/**
+	 * Creates a decoder for the UPC-A and EAN-13 price-embedded formats.
+	 */
+	public VariableMeasureDecoder() {
+		this(VariableMeasureFormat.UPC_A_PRICE, VariableMeasureFormat.EAN_13_PRICE);
+	}
+
+	/**
+	 * Creates a decoder for the indicated formats, which are tried in order.
+	 *
+	 * @param formats
+	 *            The formats used by the store.
+	 * @throws SimulationException
+	 *             If formats or any of its elements is null.
+	 */
+	public VariableMeasureDecoder(VariableMeasureFormat... formats) {
+		if(formats == null)
+			throw new SimulationException(new NullPointerException("formats is null"));
+
+		for(int i = 0; i < formats.length; i++)
+			if(formats[i] == null)
+				throw new SimulationException(new NullPointerException("formats[" + i + "] is null"));
+
+		this.formats = formats.clone();
+	}
+
+	/**
+	 * Finds the format of a barcode. This does not allocate.
+	 *
+	 * @param barcode
+	 *            The scanned barcode.
+	 * @return The first matching format, or null if the barcode is not a
+	 *         variable-measure barcode.
+	 */
+	public VariableMeasureFormat match(Barcode barcode) {
+		for(VariableMeasureFormat format : formats)
+			if(format.matches(barcode))
+				return format;
+
+		return null;
+	}
+}
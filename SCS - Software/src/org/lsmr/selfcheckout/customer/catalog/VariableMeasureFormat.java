@@ -0,0 +1,177 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * The layout of a variable-measure barcode, such as the label printed by a deli
+ * scale. Such a barcode starts with a reserved prefix and embeds the price or
+ * weight of the item in a fixed run of digits, so every label is different
+ * although the item is the same.
+ * <p>
+ * The item is held in the catalog under its <i>reference barcode</i>: the label
+ * with the embedded digits set to zero and the check digit recomputed. For a
+ * weight-embedded format, the catalog price of the item is its price per
+ * kilogram.
+ * </p>
+ */
+public final class VariableMeasureFormat {
+	/**
+	 * What the embedded digits measure.
+	 */
+	public enum Measure {
+		/**
+		 * The price of the item in cents.
+		 */
+		PRICE,
+
+		/**
+		 * The weight of the item in grams.
+		 */
+		WEIGHT
+	}
+
+	/**
+	 * UPC-A number system 2: {@code 2 IIIII PPPPP C}, with the price in cents.
+	 */
+	public static final VariableMeasureFormat UPC_A_PRICE = new VariableMeasureFormat(12, "2", 6, 5, Measure.PRICE);
+
+	/**
+	 * EAN-13 prefixes 20-29: {@code 2X IIIII PPPPP C}, with the price in cents.
+	 */
+	public static final VariableMeasureFormat EAN_13_PRICE = new VariableMeasureFormat(13, "2", 7, 5, Measure.PRICE);
+
+	private final int digitCount;
+	private final byte[] prefix;
+	private final int valueStart;
+	private final int valueEnd;
+	private final Measure measure;
+
+	/**
+	 * Creates a format. The last digit of the barcode is its check digit.
+	 *
+	 * @param digitCount
+	 *            The length of the barcode: 8, 12, 13 or 14.
+	 * @param prefix
+	 *            The digits every such barcode starts with.
+	 * @param valueStart
+	 *            The index of the first embedded digit, after the prefix.
+	 * @param valueLength
+	 *            The number of embedded digits, 1-9. They must end before the
+	 *            check digit.
+	 * @param measure
+	 *            What the embedded digits measure.
+	 * @throws SimulationException
+	 *             If an argument is null or out of range.
+	 */
+	public VariableMeasureFormat(int digitCount, String prefix, int valueStart, int valueLength, Measure measure) {
+		if(prefix == null)
+			throw new SimulationException(new NullPointerException("prefix is null"));
+
+		if(measure == null)
+			throw new SimulationException(new NullPointerException("measure is null"));
+
+		if(!Barcode.isGTINLength(digitCount))
+			throw new SimulationException(new IllegalArgumentException("The length must be 8, 12, 13 or 14 digits."));
+
+		if(prefix.length() < 1 || valueStart < prefix.length() || valueLength < 1 || valueLength > 9
+			|| valueStart + valueLength > digitCount - 1)
+			throw new SimulationException(
+				new IllegalArgumentException("The prefix and embedded digits must fit before the check digit."));
+
+		this.digitCount = digitCount;
+		this.prefix = new byte[prefix.length()];
+		this.valueStart = valueStart;
+		this.valueEnd = valueStart + valueLength;
+		this.measure = measure;
+
+		for(int i = 0; i < prefix.length(); i++) {
+			char c = prefix.charAt(i);
+
+			if(c < '0' || c > '9')
+				throw new SimulationException(new IllegalArgumentException("The prefix must be digits."));
+
+			this.prefix[i] = (byte)(c - '0');
+		}
+	}
+
+	/**
+	 * Determines whether a barcode has this format. This does not allocate.
+	 *
+	 * @param barcode
+	 *            The barcode.
+	 * @return true if the barcode has this length and prefix.
+	 */
+	public boolean matches(Barcode barcode) {
+		if(barcode.digitCount() != digitCount)
+			return false;
+
+		for(int i = 0; i < prefix.length; i++)
+			if(barcode.getDigitAt(i).getValue() != prefix[i])
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Gets the reference barcode of a label, packed as by
+	 * {@link PackedBarcode#pack(Barcode)}, ready for
+	 * {@link ProductCatalog#findPacked(long)}. This does not allocate.
+	 *
+	 * @param barcode
+	 *            A barcode of this format.
+	 * @return The packed reference barcode.
+	 */
+	public long reference(Barcode barcode) {
+		long packed = 1;
+		int sum = 0;
+		int last = digitCount - 1;
+
+		for(int i = 0; i < last; i++) {
+			int digit = i >= valueStart && i < valueEnd ? 0 : barcode.getDigitAt(i).getValue();
+			packed = packed * 10 + digit;
+
+			// GTIN weights alternate 3, 1 leftwards from the digit before the check digit
+			sum += (last - i) % 2 == 1 ? 3 * digit : digit;
+		}
+
+		return packed * 10 + (10 - sum % 10) % 10;
+	}
+
+	/**
+	 * Gets the reference barcode of a label, under which its item is held in the
+	 * catalog.
+	 *
+	 * @param barcode
+	 *            A barcode of this format.
+	 * @return The reference barcode.
+	 */
+	public Barcode referenceBarcode(Barcode barcode) {
+		return PackedBarcode.unpack(reference(barcode));
+	}
+
+	/**
+	 * Gets the value embedded in a label. This does not allocate.
+	 *
+	 * @param barcode
+	 *            A barcode of this format.
+	 * @return The price in cents or weight in grams, per {@link #getMeasure()}.
+	 */
+	public int value(Barcode barcode) {
+		int value = 0;
+
+		for(int i = valueStart; i < valueEnd; i++)
+			value = value * 10 + barcode.getDigitAt(i).getValue();
+
+		return value;
+	}
+
+	/**
+	 * Gets what the embedded digits measure.
+	 *
+	 * @return The measure.
+	 */
+	public Measure getMeasure() {
+		return measure;
+	}
+}
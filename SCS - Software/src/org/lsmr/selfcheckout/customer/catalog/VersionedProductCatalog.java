@@ -0,0 +1,206 @@
+package org.lsmr.selfcheckout.customer.catalog;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.PriceLookupCode;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+import org.lsmr.selfcheckout.products.PLUCodedProduct;
+
+/**
+ * A product catalog whose data can be replaced while stations are scanning.
+ * The data is held in immutable {@link CatalogSnapshot}s; a new version is
+ * built on a copy of the current one and then swapped in atomically, so readers
+ * never wait and never see a half-applied change.
+ * <p>
+ * Callers needing several lookups to agree, such as a scan that reads both
+ * price and weight, should take a {@link #snapshot()} and work on it. The
+ * lookup methods of this class each use whatever snapshot is current when they
+ * are called.
+ * </p>
+ */
+public class VersionedProductCatalog implements ProductCatalog {
+	private final ArrayProductCatalog stationItems = new ArrayProductCatalog();
+	private final ArrayList<ProductCatalogObserver> observers = new ArrayList<ProductCatalogObserver>();
+	private volatile CatalogSnapshot current;
+
+	/**
+	 * Creates a catalog whose first version holds the indicated products. The
+	 * products must not be changed afterwards.
+	 *
+	 * @param products
+	 *            The initial products.
+	 * @throws SimulationException
+	 *             If products is null.
+	 */
+	public VersionedProductCatalog(ProductCatalog products) {
+		if(products == null)
+			throw new SimulationException(new NullPointerException("products is null"));
+
+		current = new CatalogSnapshot(1, products, stationItems);
+	}
+
+	@Override
+	public CatalogSnapshot snapshot() {
+		return current;
+	}
+
+	@Override
+	public long version() {
+		return current.version();
+	}
+
+	/**
+	 * Publishes a new version holding the indicated products, such as a freshly
+	 * mapped catalog file. The products must not be changed afterwards.
+	 *
+	 * @param products
+	 *            The products of the new version.
+	 * @return The published snapshot.
+	 * @throws SimulationException
+	 *             If products is null.
+	 */
+	public synchronized CatalogSnapshot publish(ProductCatalog products) {
+		if(products == null)
+			throw new SimulationException(new NullPointerException("products is null"));
+
+		for(ProductCatalogObserver observer : observers)
+			observer.productsReplaced(products);
+
+		return swap(products);
+	}
+
+	// Makes the products the current version
+	private CatalogSnapshot swap(ProductCatalog products) {
+		CatalogSnapshot next = new CatalogSnapshot(current.version() + 1, products, stationItems);
+		current = next;
+		return next;
+	}
+
+	/**
+	 * Publishes a new version made by applying the indicated changes to a copy
+	 * of the current products. Scans continue on the current version while the
+	 * changes are applied. Updates are applied one at a time.
+	 *
+	 * @param changes
+	 *            The changes to make, e.g. adding products with new prices.
+	 * @return The published snapshot.
+	 * @throws SimulationException
+	 *             If the current products are not an {@link ArrayProductCatalog}.
+	 */
+	public synchronized CatalogSnapshot update(Consumer<ArrayProductCatalog> changes) {
+		ProductCatalog products = current.getProducts();
+
+		if(!(products instanceof ArrayProductCatalog))
+			throw new SimulationException(new IllegalStateException(
+				"Only in-memory catalogs can be updated; publish a new catalog instead."));
+
+		ArrayProductCatalog copy = new ArrayProductCatalog((ArrayProductCatalog)products);
+
+		for(ProductCatalogObserver observer : observers)
+			copy.attach(observer);
+
+		try {
+			changes.accept(copy);
+		}
+		finally {
+			for(ProductCatalogObserver observer : observers)
+				copy.detach(observer);
+		}
+
+		return swap(copy);
+	}
+
+	/**
+	 * Attaches an observer, which will be told of each product changed by later
+	 * calls to {@link #update(Consumer)}. Catalogs passed to
+	 * {@link #publish(ProductCatalog)} replace everything at once, and are
+	 * reported as a whole before they are published.
+	 *
+	 * @param observer
+	 *            The observer to attach.
+	 * @throws SimulationException
+	 *             If observer is null.
+	 */
+	public synchronized void attach(ProductCatalogObserver observer) {
+		if(observer == null)
+			throw new SimulationException(new NullPointerException("observer is null"));
+
+		observers.add(observer);
+	}
+
+	/**
+	 * Detaches an observer.
+	 *
+	 * @param observer
+	 *            The observer to detach.
+	 * @return true if the observer was attached.
+	 */
+	public synchronized boolean detach(ProductCatalogObserver observer) {
+		return observers.remove(observer);
+	}
+
+	/**
+	 * Performs {@link #update(Consumer)} on the indicated executor, so that a
+	 * large price file never runs on a station's thread.
+	 *
+	 * @param changes
+	 *            The changes to make.
+	 * @param executor
+	 *            The executor to build the new version on.
+	 * @return A future completed with the published snapshot.
+	 */
+	public CompletableFuture<CatalogSnapshot> updateAsync(Consumer<ArrayProductCatalog> changes, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> update(changes), executor);
+	}
+
+	@Override
+	public int find(Barcode barcode) {
+		return current.find(barcode);
+	}
+
+	@Override
+	public int findPacked(long packed) {
+		return current.findPacked(packed);
+	}
+
+	@Override
+	public BigDecimal getPrice(int slot) {
+		return current.getPrice(slot);
+	}
+
+	@Override
+	public double getWeight(int slot) {
+		return current.getWeight(slot);
+	}
+
+	@Override
+	public String getDescription(int slot) {
+		return current.getDescription(slot);
+	}
+
+	@Override
+	public BarcodedProduct getProduct(int slot) {
+		return current.getProduct(slot);
+	}
+
+	@Override
+	public PLUCodedProduct find(PriceLookupCode pluCode) {
+		return current.find(pluCode);
+	}
+
+	@Override
+	public void put(Barcode barcode, String description, BigDecimal price, double weightInGrams) {
+		current.put(barcode, description, price, weightInGrams);
+	}
+
+	@Override
+	public int size() {
+		return current.size();
+	}
+}
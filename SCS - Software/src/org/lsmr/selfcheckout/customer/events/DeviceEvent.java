@@ -0,0 +1,249 @@
+package org.lsmr.selfcheckout.customer.events;
+
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+
+/**
+ * One event of a device, as kept in a {@link DeviceEventRing}. Events are
+ * mutable and reused: the ring writes each event into a slot allocated up
+ * front, and a handler is given a reader's own copy, which is overwritten by
+ * the next event. A handler that keeps an event must copy what it needs.
+ */
+public final class DeviceEvent {
+	/**
+	 * The kinds of event. Each says what the detail and the amount of its events
+	 * hold; those it does not mention are null and 0.
+	 */
+	public enum Type {
+		/**
+		 * The device was enabled.
+		 */
+		ENABLED,
+		/**
+		 * The device was disabled.
+		 */
+		DISABLED,
+		/**
+		 * A coin was put into the coin slot.
+		 */
+		COIN_INSERTED,
+		/**
+		 * The coin validator accepted a coin; the detail is its value, a
+		 * BigDecimal.
+		 */
+		COIN_VALID,
+		/**
+		 * The coin validator rejected a coin.
+		 */
+		COIN_INVALID,
+		/**
+		 * A coin was added to a storage unit, dispenser or tray; for a dispenser,
+		 * the detail is the Coin.
+		 */
+		COIN_ADDED,
+		/**
+		 * A dispenser gave out a coin; the detail is the Coin.
+		 */
+		COIN_REMOVED,
+		/**
+		 * Coins were loaded into a storage unit or dispenser; for a dispenser, the
+		 * amount is how many.
+		 */
+		COINS_LOADED,
+		/**
+		 * Coins were unloaded from a storage unit or dispenser; for a dispenser,
+		 * the amount is how many.
+		 */
+		COINS_UNLOADED,
+		/**
+		 * A coin storage unit or dispenser became full.
+		 */
+		COINS_FULL,
+		/**
+		 * A coin dispenser became empty.
+		 */
+		COINS_EMPTY,
+		/**
+		 * A banknote was put into a banknote slot.
+		 */
+		BANKNOTE_INSERTED,
+		/**
+		 * A banknote slot pushed a banknote back out.
+		 */
+		BANKNOTE_EJECTED,
+		/**
+		 * A banknote was taken from a slot, or given out by a dispenser; for a
+		 * dispenser, the detail is the Banknote.
+		 */
+		BANKNOTE_REMOVED,
+		/**
+		 * The banknote validator accepted a banknote; the detail is its Currency
+		 * and the amount its value.
+		 */
+		BANKNOTE_VALID,
+		/**
+		 * The banknote validator rejected a banknote.
+		 */
+		BANKNOTE_INVALID,
+		/**
+		 * A banknote was added to a storage unit or dispenser; for a dispenser,
+		 * the detail is the Banknote.
+		 */
+		BANKNOTE_ADDED,
+		/**
+		 * Banknotes were loaded into a storage unit or dispenser; for a
+		 * dispenser, the amount is how many.
+		 */
+		BANKNOTES_LOADED,
+		/**
+		 * Banknotes were unloaded from a storage unit or dispenser; for a
+		 * dispenser, the amount is how many.
+		 */
+		BANKNOTES_UNLOADED,
+		/**
+		 * A banknote storage unit or dispenser became full.
+		 */
+		BANKNOTES_FULL,
+		/**
+		 * A banknote dispenser became empty.
+		 */
+		BANKNOTES_EMPTY,
+		/**
+		 * A card was inserted into the card reader.
+		 */
+		CARD_INSERTED,
+		/**
+		 * A card was taken out of the card reader.
+		 */
+		CARD_REMOVED,
+		/**
+		 * A card was tapped on the card reader.
+		 */
+		CARD_TAPPED,
+		/**
+		 * A card was swiped through the card reader.
+		 */
+		CARD_SWIPED,
+		/**
+		 * The card reader read a card; the detail is the type of the card, as
+		 * a String. Its number, holder and CVV are not recorded.
+		 */
+		CARD_DATA_READ,
+		/**
+		 * A scanner read a barcode; the detail is the Barcode.
+		 */
+		BARCODE_SCANNED,
+		/**
+		 * The weight on a scale changed; the amount is the new weight in grams.
+		 */
+		WEIGHT_CHANGED,
+		/**
+		 * A scale was overloaded.
+		 */
+		OVERLOAD,
+		/**
+		 * A scale was no longer overloaded.
+		 */
+		OUT_OF_OVERLOAD,
+		/**
+		 * The printer ran out of paper.
+		 */
+		OUT_OF_PAPER,
+		/**
+		 * The printer ran out of ink.
+		 */
+		OUT_OF_INK,
+		/**
+		 * Paper was added to the printer.
+		 */
+		PAPER_ADDED,
+		/**
+		 * Ink was added to the printer.
+		 */
+		INK_ADDED
+	}
+
+	// The sequence of the event held, guarding the other fields while a slot is rewritten
+	volatile long sequence;
+
+	private Type type;
+	private AbstractDevice<?> device;
+	private Object detail;
+	private double amount;
+	private long time;
+
+	DeviceEvent(long sequence) {
+		this.sequence = sequence;
+	}
+
+	void set(Type type, AbstractDevice<?> device, Object detail, double amount, long time) {
+		this.type = type;
+		this.device = device;
+		this.detail = detail;
+		this.amount = amount;
+		this.time = time;
+	}
+
+	void copy(DeviceEvent event, long sequence) {
+		set(event.type, event.device, event.detail, event.amount, event.time);
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Gets the position of this event among all the events of its ring.
+	 *
+	 * @return The sequence, from 0.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Gets the kind of this event.
+	 *
+	 * @return The type.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the device this event happened on.
+	 *
+	 * @return The device.
+	 */
+	public AbstractDevice<?> getDevice() {
+		return device;
+	}
+
+	/**
+	 * Gets the object this event concerns, as described by its type.
+	 *
+	 * @return The detail, or null.
+	 */
+	public Object getDetail() {
+		return detail;
+	}
+
+	/**
+	 * Gets the quantity this event carries, as described by its type.
+	 *
+	 * @return The amount, or 0.
+	 */
+	public double getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Gets when this event was placed in the ring.
+	 *
+	 * @return The time, in nanoseconds of the ring's clock.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	@Override
+	public String toString() {
+		return sequence + " " + type + (detail == null ? "" : " " + detail) + (amount == 0 ? "" : " " + amount);
+	}
+}
@@ -0,0 +1,14 @@
+package org.lsmr.selfcheckout.customer.events;
+
+/**
+ * Handles the events a {@link DeviceEventRing.Reader} takes from its ring.
+ */
+public interface DeviceEventHandler {
+	/**
+	 * Handles one event. The event is reused once this returns.
+	 *
+	 * @param event
+	 *            The event.
+	 */
+	void handle(DeviceEvent event);
+}
@@ -0,0 +1,358 @@
+package org.lsmr.selfcheckout.customer.events;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import org.lsmr.selfcheckout.Banknote;
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.Card.CardData;
+import org.lsmr.selfcheckout.Coin;
+import org.lsmr.selfcheckout.customer.events.DeviceEvent.Type;
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+import org.lsmr.selfcheckout.devices.BanknoteDispenser;
+import org.lsmr.selfcheckout.devices.BanknoteSlot;
+import org.lsmr.selfcheckout.devices.BanknoteStorageUnit;
+import org.lsmr.selfcheckout.devices.BanknoteValidator;
+import org.lsmr.selfcheckout.devices.BarcodeScanner;
+import org.lsmr.selfcheckout.devices.CardReader;
+import org.lsmr.selfcheckout.devices.CoinDispenser;
+import org.lsmr.selfcheckout.devices.CoinSlot;
+import org.lsmr.selfcheckout.devices.CoinStorageUnit;
+import org.lsmr.selfcheckout.devices.CoinTray;
+import org.lsmr.selfcheckout.devices.CoinValidator;
+import org.lsmr.selfcheckout.devices.ElectronicScale;
+import org.lsmr.selfcheckout.devices.ReceiptPrinter;
+import org.lsmr.selfcheckout.devices.SelfCheckoutStation;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.devices.observers.AbstractDeviceObserver;
+import org.lsmr.selfcheckout.devices.observers.BanknoteDispenserObserver;
+import org.lsmr.selfcheckout.devices.observers.BanknoteSlotObserver;
+import org.lsmr.selfcheckout.devices.observers.BanknoteStorageUnitObserver;
+import org.lsmr.selfcheckout.devices.observers.BanknoteValidatorObserver;
+import org.lsmr.selfcheckout.devices.observers.BarcodeScannerObserver;
+import org.lsmr.selfcheckout.devices.observers.CardReaderObserver;
+import org.lsmr.selfcheckout.devices.observers.CoinDispenserObserver;
+import org.lsmr.selfcheckout.devices.observers.CoinSlotObserver;
+import org.lsmr.selfcheckout.devices.observers.CoinStorageUnitObserver;
+import org.lsmr.selfcheckout.devices.observers.CoinTrayObserver;
+import org.lsmr.selfcheckout.devices.observers.CoinValidatorObserver;
+import org.lsmr.selfcheckout.devices.observers.ElectronicScaleObserver;
+import org.lsmr.selfcheckout.devices.observers.ReceiptPrinterObserver;
+
+/**
+ * Observes the devices of stations and places each of their events in a
+ * {@link DeviceEventRing}. One recorder may observe many stations, all
+ * recording into the same ring.
+ * <p>
+ * The recorder only writes the event into its slot, so attaching it adds
+ * little to each event and nothing to the heap; what is done with the events
+ * is up to the ring's readers.
+ * </p>
+ */
+public class DeviceEventRecorder implements CoinSlotObserver, CoinValidatorObserver, CoinStorageUnitObserver,
+	CoinDispenserObserver, CoinTrayObserver, BanknoteSlotObserver, BanknoteValidatorObserver,
+	BanknoteStorageUnitObserver, BanknoteDispenserObserver, CardReaderObserver, BarcodeScannerObserver,
+	ElectronicScaleObserver, ReceiptPrinterObserver {
+
+	private final DeviceEventRing ring;
+
+	/**
+	 * Creates a recorder.
+	 *
+	 * @param ring
+	 *            The ring to place events in.
+	 * @throws SimulationException
+	 *             If ring is null.
+	 */
+	public DeviceEventRecorder(DeviceEventRing ring) {
+		if(ring == null)
+			throw new SimulationException(new NullPointerException("ring is null"));
+
+		this.ring = ring;
+	}
+
+	/**
+	 * Starts recording the events of every device of a station.
+	 *
+	 * @param station
+	 *            The station.
+	 * @throws SimulationException
+	 *             If station is null.
+	 */
+	public void attachTo(SelfCheckoutStation station) {
+		if(station == null)
+			throw new SimulationException(new NullPointerException("station is null"));
+
+		station.coinSlot.attach(this);
+		station.coinValidator.attach(this);
+		station.coinStorage.attach(this);
+		for(CoinDispenser dispenser : station.coinDispensers.values())
+			dispenser.attach(this);
+		station.coinTray.attach(this);
+		station.banknoteInput.attach(this);
+		station.banknoteOutput.attach(this);
+		station.banknoteValidator.attach(this);
+		station.banknoteStorage.attach(this);
+		for(BanknoteDispenser dispenser : station.banknoteDispensers.values())
+			dispenser.attach(this);
+		station.cardReader.attach(this);
+		station.mainScanner.attach(this);
+		station.handheldScanner.attach(this);
+		station.scanningArea.attach(this);
+		station.baggingArea.attach(this);
+		station.printer.attach(this);
+	}
+
+	/**
+	 * Stops recording the events of the devices of a station.
+	 *
+	 * @param station
+	 *            The station.
+	 * @throws SimulationException
+	 *             If station is null.
+	 */
+	public void detachFrom(SelfCheckoutStation station) {
+		if(station == null)
+			throw new SimulationException(new NullPointerException("station is null"));
+
+		station.coinSlot.detach(this);
+		station.coinValidator.detach(this);
+		station.coinStorage.detach(this);
+		for(CoinDispenser dispenser : station.coinDispensers.values())
+			dispenser.detach(this);
+		station.coinTray.detach(this);
+		station.banknoteInput.detach(this);
+		station.banknoteOutput.detach(this);
+		station.banknoteValidator.detach(this);
+		station.banknoteStorage.detach(this);
+		for(BanknoteDispenser dispenser : station.banknoteDispensers.values())
+			dispenser.detach(this);
+		station.cardReader.detach(this);
+		station.mainScanner.detach(this);
+		station.handheldScanner.detach(this);
+		station.scanningArea.detach(this);
+		station.baggingArea.detach(this);
+		station.printer.detach(this);
+	}
+
+	@Override
+	public void enabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
+		ring.publish(Type.ENABLED, device, null, 0);
+	}
+
+	@Override
+	public void disabled(AbstractDevice<? extends AbstractDeviceObserver> device) {
+		ring.publish(Type.DISABLED, device, null, 0);
+	}
+
+	@Override
+	public void coinInserted(CoinSlot slot) {
+		ring.publish(Type.COIN_INSERTED, slot, null, 0);
+	}
+
+	@Override
+	public void validCoinDetected(CoinValidator validator, BigDecimal value) {
+		ring.publish(Type.COIN_VALID, validator, value, 0);
+	}
+
+	@Override
+	public void invalidCoinDetected(CoinValidator validator) {
+		ring.publish(Type.COIN_INVALID, validator, null, 0);
+	}
+
+	@Override
+	public void coinsFull(CoinStorageUnit unit) {
+		ring.publish(Type.COINS_FULL, unit, null, 0);
+	}
+
+	@Override
+	public void coinAdded(CoinStorageUnit unit) {
+		ring.publish(Type.COIN_ADDED, unit, null, 0);
+	}
+
+	@Override
+	public void coinsLoaded(CoinStorageUnit unit) {
+		ring.publish(Type.COINS_LOADED, unit, null, 0);
+	}
+
+	@Override
+	public void coinsUnloaded(CoinStorageUnit unit) {
+		ring.publish(Type.COINS_UNLOADED, unit, null, 0);
+	}
+
+	@Override
+	public void coinsFull(CoinDispenser dispenser) {
+		ring.publish(Type.COINS_FULL, dispenser, null, 0);
+	}
+
+	@Override
+	public void coinsEmpty(CoinDispenser dispenser) {
+		ring.publish(Type.COINS_EMPTY, dispenser, null, 0);
+	}
+
+	@Override
+	public void coinAdded(CoinDispenser dispenser, Coin coin) {
+		ring.publish(Type.COIN_ADDED, dispenser, coin, 0);
+	}
+
+	@Override
+	public void coinRemoved(CoinDispenser dispenser, Coin coin) {
+		ring.publish(Type.COIN_REMOVED, dispenser, coin, 0);
+	}
+
+	@Override
+	public void coinsLoaded(CoinDispenser dispenser, Coin... coins) {
+		ring.publish(Type.COINS_LOADED, dispenser, null, coins.length);
+	}
+
+	@Override
+	public void coinsUnloaded(CoinDispenser dispenser, Coin... coins) {
+		ring.publish(Type.COINS_UNLOADED, dispenser, null, coins.length);
+	}
+
+	@Override
+	public void coinAdded(CoinTray tray) {
+		ring.publish(Type.COIN_ADDED, tray, null, 0);
+	}
+
+	@Override
+	public void banknoteInserted(BanknoteSlot slot) {
+		ring.publish(Type.BANKNOTE_INSERTED, slot, null, 0);
+	}
+
+	@Override
+	public void banknoteEjected(BanknoteSlot slot) {
+		ring.publish(Type.BANKNOTE_EJECTED, slot, null, 0);
+	}
+
+	@Override
+	public void banknoteRemoved(BanknoteSlot slot) {
+		ring.publish(Type.BANKNOTE_REMOVED, slot, null, 0);
+	}
+
+	@Override
+	public void validBanknoteDetected(BanknoteValidator validator, Currency currency, int value) {
+		ring.publish(Type.BANKNOTE_VALID, validator, currency, value);
+	}
+
+	@Override
+	public void invalidBanknoteDetected(BanknoteValidator validator) {
+		ring.publish(Type.BANKNOTE_INVALID, validator, null, 0);
+	}
+
+	@Override
+	public void banknotesFull(BanknoteStorageUnit unit) {
+		ring.publish(Type.BANKNOTES_FULL, unit, null, 0);
+	}
+
+	@Override
+	public void banknoteAdded(BanknoteStorageUnit unit) {
+		ring.publish(Type.BANKNOTE_ADDED, unit, null, 0);
+	}
+
+	@Override
+	public void banknotesLoaded(BanknoteStorageUnit unit) {
+		ring.publish(Type.BANKNOTES_LOADED, unit, null, 0);
+	}
+
+	@Override
+	public void banknotesUnloaded(BanknoteStorageUnit unit) {
+		ring.publish(Type.BANKNOTES_UNLOADED, unit, null, 0);
+	}
+
+	@Override
+	public void moneyFull(BanknoteDispenser dispenser) {
+		ring.publish(Type.BANKNOTES_FULL, dispenser, null, 0);
+	}
+
+	@Override
+	public void banknotesEmpty(BanknoteDispenser dispenser) {
+		ring.publish(Type.BANKNOTES_EMPTY, dispenser, null, 0);
+	}
+
+	@Override
+	public void billAdded(BanknoteDispenser dispenser, Banknote banknote) {
+		ring.publish(Type.BANKNOTE_ADDED, dispenser, banknote, 0);
+	}
+
+	@Override
+	public void banknoteRemoved(BanknoteDispenser dispenser, Banknote banknote) {
+		ring.publish(Type.BANKNOTE_REMOVED, dispenser, banknote, 0);
+	}
+
+	@Override
+	public void banknotesLoaded(BanknoteDispenser dispenser, Banknote... banknotes) {
+		ring.publish(Type.BANKNOTES_LOADED, dispenser, null, banknotes.length);
+	}
+
+	@Override
+	public void banknotesUnloaded(BanknoteDispenser dispenser, Banknote... banknotes) {
+		ring.publish(Type.BANKNOTES_UNLOADED, dispenser, null, banknotes.length);
+	}
+
+	@Override
+	public void cardInserted(CardReader reader) {
+		ring.publish(Type.CARD_INSERTED, reader, null, 0);
+	}
+
+	@Override
+	public void cardRemoved(CardReader reader) {
+		ring.publish(Type.CARD_REMOVED, reader, null, 0);
+	}
+
+	@Override
+	public void cardTapped(CardReader reader) {
+		ring.publish(Type.CARD_TAPPED, reader, null, 0);
+	}
+
+	@Override
+	public void cardSwiped(CardReader reader) {
+		ring.publish(Type.CARD_SWIPED, reader, null, 0);
+	}
+
+	@Override
+	public void cardDataRead(CardReader reader, CardData data) {
+		// Readers of the ring are not trusted with the number or CVV, so only the type is kept
+		ring.publish(Type.CARD_DATA_READ, reader, data == null ? null : data.getType(), 0);
+	}
+
+	@Override
+	public void barcodeScanned(BarcodeScanner barcodeScanner, Barcode barcode) {
+		ring.publish(Type.BARCODE_SCANNED, barcodeScanner, barcode, 0);
+	}
+
+	@Override
+	public void weightChanged(ElectronicScale scale, double weightInGrams) {
+		ring.publish(Type.WEIGHT_CHANGED, scale, null, weightInGrams);
+	}
+
+	@Override
+	public void overload(ElectronicScale scale) {
+		ring.publish(Type.OVERLOAD, scale, null, 0);
+	}
+
+	@Override
+	public void outOfOverload(ElectronicScale scale) {
+		ring.publish(Type.OUT_OF_OVERLOAD, scale, null, 0);
+	}
+
+	@Override
+	public void outOfPaper(ReceiptPrinter printer) {
+		ring.publish(Type.OUT_OF_PAPER, printer, null, 0);
+	}
+
+	@Override
+	public void outOfInk(ReceiptPrinter printer) {
+		ring.publish(Type.OUT_OF_INK, printer, null, 0);
+	}
+
+	@Override
+	public void paperAdded(ReceiptPrinter printer) {
+		ring.publish(Type.PAPER_ADDED, printer, null, 0);
+	}
+
+	@Override
+	public void inkAdded(ReceiptPrinter printer) {
+		ring.publish(Type.INK_ADDED, printer, null, 0);
+	}
+}
@@ -0,0 +1,268 @@
+package org.lsmr.selfcheckout.customer.events;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.lsmr.selfcheckout.devices.AbstractDevice;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * A record of the events of many devices, kept in a ring of event slots
+ * allocated up front, so that placing an event allocates nothing. Any number of
+ * threads may place events; each is given the next sequence and its slot, and
+ * writes the event there.
+ * <p>
+ * Events are taken by {@link Reader}s, each of which tracks its own sequence
+ * and handles the events in order on whichever thread polls it. A reader may be
+ * made to follow others, so that it handles an event only once they have.
+ * Events are never held back for a reader: a reader that falls more than the
+ * capacity of the ring behind loses the events overwritten, and counts them.
+ * So a slow reader never slows down the devices or the controllers observing
+ * them.
+ * </p>
+ */
+public class DeviceEventRing {
+	// Marks a slot as being rewritten
+	private static final long WRITING = Long.MIN_VALUE;
+
+	private final DeviceEvent[] slots;
+	private final int mask;
+	private final LongSupplier clock;
+	private final AtomicLong next = new AtomicLong(); // The sequence of the next event placed
+
+	/**
+	 * Creates a ring.
+	 *
+	 * @param capacity
+	 *            The number of events kept; a power of 2.
+	 * @throws SimulationException
+	 *             If the capacity is not a power of 2.
+	 */
+	public DeviceEventRing(int capacity) {
+		this(capacity, System::nanoTime);
+	}
+
+	/**
+	 * Creates a ring that stamps events with the time from the indicated clock.
+	 *
+	 * @param capacity
+	 *            The number of events kept; a power of 2.
+	 * @param clock
+	 *            Supplies the current time in nanoseconds.
+	 * @throws SimulationException
+	 *             If clock is null or the capacity is not a power of 2.
+	 */
+	public DeviceEventRing(int capacity, LongSupplier clock) {
+		if(clock == null)
+			throw new SimulationException(new NullPointerException("clock is null"));
+
+		if(capacity <= 0 || Integer.bitCount(capacity) != 1)
+			throw new SimulationException(new IllegalArgumentException("The capacity must be a power of 2."));
+
+		slots = new DeviceEvent[capacity];
+		mask = capacity - 1;
+		this.clock = clock;
+
+		// Each slot starts as if it held the event one lap before its first
+		for(int i = 0; i < capacity; i++)
+			slots[i] = new DeviceEvent(i - capacity);
+	}
+
+	/**
+	 * Places an event in the ring.
+	 * <p>
+	 * A thread waits here only if the ring has gone all the way round while
+	 * another thread is still writing to the same slot.
+	 * </p>
+	 *
+	 * @param type
+	 *            The kind of event.
+	 * @param device
+	 *            The device it happened on.
+	 * @param detail
+	 *            The object it concerns, or null.
+	 * @param amount
+	 *            The quantity it carries, or 0.
+	 * @return The sequence of the event.
+	 * @throws SimulationException
+	 *             If type or device is null.
+	 */
+	public long publish(DeviceEvent.Type type, AbstractDevice<?> device, Object detail, double amount) {
+		if(type == null)
+			throw new SimulationException(new NullPointerException("type is null"));
+
+		if(device == null)
+			throw new SimulationException(new NullPointerException("device is null"));
+
+		long sequence = next.getAndIncrement();
+		DeviceEvent slot = slots[(int)(sequence & mask)];
+
+		while(slot.sequence != sequence - slots.length)
+			Thread.onSpinWait();
+
+		slot.sequence = WRITING;
+		// Readers that see the new fields must see the slot marked first
+		VarHandle.storeStoreFence();
+		slot.set(type, device, detail, amount, clock.getAsLong());
+		slot.sequence = sequence;
+		return sequence;
+	}
+
+	/**
+	 * Gets the number of events placed in the ring so far, which is also the
+	 * sequence of the next.
+	 *
+	 * @return The count.
+	 */
+	public long getPublishedCount() {
+		return next.get();
+	}
+
+	/**
+	 * Gets the number of events the ring keeps.
+	 *
+	 * @return The capacity.
+	 */
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Creates a reader that handles the events placed from now on.
+	 *
+	 * @param handler
+	 *            Handles the events.
+	 * @param after
+	 *            Readers of this ring that must handle each event first.
+	 * @return The reader.
+	 * @throws SimulationException
+	 *             If an argument is null or a reader to follow is of another
+	 *             ring.
+	 */
+	public Reader newReader(DeviceEventHandler handler, Reader... after) {
+		if(handler == null)
+			throw new SimulationException(new NullPointerException("handler is null"));
+
+		if(after == null)
+			throw new SimulationException(new NullPointerException("after is null"));
+
+		for(Reader reader : after) {
+			if(reader == null)
+				throw new SimulationException(new NullPointerException("after contains null"));
+
+			if(reader.ring() != this)
+				throw new SimulationException(new IllegalArgumentException("A reader to follow is of another ring."));
+		}
+
+		return new Reader(handler, after.clone());
+	}
+
+	/**
+	 * Takes events from the ring in order and hands them to a handler. A reader
+	 * is polled by one thread at a time.
+	 */
+	public final class Reader {
+		private final DeviceEventHandler handler;
+		private final Reader[] after;
+		private final DeviceEvent event = new DeviceEvent(-1); // The copy handed to the handler
+		private volatile long sequence; // The sequence of the next event to handle
+		private long lost;
+
+		private Reader(DeviceEventHandler handler, Reader[] after) {
+			this.handler = handler;
+			this.after = after;
+			sequence = next.get();
+
+			for(Reader reader : after)
+				sequence = Math.min(sequence, reader.sequence);
+		}
+
+		private DeviceEventRing ring() {
+			return DeviceEventRing.this;
+		}
+
+		/**
+		 * Handles every event that has been placed, and that the readers this one
+		 * follows have handled, in order. Events overwritten before they could be
+		 * handled are skipped and counted as lost.
+		 *
+		 * @return The number of events handled.
+		 */
+		public synchronized int poll() {
+			long n = sequence;
+			long limit = next.get();
+
+			for(Reader reader : after)
+				limit = Math.min(limit, reader.sequence);
+
+			int handled = 0;
+
+			while(n < limit) {
+				DeviceEvent slot = slots[(int)(n & mask)];
+
+				if(slot.sequence == n) {
+					event.copy(slot, n);
+					// The copy must be read before the slot is checked again
+					VarHandle.loadLoadFence();
+
+					if(slot.sequence == n) {
+						try {
+							handler.handle(event);
+						}
+						finally {
+							sequence = ++n;
+						}
+
+						handled++;
+						continue;
+					}
+				}
+
+				long held = slot.sequence;
+				long published = next.get();
+
+				// An older event, or a write not a lap ahead, means the event is still being written
+				if(held < n && (held != WRITING || published - n <= slots.length))
+					break;
+
+				// Overwritten; resume at the oldest event still in the ring
+				long resume = Math.max(n + 1, published - slots.length);
+				lost += resume - n;
+				n = resume;
+				sequence = n;
+			}
+
+			return handled;
+		}
+
+		/**
+		 * Gets the sequence of the next event this reader will handle.
+		 *
+		 * @return The sequence.
+		 */
+		public long getSequence() {
+			return sequence;
+		}
+
+		/**
+		 * Gets the number of events placed but not yet handled or lost by this
+		 * reader.
+		 *
+		 * @return The count.
+		 */
+		public long getLag() {
+			return next.get() - sequence;
+		}
+
+		/**
+		 * Gets the number of events this reader lost because they were overwritten
+		 * before it could handle them.
+		 *
+		 * @return The count.
+		 */
+		public synchronized long getLostCount() {
+			return lost;
+		}
+	}
+}
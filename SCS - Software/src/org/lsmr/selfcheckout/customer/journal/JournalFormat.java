@@ -0,0 +1,44 @@
+package org.lsmr.selfcheckout.customer.journal;
+
+/**
+ * Layout of the session journal files written and read by
+ * {@link SessionJournal}. All values are big-endian. A file holds, in order:
+ * <ol>
+ * <li>A header of {@link #HEADER_SIZE} bytes, naming the currency amounts are
+ * recorded in.</li>
+ * <li>The records, each holding the length of its body (int), the body, and
+ * the CRC-32 of the body (int). A body is a type byte followed by the fields of
+ * that type of record.</li>
+ * <li>Zeros to the end of the preallocated segment. A length of zero marks the
+ * end of the journal, as does a record that is cut short or fails its
+ * check.</li>
+ * </ol>
+ * Barcodes are stored as a digit count (byte) followed by the digits
+ * in ASCII; money as a long count of minor units.
+ */
+final class JournalFormat {
+	static final int MAGIC = 0x5343534A; // "SCSJ"
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 16;
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int CURRENCY_OFFSET = 8;
+	static final int CURRENCY_LENGTH = 3;
+
+	static final int LENGTH_SIZE = 4;
+	static final int CHECKSUM_SIZE = 4;
+
+	static final byte SCANNED = 1; // price (long), weight (double), barcode
+	static final byte UNSCANNED = 2; // barcode
+	static final byte BAG_VERIFIED = 3; // weight (double)
+	static final byte CHARGED = 4; // amount (long)
+	static final byte COIN_ACCEPTED = 5; // value (long)
+	static final byte BANKNOTE_ACCEPTED = 6; // value (long)
+	static final byte CARD_APPROVED = 7; // no fields
+
+	static final int MAX_DIGITS = 48; // The most a barcode can have
+	static final int MAX_BODY_SIZE = 1 + 8 + 8 + 1 + MAX_DIGITS;
+
+	private JournalFormat() {}
+}
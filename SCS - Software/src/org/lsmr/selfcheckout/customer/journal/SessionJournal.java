@@ -0,0 +1,614 @@
+package org.lsmr.selfcheckout.customer.journal;
+
+import static org.lsmr.selfcheckout.customer.journal.JournalFormat.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Currency;
+import java.util.zip.CRC32;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * An append-only record of the events of a checkout session, kept in a file so
+ * that the session can be rebuilt if the station's software dies. See
+ * {@link JournalFormat} for the layout.
+ * <p>
+ * The file is preallocated one segment at a time and memory-mapped, so
+ * appending a record copies it into memory and makes no system call. Once
+ * copied, a record survives the death of the JVM. A background thread forces
+ * records to the device so they also survive the loss of the machine; the
+ * records appended within one commit interval share a single force. Call
+ * {@link #sync()} to wait until everything appended so far is on the device.
+ * </p>
+ * <p>
+ * Opening an existing journal keeps every whole record and discards any record
+ * torn by a crash, so appending can go on where the session left off. Call
+ * {@link #reset()} when a session is complete.
+ * </p>
+ */
+public class SessionJournal implements Closeable {
+	/**
+	 * The number of bytes the file is grown by when it fills.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+	/**
+	 * The milliseconds records wait for others to join their commit.
+	 */
+	public static final long DEFAULT_COMMIT_INTERVAL = 2;
+
+	private final FileChannel channel;
+	private final Currency currency;
+	private final int segmentSize;
+	private final long commitInterval;
+	private final byte[] body = new byte[MAX_BODY_SIZE];
+	private final ByteBuffer view = ByteBuffer.wrap(body);
+	private final CRC32 crc = new CRC32();
+	private final Thread flusher;
+
+	private MappedByteBuffer buffer;
+	private int position; // Where the next record goes
+	private long appended; // Bytes appended since the journal was opened
+	private long durable; // Bytes of those known to be on the device
+	private boolean closed;
+	private RuntimeException failure; // Why the flusher stopped, if it did
+
+	private SessionJournal(FileChannel channel, Currency currency, int segmentSize, long commitInterval)
+		throws IOException {
+		this.channel = channel;
+		this.currency = currency;
+		this.segmentSize = segmentSize;
+		this.commitInterval = commitInterval;
+
+		long size = channel.size();
+
+		if(size > Integer.MAX_VALUE)
+			throw new IOException("The journal file is too large.");
+
+		int capacity = (int)Math.max(size, segmentSize);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		byte[] code = currency.getCurrencyCode().getBytes(StandardCharsets.US_ASCII);
+
+		if(size == 0) {
+			buffer.putInt(MAGIC_OFFSET, MAGIC);
+			buffer.putInt(VERSION_OFFSET, VERSION);
+			for(int i = 0; i < CURRENCY_LENGTH; i++)
+				buffer.put(CURRENCY_OFFSET + i, code[i]);
+			position = HEADER_SIZE;
+		}
+		else {
+			if(size < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC)
+				throw new IOException("The file is not a session journal.");
+
+			if(buffer.getInt(VERSION_OFFSET) != VERSION)
+				throw new IOException("Unsupported session journal version " + buffer.getInt(VERSION_OFFSET) + ".");
+
+			for(int i = 0; i < CURRENCY_LENGTH; i++)
+				if(buffer.get(CURRENCY_OFFSET + i) != code[i])
+					throw new IOException("The journal is not in " + currency + ".");
+
+			position = HEADER_SIZE;
+			for(int end = next(position); end != -1; end = next(position))
+				position = end;
+
+			// Clear whatever follows the last whole record, so the remains of a torn
+			// record cannot be read as part of a later one
+			zero(position, capacity);
+		}
+
+		buffer.force();
+		flusher = new Thread(this::flush, "session-journal");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Opens the indicated journal, creating it if it does not exist, with the
+	 * default segment size and commit interval.
+	 *
+	 * @param file
+	 *            The journal file.
+	 * @param currency
+	 *            The currency of the station.
+	 * @return The journal.
+	 * @throws IOException
+	 *             If the file cannot be opened or is not a journal in the
+	 *             currency.
+	 * @throws SimulationException
+	 *             If an argument is null.
+	 */
+	public static SessionJournal open(Path file, Currency currency) throws IOException {
+		return open(file, currency, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL);
+	}
+
+	/**
+	 * Opens the indicated journal, creating it if it does not exist.
+	 *
+	 * @param file
+	 *            The journal file.
+	 * @param currency
+	 *            The currency of the station.
+	 * @param segmentSize
+	 *            The number of bytes the file is grown by when it fills.
+	 * @param commitInterval
+	 *            The milliseconds records wait for others to join their commit;
+	 *            0 to force each batch as soon as it is seen.
+	 * @return The journal.
+	 * @throws IOException
+	 *             If the file cannot be opened or is not a journal in the
+	 *             currency.
+	 * @throws SimulationException
+	 *             If an argument is null or out of range.
+	 */
+	public static SessionJournal open(Path file, Currency currency, int segmentSize, long commitInterval)
+		throws IOException {
+		if(file == null)
+			throw new SimulationException(new NullPointerException("file is null"));
+
+		if(currency == null)
+			throw new SimulationException(new NullPointerException("currency is null"));
+
+		if(segmentSize < HEADER_SIZE + LENGTH_SIZE + MAX_BODY_SIZE + CHECKSUM_SIZE)
+			throw new SimulationException(new IllegalArgumentException("The segment is too small to hold a record."));
+
+		if(commitInterval < 0)
+			throw new SimulationException(new IllegalArgumentException("The commit interval cannot be negative."));
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE);
+
+		try {
+			return new SessionJournal(channel, currency, segmentSize, commitInterval);
+		}
+		catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the currency amounts are recorded in.
+	 *
+	 * @return The currency.
+	 */
+	public Currency getCurrency() {
+		return currency;
+	}
+
+	/**
+	 * Determines whether any events have been journalled since the journal was
+	 * created or last reset.
+	 *
+	 * @return true if there are none.
+	 */
+	public synchronized boolean isEmpty() {
+		return position == HEADER_SIZE;
+	}
+
+	/**
+	 * Records that a unit was added to the cart.
+	 *
+	 * @param barcode
+	 *            The barcode scanned.
+	 * @param unitPrice
+	 *            The price the unit was charged at.
+	 * @param unitWeight
+	 *            The expected weight of the unit in grams.
+	 * @throws SimulationException
+	 *             If an argument is null, the price is in another currency or the
+	 *             journal is closed.
+	 */
+	public synchronized void scanned(Barcode barcode, Money unitPrice, double unitWeight) {
+		body[0] = SCANNED;
+		view.putLong(1, minorUnits(unitPrice));
+		view.putDouble(9, unitWeight);
+		append(putBarcode(17, barcode));
+	}
+
+	/**
+	 * Records that a unit was taken out of the cart.
+	 *
+	 * @param barcode
+	 *            The barcode of the unit.
+	 * @throws SimulationException
+	 *             If the barcode is null or the journal is closed.
+	 */
+	public synchronized void unscanned(Barcode barcode) {
+		body[0] = UNSCANNED;
+		append(putBarcode(1, barcode));
+	}
+
+	/**
+	 * Records that the attendant accepted the customer's own bag.
+	 *
+	 * @param weight
+	 *            The weight of the bag in grams.
+	 * @throws SimulationException
+	 *             If the journal is closed.
+	 */
+	public synchronized void bagVerified(double weight) {
+		body[0] = BAG_VERIFIED;
+		view.putDouble(1, weight);
+		append(9);
+	}
+
+	/**
+	 * Records that the customer was charged for the cart.
+	 *
+	 * @param amount
+	 *            The amount charged.
+	 * @throws SimulationException
+	 *             If the amount is null or in another currency, or the journal
+	 *             is closed.
+	 */
+	public synchronized void charged(Money amount) {
+		appendMoney(CHARGED, amount);
+	}
+
+	/**
+	 * Records that a coin was accepted as payment.
+	 *
+	 * @param value
+	 *            The value of the coin.
+	 * @throws SimulationException
+	 *             If the value is null or in another currency, or the journal
+	 *             is closed.
+	 */
+	public synchronized void coinAccepted(Money value) {
+		appendMoney(COIN_ACCEPTED, value);
+	}
+
+	/**
+	 * Records that a banknote was accepted as payment.
+	 *
+	 * @param value
+	 *            The value of the banknote.
+	 * @throws SimulationException
+	 *             If the value is null or in another currency, or the journal
+	 *             is closed.
+	 */
+	public synchronized void banknoteAccepted(Money value) {
+		appendMoney(BANKNOTE_ACCEPTED, value);
+	}
+
+	/**
+	 * Records that a card payment of the whole balance was approved.
+	 *
+	 * @throws SimulationException
+	 *             If the journal is closed.
+	 */
+	public synchronized void cardApproved() {
+		body[0] = CARD_APPROVED;
+		append(1);
+	}
+
+	/**
+	 * Announces every event journalled since the journal was created or last
+	 * reset, in order. Events the listener journals while this runs are not
+	 * announced.
+	 *
+	 * @param listener
+	 *            The listener to announce the events to.
+	 * @return The number of events announced.
+	 * @throws SimulationException
+	 *             If the listener is null.
+	 */
+	public synchronized int replay(SessionJournalListener listener) {
+		if(listener == null)
+			throw new SimulationException(new NullPointerException("listener is null"));
+
+		int limit = position;
+		int count = 0;
+
+		for(int at = HEADER_SIZE; at < limit; count++) {
+			int length = buffer.getInt(at);
+			at = next(at);
+			announce(listener, length);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Waits until every event journalled so far is on the device.
+	 *
+	 * @throws SimulationException
+	 *             If the events could not be forced to the device.
+	 */
+	public synchronized void sync() {
+		long mark = appended;
+		boolean interrupted = false;
+
+		// Cut the current commit interval short
+		notifyAll();
+
+		while(durable < mark && failure == null) {
+			try {
+				wait();
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if(interrupted)
+			Thread.currentThread().interrupt();
+
+		if(durable < mark)
+			throw new SimulationException(failure);
+	}
+
+	/**
+	 * Discards every event, to start a new session. This forces the journal to
+	 * the device before returning.
+	 *
+	 * @throws SimulationException
+	 *             If the journal is closed.
+	 */
+	public synchronized void reset() {
+		checkOpen();
+		zero(HEADER_SIZE, position);
+		position = HEADER_SIZE;
+		buffer.force();
+		durable = appended;
+		notifyAll();
+	}
+
+	/**
+	 * Forces every event to the device and closes the file. Further events
+	 * cannot be journalled.
+	 *
+	 * @throws IOException
+	 *             If the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized(this) {
+			if(closed)
+				return;
+
+			closed = true;
+			notifyAll();
+		}
+
+		boolean interrupted = false;
+
+		while(flusher.isAlive()) {
+			try {
+				flusher.join();
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if(interrupted)
+			Thread.currentThread().interrupt();
+
+		synchronized(this) {
+			if(durable < appended) {
+				buffer.force();
+				durable = appended;
+			}
+		}
+
+		channel.close();
+	}
+
+	// Forces batches of records to the device until the journal is closed
+	private void flush() {
+		try {
+			while(true) {
+				MappedByteBuffer target;
+				long mark;
+
+				synchronized(this) {
+					while(!closed && durable == appended)
+						wait();
+
+					if(durable == appended)
+						return;
+
+					// Let the records of the next few milliseconds join this commit
+					if(!closed && commitInterval > 0)
+						wait(commitInterval);
+
+					target = buffer;
+					mark = appended;
+				}
+
+				try {
+					target.force();
+				}
+				catch(RuntimeException e) {
+					synchronized(this) {
+						failure = e;
+						notifyAll();
+					}
+					return;
+				}
+
+				synchronized(this) {
+					if(durable < mark)
+						durable = mark;
+					notifyAll();
+				}
+			}
+		}
+		catch(InterruptedException e) {
+			// Only close stops the flusher; close forces whatever is left
+		}
+	}
+
+	// Appends the record whose body of length bytes is in body
+	private void append(int length) {
+		checkOpen();
+
+		int size = LENGTH_SIZE + length + CHECKSUM_SIZE;
+
+		if(position + size > buffer.capacity())
+			grow(position + size);
+
+		crc.reset();
+		crc.update(body, 0, length);
+		buffer.putInt(position, length);
+		buffer.position(position + LENGTH_SIZE);
+		buffer.put(body, 0, length);
+		buffer.putInt((int)crc.getValue());
+		position += size;
+
+		// Wake the flusher only for the first record of a batch
+		boolean clean = durable == appended;
+		appended += size;
+
+		if(clean)
+			notifyAll();
+	}
+
+	private void appendMoney(byte type, Money amount) {
+		body[0] = type;
+		view.putLong(1, minorUnits(amount));
+		append(9);
+	}
+
+	// Maps more of the file, in whole segments, to hold at least needed bytes
+	private void grow(long needed) {
+		long capacity = buffer.capacity();
+
+		while(capacity < needed)
+			capacity += segmentSize;
+
+		if(capacity > Integer.MAX_VALUE)
+			throw new SimulationException(new IllegalStateException("The journal is full."));
+
+		// The new mapping covers the old one, so this makes no system call on the
+		// scan path; a flusher still forcing the old mapping holds it as its target
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		}
+		catch(IOException e) {
+			throw new SimulationException(e);
+		}
+	}
+
+	private long minorUnits(Money amount) {
+		if(amount == null)
+			throw new SimulationException(new NullPointerException("amount is null"));
+
+		if(!amount.getCurrency().equals(currency))
+			throw new SimulationException(new IllegalArgumentException("The amount is not in " + currency + "."));
+
+		return amount.getMinorUnits();
+	}
+
+	// Writes the barcode into body at offset and returns the offset after it
+	private int putBarcode(int offset, Barcode barcode) {
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		int count = barcode.digitCount();
+		body[offset++] = (byte)count;
+
+		for(int i = 0; i < count; i++)
+			body[offset++] = (byte)('0' + barcode.getDigitAt(i).getValue());
+
+		return offset;
+	}
+
+	// Checks the record at the offset, copying its body into body, and returns
+	// the offset after it, or -1 if there is no whole record there
+	private int next(int at) {
+		int capacity = buffer.capacity();
+
+		if(at + LENGTH_SIZE > capacity)
+			return -1;
+
+		int length = buffer.getInt(at);
+
+		if(length < 1 || length > MAX_BODY_SIZE || (long)at + LENGTH_SIZE + length + CHECKSUM_SIZE > capacity)
+			return -1;
+
+		for(int i = 0; i < length; i++)
+			body[i] = buffer.get(at + LENGTH_SIZE + i);
+
+		crc.reset();
+		crc.update(body, 0, length);
+
+		if((int)crc.getValue() != buffer.getInt(at + LENGTH_SIZE + length) || !wellFormed(length))
+			return -1;
+
+		return at + LENGTH_SIZE + length + CHECKSUM_SIZE;
+	}
+
+	// Determines whether the body of length bytes in body holds a known record
+	private boolean wellFormed(int length) {
+		switch(body[0]) {
+		case SCANNED:
+			return length > 18 && length == 18 + body[17] && body[17] <= MAX_DIGITS;
+		case UNSCANNED:
+			return length > 2 && length == 2 + body[1] && body[1] <= MAX_DIGITS;
+		case BAG_VERIFIED:
+		case CHARGED:
+		case COIN_ACCEPTED:
+		case BANKNOTE_ACCEPTED:
+			return length == 9;
+		case CARD_APPROVED:
+			return length == 1;
+		default:
+			return false;
+		}
+	}
+
+	// Announces the record whose body is in body
+	private void announce(SessionJournalListener listener, int length) {
+		switch(body[0]) {
+		case SCANNED:
+			Money price = Money.ofMinor(currency, view.getLong(1));
+			double weight = view.getDouble(9);
+			listener.scanned(Barcode.parse(body, 18, length - 18), price, weight);
+			break;
+		case UNSCANNED:
+			listener.unscanned(Barcode.parse(body, 2, length - 2));
+			break;
+		case BAG_VERIFIED:
+			listener.bagVerified(view.getDouble(1));
+			break;
+		case CHARGED:
+			listener.charged(Money.ofMinor(currency, view.getLong(1)));
+			break;
+		case COIN_ACCEPTED:
+			listener.coinAccepted(Money.ofMinor(currency, view.getLong(1)));
+			break;
+		case BANKNOTE_ACCEPTED:
+			listener.banknoteAccepted(Money.ofMinor(currency, view.getLong(1)));
+			break;
+		default:
+			listener.cardApproved();
+			break;
+		}
+	}
+
+	private void zero(int from, int to) {
+		int i = from;
+
+		for(; i + 8 <= to; i += 8)
+			buffer.putLong(i, 0);
+
+		for(; i < to; i++)
+			buffer.put(i, (byte)0);
+	}
+
+	private void checkOpen() {
+		if(closed)
+			throw new SimulationException(new IllegalStateException("The journal is closed."));
+	}
+}
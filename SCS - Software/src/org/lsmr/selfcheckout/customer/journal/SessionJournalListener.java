@@ -0,0 +1,67 @@
+package org.lsmr.selfcheckout.customer.journal;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.Money;
+
+/**
+ * Receives the events of a session, in the order they were journalled, when a
+ * {@link SessionJournal} is replayed.
+ */
+public interface SessionJournalListener {
+	/**
+	 * Announces that a unit was added to the cart.
+	 *
+	 * @param barcode
+	 *            The barcode scanned.
+	 * @param unitPrice
+	 *            The price the unit was charged at.
+	 * @param unitWeight
+	 *            The expected weight of the unit in grams.
+	 */
+	void scanned(Barcode barcode, Money unitPrice, double unitWeight);
+
+	/**
+	 * Announces that a unit was taken out of the cart.
+	 *
+	 * @param barcode
+	 *            The barcode of the unit.
+	 */
+	void unscanned(Barcode barcode);
+
+	/**
+	 * Announces that the attendant accepted the customer's own bag.
+	 *
+	 * @param weight
+	 *            The weight of the bag in grams.
+	 */
+	void bagVerified(double weight);
+
+	/**
+	 * Announces that the customer was charged for the cart.
+	 *
+	 * @param amount
+	 *            The amount charged.
+	 */
+	void charged(Money amount);
+
+	/**
+	 * Announces that a coin was accepted as payment.
+	 *
+	 * @param value
+	 *            The value of the coin.
+	 */
+	void coinAccepted(Money value);
+
+	/**
+	 * Announces that a banknote was accepted as payment.
+	 *
+	 * @param value
+	 *            The value of the banknote.
+	 */
+	void banknoteAccepted(Money value);
+
+	/**
+	 * Announces that a card payment of the whole balance was approved.
+	 */
+	void cardApproved();
+}
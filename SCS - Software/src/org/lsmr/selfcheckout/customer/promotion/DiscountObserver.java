@@ -0,0 +1,21 @@
+package org.lsmr.selfcheckout.customer.promotion;
+
+import org.lsmr.selfcheckout.Barcode;
+
+/**
+ * Observes how the discount earned by a cart is shared among its products.
+ */
+public interface DiscountObserver {
+	/**
+	 * An event announcing that the part of the discount taken off a product
+	 * changed.
+	 * 
+	 * @param engine
+	 *            The engine that keeps the discount.
+	 * @param barcode
+	 *            The barcode of the product.
+	 * @param change
+	 *            The change in minor units; positive when more is taken off.
+	 */
+	void discountChanged(PromotionEngine engine, Barcode barcode, long change);
+}
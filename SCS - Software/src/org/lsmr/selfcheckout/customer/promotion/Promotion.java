@@ -0,0 +1,244 @@
+package org.lsmr.selfcheckout.customer.promotion;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * A deal selling a number of units from a set of products for a fixed price,
+ * such as "3 for $5" on one product (a multi-buy) or "any 2 of these for $6"
+ * (a mix-and-match). Units are grouped most expensive first, which gives the
+ * customer the largest discount; a group that would cost more under the deal
+ * than at its scanned prices is not formed.
+ */
+public final class Promotion {
+	private final String name;
+	private final Barcode[] members;
+	private final int quantity;
+	private final Money price;
+
+	private Promotion(String name, Barcode[] members, int quantity, Money price) {
+		if(name == null)
+			throw new SimulationException(new NullPointerException("name is null"));
+
+		if(price == null)
+			throw new SimulationException(new NullPointerException("price is null"));
+
+		if(quantity < 1)
+			throw new SimulationException(new IllegalArgumentException("The quantity must be at least 1."));
+
+		if(price.signum() < 0)
+			throw new SimulationException(new IllegalArgumentException("The price cannot be negative."));
+
+		if(members.length == 0)
+			throw new SimulationException(new IllegalArgumentException("A promotion needs at least one product."));
+
+		for(int i = 0; i < members.length; i++) {
+			if(members[i] == null)
+				throw new SimulationException(new NullPointerException("barcodes[" + i + "] is null"));
+
+			for(int j = 0; j < i; j++)
+				if(members[j].equals(members[i]))
+					throw new SimulationException(new IllegalArgumentException("Duplicate barcode: " + members[i]));
+		}
+
+		this.name = name;
+		this.members = members;
+		this.quantity = quantity;
+		this.price = price;
+	}
+
+	/**
+	 * Creates a multi-buy: every group of a number of units of one product
+	 * costs a fixed price.
+	 *
+	 * @param name
+	 *            The name printed on the receipt.
+	 * @param barcode
+	 *            The barcode of the product.
+	 * @param quantity
+	 *            The number of units in a group, &ge;1.
+	 * @param price
+	 *            The price of a group, &ge;0.
+	 * @return The promotion.
+	 * @throws SimulationException
+	 *             If an argument is null or out of range.
+	 */
+	public static Promotion multiBuy(String name, Barcode barcode, int quantity, Money price) {
+		return new Promotion(name, new Barcode[] { barcode }, quantity, price);
+	}
+
+	/**
+	 * Creates a mix-and-match: every group of a number of units from any of
+	 * several products costs a fixed price.
+	 *
+	 * @param name
+	 *            The name printed on the receipt.
+	 * @param quantity
+	 *            The number of units in a group, &ge;1.
+	 * @param price
+	 *            The price of a group, &ge;0.
+	 * @param barcodes
+	 *            The barcodes of the products, without duplicates.
+	 * @return The promotion.
+	 * @throws SimulationException
+	 *             If an argument is null or out of range.
+	 */
+	public static Promotion mixAndMatch(String name, int quantity, Money price, Barcode... barcodes) {
+		if(barcodes == null)
+			throw new SimulationException(new NullPointerException("barcodes is null"));
+
+		return new Promotion(name, barcodes.clone(), quantity, price);
+	}
+
+	/**
+	 * Gets the name printed on the receipt.
+	 *
+	 * @return The name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the number of units in a group.
+	 *
+	 * @return The quantity.
+	 */
+	public int getQuantity() {
+		return quantity;
+	}
+
+	/**
+	 * Gets the price of a group.
+	 *
+	 * @return The price.
+	 */
+	public Money getPrice() {
+		return price;
+	}
+
+	/**
+	 * Gets the number of products the promotion applies to.
+	 *
+	 * @return The number of products.
+	 */
+	public int getMemberCount() {
+		return members.length;
+	}
+
+	/**
+	 * Gets a product the promotion applies to.
+	 *
+	 * @param index
+	 *            The index of the product, &ge;0 and &lt;{@link #getMemberCount()}.
+	 * @return The barcode of the product.
+	 */
+	public Barcode getMember(int index) {
+		return members[index];
+	}
+
+	/**
+	 * Computes the discount for the units of each product in a cart. This does
+	 * not allocate, and takes time in the number of products rather than units.
+	 *
+	 * @param counts
+	 *            The number of units of each product, by member index.
+	 * @param unitPrices
+	 *            The unit price of each product in minor units, by member index.
+	 * @param order
+	 *            Scratch space as long as the number of products.
+	 * @param shares
+	 *            Filled with the part of the discount taken off each product,
+	 *            by member index. A group that spans products shares its saving
+	 *            in proportion to what each paid toward it.
+	 * @return The discount in minor units, &ge;0.
+	 */
+	long discount(int[] counts, long[] unitPrices, int[] order, long[] shares) {
+		int n = members.length;
+		long units = 0;
+
+		for(int i = 0; i < n; i++) {
+			units += counts[i];
+			shares[i] = 0;
+
+			// Insertion sort, most expensive first; there are few members
+			int j = i;
+
+			while(j > 0 && unitPrices[order[j - 1]] < unitPrices[i]) {
+				order[j] = order[j - 1];
+				j--;
+			}
+
+			order[j] = i;
+		}
+
+		long groups = units / quantity;
+		long groupPrice = price.getMinorUnits();
+		long discount = 0;
+		int member = 0;
+		long left = counts[order[0]];
+
+		while(groups > 0) {
+			while(left == 0)
+				left = counts[order[++member]];
+
+			long unitPrice = unitPrices[order[member]];
+
+			// Every group that fits in the current product saves the same
+			if(left >= quantity) {
+				long saving = unitPrice * quantity - groupPrice;
+
+				if(saving <= 0)
+					break;
+
+				long whole = Math.min(groups, left / quantity);
+				discount += whole * saving;
+				shares[order[member]] += whole * saving;
+				groups -= whole;
+				left -= whole * quantity;
+				continue;
+			}
+
+			// Otherwise the group spans products
+			int first = member;
+			long firstLeft = left;
+			long cost = 0;
+
+			for(int need = quantity; need > 0;) {
+				while(left == 0)
+					left = counts[order[++member]];
+
+				long take = Math.min(left, need);
+				cost += take * unitPrices[order[member]];
+				left -= take;
+				need -= take;
+			}
+
+			if(cost <= groupPrice)
+				break;
+
+			long saving = cost - groupPrice;
+			discount += saving;
+			groups--;
+
+			// Walk the group again to share its saving; the last product takes the remainder
+			long given = 0;
+			left = firstLeft;
+
+			for(int need = quantity; need > 0;) {
+				while(left == 0)
+					left = counts[order[++first]];
+
+				long take = Math.min(left, need);
+				left -= take;
+				need -= take;
+				long share = need == 0 ? saving - given : saving * take * unitPrices[order[first]] / cost;
+				shares[order[first]] += share;
+				given += share;
+			}
+		}
+
+		return discount;
+	}
+}
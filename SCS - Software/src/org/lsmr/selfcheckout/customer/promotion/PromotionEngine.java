@@ -0,0 +1,200 @@
+package org.lsmr.selfcheckout.customer.promotion;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.cart.Cart;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.cart.CartObserver;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * Keeps the discount earned by a cart under the promotions of a
+ * {@link PromotionTable}. Attached to a cart, it is told of each change of a
+ * line and reevaluates only the promotions that line's product takes part in,
+ * so the total discount is always current without a pass over the cart.
+ * <p>
+ * The discount of each promotion is shared among the products it was earned
+ * on, and {@link DiscountObserver}s are told as the shares change, so that tax
+ * can be charged on what the customer pays.
+ * </p>
+ */
+public class PromotionEngine implements CartObserver {
+	/**
+	 * A discount earned under one promotion.
+	 */
+	public static final class Discount {
+		private final Promotion promotion;
+		private final Money amount;
+
+		private Discount(Promotion promotion, Money amount) {
+			this.promotion = promotion;
+			this.amount = amount;
+		}
+
+		/**
+		 * Gets the promotion.
+		 *
+		 * @return The promotion.
+		 */
+		public Promotion getPromotion() {
+			return promotion;
+		}
+
+		/**
+		 * Gets the discount.
+		 *
+		 * @return The amount taken off, &gt;0.
+		 */
+		public Money getAmount() {
+			return amount;
+		}
+	}
+
+	private final PromotionTable table;
+	private final Currency currency;
+	private final int[][] counts;
+	private final long[][] unitPrices;
+	private final int[][] orders;
+	private final long[][] shares;
+	private final long[] newShares;
+	private final long[] discounts;
+	private long total;
+	private ArrayList<DiscountObserver> observers = new ArrayList<DiscountObserver>();
+
+	/**
+	 * Creates an engine for an empty cart.
+	 *
+	 * @param table
+	 *            The promotions.
+	 * @param currency
+	 *            The currency of the cart.
+	 * @throws SimulationException
+	 *             If an argument is null or a promotion is priced in another
+	 *             currency.
+	 */
+	public PromotionEngine(PromotionTable table, Currency currency) {
+		if(table == null)
+			throw new SimulationException(new NullPointerException("table is null"));
+
+		if(currency == null)
+			throw new SimulationException(new NullPointerException("currency is null"));
+
+		this.table = table;
+		this.currency = currency;
+
+		int n = table.size();
+		counts = new int[n][];
+		unitPrices = new long[n][];
+		orders = new int[n][];
+		shares = new long[n][];
+		discounts = new long[n];
+		int widest = 0;
+
+		for(int p = 0; p < n; p++) {
+			Promotion promotion = table.get(p);
+
+			if(!promotion.getPrice().getCurrency().equals(currency))
+				throw new SimulationException(
+					new IllegalArgumentException("The promotion " + promotion.getName() + " is not priced in " + currency + "."));
+
+			counts[p] = new int[promotion.getMemberCount()];
+			unitPrices[p] = new long[promotion.getMemberCount()];
+			orders[p] = new int[promotion.getMemberCount()];
+			shares[p] = new long[promotion.getMemberCount()];
+			widest = Math.max(widest, promotion.getMemberCount());
+		}
+
+		newShares = new long[widest];
+	}
+
+	/**
+	 * Attaches an observer of the shares of the discount. The observer is told
+	 * the current share of each product at once, so it starts up to date.
+	 *
+	 * @param observer
+	 *            The observer to attach.
+	 * @throws SimulationException
+	 *             If observer is null.
+	 */
+	public void attach(DiscountObserver observer) {
+		if(observer == null)
+			throw new SimulationException(new NullPointerException("observer is null"));
+
+		observers.add(observer);
+
+		for(int p = 0; p < shares.length; p++)
+			for(int m = 0; m < shares[p].length; m++)
+				if(shares[p][m] != 0)
+					observer.discountChanged(this, table.get(p).getMember(m), shares[p][m]);
+	}
+
+	/**
+	 * Detaches an observer of the shares of the discount.
+	 *
+	 * @param observer
+	 *            The observer to detach.
+	 * @return true if the observer was attached.
+	 */
+	public boolean detach(DiscountObserver observer) {
+		return observers.remove(observer);
+	}
+
+	@Override
+	public void lineChanged(Cart cart, CartLine line, int previousQuantity) {
+		int[] postings = table.postings(line.getBarcode());
+
+		if(postings == null)
+			return;
+
+		for(int i = 0; i < postings.length; i += 2) {
+			int p = postings[i];
+			int m = postings[i + 1];
+			counts[p][m] = line.getQuantity();
+			unitPrices[p][m] = line.getUnitPrice().getMinorUnits();
+
+			Promotion promotion = table.get(p);
+			long discount = promotion.discount(counts[p], unitPrices[p], orders[p], newShares);
+			total += discount - discounts[p];
+			discounts[p] = discount;
+
+			for(int k = 0; k < shares[p].length; k++) {
+				long change = newShares[k] - shares[p][k];
+
+				if(change == 0)
+					continue;
+
+				shares[p][k] = newShares[k];
+
+				for(int o = 0; o < observers.size(); o++)
+					observers.get(o).discountChanged(this, promotion.getMember(k), change);
+			}
+		}
+	}
+
+	/**
+	 * Gets the discount earned under every promotion.
+	 *
+	 * @return The total discount.
+	 */
+	public Money getDiscount() {
+		return Money.ofMinor(currency, total);
+	}
+
+	/**
+	 * Lists the promotions that earned a discount, in table order.
+	 *
+	 * @return The discounts.
+	 */
+	public List<Discount> getDiscounts() {
+		List<Discount> list = new ArrayList<>();
+
+		for(int p = 0; p < discounts.length; p++)
+			if(discounts[p] != 0)
+				list.add(new Discount(table.get(p), Money.ofMinor(currency, discounts[p])));
+
+		return list;
+	}
+}
@@ -0,0 +1,123 @@
+package org.lsmr.selfcheckout.customer.promotion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcodeIndex;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * The promotions running on a lane, compiled into an index from each product
+ * to the promotions it takes part in. The table is immutable, so one table can
+ * serve every session; the state of a session is kept by a
+ * {@link PromotionEngine}.
+ */
+public class PromotionTable {
+	private final Promotion[] promotions;
+	private final PackedBarcodeIndex index;
+	private final Map<Barcode, Integer> unpacked; // Barcodes too long to pack
+	private final int[][] postings;
+
+	/**
+	 * Compiles a table.
+	 *
+	 * @param promotions
+	 *            The promotions, in the order they are to be listed on the
+	 *            receipt.
+	 * @throws SimulationException
+	 *             If promotions or any of its elements is null.
+	 */
+	public PromotionTable(List<Promotion> promotions) {
+		if(promotions == null)
+			throw new SimulationException(new NullPointerException("promotions is null"));
+
+		this.promotions = promotions.toArray(new Promotion[promotions.size()]);
+
+		// Gather the (promotion, member) pairs of each product, in promotion order
+		Map<Barcode, List<Integer>> pairs = new LinkedHashMap<>();
+
+		for(int p = 0; p < this.promotions.length; p++) {
+			Promotion promotion = this.promotions[p];
+
+			if(promotion == null)
+				throw new SimulationException(new NullPointerException("promotions[" + p + "] is null"));
+
+			for(int m = 0; m < promotion.getMemberCount(); m++) {
+				List<Integer> list = pairs.computeIfAbsent(promotion.getMember(m), barcode -> new ArrayList<>());
+				list.add(p);
+				list.add(m);
+			}
+		}
+
+		index = new PackedBarcodeIndex(pairs.size());
+		unpacked = new HashMap<>();
+		postings = new int[pairs.size()][];
+		int i = 0;
+
+		for(Map.Entry<Barcode, List<Integer>> entry : pairs.entrySet()) {
+			List<Integer> list = entry.getValue();
+			int[] posting = new int[list.size()];
+
+			for(int j = 0; j < posting.length; j++)
+				posting[j] = list.get(j);
+
+			postings[i] = posting;
+			long packed = PackedBarcode.pack(entry.getKey());
+
+			if(packed != PackedBarcode.NONE)
+				index.put(packed, i);
+			else
+				unpacked.put(entry.getKey(), i);
+
+			i++;
+		}
+	}
+
+	/**
+	 * Gets the number of promotions.
+	 *
+	 * @return The number of promotions.
+	 */
+	public int size() {
+		return promotions.length;
+	}
+
+	/**
+	 * Gets a promotion.
+	 *
+	 * @param index
+	 *            The index of the promotion, &ge;0 and &lt;{@link #size()}.
+	 * @return The promotion.
+	 */
+	public Promotion get(int index) {
+		return promotions[index];
+	}
+
+	/**
+	 * Finds the promotions a product takes part in. This does not allocate.
+	 *
+	 * @param barcode
+	 *            The barcode of the product.
+	 * @return Pairs of promotion index and member index, or null if the product
+	 *         is in no promotion. The array must not be changed.
+	 */
+	int[] postings(Barcode barcode) {
+		long packed = PackedBarcode.pack(barcode);
+		int i;
+
+		if(packed != PackedBarcode.NONE)
+			i = index.get(packed);
+		else {
+			Integer found = unpacked.get(barcode);
+			i = found == null ? ProductCatalog.NOT_FOUND : found;
+		}
+
+		return i == ProductCatalog.NOT_FOUND ? null : postings[i];
+	}
+}
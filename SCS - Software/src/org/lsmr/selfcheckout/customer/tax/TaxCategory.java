@@ -0,0 +1,158 @@
+package org.lsmr.selfcheckout.customer.tax;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * A class of goods taxed at one rate, such as standard-rated, reduced-rated or
+ * zero-rated goods. Tax is charged on the subtotal of the category and rounded
+ * to the minor unit once, rather than per item. The rate is resolved into an
+ * integer fraction when the category is created, so computing tax takes a
+ * multiply and a divide on longs.
+ */
+public final class TaxCategory {
+	private final String name;
+	private final BigDecimal rate;
+	private final RoundingMode rounding;
+	private final long numerator;
+	private final long denominator;
+
+	/**
+	 * Creates a category whose tax is rounded half up.
+	 *
+	 * @param name
+	 *            The name printed on the receipt.
+	 * @param rate
+	 *            The rate as a fraction, e.g., 0.05 for 5%; &ge;0.
+	 * @throws SimulationException
+	 *             If an argument is null or out of range.
+	 */
+	public TaxCategory(String name, BigDecimal rate) {
+		this(name, rate, RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * Creates a category.
+	 *
+	 * @param name
+	 *            The name printed on the receipt.
+	 * @param rate
+	 *            The rate as a fraction, e.g., 0.05 for 5%; &ge;0, with at most
+	 *            9 decimal places.
+	 * @param rounding
+	 *            How tax is rounded to the minor unit. It cannot be
+	 *            {@link RoundingMode#UNNECESSARY}.
+	 * @throws SimulationException
+	 *             If an argument is null or out of range.
+	 */
+	public TaxCategory(String name, BigDecimal rate, RoundingMode rounding) {
+		if(name == null)
+			throw new SimulationException(new NullPointerException("name is null"));
+
+		if(rate == null)
+			throw new SimulationException(new NullPointerException("rate is null"));
+
+		if(rounding == null)
+			throw new SimulationException(new NullPointerException("rounding is null"));
+
+		if(rate.signum() < 0)
+			throw new SimulationException(new IllegalArgumentException("The rate cannot be negative."));
+
+		if(rounding == RoundingMode.UNNECESSARY)
+			throw new SimulationException(new IllegalArgumentException("Tax must be rounded."));
+
+		BigDecimal exact = rate.stripTrailingZeros();
+		int scale = Math.max(exact.scale(), 0);
+
+		if(scale > 9 || exact.compareTo(BigDecimal.ONE) > 0)
+			throw new SimulationException(
+				new IllegalArgumentException("The rate must be at most 1 with at most 9 decimal places."));
+
+		this.name = name;
+		this.rate = rate;
+		this.rounding = rounding;
+		this.numerator = exact.setScale(scale).unscaledValue().longValueExact();
+		this.denominator = BigDecimal.ONE.scaleByPowerOfTen(scale).longValueExact();
+	}
+
+	/**
+	 * Gets the name printed on the receipt.
+	 *
+	 * @return The name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the rate.
+	 *
+	 * @return The rate as a fraction.
+	 */
+	public BigDecimal getRate() {
+		return rate;
+	}
+
+	/**
+	 * Computes the tax on a subtotal. This does not allocate.
+	 *
+	 * @param subtotal
+	 *            The subtotal in minor units.
+	 * @return The tax in minor units, rounded per the category.
+	 * @throws SimulationException
+	 *             If the tax cannot be held in a long.
+	 */
+	public long tax(long subtotal) {
+		long product;
+
+		try {
+			product = Math.multiplyExact(subtotal, numerator);
+		}
+		catch(ArithmeticException e) {
+			throw new SimulationException(e);
+		}
+
+		long quotient = Math.floorDiv(product, denominator);
+		long remainder = product - quotient * denominator;
+
+		if(remainder == 0)
+			return quotient;
+
+		// quotient is rounded toward negative infinity; decide whether to step up
+		boolean up;
+		long twice = remainder * 2;
+
+		switch(rounding) {
+		case CEILING:
+			up = true;
+			break;
+		case FLOOR:
+			up = false;
+			break;
+		case UP:
+			up = product > 0;
+			break;
+		case DOWN:
+			up = product < 0;
+			break;
+		case HALF_UP:
+			up = twice > denominator || twice == denominator && product > 0;
+			break;
+		case HALF_DOWN:
+			up = twice > denominator || twice == denominator && product < 0;
+			break;
+		default: // HALF_EVEN
+			up = twice > denominator || twice == denominator && (quotient & 1) != 0;
+			break;
+		}
+
+		return up ? quotient + 1 : quotient;
+	}
+
+	@Override
+	public String toString() {
+		return name + " " + rate.movePointRight(2).stripTrailingZeros().toPlainString() + "%";
+	}
+}
@@ -0,0 +1,132 @@
+package org.lsmr.selfcheckout.customer.tax;
+
+import java.util.Currency;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.Money;
+import org.lsmr.selfcheckout.customer.cart.Cart;
+import org.lsmr.selfcheckout.customer.cart.CartLine;
+import org.lsmr.selfcheckout.customer.cart.CartObserver;
+import org.lsmr.selfcheckout.customer.promotion.DiscountObserver;
+import org.lsmr.selfcheckout.customer.promotion.PromotionEngine;
+import org.lsmr.selfcheckout.devices.SimulationException;
+import org.lsmr.selfcheckout.products.BarcodedProduct;
+
+/**
+ * Keeps the subtotal and tax of each category of a {@link TaxTable} for a
+ * cart. Attached to a cart, it is told of each change of a line and updates
+ * only that line's category, so the tax is always current.
+ * <p>
+ * Tax is charged on what the customer pays: attached to a
+ * {@link PromotionEngine} as well, the engine takes each product's share of
+ * the promotion discounts off its category before the category is taxed.
+ * </p>
+ */
+public class TaxEngine implements CartObserver, DiscountObserver {
+	private final TaxTable table;
+	private final Currency currency;
+	private final long[] subtotals;
+	private final long[] discounts;
+	private final long[] taxes;
+	private long total;
+
+	/**
+	 * Creates an engine for an empty cart.
+	 *
+	 * @param table
+	 *            The tax categories and the category of each product.
+	 * @param currency
+	 *            The currency of the cart.
+	 * @throws SimulationException
+	 *             If an argument is null.
+	 */
+	public TaxEngine(TaxTable table, Currency currency) {
+		if(table == null)
+			throw new SimulationException(new NullPointerException("table is null"));
+
+		if(currency == null)
+			throw new SimulationException(new NullPointerException("currency is null"));
+
+		this.table = table;
+		this.currency = currency;
+		subtotals = new long[table.size()];
+		discounts = new long[table.size()];
+		taxes = new long[table.size()];
+	}
+
+	@Override
+	public void lineChanged(Cart cart, CartLine line, int previousQuantity) {
+		// Variable-measure labels are taxed as the product they were priced from
+		BarcodedProduct product = line.getCatalog().getProduct(line.getSlot());
+		Barcode barcode = product == null ? line.getBarcode() : product.getBarcode();
+		int c = table.categoryOf(barcode);
+
+		subtotals[c] += line.getUnitPrice().getMinorUnits() * (line.getQuantity() - previousQuantity);
+		retax(c);
+	}
+
+	@Override
+	public void discountChanged(PromotionEngine engine, Barcode barcode, long change) {
+		int c = table.categoryOf(barcode);
+		discounts[c] += change;
+		retax(c);
+	}
+
+	private void retax(int c) {
+		long tax = table.get(c).tax(subtotals[c] - discounts[c]);
+		total += tax - taxes[c];
+		taxes[c] = tax;
+	}
+
+	/**
+	 * Gets the tax on the whole cart.
+	 *
+	 * @return The tax.
+	 */
+	public Money getTax() {
+		return Money.ofMinor(currency, total);
+	}
+
+	/**
+	 * Gets the tax table.
+	 *
+	 * @return The table.
+	 */
+	public TaxTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Gets the price of the units in a category.
+	 *
+	 * @param category
+	 *            The index of the category in the table.
+	 * @return The subtotal.
+	 */
+	public Money getSubtotal(int category) {
+		return Money.ofMinor(currency, subtotals[category]);
+	}
+
+	/**
+	 * Gets the part of the promotion discounts taken off the units in a
+	 * category.
+	 *
+	 * @param category
+	 *            The index of the category in the table.
+	 * @return The discount.
+	 */
+	public Money getDiscount(int category) {
+		return Money.ofMinor(currency, discounts[category]);
+	}
+
+	/**
+	 * Gets the tax on the units in a category, net of their discount.
+	 *
+	 * @param category
+	 *            The index of the category in the table.
+	 * @return The tax.
+	 */
+	public Money getTax(int category) {
+		return Money.ofMinor(currency, taxes[category]);
+	}
+}
@@ -0,0 +1,135 @@
+package org.lsmr.selfcheckout.customer.tax;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lsmr.selfcheckout.Barcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcode;
+import org.lsmr.selfcheckout.customer.catalog.PackedBarcodeIndex;
+import org.lsmr.selfcheckout.customer.catalog.ProductCatalog;
+import org.lsmr.selfcheckout.devices.SimulationException;
+
+/**
+ * The tax categories of a store and the category of each product. A product
+ * that was not assigned a category is in the default category, the first one.
+ * Products are assigned by the barcode they are held under in the catalog.
+ * Assign every product before the table is used by a {@link TaxEngine}; the
+ * table is not safe for assignment by multiple threads.
+ */
+public class TaxTable {
+	private final TaxCategory[] categories;
+	private final PackedBarcodeIndex index;
+	private final Map<Barcode, Integer> unpacked; // Barcodes too long to pack
+
+	/**
+	 * Creates a table in which every product is in the default category.
+	 *
+	 * @param categories
+	 *            The categories; the first is the default.
+	 * @throws SimulationException
+	 *             If categories is null or empty or any of its elements is null
+	 *             or repeated.
+	 */
+	public TaxTable(TaxCategory... categories) {
+		if(categories == null)
+			throw new SimulationException(new NullPointerException("categories is null"));
+
+		if(categories.length == 0)
+			throw new SimulationException(new IllegalArgumentException("There must be a default category."));
+
+		for(int i = 0; i < categories.length; i++) {
+			if(categories[i] == null)
+				throw new SimulationException(new NullPointerException("categories[" + i + "] is null"));
+
+			for(int j = 0; j < i; j++)
+				if(categories[j] == categories[i])
+					throw new SimulationException(new IllegalArgumentException("Duplicate category: " + categories[i]));
+		}
+
+		this.categories = categories.clone();
+		index = new PackedBarcodeIndex(16);
+		unpacked = new HashMap<>();
+	}
+
+	/**
+	 * Assigns a product to a category, replacing any earlier assignment.
+	 *
+	 * @param barcode
+	 *            The barcode of the product.
+	 * @param category
+	 *            One of the categories of this table.
+	 * @throws SimulationException
+	 *             If an argument is null or the category is not in this table.
+	 */
+	public void assign(Barcode barcode, TaxCategory category) {
+		if(barcode == null)
+			throw new SimulationException(new NullPointerException("barcode is null"));
+
+		int i = indexOf(category);
+		long packed = PackedBarcode.pack(barcode);
+
+		if(packed != PackedBarcode.NONE)
+			index.put(packed, i);
+		else
+			unpacked.put(barcode, i);
+	}
+
+	/**
+	 * Finds the category of a product. This does not allocate.
+	 *
+	 * @param barcode
+	 *            The barcode of the product.
+	 * @return The index of its category.
+	 */
+	public int categoryOf(Barcode barcode) {
+		long packed = PackedBarcode.pack(barcode);
+
+		if(packed != PackedBarcode.NONE) {
+			int i = index.get(packed);
+			return i == ProductCatalog.NOT_FOUND ? 0 : i;
+		}
+
+		Integer i = unpacked.get(barcode);
+		return i == null ? 0 : i;
+	}
+
+	/**
+	 * Gets the number of categories.
+	 *
+	 * @return The number of categories.
+	 */
+	public int size() {
+		return categories.length;
+	}
+
+	/**
+	 * Gets a category.
+	 *
+	 * @param index
+	 *            The index of the category, &ge;0 and &lt;{@link #size()}.
+	 * @return The category.
+	 */
+	public TaxCategory get(int index) {
+		return categories[index];
+	}
+
+	/**
+	 * Finds the index of a category.
+	 *
+	 * @param category
+	 *            The category.
+	 * @return Its index.
+	 * @throws SimulationException
+	 *             If category is null or not in this table.
+	 */
+	public int indexOf(TaxCategory category) {
+		if(category == null)
+			throw new SimulationException(new NullPointerException("category is null"));
+
+		for(int i = 0; i < categories.length; i++)
+			if(categories[i] == category)
+				return i;
+
+		throw new SimulationException(new IllegalArgumentException("The category " + category + " is not in this table."));
+	}
+}